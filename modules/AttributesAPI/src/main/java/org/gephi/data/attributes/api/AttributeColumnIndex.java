@@ -0,0 +1,173 @@
+/*
+Copyright 2008-2010 Gephi
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.data.attributes.api;
+
+/**
+ * Secondary index of the values of a column, which finds the rows having a
+ * value, or a value in a range, without reading all rows.
+ * <p>
+ * Columns of numbers (<code>BYTE</code>, <code>SHORT</code>, <code>INT</code>,
+ * <code>LONG</code>, <code>FLOAT</code>, <code>DOUBLE</code>,
+ * <code>BIGINTEGER</code> and <code>BIGDECIMAL</code>) have a sorted index,
+ * which supports range queries. Other columns have a hash index. Rows with a
+ * <code>null</code> value aren't indexed.
+ * <p>
+ * The index is updated each time a value of the column is set, so it always
+ * reflects the current values. Rows are indexed until they are released by the
+ * table, which happens after their node or edge has been garbage collected.
+ * Results may therefore include rows of removed elements, users are expected to
+ * intersect them with the elements of their graph.
+ * <p>
+ * Indexes are created with {@link AttributeTable#createColumnIndex(AttributeColumn)}.
+ *
+ * @see AttributeTable
+ */
+public interface AttributeColumnIndex {
+
+    /**
+     * Returns the column this index belongs.
+     *
+     * @return  the column this index belongs
+     */
+    public AttributeColumn getColumn();
+
+    /**
+     * Returns <code>true</code> if this index is sorted and supports range
+     * queries.
+     *
+     * @return  <code>true</code> if values are sorted, <code>false</code> otherwise
+     */
+    public boolean isSorted();
+
+    /**
+     * Returns the number of distinct values.
+     *
+     * @return  the number of distinct non-null values
+     */
+    public int countValues();
+
+    /**
+     * Returns the number of indexed rows.
+     *
+     * @return  the number of rows with a non-null value
+     */
+    public int countRows();
+
+    /**
+     * Returns the number of rows with the given value.
+     *
+     * @param value     the value that is to be counted
+     * @return          the number of rows with <code>value</code>
+     */
+    public int countRows(Object value);
+
+    /**
+     * Returns the distinct values, in ascending order if this index is sorted.
+     *
+     * @return  the distinct non-null values
+     */
+    public Object[] getValues();
+
+    /**
+     * Returns the smallest value, or <code>null</code> if the index is empty.
+     *
+     * @return  the smallest value or <code>null</code>
+     * @throws UnsupportedOperationException if this index isn't sorted
+     */
+    public Object getMinValue();
+
+    /**
+     * Returns the greatest value, or <code>null</code> if the index is empty.
+     *
+     * @return  the greatest value or <code>null</code>
+     * @throws UnsupportedOperationException if this index isn't sorted
+     */
+    public Object getMaxValue();
+
+    /**
+     * Returns the rows with the given value. For sorted indexes, integers are
+     * compared by their long value and other numbers of another type than the
+     * column by their double value.
+     *
+     * @param value     the value that is to be searched
+     * @return          the rows with <code>value</code>, in no particular order
+     */
+    public AttributeRow[] getRows(Object value);
+
+    /**
+     * Returns the rows whose value is between <code>min</code> and
+     * <code>max</code>, in logarithmic time plus the number of rows returned.
+     * Integers are compared by their long value and other numbers of another
+     * type than the column by their double value.
+     *
+     * @param min           the lower bound, or <code>null</code> for no lower bound
+     * @param minInclusive  <code>true</code> if rows equal to <code>min</code> are included
+     * @param max           the upper bound, or <code>null</code> for no upper bound
+     * @param maxInclusive  <code>true</code> if rows equal to <code>max</code> are included
+     * @return              the rows in the range, by ascending value
+     * @throws UnsupportedOperationException if this index isn't sorted
+     */
+    public AttributeRow[] getRows(Number min, boolean minInclusive, Number max, boolean maxInclusive);
+
+    /**
+     * Returns the rows with the given value as a set. Contrary to
+     * {@link #getRows(java.lang.Object)} rows aren't resolved, which makes it
+     * the cheaper query for testing many elements, like filters do.
+     *
+     * @param value     the value that is to be searched
+     * @return          the set of the rows with <code>value</code>
+     */
+    public AttributeRowSet getRowSet(Object value);
+
+    /**
+     * Returns the rows whose value is between <code>min</code> and
+     * <code>max</code> as a set. Bounds are compared as in
+     * {@link #getRows(java.lang.Number, boolean, java.lang.Number, boolean)}.
+     *
+     * @param min           the lower bound, or <code>null</code> for no lower bound
+     * @param minInclusive  <code>true</code> if rows equal to <code>min</code> are included
+     * @param max           the upper bound, or <code>null</code> for no upper bound
+     * @param maxInclusive  <code>true</code> if rows equal to <code>max</code> are included
+     * @return              the set of the rows in the range
+     * @throws UnsupportedOperationException if this index isn't sorted
+     */
+    public AttributeRowSet getRowSet(Number min, boolean minInclusive, Number max, boolean maxInclusive);
+}
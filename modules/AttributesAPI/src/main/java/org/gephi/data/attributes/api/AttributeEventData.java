@@ -41,6 +41,8 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.data.attributes.api;
 
+import java.util.BitSet;
+
 /**
  * Data associated with an attribute event.
  * 
@@ -79,4 +81,27 @@ public interface AttributeEventData {
      * @return the new values set with the <code>SET_VALUE</code> event.
      */
     public AttributeValue[] getTouchedValues();
+
+    /**
+     * Returns the column whose values have been modified, if this event has been
+     * sent by a batch.
+     * @return the modified column, or <code>null</code> if this event isn't
+     *         a batch event
+     * @see AttributeModel#beginBatch()
+     */
+    public AttributeColumn getChangedColumn();
+
+    /**
+     * Returns the indexes of the rows whose value in <code>getChangedColumn()</code>
+     * has been modified, if this event has been sent by a batch. Rows are
+     * retrieved with {@link AttributeTable#getRow(int)}.
+     * <p>
+     * For batch events, <code>getTouchedValues()</code> and
+     * <code>getTouchedObjects()</code> are built from these rows on the first
+     * call, with their current values.
+     * @return the indexes of the modified rows, or <code>null</code> if this
+     *         event isn't a batch event
+     * @see AttributeRow#getIndex()
+     */
+    public BitSet getChangedRows();
 }
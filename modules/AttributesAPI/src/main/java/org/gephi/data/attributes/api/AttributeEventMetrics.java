@@ -0,0 +1,100 @@
+/*
+Copyright 2008-2010 Gephi
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.data.attributes.api;
+
+/**
+ * Live metrics of the attribute events of a model: how many events are fired
+ * and delivered, and how long listeners take to process them. Values are read
+ * when the methods are called.
+ * <p>
+ * A growing event rate with a large average listener time shows listeners
+ * which can't keep up, value changes should then be batched with
+ * {@link AttributeModel#beginBatch()}.
+ *
+ * @see AttributeModel#getEventMetrics()
+ */
+public interface AttributeEventMetrics {
+
+    /**
+     * Returns the number of events fired since the model was created. A batch
+     * fires an event per modified column.
+     *
+     * @return      the number of fired events
+     */
+    public long getFiredEventCount();
+
+    /**
+     * Returns the number of value changes sent in batches.
+     *
+     * @return      the number of batched changes
+     */
+    public long getBatchedChangeCount();
+
+    /**
+     * Returns the number of events delivered to listeners, after consecutive
+     * events of the same type have been compressed.
+     *
+     * @return      the number of delivered events
+     */
+    public long getDeliveredEventCount();
+
+    /**
+     * Returns the number of events fired per second, averaged since the
+     * previous measure. The measure is refreshed at most once per second.
+     *
+     * @return      the event rate, in events per second
+     */
+    public double getEventRate();
+
+    /**
+     * Returns the average time listeners took to process an event.
+     *
+     * @return      the average listener time, in milliseconds
+     */
+    public double getAverageListenerTime();
+
+    /**
+     * Returns the longest time a listener took to process an event.
+     *
+     * @return      the maximum listener time, in milliseconds
+     */
+    public double getMaxListenerTime();
+}
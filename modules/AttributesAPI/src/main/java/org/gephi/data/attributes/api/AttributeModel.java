@@ -135,6 +135,46 @@ public interface AttributeModel {
      */
     public void removeAttributeListener(AttributeListener listener);
 
+    /**
+     * Starts a batch of value changes on the current thread. Until the batch is
+     * committed, values set by this thread don't send an event each. Instead,
+     * {@link #commitBatch()} sends one <code>SET_VALUE</code> event per modified
+     * column, with the indexes of the modified rows, see
+     * {@link AttributeEventData#getChangedRows()}.
+     * <p>
+     * Batches can be nested, events are sent when the outermost batch is
+     * committed. Values of dynamic columns aren't batched and still send an
+     * event each, as listeners need the previous values.
+     * <p>
+     * Always commit the batch in a <code>finally</code> block:
+     * <pre>
+     * model.beginBatch();
+     * try {
+     *     //Set values
+     * } finally {
+     *     model.commitBatch();
+     * }
+     * </pre>
+     */
+    public void beginBatch();
+
+    /**
+     * Commits the batch started on the current thread with {@link #beginBatch()}.
+     *
+     * @throws IllegalStateException if no batch has been started on this thread
+     */
+    public void commitBatch();
+
+    /**
+     * Returns the metrics of the events of this model, such as the event rate
+     * and the time listeners take. The returned object is live, its values
+     * change as events are fired and delivered.
+     *
+     * @return      the event metrics, or <code>null</code> if this model
+     *              doesn't send events
+     */
+    public AttributeEventMetrics getEventMetrics();
+
     /**
      * Merge <code>model</code> in this model. Makes the union of tables and
      * columns of both models. Copy tables this model don't
@@ -167,6 +167,153 @@ public interface AttributeRow extends Attributes {
      */
     public Object getValue(int index);
 
+    /**
+     * Returns <code>true</code> if the value at the specified column is
+     * <code>null</code> or if the column doesn't exist.
+     *
+     * @param column    a column that exists for this row
+     * @return          <code>true</code> if there is no value, <code>false</code>
+     *                  otherwise
+     */
+    public boolean isNull(AttributeColumn column);
+
+    /**
+     * Returns the number at the specified column as a <code>double</code>,
+     * without boxing. Returns <code>0</code> if the value is <code>null</code>,
+     * use {@link #isNull(AttributeColumn)} to distinguish.
+     *
+     * @param column    a column of numbers that exists for this row
+     * @return          the value converted to <code>double</code>
+     * @throws IllegalArgumentException if the value isn't a number
+     */
+    public double getDouble(AttributeColumn column);
+
+    /**
+     * Returns the number at the specified column as a <code>float</code>,
+     * without boxing. Returns <code>0</code> if the value is <code>null</code>.
+     *
+     * @param column    a column of numbers that exists for this row
+     * @return          the value converted to <code>float</code>
+     * @throws IllegalArgumentException if the value isn't a number
+     */
+    public float getFloat(AttributeColumn column);
+
+    /**
+     * Returns the number at the specified column as an <code>int</code>,
+     * without boxing. Returns <code>0</code> if the value is <code>null</code>.
+     *
+     * @param column    a column of numbers that exists for this row
+     * @return          the value converted to <code>int</code>
+     * @throws IllegalArgumentException if the value isn't a number
+     */
+    public int getInt(AttributeColumn column);
+
+    /**
+     * Returns the number at the specified column as a <code>long</code>,
+     * without boxing. Returns <code>0</code> if the value is <code>null</code>.
+     *
+     * @param column    a column of numbers that exists for this row
+     * @return          the value converted to <code>long</code>
+     * @throws IllegalArgumentException if the value isn't a number
+     */
+    public long getLong(AttributeColumn column);
+
+    /**
+     * Returns the boolean at the specified column. Returns <code>false</code>
+     * if the value is <code>null</code>.
+     *
+     * @param column    a boolean column that exists for this row
+     * @return          the value
+     * @throws IllegalArgumentException if the value isn't a boolean
+     */
+    public boolean getBoolean(AttributeColumn column);
+
+    /**
+     * Same as <code>getDouble(AttributeColumn)</code>, for the column at
+     * <code>index</code>.
+     *
+     * @param index     a valid column index
+     * @return          the value converted to <code>double</code>
+     */
+    public double getDouble(int index);
+
+    /**
+     * Same as <code>getFloat(AttributeColumn)</code>, for the column at
+     * <code>index</code>.
+     *
+     * @param index     a valid column index
+     * @return          the value converted to <code>float</code>
+     */
+    public float getFloat(int index);
+
+    /**
+     * Same as <code>getInt(AttributeColumn)</code>, for the column at
+     * <code>index</code>.
+     *
+     * @param index     a valid column index
+     * @return          the value converted to <code>int</code>
+     */
+    public int getInt(int index);
+
+    /**
+     * Same as <code>getLong(AttributeColumn)</code>, for the column at
+     * <code>index</code>.
+     *
+     * @param index     a valid column index
+     * @return          the value converted to <code>long</code>
+     */
+    public long getLong(int index);
+
+    /**
+     * Sets a number at the specified column, without boxing. The column type
+     * must be <code>BYTE</code>, <code>SHORT</code>, <code>INT</code>,
+     * <code>LONG</code>, <code>FLOAT</code> or <code>DOUBLE</code> and
+     * <code>value</code> is converted to it like a Java cast.
+     *
+     * @param column    a column of numbers that exists for this row
+     * @param value     the value to set
+     * @throws IllegalArgumentException if the column doesn't exist or isn't of
+     *                  a primitive number type
+     */
+    public void setDouble(AttributeColumn column, double value);
+
+    /**
+     * Sets a number at the specified column, without boxing. See
+     * {@link #setDouble(AttributeColumn, double)}.
+     *
+     * @param column    a column of numbers that exists for this row
+     * @param value     the value to set
+     */
+    public void setFloat(AttributeColumn column, float value);
+
+    /**
+     * Sets a number at the specified column, without boxing. See
+     * {@link #setDouble(AttributeColumn, double)}.
+     *
+     * @param column    a column of numbers that exists for this row
+     * @param value     the value to set
+     */
+    public void setInt(AttributeColumn column, int value);
+
+    /**
+     * Sets a number at the specified column, without boxing. See
+     * {@link #setDouble(AttributeColumn, double)}.
+     *
+     * @param column    a column of numbers that exists for this row
+     * @param value     the value to set
+     */
+    public void setLong(AttributeColumn column, long value);
+
+    /**
+     * Sets a boolean at the specified column.
+     *
+     * @param column    a <code>BOOLEAN</code> column that exists for this row
+     * @param value     the value to set
+     * @throws IllegalArgumentException if the column doesn't exist or isn't a
+     *                  boolean column
+     */
+    public void setBoolean(AttributeColumn column, boolean value);
+
     /**
      * Returns the value array. Each <code>AttributeValue</code> is a pair between
      * a data and the column it belongs.
@@ -189,4 +336,12 @@ public interface AttributeRow extends Attributes {
      * @return AttributeColumn at given index or null if the index is not valid
      */
     public AttributeColumn getColumnAt(int index);
+
+    /**
+     * Returns the index of this row in its table. Indexes of rows which are
+     * garbage collected are reused by new rows.
+     * @return the index of this row
+     * @see AttributeTable#getRow(int)
+     */
+    public int getIndex();
 }
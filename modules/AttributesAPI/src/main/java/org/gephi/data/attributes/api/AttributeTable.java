@@ -41,6 +41,7 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.data.attributes.api;
 
+import java.util.BitSet;
 import org.gephi.data.attributes.spi.AttributeValueDelegateProvider;
 import org.gephi.data.properties.PropertiesColumn;
 
@@ -189,6 +190,16 @@ public interface AttributeTable {
      */
     public boolean hasColumn(String title);
 
+    /**
+     * Returns the row at <code>index</code>, or <code>null</code> if no row
+     * has this index.
+     *
+     * @param index         the index of the row
+     * @return              the row, or <code>null</code> if not found
+     * @see AttributeRow#getIndex()
+     */
+    public AttributeRow getRow(int index);
+
     /**
      * Merge this table with the given <code>table</code> given. New columns from
      * <code>table</code> are added to this table. 
@@ -200,4 +211,104 @@ public interface AttributeTable {
      * @param table         the table that is to be merged with this table
      */
     public void mergeTable(AttributeTable table);
+
+    /**
+     * Reads the values of a column of numbers for several rows at once, without
+     * boxing. The value of <code>rows[i]</code> is put in <code>values[i]</code>,
+     * converted like a Java cast, or <code>0</code> if it is <code>null</code>.
+     *
+     * @param column        a column of numbers of this table
+     * @param rows          rows of this table
+     * @param values        the destination array, at least as long as <code>rows</code>
+     * @return              the positions in <code>rows</code> whose value is <code>null</code>
+     * @throws IllegalArgumentException if the column or a row isn't in this table,
+     *                      or if the column isn't a column of numbers
+     */
+    public BitSet readColumn(AttributeColumn column, AttributeRow[] rows, double[] values);
+
+    /**
+     * See {@link #readColumn(AttributeColumn, AttributeRow[], double[])}.
+     */
+    public BitSet readColumn(AttributeColumn column, AttributeRow[] rows, float[] values);
+
+    /**
+     * See {@link #readColumn(AttributeColumn, AttributeRow[], double[])}.
+     */
+    public BitSet readColumn(AttributeColumn column, AttributeRow[] rows, int[] values);
+
+    /**
+     * See {@link #readColumn(AttributeColumn, AttributeRow[], double[])}.
+     */
+    public BitSet readColumn(AttributeColumn column, AttributeRow[] rows, long[] values);
+
+    /**
+     * Writes the values of a column of numbers for several rows at once, without
+     * boxing. <code>values[i]</code> is set to <code>rows[i]</code>, converted to
+     * the column type like a Java cast. The column type must be <code>BYTE</code>,
+     * <code>SHORT</code>, <code>INT</code>, <code>LONG</code>, <code>FLOAT</code>
+     * or <code>DOUBLE</code>.
+     * <p>
+     * Changed values are sent in a single batch event, see
+     * {@link AttributeModel#beginBatch()}. Columns with the
+     * <code>COMPUTED</code> origin don't send events and are written directly.
+     *
+     * @param column        a column of numbers of this table
+     * @param rows          rows of this table
+     * @param values        the values, at least as many as <code>rows</code>
+     * @throws IllegalArgumentException if the column or a row isn't in this table,
+     *                      or if the column isn't of a primitive number type
+     */
+    public void writeColumn(AttributeColumn column, AttributeRow[] rows, double[] values);
+
+    /**
+     * See {@link #writeColumn(AttributeColumn, AttributeRow[], double[])}.
+     */
+    public void writeColumn(AttributeColumn column, AttributeRow[] rows, float[] values);
+
+    /**
+     * See {@link #writeColumn(AttributeColumn, AttributeRow[], double[])}.
+     */
+    public void writeColumn(AttributeColumn column, AttributeRow[] rows, int[] values);
+
+    /**
+     * See {@link #writeColumn(AttributeColumn, AttributeRow[], double[])}.
+     */
+    public void writeColumn(AttributeColumn column, AttributeRow[] rows, long[] values);
+
+    /**
+     * Creates a secondary index on <code>column</code>, or returns the existing
+     * one. The index is built from the current values and then maintained on
+     * each value change, until it is removed or the column is removed. Indexes
+     * cost memory and slow down writes, they should be created for columns
+     * queried repeatedly, like the column of a filter.
+     * <p>
+     * Indexes are shared and counted: each call must be paired with a call to
+     * {@link #removeColumnIndex(AttributeColumn)} once the index isn't used
+     * anymore.
+     *
+     * @param column        a column of this table
+     * @return              the index of <code>column</code>
+     * @throws IllegalArgumentException if the column isn't in this table or if
+     *                      it is a delegate column
+     * @see AttributeColumnIndex
+     */
+    public AttributeColumnIndex createColumnIndex(AttributeColumn column);
+
+    /**
+     * Returns the index of <code>column</code>, or <code>null</code> if the
+     * column isn't indexed.
+     *
+     * @param column        a column of this table
+     * @return              the index of the column, or <code>null</code>
+     */
+    public AttributeColumnIndex getColumnIndex(AttributeColumn column);
+
+    /**
+     * Releases an index returned by {@link #createColumnIndex(AttributeColumn)}.
+     * The index is removed when it has been released as many times as it has
+     * been created.
+     *
+     * @param column        a column of this table
+     */
+    public void removeColumnIndex(AttributeColumn column);
 }
@@ -43,7 +43,6 @@ package org.gephi.data.attributes.type;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.Hashtable;
 import java.util.List;
 import org.gephi.data.attributes.api.Estimator;
 
@@ -145,63 +144,39 @@ public final class DynamicBigDecimal extends DynamicType<BigDecimal> {
 	}
 	
 	@Override
-	public BigDecimal getValue(Interval interval, Estimator estimator) {
-		List<BigDecimal> values = getValues(interval);
-		if (values.isEmpty())
-			return null;
-
+	protected BigDecimal estimate(Window<BigDecimal> window, Estimator estimator) {
 		switch (estimator) {
 			case AVERAGE:
-				if (values.size() == 1)
-					return values.get(0);
+				if (window.size() == 1)
+					return valueAt(window.first());
 				BigDecimal total = new BigDecimal(0);
-				for (int i = 0; i < values.size(); ++i)
-					total = total.add(values.get(i));
-				return total.divide(BigDecimal.valueOf(values.size()), RoundingMode.HALF_UP);
+				for (int i = window.first(); i >= 0; i = window.next(i))
+					total = total.add(valueAt(i));
+				return total.divide(BigDecimal.valueOf(window.size()), RoundingMode.HALF_UP);
 			case MEDIAN:
-				if (values.size() % 2 == 1)
-					return values.get(values.size() / 2);
-				BigDecimal bd = values.get(values.size() / 2 - 1);
-				bd = bd.add(values.get(values.size() / 2));
+				int median = window.median();
+				if (window.size() % 2 == 1)
+					return valueAt(median);
+				BigDecimal bd = valueAt(median);
+				bd = bd.add(valueAt(window.next(median)));
 				return bd.divide(new BigDecimal(2));
-			case MODE:
-				Hashtable<Integer, Integer> map =
-						new Hashtable<Integer, Integer>();
-				for (int i = 0; i < values.size(); ++i) {
-					int prev = 0;
-					if (map.containsKey(values.get(i).hashCode()))
-						prev = map.get(values.get(i).hashCode());
-					map.put(values.get(i).hashCode(), prev + 1);
-				}
-				int max   = map.get(values.get(0).hashCode());
-				int index = 0;
-				for (int i = 1; i < values.size(); ++i)
-					if (max < map.get(values.get(i).hashCode())) {
-						max   = map.get(values.get(i).hashCode());
-						index = i;
-					}
-				return values.get(index);
 			case SUM:
 				BigDecimal sum = new BigDecimal(0);
-				for (int i = 0; i < values.size(); ++i)
-					sum = sum.add(values.get(i));
+				for (int i = window.first(); i >= 0; i = window.next(i))
+					sum = sum.add(valueAt(i));
 				return sum;
 			case MIN:
-				BigDecimal minimum = values.get(0);
-				for (int i = 1; i < values.size(); ++i)
-					if (minimum.compareTo(values.get(i)) > 0)
-						minimum = values.get(i);
+				BigDecimal minimum = valueAt(window.first());
+				for (int i = window.next(window.first()); i >= 0; i = window.next(i))
+					if (minimum.compareTo(valueAt(i)) > 0)
+						minimum = valueAt(i);
 				return minimum;
 			case MAX:
-				BigDecimal maximum = values.get(0);
-				for (int i = 1; i < values.size(); ++i)
-					if (maximum.compareTo(values.get(i)) < 0)
-						maximum = values.get(i);
+				BigDecimal maximum = valueAt(window.first());
+				for (int i = window.next(window.first()); i >= 0; i = window.next(i))
+					if (maximum.compareTo(valueAt(i)) < 0)
+						maximum = valueAt(i);
 				return maximum;
-			case FIRST:
-				return values.get(0);
-			case LAST:
-				return values.get(values.size() - 1);
 			default:
 				throw new IllegalArgumentException("Unknown estimator.");
 		}
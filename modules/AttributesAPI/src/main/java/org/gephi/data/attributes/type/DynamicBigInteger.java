@@ -42,7 +42,6 @@ Portions Copyrighted 2011 Gephi Consortium.
 package org.gephi.data.attributes.type;
 
 import java.math.BigInteger;
-import java.util.Hashtable;
 import java.util.List;
 import org.gephi.data.attributes.api.Estimator;
 
@@ -144,63 +143,39 @@ public final class DynamicBigInteger extends DynamicType<BigInteger> {
 	}
 
 	@Override
-	public BigInteger getValue(Interval interval, Estimator estimator) {
-		List<BigInteger> values = getValues(interval);
-		if (values.isEmpty())
-			return null;
-
+	protected BigInteger estimate(Window<BigInteger> window, Estimator estimator) {
 		switch (estimator) {
 			case AVERAGE:
-				if (values.size() == 1)
-					return values.get(0);
+				if (window.size() == 1)
+					return valueAt(window.first());
 				BigInteger total = BigInteger.valueOf(0);
-				for (int i = 0; i < values.size(); ++i)
-					total = total.add(values.get(i));
-				return total.divide(BigInteger.valueOf(values.size()));
+				for (int i = window.first(); i >= 0; i = window.next(i))
+					total = total.add(valueAt(i));
+				return total.divide(BigInteger.valueOf(window.size()));
 			case MEDIAN:
-				if (values.size() % 2 == 1)
-					return values.get(values.size() / 2);
-				BigInteger bi = values.get(values.size() / 2 - 1);
-				bi = bi.add(values.get(values.size() / 2));
+				int median = window.median();
+				if (window.size() % 2 == 1)
+					return valueAt(median);
+				BigInteger bi = valueAt(median);
+				bi = bi.add(valueAt(window.next(median)));
 				return bi.divide(BigInteger.valueOf(2));
-			case MODE:
-				Hashtable<Integer, Integer> map =
-						new Hashtable<Integer, Integer>();
-				for (int i = 0; i < values.size(); ++i) {
-					int prev = 0;
-					if (map.containsKey(values.get(i).hashCode()))
-						prev = map.get(values.get(i).hashCode());
-					map.put(values.get(i).hashCode(), prev + 1);
-				}
-				int max   = map.get(values.get(0).hashCode());
-				int index = 0;
-				for (int i = 1; i < values.size(); ++i)
-					if (max < map.get(values.get(i).hashCode())) {
-						max   = map.get(values.get(i).hashCode());
-						index = i;
-					}
-				return values.get(index);
 			case SUM:
 				BigInteger sum = BigInteger.valueOf(0);
-				for (int i = 0; i < values.size(); ++i)
-					sum = sum.add(values.get(i));
+				for (int i = window.first(); i >= 0; i = window.next(i))
+					sum = sum.add(valueAt(i));
 				return sum;
 			case MIN:
-				BigInteger minimum = values.get(0);
-				for (int i = 1; i < values.size(); ++i)
-					if (minimum.compareTo(values.get(i)) > 0)
-						minimum = values.get(i);
+				BigInteger minimum = valueAt(window.first());
+				for (int i = window.next(window.first()); i >= 0; i = window.next(i))
+					if (minimum.compareTo(valueAt(i)) > 0)
+						minimum = valueAt(i);
 				return minimum;
 			case MAX:
-				BigInteger maximum = values.get(0);
-				for (int i = 1; i < values.size(); ++i)
-					if (maximum.compareTo(values.get(i)) < 0)
-						maximum = values.get(i);
+				BigInteger maximum = valueAt(window.first());
+				for (int i = window.next(window.first()); i >= 0; i = window.next(i))
+					if (maximum.compareTo(valueAt(i)) < 0)
+						maximum = valueAt(i);
 				return maximum;
-			case FIRST:
-				return values.get(0);
-			case LAST:
-				return values.get(values.size() - 1);
 			default:
 				throw new IllegalArgumentException("Unknown estimator.");
 		}
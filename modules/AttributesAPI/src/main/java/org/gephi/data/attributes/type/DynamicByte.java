@@ -41,8 +41,6 @@ Portions Copyrighted 2011 Gephi Consortium.
 */
 package org.gephi.data.attributes.type;
 
-import java.math.BigInteger;
-import java.util.Hashtable;
 import java.util.List;
 import org.gephi.data.attributes.api.Estimator;
 
@@ -144,66 +142,22 @@ public final class DynamicByte extends DynamicType<Byte> {
 	}
 
 	@Override
-	public Byte getValue(Interval interval, Estimator estimator) {
-		List<Byte> values = getValues(interval);
-		if (values.isEmpty())
-			return null;
-
+	protected Byte estimate(Window<Byte> window, Estimator estimator) {
 		switch (estimator) {
 			case AVERAGE:
-				if (values.size() == 1)
-					return values.get(0);
-				BigInteger total = BigInteger.valueOf(0);
-				for (int i = 0; i < values.size(); ++i)
-					total = total.add(BigInteger.valueOf(values.get(i)));
-				return total.divide(BigInteger.valueOf(values.size())).byteValue();
+				return (byte) (window.sumOfLongs() / window.size());
 			case MEDIAN:
-				if (values.size() % 2 == 1)
-					return values.get(values.size() / 2);
-				BigInteger bi = BigInteger.valueOf(values.get(
-								values.size() / 2 - 1));
-				bi = bi.add(BigInteger.valueOf(values.get(values.size() / 2)));
-				return bi.divide(BigInteger.valueOf(2)).byteValue();
-			case MODE:
-				Hashtable<Integer, Integer> map =
-						new Hashtable<Integer, Integer>();
-				for (int i = 0; i < values.size(); ++i) {
-					int prev = 0;
-					if (map.containsKey(values.get(i).hashCode()))
-						prev = map.get(values.get(i).hashCode());
-					map.put(values.get(i).hashCode(), prev + 1);
-				}
-				int max   = map.get(values.get(0).hashCode());
-				int index = 0;
-				for (int i = 1; i < values.size(); ++i)
-					if (max < map.get(values.get(i).hashCode())) {
-						max   = map.get(values.get(i).hashCode());
-						index = i;
-					}
-				return values.get(index);
+				int median = window.median();
+				if (window.size() % 2 == 1)
+					return valueAt(median);
+				return (byte) ((window.longValue(median) +
+						window.longValue(window.next(median))) / 2);
 			case SUM:
-				BigInteger sum = BigInteger.valueOf(0);
-				for (int i = 0; i < values.size(); ++i)
-					sum = sum.add(BigInteger.valueOf(values.get(i)));
-				return sum.byteValue();
+				return (byte) window.sumOfLongs();
 			case MIN:
-				BigInteger minimum = BigInteger.valueOf(values.get(0));
-				for (int i = 1; i < values.size(); ++i)
-					if (minimum.compareTo(BigInteger.valueOf(
-							values.get(i))) > 0)
-						minimum = BigInteger.valueOf(values.get(i));
-				return minimum.byteValue();
+				return (byte) window.minOfLongs();
 			case MAX:
-				BigInteger maximum = BigInteger.valueOf(values.get(0));
-				for (int i = 1; i < values.size(); ++i)
-					if (maximum.compareTo(BigInteger.valueOf(
-							values.get(i))) < 0)
-						maximum = BigInteger.valueOf(values.get(i));
-				return maximum.byteValue();
-			case FIRST:
-				return values.get(0);
-			case LAST:
-				return values.get(values.size() - 1);
+				return (byte) window.maxOfLongs();
 			default:
 				throw new IllegalArgumentException("Unknown estimator.");
 		}
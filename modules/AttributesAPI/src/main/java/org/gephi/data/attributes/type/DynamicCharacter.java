@@ -41,7 +41,6 @@ Portions Copyrighted 2011 Gephi Consortium.
 */
 package org.gephi.data.attributes.type;
 
-import java.util.Hashtable;
 import java.util.List;
 import org.gephi.data.attributes.api.Estimator;
 
@@ -144,55 +143,28 @@ public final class DynamicCharacter extends DynamicType<Character> {
 	}
 
 	@Override
-	public Character getValue(Interval interval, Estimator estimator) {
-		List<Character> values = getValues(interval);
-		if (values.isEmpty())
-			return null;
-
+	protected Character estimate(Window<Character> window, Estimator estimator) {
 		switch (estimator) {
 			case AVERAGE:
 				throw new UnsupportedOperationException(
 							"Not supported estimator");
 			case MEDIAN:
-				if (values.size() % 2 == 1)
-					return values.get(values.size() / 2);
-				return values.get(values.size() / 2 - 1);
-			case MODE:
-				Hashtable<Integer, Integer> map =
-						new Hashtable<Integer, Integer>();
-				for (int i = 0; i < values.size(); ++i) {
-					int prev = 0;
-					if (map.containsKey(values.get(i).hashCode()))
-						prev = map.get(values.get(i).hashCode());
-					map.put(values.get(i).hashCode(), prev + 1);
-				}
-				int max   = map.get(values.get(0).hashCode());
-				int index = 0;
-				for (int i = 1; i < values.size(); ++i)
-					if (max < map.get(values.get(i).hashCode())) {
-						max   = map.get(values.get(i).hashCode());
-						index = i;
-					}
-				return values.get(index);
+				return valueAt(window.median());
 			case SUM:
 				throw new UnsupportedOperationException(
 							"Not supported estimator");
 			case MIN:
-				Character minimum = values.get(0);
-				for (int i = 1; i < values.size(); ++i)
-					if (minimum.compareTo(values.get(i)) > 0)
-						minimum = values.get(i);
+				Character minimum = valueAt(window.first());
+				for (int i = window.next(window.first()); i >= 0; i = window.next(i))
+					if (minimum.compareTo(valueAt(i)) > 0)
+						minimum = valueAt(i);
 				return minimum;
 			case MAX:
-				Character maximum = values.get(0);
-				for (int i = 1; i < values.size(); ++i)
-					if (maximum.compareTo(values.get(i)) < 0)
-						maximum = values.get(i);
+				Character maximum = valueAt(window.first());
+				for (int i = window.next(window.first()); i >= 0; i = window.next(i))
+					if (maximum.compareTo(valueAt(i)) < 0)
+						maximum = valueAt(i);
 				return maximum;
-			case FIRST:
-				return values.get(0);
-			case LAST:
-				return values.get(values.size() - 1);
 			default:
 				throw new IllegalArgumentException("Unknown estimator.");
 		}
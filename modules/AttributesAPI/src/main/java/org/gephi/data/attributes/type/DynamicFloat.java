@@ -41,9 +41,6 @@ Portions Copyrighted 2011 Gephi Consortium.
 */
 package org.gephi.data.attributes.type;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.Hashtable;
 import java.util.List;
 import org.gephi.data.attributes.api.Estimator;
 
@@ -145,64 +142,22 @@ public final class DynamicFloat extends DynamicType<Float> {
 	}
 
 	@Override
-	public Float getValue(Interval interval, Estimator estimator) {
-		List<Float> values = getValues(interval);
-		if (values.isEmpty())
-			return null;
-
+	protected Float estimate(Window<Float> window, Estimator estimator) {
 		switch (estimator) {
 			case AVERAGE:
-				if (values.size() == 1)
-					return values.get(0);
-				BigDecimal total = new BigDecimal(0);
-				for (int i = 0; i < values.size(); ++i)
-					total = total.add(BigDecimal.valueOf(values.get(i).doubleValue()));
-				return total.divide(BigDecimal.valueOf((long)values.size()), 10, RoundingMode.HALF_EVEN).floatValue();
+				return (float) (window.sumOfDoubles() / window.size());
 			case MEDIAN:
-				if (values.size() % 2 == 1)
-					return values.get(values.size() / 2);
-				BigDecimal bd = new BigDecimal(
-						values.get(values.size() / 2 - 1));
-				bd = bd.add(new BigDecimal(values.get(values.size() / 2)));
-				return bd.divide(new BigDecimal(2)).floatValue();
-			case MODE:
-				Hashtable<Integer, Integer> map =
-						new Hashtable<Integer, Integer>();
-				for (int i = 0; i < values.size(); ++i) {
-					int prev = 0;
-					if (map.containsKey(values.get(i).hashCode()))
-						prev = map.get(values.get(i).hashCode());
-					map.put(values.get(i).hashCode(), prev + 1);
-				}
-				int max   = map.get(values.get(0).hashCode());
-				int index = 0;
-				for (int i = 1; i < values.size(); ++i)
-					if (max < map.get(values.get(i).hashCode())) {
-						max   = map.get(values.get(i).hashCode());
-						index = i;
-					}
-				return values.get(index);
+				int median = window.median();
+				if (window.size() % 2 == 1)
+					return valueAt(median);
+				return (float) ((window.doubleValue(median) +
+						window.doubleValue(window.next(median))) / 2);
 			case SUM:
-				BigDecimal sum = new BigDecimal(0);
-				for (int i = 0; i < values.size(); ++i)
-					sum = sum.add(new BigDecimal(values.get(i)));
-				return sum.floatValue();
+				return (float) window.sumOfDoubles();
 			case MIN:
-				BigDecimal minimum = new BigDecimal(values.get(0));
-				for (int i = 1; i < values.size(); ++i)
-					if (minimum.compareTo(new BigDecimal(values.get(i))) > 0)
-						minimum = new BigDecimal(values.get(i));
-				return minimum.floatValue();
+				return (float) window.minOfDoubles();
 			case MAX:
-				BigDecimal maximum = new BigDecimal(values.get(0));
-				for (int i = 1; i < values.size(); ++i)
-					if (maximum.compareTo(new BigDecimal(values.get(i))) < 0)
-						maximum = new BigDecimal(values.get(i));
-				return maximum.floatValue();
-			case FIRST:
-				return values.get(0);
-			case LAST:
-				return values.get(values.size() - 1);
+				return (float) window.maxOfDoubles();
 			default:
 				throw new IllegalArgumentException("Unknown estimator.");
 		}
@@ -42,7 +42,6 @@ Portions Copyrighted 2011 Gephi Consortium.
 package org.gephi.data.attributes.type;
 
 import java.math.BigInteger;
-import java.util.Hashtable;
 import java.util.List;
 import org.gephi.data.attributes.api.Estimator;
 
@@ -144,71 +143,50 @@ public final class DynamicLong extends DynamicType<Long> {
 	}
 
 	@Override
-	public Long getValue(Interval interval, Estimator estimator) {
-		List<Long> values = getValues(interval);
-		if (values.isEmpty())
-			return null;
-
+	protected Long estimate(Window<Long> window, Estimator estimator) {
 		switch (estimator) {
 			case AVERAGE:
-				if (values.size() == 1)
-					return values.get(0);
-				BigInteger total = BigInteger.valueOf(0);
-				for (int i = 0; i < values.size(); ++i)
-					total = total.add(BigInteger.valueOf(values.get(i)));
-				return total.divide(BigInteger.valueOf(values.size())).longValue();
-			case MEDIAN:
-				if (values.size() % 2 == 1)
-					return values.get(values.size() / 2);
-				BigInteger bi = BigInteger.valueOf(values.get(
-								values.size() / 2 - 1));
-				bi = bi.add(BigInteger.valueOf(values.get(values.size() / 2)));
-				return bi.divide(BigInteger.valueOf(2)).longValue();
-			case MODE:
-				Hashtable<Integer, Integer> map =
-						new Hashtable<Integer, Integer>();
-				for (int i = 0; i < values.size(); ++i) {
-					int prev = 0;
-					if (map.containsKey(values.get(i).hashCode()))
-						prev = map.get(values.get(i).hashCode());
-					map.put(values.get(i).hashCode(), prev + 1);
+				long total = 0;
+				for (int i = window.first(); i >= 0; i = window.next(i)) {
+					long value = window.longValue(i);
+					long sum   = total + value;
+					if (((total ^ sum) & (value ^ sum)) < 0) // overflow
+						return average(window);
+					total = sum;
 				}
-				int max   = map.get(values.get(0).hashCode());
-				int index = 0;
-				for (int i = 1; i < values.size(); ++i)
-					if (max < map.get(values.get(i).hashCode())) {
-						max   = map.get(values.get(i).hashCode());
-						index = i;
-					}
-				return values.get(index);
+				return total / window.size();
+			case MEDIAN:
+				int median = window.median();
+				if (window.size() % 2 == 1)
+					return valueAt(median);
+				long a = window.longValue(median);
+				long b = window.longValue(window.next(median));
+				long sum = a + b;
+				if (((a ^ sum) & (b ^ sum)) < 0)
+					return BigInteger.valueOf(a).add(BigInteger.valueOf(b)).
+							divide(BigInteger.valueOf(2)).longValue();
+				return sum / 2;
 			case SUM:
-				BigInteger sum = BigInteger.valueOf(0);
-				for (int i = 0; i < values.size(); ++i)
-					sum = sum.add(BigInteger.valueOf(values.get(i)));
-				return sum.longValue();
+				return window.sumOfLongs();
 			case MIN:
-				BigInteger minimum = BigInteger.valueOf(values.get(0));
-				for (int i = 1; i < values.size(); ++i)
-					if (minimum.compareTo(BigInteger.valueOf(
-							values.get(i))) > 0)
-						minimum = BigInteger.valueOf(values.get(i));
-				return minimum.longValue();
+				return window.minOfLongs();
 			case MAX:
-				BigInteger maximum = BigInteger.valueOf(values.get(0));
-				for (int i = 1; i < values.size(); ++i)
-					if (maximum.compareTo(BigInteger.valueOf(
-							values.get(i))) < 0)
-						maximum = BigInteger.valueOf(values.get(i));
-				return maximum.longValue();
-			case FIRST:
-				return values.get(0);
-			case LAST:
-				return values.get(values.size() - 1);
+				return window.maxOfLongs();
 			default:
 				throw new IllegalArgumentException("Unknown estimator.");
 		}
 	}
 
+	/*
+	 * Average of values whose sum overflows.
+	 */
+	private static long average(Window<Long> window) {
+		BigInteger total = BigInteger.valueOf(0);
+		for (int i = window.first(); i >= 0; i = window.next(i))
+			total = total.add(BigInteger.valueOf(window.longValue(i)));
+		return total.divide(BigInteger.valueOf(window.size())).longValue();
+	}
+
 	@Override
 	public Class getUnderlyingType() {
 		return Long.class;
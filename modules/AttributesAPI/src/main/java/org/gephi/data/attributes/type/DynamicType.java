@@ -42,25 +42,52 @@ Portions Copyrighted 2011 Gephi Consortium.
 package org.gephi.data.attributes.type;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Hashtable;
 import java.util.List;
 import org.gephi.data.attributes.api.Estimator;
 
 /**
  * A special type which provides methods of getting/setting values of any time
- * interval. It is internally implemented using Interval Tree for efficiency.
+ * interval. Instances are immutable, intervals are internally stored in a
+ * compact {@link IntervalArray} shared by copies. Estimated values are
+ * computed without building lists of values, and the last one is kept so
+ * that querying the same time interval again is free.
+ *
+ * <p>Subclasses used to get the {@code IntervalTree intervalTree} field, it is
+ * now the {@code IntervalArray intervals} field. {@link #getIntervalTree()}
+ * still returns the intervals as an {@code IntervalTree}, as a copy.
  *
  * @author Cezary Bartosiak
  * 
  * @param <T> type of data
  */
 public abstract class DynamicType<T> {
-	protected IntervalTree<T> intervalTree;
+	protected IntervalArray<T> intervals;
+	private volatile Window<T> lastWindow;
 
 	/**
 	 * Constructs a new {@code DynamicType} instance with no intervals.
 	 */
 	public DynamicType() {
-		intervalTree = new IntervalTree<T>();
+		intervals = IntervalArray.empty();
+	}
+
+	/**
+	 * Returns a new {@code IntervalTree} with the intervals of this instance.
+	 * Changes to the returned tree aren't reflected in this instance.
+	 *
+	 * @return a new {@code IntervalTree} with the intervals of this instance.
+	 *
+	 * @deprecated intervals are stored in the {@link #intervals} array, which
+	 *             can be searched without copying them
+	 */
+	@Deprecated
+	protected IntervalTree<T> getIntervalTree() {
+		IntervalTree<T> intervalTree = new IntervalTree<T>();
+		for (Interval<T> interval : intervals.getIntervals())
+			intervalTree.insert(interval);
+		return intervalTree;
 	}
 
 	/**
@@ -72,7 +99,7 @@ public abstract class DynamicType<T> {
 	public DynamicType(Interval<T> in) {
 		this();
 		if (in != null)
-			intervalTree.insert(in);
+			intervals = intervals.modify(Collections.singletonList(in), null);
 	}
 
 	/**
@@ -83,9 +110,7 @@ public abstract class DynamicType<T> {
 	 */
 	public DynamicType(List<Interval<T>> in) {
 		this();
-		if (in != null)
-			for (Interval<T> interval : in)
-				intervalTree.insert(interval);
+		intervals = intervals.modify(in, null);
 	}
 
 	/**
@@ -96,8 +121,8 @@ public abstract class DynamicType<T> {
 	 */
 	public DynamicType(DynamicType<T> source) {
 		if (source == null)
-			intervalTree = new IntervalTree<T>();
-		else intervalTree = new IntervalTree<T>(source.intervalTree);
+			intervals = IntervalArray.empty();
+		else intervals = source.intervals;
 	}
 
 	/**
@@ -111,7 +136,7 @@ public abstract class DynamicType<T> {
 	public DynamicType(DynamicType<T> source, Interval<T> in) {
 		this(source);
 		if (in != null)
-			intervalTree.insert(in);
+			intervals = intervals.modify(Collections.singletonList(in), null);
 	}
 
 	/**
@@ -126,10 +151,9 @@ public abstract class DynamicType<T> {
 	 */
 	public DynamicType(DynamicType<T> source, Interval<T> in, Interval<T> out) {
 		this(source);
-		if (out != null)
-			intervalTree.delete(out);
-		if (in != null)
-			intervalTree.insert(in);
+		intervals = intervals.modify(
+				in != null ? Collections.singletonList(in) : null,
+				out != null ? Collections.singletonList(out) : null);
 	}
 
 	/**
@@ -142,9 +166,7 @@ public abstract class DynamicType<T> {
 	 */
 	public DynamicType(DynamicType<T> source, List<Interval<T>> in) {
 		this(source);
-		if (in != null)
-			for (Interval<T> interval : in)
-				intervalTree.insert(interval);
+		intervals = intervals.modify(in, null);
 	}
 
 	/**
@@ -160,12 +182,7 @@ public abstract class DynamicType<T> {
 	 */
 	public DynamicType(DynamicType<T> source, List<Interval<T>> in, List<Interval<T>> out) {
 		this(source);
-		if (out != null)
-			for (Interval<T> interval : out)
-				intervalTree.delete(interval);
-		if (in != null)
-			for (Interval<T> interval : in)
-				intervalTree.insert(interval);
+		intervals = intervals.modify(in, out);
 	}
 
 	/**
@@ -175,7 +192,7 @@ public abstract class DynamicType<T> {
 	 * @return the leftmost point.
 	 */
 	public double getLow() {
-		return intervalTree.getLow();
+		return intervals.getLow();
 	}
 
 	/**
@@ -185,7 +202,7 @@ public abstract class DynamicType<T> {
 	 * @return the rightmost point.
 	 */
 	public double getHigh() {
-		return intervalTree.getHigh();
+		return intervals.getHigh();
 	}
 
 	/**
@@ -195,7 +212,7 @@ public abstract class DynamicType<T> {
 	 *         {@code false} otherwise.
 	 */
 	public boolean isLowExcluded() {
-		return intervalTree.isLowExcluded();
+		return intervals.isLowExcluded();
 	}
 
 	/**
@@ -205,7 +222,7 @@ public abstract class DynamicType<T> {
 	 *         {@code false} otherwise.
 	 */
 	public boolean isHighExcluded() {
-		return intervalTree.isHighExcluded();
+		return intervals.isHighExcluded();
 	}
 
 	/**
@@ -217,7 +234,7 @@ public abstract class DynamicType<T> {
 	 *         instance, otherwise {@code false}.
 	 */
 	public boolean isInRange(Interval interval) {
-		return intervalTree.overlapsWith(interval);
+		return intervals.overlapsWith(interval);
 	}
 
 	/**
@@ -237,7 +254,7 @@ public abstract class DynamicType<T> {
 						"The left endpoint of the interval must be less than " +
 						"the right endpoint.");
 
-		return intervalTree.overlapsWith(new Interval(low, high));
+		return intervals.overlapsWith(low, high, false, false);
 	}
 
 	/**
@@ -329,7 +346,11 @@ public abstract class DynamicType<T> {
 	 *
 	 * @see Estimator
 	 */
-	public abstract T getValue(Interval interval, Estimator estimator);
+	public T getValue(Interval interval, Estimator estimator) {
+		return getValue(interval.getLow(), interval.getHigh(),
+						interval.isLowExcluded(), interval.isHighExcluded(),
+						estimator);
+	}
 
 	/**
 	 * Returns the estimated value of a set of values whose time intervals
@@ -355,7 +376,273 @@ public abstract class DynamicType<T> {
 						"The left endpoint of the interval must be less than " +
 						"the right endpoint.");
 
-		return getValue(new Interval(low, high, false, false), estimator);
+		return getValue(low, high, false, false, estimator);
+	}
+
+	/*
+	 * Estimates the value of the given window, or returns the value of the
+	 * last estimated window if it is the same. The timeline queries the same
+	 * windows of all the values again and again, when it's being played or
+	 * when the graph is redrawn.
+	 */
+	private T getValue(double low, double high, boolean lopen, boolean ropen,
+			Estimator estimator) {
+		Window<T> window = lastWindow;
+		if (window != null && window.matches(low, high, lopen, ropen, estimator))
+			return copy(window.value);
+
+		window = new Window<T>(intervals, low, high, lopen, ropen, estimator);
+		T value;
+		if (window.first() < 0)
+			value = null;
+		else {
+			switch (estimator) {
+				case MODE:
+					value = mode(window);
+					break;
+				case FIRST:
+					value = valueAt(window.first());
+					break;
+				case LAST:
+					value = valueAt(window.last());
+					break;
+				default:
+					value = estimate(window, estimator);
+			}
+		}
+		window.value = value;
+		lastWindow = window;
+		return copy(value);
+	}
+
+	/**
+	 * Returns the estimated value of the values of the given window, which
+	 * overlaps with at least one interval. {@code Estimator.MODE},
+	 * {@code Estimator.FIRST} and {@code Estimator.LAST} are estimated by
+	 * {@code DynamicType} itself.
+	 *
+	 * <p>This is the extension point of subclasses, which read the values of
+	 * the window with {@link #valueAt(int)}. Subclasses can also override
+	 * {@link #getValue(Interval, Estimator)} instead, like before.
+	 *
+	 * @param window    the intervals overlapping with the queried interval
+	 * @param estimator used to estimate the result
+	 *
+	 * @return the estimated value.
+	 *
+	 * @throws UnsupportedOperationException if type {@code T} doesn't support
+	 *                                       the given {@code estimator}, what
+	 *                                       this implementation always throws.
+	 */
+	protected T estimate(Window<T> window, Estimator estimator) {
+		throw new UnsupportedOperationException(
+				"Estimator " + estimator + " isn't supported.");
+	}
+
+	/**
+	 * Returns the value of the interval at {@code index}.
+	 *
+	 * @param index the index of an interval, as given by a {@code Window}
+	 *
+	 * @return the value of the interval at {@code index}.
+	 */
+	protected T valueAt(int index) {
+		return intervals.getValue(index);
+	}
+
+	/**
+	 * Returns the value to give to the caller for an estimated value, which
+	 * is kept in the last window. Mutable values have to be copied.
+	 */
+	T copy(T value) {
+		return value;
+	}
+
+	/**
+	 * Returns the value found the most times in the given window, values
+	 * being compared with their hashcodes. In case of equality the first
+	 * one is returned.
+	 */
+	T mode(Window<T> window) {
+		Hashtable<Integer, Integer> map = new Hashtable<Integer, Integer>();
+		for (int i = window.first(); i >= 0; i = window.next(i)) {
+			Integer hash = valueAt(i).hashCode();
+			Integer prev = map.get(hash);
+			map.put(hash, prev != null ? prev + 1 : 1);
+		}
+		int max   = 0;
+		int index = -1;
+		for (int i = window.first(); i >= 0; i = window.next(i)) {
+			int count = map.get(valueAt(i).hashCode());
+			if (max < count) {
+				max   = count;
+				index = i;
+			}
+		}
+		return valueAt(index);
+	}
+
+	/**
+	 * The intervals overlapping with a queried interval and the value
+	 * estimated for them. Indexes of the overlapping intervals are found
+	 * while iterating, so that no list is built.
+	 *
+	 * @param <T> type of data
+	 */
+	public static final class Window<T> {
+		private final IntervalArray<T> intervals;
+		private final double    low;
+		private final double    high;
+		private final boolean   lopen;
+		private final boolean   ropen;
+		private final Estimator estimator;
+		private final int       from;
+		private final int       end;
+		private int    size = -1;
+		private T      value;
+
+		Window(IntervalArray<T> intervals, double low, double high,
+				boolean lopen, boolean ropen, Estimator estimator) {
+			this.intervals = intervals;
+			this.low       = low;
+			this.high      = high;
+			this.lopen     = lopen;
+			this.ropen     = ropen;
+			this.estimator = estimator;
+			from = intervals.first(low);
+			end  = intervals.end(high);
+		}
+
+		boolean matches(double low, double high, boolean lopen, boolean ropen,
+				Estimator estimator) {
+			return this.low == low && this.high == high && this.lopen == lopen &&
+					this.ropen == ropen && this.estimator == estimator;
+		}
+
+		/**
+		 * Returns the index of the first overlapping interval, or -1 if there
+		 * is none.
+		 */
+		public int first() {
+			return next(from - 1);
+		}
+
+		/**
+		 * Returns the index of the overlapping interval after the one at
+		 * {@code index}, or -1 if there is none.
+		 */
+		public int next(int index) {
+			for (int i = index + 1; i < end; ++i)
+				if (intervals.overlaps(i, low, high, lopen, ropen))
+					return i;
+			return -1;
+		}
+
+		/**
+		 * Returns the index of the last overlapping interval, or -1 if there
+		 * is none.
+		 */
+		public int last() {
+			for (int i = end - 1; i >= from; --i)
+				if (intervals.overlaps(i, low, high, lopen, ropen))
+					return i;
+			return -1;
+		}
+
+		/**
+		 * Returns the number of overlapping intervals.
+		 */
+		public int size() {
+			if (size < 0) {
+				size = 0;
+				for (int i = first(); i >= 0; i = next(i))
+					++size;
+			}
+			return size;
+		}
+
+		/**
+		 * Returns the index of the {@code n}-th overlapping interval.
+		 */
+		public int get(int n) {
+			int i = first();
+			while (n-- > 0)
+				i = next(i);
+			return i;
+		}
+
+		/**
+		 * Returns the index of the overlapping interval in the middle, the
+		 * first one of the two in the middle if their number is even.
+		 */
+		public int median() {
+			return get((size() - 1) / 2);
+		}
+
+		double sumOfDoubles() {
+			// Neumaier's summation, so that the rounding errors of big
+			// windows don't add up
+			double sum = 0.0;
+			double c   = 0.0;
+			for (int i = first(); i >= 0; i = next(i)) {
+				double v = intervals.doubleValue(i);
+				double t = sum + v;
+				if (Math.abs(sum) >= Math.abs(v))
+					c += (sum - t) + v;
+				else c += (v - t) + sum;
+				sum = t;
+			}
+			return sum + c;
+		}
+
+		double minOfDoubles() {
+			int i = first();
+			double min = intervals.doubleValue(i);
+			while ((i = next(i)) >= 0)
+				if (min > intervals.doubleValue(i))
+					min = intervals.doubleValue(i);
+			return min;
+		}
+
+		double maxOfDoubles() {
+			int i = first();
+			double max = intervals.doubleValue(i);
+			while ((i = next(i)) >= 0)
+				if (max < intervals.doubleValue(i))
+					max = intervals.doubleValue(i);
+			return max;
+		}
+
+		long sumOfLongs() {
+			long sum = 0;
+			for (int i = first(); i >= 0; i = next(i))
+				sum += intervals.longValue(i);
+			return sum;
+		}
+
+		long minOfLongs() {
+			int i = first();
+			long min = intervals.longValue(i);
+			while ((i = next(i)) >= 0)
+				min = Math.min(min, intervals.longValue(i));
+			return min;
+		}
+
+		long maxOfLongs() {
+			int i = first();
+			long max = intervals.longValue(i);
+			while ((i = next(i)) >= 0)
+				max = Math.max(max, intervals.longValue(i));
+			return max;
+		}
+
+		double doubleValue(int index) {
+			return intervals.doubleValue(index);
+		}
+
+		long longValue(int index) {
+			return intervals.longValue(index);
+		}
 	}
 
 	/**
@@ -393,9 +680,14 @@ public abstract class DynamicType<T> {
 	 *         given time interval.
 	 */
 	public List<T> getValues(Interval interval) {
+		double low   = interval.getLow();
+		double high  = interval.getHigh();
+		boolean lopen = interval.isLowExcluded();
+		boolean ropen = interval.isHighExcluded();
 		List<T> result = new ArrayList<T>();
-		for (Interval<T> i : intervalTree.search(interval))
-			result.add(i.getValue());
+		for (int i = intervals.first(low), end = intervals.end(high); i < end; ++i)
+			if (intervals.overlaps(i, low, high, lopen, ropen))
+				result.add(intervals.getValue(i));
 		return result;
 	}
         
@@ -405,7 +697,7 @@ public abstract class DynamicType<T> {
 	 * @return a list of intervals which overlap with a given time interval.
 	 */
 	public List<Interval<T>> getIntervals() {
-		return intervalTree.getIntervals();
+		return intervals.getIntervals();
 	}
 
 	/**
@@ -416,7 +708,7 @@ public abstract class DynamicType<T> {
 	 * @return a list of intervals which overlap with a given time interval.
 	 */
 	public List<Interval<T>> getIntervals(Interval interval) {
-		return intervalTree.search(interval);
+		return intervals.search(interval);
 	}
 
 	/**
@@ -432,7 +724,7 @@ public abstract class DynamicType<T> {
 	 * @throws IllegalArgumentException if {@code low} > {@code high}.
 	 */
 	public List<Interval<T>> getIntervals(double low, double high) {
-		return intervalTree.search(low, high);
+		return intervals.search(low, high);
 	}
 
 	/**
@@ -446,20 +738,20 @@ public abstract class DynamicType<T> {
 	 * Compares this instance with the specified object for equality.
 	 *
 	 * <p>Note that two {@code DynamicType} instances are equal if they have got
-	 * the same type {@code T} and their interval trees are equal.
+	 * the same type {@code T} and their intervals are equal.
 	 *
 	 * @param obj object to which this instance is to be compared
 	 *
 	 * @return {@code true} if and only if the specified {@code Object} is a
-	 *         {@code DynamicType} which has the same type {@code T} and an
-	 *         equal interval tree.
+	 *         {@code DynamicType} which has the same type {@code T} and
+	 *         equal intervals.
 	 * 
 	 * @see #hashCode
 	 */
 	@Override
 	public boolean equals(Object obj) {
 		if (obj != null && obj.getClass().equals(this.getClass()) &&
-				((DynamicType<T>)obj).intervalTree.equals(intervalTree))
+				((DynamicType<T>)obj).intervals.equals(intervals))
 			return true;
 		return false;
 	}
@@ -471,7 +763,7 @@ public abstract class DynamicType<T> {
 	 */
 	@Override
 	public int hashCode() {
-		return intervalTree.hashCode();
+		return intervals.hashCode();
 	}
 
 	/**
@@ -482,7 +774,7 @@ public abstract class DynamicType<T> {
 	 * @return a string representation with times as doubles or dates.
 	 */
 	public String toString(boolean timesAsDoubles) {
-		return intervalTree.toString(timesAsDoubles);
+		return intervals.toString(timesAsDoubles);
 	}
 
 	/**
@@ -494,6 +786,6 @@ public abstract class DynamicType<T> {
 	 */
 	@Override
 	public String toString() {
-		return intervalTree.toString();
+		return intervals.toString();
 	}
 }
@@ -0,0 +1,561 @@
+/*
+Copyright 2008-2010 Gephi
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.data.attributes.type;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable and compact storage of intervals, used by {@link DynamicType}.
+ *
+ * <p>Intervals are kept in parallel arrays sorted by their left endpoint,
+ * in the order of the {@link IntervalTree} they are built from. Values are
+ * stored unboxed when they are all {@code Double}, {@code Float},
+ * {@code Long}, {@code Integer}, {@code Short} or {@code Byte}. Intervals
+ * overlapping with a given interval are found with a binary search on left
+ * endpoints and on the maximum right endpoint seen so far, so they can be
+ * listed in <i>O</i>(lg <i>n</i> + <i>k</i>) time for non-overlapping
+ * intervals, <i>k</i> being the number of intervals in the output.
+ *
+ * <p>An interval takes around 17 bytes with a primitive value, instead of
+ * more than 100 bytes in an {@code IntervalTree}.
+ *
+ *
+ * @param <T> type of data
+ */
+public final class IntervalArray<T> {
+	private static final byte LOW_EXCLUDED  = 1;
+	private static final byte HIGH_EXCLUDED = 2;
+
+	private final double[] lows;
+	private final double[] highs;
+	private final double[] maxHighs; // the maximum right endpoint up to each index,
+									 // null if right endpoints are sorted
+	private final byte[]   flags;    // excluded endpoints, null if all are included
+	private final double[] doubles;  // Double and Float values
+	private final long[]   longs;    // Long, Integer, Short and Byte values
+	private final Object[] objects;  // other values
+	private final Class<?> valueType;
+
+	/**
+	 * Constructs an {@code IntervalArray} with the intervals of the given
+	 * {@code IntervalTree}.
+	 *
+	 * @param intervalTree the intervals to copy
+	 */
+	public IntervalArray(IntervalTree<T> intervalTree) {
+		this(intervalTree.getIntervals());
+	}
+
+	/*
+	 * Intervals must be in the order of an interval tree.
+	 */
+	private IntervalArray(List<Interval<T>> intervals) {
+		int size = intervals.size();
+		lows  = new double[size];
+		highs = new double[size];
+		byte[] excluded = null;
+		double[] max = null;
+		for (int i = 0; i < size; ++i) {
+			Interval<T> interval = intervals.get(i);
+			lows[i]  = interval.getLow();
+			highs[i] = interval.getHigh();
+			if (interval.isLowExcluded() || interval.isHighExcluded()) {
+				if (excluded == null)
+					excluded = new byte[size];
+				excluded[i] = (byte) ((interval.isLowExcluded() ? LOW_EXCLUDED : 0) |
+						(interval.isHighExcluded() ? HIGH_EXCLUDED : 0));
+			}
+			if (max == null && i > 0 && highs[i] < highs[i - 1]) {
+				max = new double[size];
+				max[0] = highs[0];
+				for (int j = 1; j < i; ++j)
+					max[j] = Math.max(max[j - 1], highs[j]);
+			}
+			if (max != null)
+				max[i] = Math.max(max[i - 1], highs[i]);
+		}
+		flags = excluded;
+		maxHighs = max;
+
+		Class<?> type = size > 0 && intervals.get(0).getValue() != null ?
+				intervals.get(0).getValue().getClass() : null;
+		for (int i = 1; i < size && type != null; ++i) {
+			Object value = intervals.get(i).getValue();
+			if (value == null || value.getClass() != type)
+				type = null;
+		}
+		if (type == Double.class || type == Float.class) {
+			doubles = new double[size];
+			for (int i = 0; i < size; ++i)
+				doubles[i] = ((Number) intervals.get(i).getValue()).doubleValue();
+			longs   = null;
+			objects = null;
+		}
+		else if (type == Long.class || type == Integer.class ||
+				type == Short.class || type == Byte.class) {
+			longs = new long[size];
+			for (int i = 0; i < size; ++i)
+				longs[i] = ((Number) intervals.get(i).getValue()).longValue();
+			doubles = null;
+			objects = null;
+		}
+		else {
+			objects = new Object[size];
+			for (int i = 0; i < size; ++i)
+				objects[i] = intervals.get(i).getValue();
+			doubles = null;
+			longs   = null;
+		}
+		valueType = type;
+	}
+
+	/**
+	 * Returns an empty {@code IntervalArray}.
+	 *
+	 * @return an empty {@code IntervalArray}.
+	 */
+	public static <T> IntervalArray<T> empty() {
+		return new IntervalArray<T>(new ArrayList<Interval<T>>(0));
+	}
+
+	/**
+	 * Returns a copy of this array without the intervals overlapping with
+	 * {@code out} and with the intervals of {@code in}. Intervals appended
+	 * after the last left endpoint are copied at the end of the arrays,
+	 * others go through an {@code IntervalTree}.
+	 *
+	 * @param in  intervals to add (could be null)
+	 * @param out intervals to remove (could be null)
+	 *
+	 * @return a new {@code IntervalArray}, or this one if there is nothing
+	 *         to add or remove.
+	 */
+	IntervalArray<T> modify(List<Interval<T>> in, List<Interval<T>> out) {
+		boolean noOut = out == null || out.isEmpty();
+		if (noOut && (in == null || in.isEmpty()))
+			return this;
+		if (noOut) {
+			boolean append = true;
+			double last = isEmpty() ? Double.NEGATIVE_INFINITY : lows[size() - 1];
+			for (int i = 0; i < in.size() && append; ++i) {
+				append = in.get(i).getLow() > last || isEmpty() && i == 0;
+				last = in.get(i).getLow();
+			}
+			if (append) {
+				List<Interval<T>> list = getIntervals();
+				list.addAll(in);
+				return new IntervalArray<T>(list);
+			}
+		}
+		IntervalTree<T> tree = new IntervalTree<T>();
+		for (int i = 0; i < size(); ++i)
+			tree.insert(getInterval(i));
+		if (out != null)
+			for (Interval<T> interval : out)
+				tree.delete(interval);
+		if (in != null)
+			for (Interval<T> interval : in)
+				tree.insert(interval);
+		return new IntervalArray<T>(tree);
+	}
+
+	/**
+	 * Returns the number of intervals.
+	 *
+	 * @return the number of intervals.
+	 */
+	public int size() {
+		return lows.length;
+	}
+
+	/**
+	 * Indicates if this {@code IntervalArray} contains 0 intervals.
+	 *
+	 * @return {@code true} if this {@code IntervalArray} is empty,
+	 *         {@code false} otherwise.
+	 */
+	public boolean isEmpty() {
+		return lows.length == 0;
+	}
+
+	public double getLow(int index) {
+		return lows[index];
+	}
+
+	public double getHigh(int index) {
+		return highs[index];
+	}
+
+	public boolean isLowExcluded(int index) {
+		return flags != null && (flags[index] & LOW_EXCLUDED) != 0;
+	}
+
+	public boolean isHighExcluded(int index) {
+		return flags != null && (flags[index] & HIGH_EXCLUDED) != 0;
+	}
+
+	/**
+	 * Returns the value of the interval at {@code index}, numbers stored
+	 * unboxed are boxed again.
+	 *
+	 * @param index the index of the interval
+	 *
+	 * @return the value of the interval at {@code index}.
+	 */
+	@SuppressWarnings("unchecked") // boxed again with the class of the stored T values
+	public T getValue(int index) {
+		Object value;
+		if (doubles != null) {
+			if (valueType == Float.class)
+				value = Float.valueOf((float) doubles[index]);
+			else value = Double.valueOf(doubles[index]);
+		}
+		else if (longs != null) {
+			if (valueType == Integer.class)
+				value = Integer.valueOf((int) longs[index]);
+			else if (valueType == Short.class)
+				value = Short.valueOf((short) longs[index]);
+			else if (valueType == Byte.class)
+				value = Byte.valueOf((byte) longs[index]);
+			else value = Long.valueOf(longs[index]);
+		}
+		else value = objects[index];
+		return (T) value;
+	}
+
+	/**
+	 * Returns the value of the interval at {@code index} as a
+	 * {@code double}, without boxing numbers stored unboxed.
+	 */
+	double doubleValue(int index) {
+		if (doubles != null)
+			return doubles[index];
+		if (longs != null)
+			return longs[index];
+		return ((Number) objects[index]).doubleValue();
+	}
+
+	/**
+	 * Returns the value of the interval at {@code index} as a
+	 * {@code long}, without boxing numbers stored unboxed.
+	 */
+	long longValue(int index) {
+		if (longs != null)
+			return longs[index];
+		if (doubles != null)
+			return (long) doubles[index];
+		return ((Number) objects[index]).longValue();
+	}
+
+	/**
+	 * Returns the interval at {@code index}, as a new {@code Interval}.
+	 *
+	 * @param index the index of the interval
+	 *
+	 * @return the interval at {@code index}.
+	 */
+	public Interval<T> getInterval(int index) {
+		return new Interval<T>(lows[index], highs[index], isLowExcluded(index),
+				isHighExcluded(index), getValue(index));
+	}
+
+	/**
+	 * Returns the leftmost point or {@code Double.NEGATIVE_INFINITY} in case
+	 * of no intervals.
+	 *
+	 * @return the leftmost point.
+	 */
+	public double getLow() {
+		if (isEmpty())
+			return Double.NEGATIVE_INFINITY;
+		return lows[0];
+	}
+
+	/**
+	 * Returns the rightmost point or {@code Double.POSITIVE_INFINITY} in case
+	 * of no intervals.
+	 *
+	 * @return the rightmost point.
+	 */
+	public double getHigh() {
+		if (isEmpty())
+			return Double.POSITIVE_INFINITY;
+		return maxHighs != null ? maxHighs[size() - 1] : highs[size() - 1];
+	}
+
+	/**
+	 * Indicates if the left endpoint of the interval with the lowest left
+	 * endpoint is excluded.
+	 *
+	 * @return {@code true} if the leftmost point is excluded,
+	 *         {@code false} otherwise.
+	 */
+	public boolean isLowExcluded() {
+		if (isEmpty())
+			return true;
+		return isLowExcluded(0);
+	}
+
+	/**
+	 * Indicates if the right endpoint of the interval with the highest left
+	 * endpoint is excluded.
+	 *
+	 * @return {@code true} if the rightmost point is excluded,
+	 *         {@code false} otherwise.
+	 */
+	public boolean isHighExcluded() {
+		if (isEmpty())
+			return true;
+		return isHighExcluded(size() - 1);
+	}
+
+	/**
+	 * Returns the index of the first interval which can overlap with an
+	 * interval whose left endpoint is {@code low}. Intervals before it end
+	 * before {@code low}.
+	 */
+	int first(double low) {
+		double[] max = maxHighs != null ? maxHighs : highs;
+		int from = 0;
+		int to = max.length;
+		while (from < to) {
+			int mid = (from + to) >>> 1;
+			if (max[mid] < low)
+				from = mid + 1;
+			else to = mid;
+		}
+		return from;
+	}
+
+	/**
+	 * Returns the index after the last interval which can overlap with an
+	 * interval whose right endpoint is {@code high}. Intervals from it start
+	 * after {@code high}.
+	 */
+	int end(double high) {
+		int from = 0;
+		int to = lows.length;
+		while (from < to) {
+			int mid = (from + to) >>> 1;
+			if (lows[mid] <= high)
+				from = mid + 1;
+			else to = mid;
+		}
+		return from;
+	}
+
+	/**
+	 * Indicates if the interval at {@code index} overlaps with the given
+	 * interval, like {@link Interval#compareTo(Interval)}.
+	 */
+	boolean overlaps(int index, double low, double high, boolean lopen, boolean ropen) {
+		double l = lows[index];
+		double h = highs[index];
+		if (h < low || h <= low && (isHighExcluded(index) || lopen))
+			return false;
+		if (high < l || high <= l && (ropen || isLowExcluded(index)))
+			return false;
+		return true;
+	}
+
+	/**
+	 * Returns all intervals.
+	 *
+	 * @return all intervals.
+	 */
+	public List<Interval<T>> getIntervals() {
+		List<Interval<T>> list = new ArrayList<Interval<T>>(size() + 1);
+		for (int i = 0; i < size(); ++i)
+			list.add(getInterval(i));
+		return list;
+	}
+
+	/**
+	 * Returns all intervals overlapping with a given {@code Interval}.
+	 *
+	 * @param interval an {#code Interval} to be searched for overlaps
+	 *
+	 * @return all intervals overlapping with a given {@code Interval}.
+	 *
+	 * @throws NullPointerException if {@code interval} is null.
+	 */
+	public List<Interval<T>> search(Interval<?> interval) {
+		if (interval == null)
+			throw new NullPointerException("Interval cannot be null.");
+
+		return search(interval.getLow(), interval.getHigh(),
+				interval.isLowExcluded(), interval.isHighExcluded());
+	}
+
+	/**
+	 * Returns all intervals overlapping with an interval given by {@code low}
+	 * and {@code high}. They are considered as included by default.
+	 *
+	 * @param low  the left endpoint of an interval to be searched for overlaps
+	 * @param high the right endpoint an interval to be searched for overlaps
+	 *
+	 * @return all intervals overlapping with an interval given by {@code low}
+	 * and {@code high}.
+	 *
+	 * @throws IllegalArgumentException if {@code low} > {@code high}.
+	 */
+	public List<Interval<T>> search(double low, double high) {
+		if (low > high)
+			throw new IllegalArgumentException(
+						"The left endpoint of the interval must be less than " +
+						"the right endpoint.");
+
+		return search(low, high, false, false);
+	}
+
+	private List<Interval<T>> search(double low, double high, boolean lopen, boolean ropen) {
+		List<Interval<T>> overlaps = new ArrayList<Interval<T>>();
+		for (int i = first(low), end = end(high); i < end; ++i)
+			if (overlaps(i, low, high, lopen, ropen))
+				overlaps.add(getInterval(i));
+		return overlaps;
+	}
+
+	/**
+	 * Indicates if this {@code IntervalArray} overlaps with the given time interval.
+	 *
+	 * @param interval a given time interval
+	 *
+	 * @return {@code true} if this {@code IntervalArray} overlaps with {@code interval},
+	 *         {@code false} otherwise.
+	 */
+	public boolean overlapsWith(Interval<?> interval) {
+		return overlapsWith(interval.getLow(), interval.getHigh(),
+				interval.isLowExcluded(), interval.isHighExcluded());
+	}
+
+	boolean overlapsWith(double low, double high, boolean lopen, boolean ropen) {
+		for (int i = first(low), end = end(high); i < end; ++i)
+			if (overlaps(i, low, high, lopen, ropen))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Compares this interval array with the specified object for equality.
+	 *
+	 * <p>Note that two interval arrays are equal if they contain the same
+	 * intervals, values aren't compared like in {@link Interval#equals(Object)}.
+	 *
+	 * @param obj object to which this interval array is to be compared
+	 *
+	 * @return {@code true} if and only if the specified {@code Object} is an
+	 *         {@code IntervalArray} which contain the same intervals as this
+	 *         {@code IntervalArray's}.
+	 *
+	 * @see #hashCode
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (obj != null && obj.getClass().equals(this.getClass())) {
+			IntervalArray<?> array = (IntervalArray<?>) obj;
+			if (array.size() != size())
+				return false;
+			for (int i = 0; i < size(); ++i)
+				if (lows[i] != array.lows[i] || highs[i] != array.highs[i] ||
+						isLowExcluded(i) != array.isLowExcluded(i) ||
+						isHighExcluded(i) != array.isHighExcluded(i))
+					return false;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns a hashcode of this interval array, the same as the hashcode of
+	 * an {@code IntervalTree} with the same intervals.
+	 *
+	 * @return a hashcode of this interval array.
+	 */
+	@Override
+	public int hashCode() {
+		int result = 1;
+		for (int i = 0; i < size(); ++i) {
+			long lowBits  = Double.doubleToLongBits(lows[i]);
+			long highBits = Double.doubleToLongBits(highs[i]);
+			int hash = 7;
+			hash = 97 * hash + (int) (lowBits ^ (lowBits >>> 32));
+			hash = 97 * hash + (int) (highBits ^ (highBits >>> 32));
+			hash = 97 * hash + (isLowExcluded(i) ? 1 : 0);
+			hash = 97 * hash + (isHighExcluded(i) ? 1 : 0);
+			result = 31 * result + hash;
+		}
+		return result;
+	}
+
+	/**
+	 * Creates a string representation of all the intervals with their values.
+	 *
+	 * @param timesAsDoubles indicates if times should be shown as doubles or dates
+	 *
+	 * @return a string representation with times as doubles or dates.
+	 */
+	public String toString(boolean timesAsDoubles) {
+		if (!isEmpty()) {
+			StringBuilder sb = new StringBuilder("<");
+			sb.append(getInterval(0).toString(timesAsDoubles));
+			for (int i = 1; i < size(); ++i)
+				sb.append("; ").append(getInterval(i).toString(timesAsDoubles));
+			sb.append(">");
+			return sb.toString();
+		}
+		return "<empty>";
+	}
+
+	/**
+	 * Returns a string representation of this interval array in a format
+	 * {@code <[low, high, value], ..., [low, high, value]>}.
+	 *
+	 * <p>Times are always shown as doubles.</p>
+	 *
+	 * @return a string representation of this interval array.
+	 */
+	@Override
+	public String toString() {
+		return toString(true);
+	}
+}
@@ -42,7 +42,6 @@ Portions Copyrighted 2011 Gephi Consortium.
 package org.gephi.data.attributes.type;
 
 import java.util.ArrayList;
-import java.util.Hashtable;
 import java.util.List;
 import org.gephi.data.attributes.api.AttributeUtils;
 import org.gephi.data.attributes.api.Estimator;
@@ -216,36 +215,13 @@ public final class TimeInterval extends DynamicType<Double[]> {
 	}
 
 	@Override
-	public Double[] getValue(Interval interval, Estimator estimator) {
-		List<Double[]> values = getValues(interval);
-		if (values.isEmpty())
-			return null;
-
+	protected Double[] estimate(Window<Double[]> window, Estimator estimator) {
 		switch (estimator) {
 			case AVERAGE:
 				throw new UnsupportedOperationException(
 							"Not supported estimator");
 			case MEDIAN:
-				if (values.size() % 2 == 1)
-					return values.get(values.size() / 2);
-				return values.get(values.size() / 2 - 1);
-			case MODE:
-				Hashtable<Integer, Integer> map =
-						new Hashtable<Integer, Integer>();
-				for (int i = 0; i < values.size(); ++i) {
-					int prev = 0;
-					if (map.containsKey(values.get(i).hashCode()))
-						prev = map.get(values.get(i).hashCode());
-					map.put(values.get(i).hashCode(), prev + 1);
-				}
-				int max   = map.get(values.get(0).hashCode());
-				int index = 0;
-				for (int i = 1; i < values.size(); ++i)
-					if (max < map.get(values.get(i).hashCode())) {
-						max   = map.get(values.get(i).hashCode());
-						index = i;
-					}
-				return values.get(index);
+				return valueAt(window.median());
 			case SUM:
 				throw new UnsupportedOperationException(
 							"Not supported estimator");
@@ -255,20 +231,37 @@ public final class TimeInterval extends DynamicType<Double[]> {
 			case MAX:
 				throw new UnsupportedOperationException(
 							"Not supported estimator");
-			case FIRST:
-				return values.get(0);
-			case LAST:
-				return values.get(values.size() - 1);
 			default:
 				throw new IllegalArgumentException("Unknown estimator.");
 		}
 	}
 
+	@Override
+	Double[] mode(Window<Double[]> window) {
+		// Arrays have got identity hashcodes, so all values are different
+		return valueAt(window.first());
+	}
+
+	@Override
+	protected Double[] valueAt(int index) {
+		return new Double[] { intervals.getLow(index), intervals.getHigh(index) };
+	}
+
+	@Override
+	Double[] copy(Double[] value) {
+		return value != null ? value.clone() : null;
+	}
+
 	@Override
 	public List<Double[]> getValues(Interval interval) {
+		double low   = interval.getLow();
+		double high  = interval.getHigh();
+		boolean lopen = interval.isLowExcluded();
+		boolean ropen = interval.isHighExcluded();
 		List<Double[]> result = new ArrayList<Double[]>();
-		for (Interval<Double[]> i : intervalTree.search(interval))
-			result.add(new Double[] { i.getLow(), i.getHigh() });
+		for (int i = intervals.first(low), end = intervals.end(high); i < end; ++i)
+			if (intervals.overlaps(i, low, high, lopen, ropen))
+				result.add(new Double[] { intervals.getLow(i), intervals.getHigh(i) });
 		return result;
 	}
 
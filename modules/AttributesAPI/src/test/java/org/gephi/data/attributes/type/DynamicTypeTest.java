@@ -0,0 +1,322 @@
+/*
+Copyright 2008-2010 Gephi
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.data.attributes.type;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Random;
+import org.gephi.data.attributes.api.Estimator;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Checks the estimated values of dynamic types, and compares them with
+ * values estimated from the lists of overlapping values, like the
+ * estimators did before windows.
+ */
+public class DynamicTypeTest {
+
+    private static <T> List<Interval<T>> intervals(T... values) {
+        List<Interval<T>> in = new ArrayList<Interval<T>>();
+        for (int i = 0; i < values.length; i++) {
+            in.add(new Interval<T>(i, i + 1, false, true, values[i]));
+        }
+        return in;
+    }
+
+    @Test
+    public void testMedian() {
+        DynamicInteger odd = new DynamicInteger(intervals(5, 1, 9));
+        assertEquals(Integer.valueOf(1), odd.getValue(Estimator.MEDIAN));
+        DynamicInteger even = new DynamicInteger(intervals(5, 1, 8, 9));
+        assertEquals(Integer.valueOf(4), even.getValue(Estimator.MEDIAN));
+        DynamicDouble doubles = new DynamicDouble(intervals(5.0, 1.0, 8.0, 9.0));
+        assertEquals(4.5, doubles.getValue(Estimator.MEDIAN), 0.0);
+        assertEquals(8.0, doubles.getValue(1.5, 3.5, Estimator.MEDIAN), 0.0);
+        assertNull(doubles.getValue(10, 11, Estimator.MEDIAN));
+    }
+
+    @Test
+    public void testAverage() {
+        DynamicInteger ints = new DynamicInteger(intervals(1, 2, 4));
+        assertEquals(Integer.valueOf(2), ints.getValue(Estimator.AVERAGE));
+        DynamicInteger negative = new DynamicInteger(intervals(-1, -2, -4));
+        assertEquals(Integer.valueOf(-2), negative.getValue(Estimator.AVERAGE));
+        DynamicDouble doubles = new DynamicDouble(intervals(1.0, 2.0, 4.0));
+        assertEquals(7.0 / 3, doubles.getValue(Estimator.AVERAGE), 1e-15);
+        DynamicDouble big = new DynamicDouble(intervals(1e17, 1.0, -1e17));
+        assertEquals(1.0 / 3, big.getValue(Estimator.AVERAGE), 1e-15);
+    }
+
+    @Test
+    public void testLongOverflow() {
+        DynamicLong max = new DynamicLong(intervals(Long.MAX_VALUE, Long.MAX_VALUE - 2));
+        assertEquals(Long.valueOf(Long.MAX_VALUE - 1), max.getValue(Estimator.AVERAGE));
+        assertEquals(Long.valueOf(Long.MAX_VALUE - 1), max.getValue(Estimator.MEDIAN));
+        DynamicLong min = new DynamicLong(intervals(Long.MIN_VALUE, Long.MIN_VALUE + 2, Long.MIN_VALUE + 4));
+        assertEquals(Long.valueOf(Long.MIN_VALUE + 2), min.getValue(Estimator.AVERAGE));
+        DynamicLong mixed = new DynamicLong(intervals(Long.MAX_VALUE, 1L, Long.MIN_VALUE, -1L));
+        assertEquals(Long.valueOf(-1L / 4), mixed.getValue(Estimator.AVERAGE));
+        assertEquals(Long.valueOf(Long.MIN_VALUE / 2 + 1), mixed.getValue(1, 2.5, Estimator.MEDIAN));
+    }
+
+    @Test
+    public void testLastWindow() {
+        DynamicDouble doubles = new DynamicDouble(intervals(1.0, 2.0, 3.0));
+        assertEquals(2.5, doubles.getValue(1, 3, Estimator.AVERAGE), 0.0);
+        assertEquals(2.5, doubles.getValue(1, 3, Estimator.AVERAGE), 0.0);
+        assertEquals(5.0, doubles.getValue(1, 3, Estimator.SUM), 0.0);
+        assertEquals(2.0, doubles.getValue(0, 3, Estimator.AVERAGE), 0.0);
+
+        //Estimated arrays are copied, the kept one can't be modified
+        TimeInterval interval = new TimeInterval(0, 1);
+        Double[] first = interval.getValue(Estimator.FIRST);
+        first[0] = 10.0;
+        assertEquals(0.0, interval.getValue(Estimator.FIRST)[0], 0.0);
+        assertNotSame(first, interval.getValue(Estimator.FIRST));
+    }
+
+    @Test
+    public void testUnsupportedEstimator() {
+        DynamicString strings = new DynamicString(intervals("a", "b"));
+        assertEquals("a", strings.getValue(Estimator.FIRST));
+        try {
+            strings.getValue(Estimator.AVERAGE);
+            fail("AVERAGE of strings");
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+
+    @Test
+    public void testEstimateExtensionPoint() {
+        DynamicType<Integer> product = new DynamicType<Integer>(intervals(2, 3, 4)) {
+
+            @Override
+            protected Integer estimate(Window<Integer> window, Estimator estimator) {
+                if (estimator != Estimator.SUM) {
+                    return super.estimate(window, estimator);
+                }
+                int product = 1;
+                for (int i = window.first(); i >= 0; i = window.next(i)) {
+                    product *= valueAt(i);
+                }
+                return product;
+            }
+
+            @Override
+            public Class getUnderlyingType() {
+                return Integer.class;
+            }
+        };
+        assertEquals(Integer.valueOf(24), product.getValue(Estimator.SUM));
+        assertEquals(Integer.valueOf(3), product.getValue(0.5, 1.5, Estimator.LAST));
+        try {
+            product.getValue(Estimator.MIN);
+            fail("MIN isn't estimated");
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+
+    @Test
+    public void testRandomEstimates() {
+        Random random = new Random(42);
+        Estimator[] estimators = Estimator.values();
+        for (int test = 0; test < 100; test++) {
+            //Intervals with the same left endpoint are in insertion order,
+            //so the trees are built in the same order as the dynamic types
+            List<Interval<Long>> longIn = new ArrayList<Interval<Long>>();
+            List<Interval<Integer>> intIn = new ArrayList<Interval<Integer>>();
+            List<Interval<Double>> doubleIn = new ArrayList<Interval<Double>>();
+            int count = 1 + random.nextInt(30);
+            for (int i = 0; i < count; i++) {
+                double low = random.nextInt(100);
+                double high = low + random.nextInt(30);
+                boolean lopen = random.nextBoolean();
+                boolean ropen = random.nextBoolean() && high > low;
+                long value = random.nextInt(5) == 0 ? random.nextLong() : random.nextInt(10);
+                longIn.add(new Interval<Long>(low, high, lopen, ropen, value));
+                intIn.add(new Interval<Integer>(low, high, lopen, ropen, (int) value));
+                doubleIn.add(new Interval<Double>(low, high, lopen, ropen, value / 7.0));
+            }
+            IntervalTree<Long> longTree = tree(longIn);
+            IntervalTree<Integer> intTree = tree(intIn);
+            IntervalTree<Double> doubleTree = tree(doubleIn);
+            DynamicLong longs = new DynamicLong(longIn);
+            DynamicInteger ints = new DynamicInteger(intIn);
+            DynamicDouble doubles = new DynamicDouble(doubleIn);
+            for (int query = 0; query < 30; query++) {
+                double low = random.nextInt(120) - 10;
+                double high = low + random.nextInt(40);
+                Interval<Long> interval = new Interval<Long>(low, high);
+                for (Estimator estimator : estimators) {
+                    String message = estimator + " of " + interval + " in " + longs;
+                    assertEquals(message, estimate(values(longTree, low, high), estimator),
+                            longs.getValue(interval, estimator));
+                    Long expected = estimate(values(intTree, low, high), estimator);
+                    assertEquals(message, expected == null ? null : Integer.valueOf(expected.intValue()),
+                            ints.getValue(interval, estimator));
+                    Double expectedDouble = estimateDouble(values(doubleTree, low, high), estimator);
+                    Double actualDouble = doubles.getValue(interval, estimator);
+                    if (expectedDouble == null) {
+                        assertNull(message, actualDouble);
+                    } else {
+                        assertEquals(message, expectedDouble, actualDouble,
+                                Math.max(1e-9, Math.abs(expectedDouble) * 1e-12));
+                    }
+                }
+            }
+        }
+    }
+
+    private static <T> IntervalTree<T> tree(List<Interval<T>> intervals) {
+        IntervalTree<T> tree = new IntervalTree<T>();
+        for (Interval<T> interval : intervals) {
+            tree.insert(interval);
+        }
+        return tree;
+    }
+
+    private static <T> List<T> values(IntervalTree<T> tree, double low, double high) {
+        List<T> values = new ArrayList<T>();
+        for (Interval<T> interval : tree.search(low, high)) {
+            values.add(interval.getValue());
+        }
+        return values;
+    }
+
+    private static <T extends Number> Long estimate(List<T> values, Estimator estimator) {
+        if (values.isEmpty()) {
+            return null;
+        }
+        BigInteger total = BigInteger.ZERO;
+        BigInteger min = BigInteger.valueOf(values.get(0).longValue());
+        BigInteger max = min;
+        for (T value : values) {
+            BigInteger v = BigInteger.valueOf(value.longValue());
+            total = total.add(v);
+            min = min.min(v);
+            max = max.max(v);
+        }
+        int size = values.size();
+        switch (estimator) {
+            case AVERAGE:
+                return total.divide(BigInteger.valueOf(size)).longValue();
+            case MEDIAN:
+                if (size % 2 == 1) {
+                    return values.get(size / 2).longValue();
+                }
+                return BigInteger.valueOf(values.get(size / 2 - 1).longValue()).
+                        add(BigInteger.valueOf(values.get(size / 2).longValue())).
+                        divide(BigInteger.valueOf(2)).longValue();
+            case SUM:
+                return total.longValue();
+            case MIN:
+                return min.longValue();
+            case MAX:
+                return max.longValue();
+            default:
+                return ordered(values, estimator).longValue();
+        }
+    }
+
+    private static Double estimateDouble(List<Double> values, Estimator estimator) {
+        if (values.isEmpty()) {
+            return null;
+        }
+        BigDecimal total = BigDecimal.ZERO;
+        double min = values.get(0);
+        double max = min;
+        for (Double value : values) {
+            total = total.add(new BigDecimal(value));
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        int size = values.size();
+        switch (estimator) {
+            case AVERAGE:
+                return total.divide(BigDecimal.valueOf(size), 30, RoundingMode.HALF_EVEN).doubleValue();
+            case MEDIAN:
+                if (size % 2 == 1) {
+                    return values.get(size / 2);
+                }
+                return new BigDecimal(values.get(size / 2 - 1)).add(new BigDecimal(values.get(size / 2))).
+                        divide(BigDecimal.valueOf(2)).doubleValue();
+            case SUM:
+                return total.doubleValue();
+            case MIN:
+                return min;
+            case MAX:
+                return max;
+            default:
+                return ordered(values, estimator);
+        }
+    }
+
+    private static <T> T ordered(List<T> values, Estimator estimator) {
+        switch (estimator) {
+            case FIRST:
+                return values.get(0);
+            case LAST:
+                return values.get(values.size() - 1);
+            case MODE:
+                Hashtable<Integer, Integer> map = new Hashtable<Integer, Integer>();
+                for (T value : values) {
+                    Integer prev = map.get(value.hashCode());
+                    map.put(value.hashCode(), prev != null ? prev + 1 : 1);
+                }
+                int max = map.get(values.get(0).hashCode());
+                int index = 0;
+                for (int i = 1; i < values.size(); i++) {
+                    if (max < map.get(values.get(i).hashCode())) {
+                        max = map.get(values.get(i).hashCode());
+                        index = i;
+                    }
+                }
+                return values.get(index);
+            default:
+                throw new IllegalArgumentException("Unknown estimator.");
+        }
+    }
+}
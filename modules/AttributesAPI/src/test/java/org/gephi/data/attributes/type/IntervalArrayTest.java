@@ -0,0 +1,188 @@
+/*
+Copyright 2008-2010 Gephi
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.data.attributes.type;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Compares {@code IntervalArray} searches with {@code IntervalTree} ones, and
+ * checks the append and tree paths of {@code modify}.
+ */
+public class IntervalArrayTest {
+
+    private static IntervalArray<Double> array(double... endpoints) {
+        List<Interval<Double>> in = new ArrayList<Interval<Double>>();
+        for (int i = 0; i < endpoints.length; i += 2) {
+            in.add(new Interval<Double>(endpoints[i], endpoints[i + 1], (double) i));
+        }
+        return IntervalArray.<Double>empty().modify(in, null);
+    }
+
+    private static String toString(List<Interval<Double>> intervals) {
+        String[] strings = new String[intervals.size()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = intervals.get(i).toString();
+        }
+        Arrays.sort(strings);
+        return Arrays.toString(strings);
+    }
+
+    @Test
+    public void testFirstAndEndWithSortedHighs() {
+        IntervalArray<Double> array = array(0, 1, 2, 3, 4, 5);
+        assertEquals(0, array.first(Double.NEGATIVE_INFINITY));
+        assertEquals(1, array.first(2.5));
+        assertEquals(1, array.first(1.5));
+        assertEquals(3, array.first(5.5));
+        assertEquals(0, array.end(-1));
+        assertEquals(2, array.end(2.5));
+        assertEquals(3, array.end(4));
+        assertEquals(5.0, array.getHigh(), 0.0);
+    }
+
+    @Test
+    public void testFirstAndEndWithMaxHighs() {
+        //[0, 10] contains the others, so highs aren't sorted
+        IntervalArray<Double> array = array(0, 10, 1, 2, 3, 4, 5, 6);
+        assertEquals(0, array.first(7));
+        assertEquals(0, array.first(1.5));
+        assertEquals(4, array.first(11));
+        assertEquals(3, array.end(4.5));
+        assertEquals(10.0, array.getHigh(), 0.0);
+        assertEquals("[[0.0, 10.0, 0.0], [3.0, 4.0, 4.0]]", toString(array.search(3.5, 3.5)));
+        assertEquals("[[0.0, 10.0, 0.0]]", toString(array.search(7, 8)));
+        assertTrue(array.search(11, 12).isEmpty());
+    }
+
+    @Test
+    public void testExcludedEndpoints() {
+        List<Interval<Double>> in = new ArrayList<Interval<Double>>();
+        in.add(new Interval<Double>(0, 1, false, true, 1.0));
+        in.add(new Interval<Double>(1, 2, true, false, 2.0));
+        IntervalArray<Double> array = IntervalArray.<Double>empty().modify(in, null);
+        assertTrue(array.search(1, 1).isEmpty());
+        assertEquals(1, array.search(0.5, 1).size());
+        assertEquals(2, array.search(0.5, 1.5).size());
+        assertFalse(array.overlapsWith(new Interval<Double>(1, 1)));
+        assertTrue(array.overlapsWith(new Interval<Double>(1, 1.5)));
+    }
+
+    @Test
+    public void testSearchMatchesIntervalTree() {
+        Random random = new Random(42);
+        for (int test = 0; test < 50; test++) {
+            IntervalTree<Double> tree = new IntervalTree<Double>();
+            int count = 1 + random.nextInt(60);
+            for (int i = 0; i < count; i++) {
+                double low = random.nextInt(100);
+                double high = low + random.nextInt(random.nextBoolean() ? 5 : 50);
+                tree.insert(new Interval<Double>(low, high, random.nextBoolean(),
+                        random.nextBoolean() && high > low, random.nextDouble()));
+            }
+            IntervalArray<Double> array = new IntervalArray<Double>(tree);
+            assertEquals(toString(tree.getIntervals()), toString(array.getIntervals()));
+            for (int query = 0; query < 50; query++) {
+                double low = random.nextInt(110) - 5;
+                double high = low + random.nextInt(20);
+                Interval<Double> interval = new Interval<Double>(low, high,
+                        random.nextBoolean(), random.nextBoolean() && high > low);
+                assertEquals(toString(tree.search(interval)), toString(array.search(interval)));
+                assertEquals(!tree.search(interval).isEmpty(), array.overlapsWith(interval));
+            }
+        }
+    }
+
+    @Test
+    public void testModifyAppend() {
+        IntervalArray<Double> array = array(0, 1, 2, 3);
+        IntervalArray<Double> appended = array.modify(
+                Arrays.asList(new Interval<Double>(4, 5, 10.0), new Interval<Double>(6, 7, 11.0)), null);
+        assertNotSame(array, appended);
+        assertEquals(2, array.size());
+        assertEquals(4, appended.size());
+        assertEquals(4.0, appended.getLow(2), 0.0);
+        assertEquals(6.0, appended.getLow(3), 0.0);
+        assertEquals(Double.valueOf(11.0), appended.getValue(3));
+        assertEquals(7.0, appended.getHigh(), 0.0);
+        assertSame(array, array.modify(null, null));
+    }
+
+    @Test
+    public void testModifyInsertAndRemove() {
+        IntervalArray<Double> array = array(0, 1, 4, 5);
+        //Not after the last left endpoint, goes through the tree
+        IntervalArray<Double> inserted = array.modify(
+                Arrays.asList(new Interval<Double>(2, 3, 10.0)), null);
+        assertEquals(3, inserted.size());
+        assertEquals(2.0, inserted.getLow(1), 0.0);
+        assertEquals(Double.valueOf(10.0), inserted.getValue(1));
+
+        IntervalArray<Double> removed = inserted.modify(null,
+                Arrays.asList(new Interval<Double>(2.5, 2.5)));
+        assertEquals(2, removed.size());
+        assertEquals(array, removed);
+
+        IntervalArray<Double> replaced = removed.modify(
+                Arrays.asList(new Interval<Double>(0, 1, 20.0)),
+                Arrays.asList(new Interval<Double>(0, 1)));
+        assertEquals(2, replaced.size());
+        assertEquals(Double.valueOf(20.0), replaced.getValue(0));
+    }
+
+    @Test
+    public void testValuesKeepTheirType() {
+        List<Interval<Object>> in = new ArrayList<Interval<Object>>();
+        in.add(new Interval<Object>(0, 1, Integer.valueOf(1)));
+        in.add(new Interval<Object>(2, 3, Integer.valueOf(2)));
+        IntervalArray<Object> ints = IntervalArray.empty().modify(in, null);
+        assertEquals(Integer.valueOf(2), ints.getValue(1));
+
+        in.add(new Interval<Object>(4, 5, Long.valueOf(3)));
+        IntervalArray<Object> mixed = IntervalArray.empty().modify(in, null);
+        assertEquals(Integer.valueOf(1), mixed.getValue(0));
+        assertEquals(Long.valueOf(3), mixed.getValue(2));
+    }
+}
@@ -43,6 +43,8 @@ package org.gephi.data.attributes;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import org.gephi.data.attributes.api.AttributeColumn;
+import org.gephi.data.attributes.api.AttributeEventMetrics;
 import org.gephi.data.attributes.api.AttributeListener;
 import org.gephi.data.attributes.api.AttributeModel;
 import org.gephi.data.attributes.api.AttributeRowFactory;
@@ -167,6 +169,38 @@ public abstract class AbstractAttributeModel implements AttributeModel {
         eventManager.fireEvent(event);
     }
 
+    public void beginBatch() {
+        if (eventManager != null) {
+            eventManager.beginBatch();
+        }
+    }
+
+    public void commitBatch() {
+        if (eventManager != null) {
+            eventManager.commitBatch();
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if value changes of <code>column</code> made by
+     * the current thread are batched.
+     */
+    public boolean isBatching(AttributeColumn column) {
+        return eventManager != null && eventManager.isBatching(column);
+    }
+
+    public void fireBatchedValueEvent(AttributeTableImpl table, AttributeColumn column, int row) {
+        eventManager.fireBatchedValueEvent(table, column, row);
+    }
+
+    public AttributeEventManager getEventManager() {
+        return eventManager;
+    }
+
+    public AttributeEventMetrics getEventMetrics() {
+        return eventManager;
+    }
+
     public void mergeModel(AttributeModel model) {
         if (model.getNodeTable() != null) {
             nodeTable.mergeTable(model.getNodeTable());
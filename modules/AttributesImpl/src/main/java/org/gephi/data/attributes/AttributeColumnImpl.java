@@ -61,6 +61,7 @@ public class AttributeColumnImpl implements AttributeColumn {
     protected final AttributeOrigin origin;
     protected final AttributeValueImpl defaultValue;
     protected final AttributeValueDelegateProvider attributeValueDelegateProvider;
+    protected AttributeColumnStore store;
 
     public AttributeColumnImpl(AttributeTableImpl table, int index, String id, String title, AttributeType attributeType, AttributeOrigin origin, Object defaultValue, AttributeValueDelegateProvider attributeValueDelegateProvider) {
         this.table = table;
@@ -105,6 +106,14 @@ public class AttributeColumnImpl implements AttributeColumn {
         return attributeValueDelegateProvider;
     }
 
+    /**
+     * Returns the values of this column, or <code>null</code> if the column
+     * isn't in its table.
+     */
+    public AttributeColumnStore getStore() {
+        return store;
+    }
+
     @Override
     public String toString() {
         return title + " (" + type.toString() + ")";
@@ -0,0 +1,675 @@
+/*
+Copyright 2008-2010 Gephi
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.data.attributes;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import org.gephi.data.attributes.api.AttributeColumn;
+import org.gephi.data.attributes.api.AttributeColumnIndex;
+import org.gephi.data.attributes.api.AttributeRow;
+import org.gephi.data.attributes.api.AttributeRowSet;
+import org.gephi.data.attributes.api.AttributeType;
+import org.gephi.graph.api.Attributes;
+
+/**
+ * Index of the values of a column. Numbers are indexed by the row indexes
+ * sorted by value, compared in the store of the column without boxing. Other
+ * values are kept in a <code>HashMap</code> from each distinct value to the
+ * indexes of the rows holding it.
+ * <p>
+ * The index is maintained by an {@link IndexedStore}, which replaces the store
+ * of the column and updates the index on each write. As all writes go through
+ * the store, computed columns and bulk writes, which send no events, are
+ * indexed as well. Row indexes are resolved to rows by the table only once the
+ * lock of the index is released.
+ * <p>
+ * Writes to a sorted index only record the changed rows. The next query sorts
+ * them and merges them with the rows that haven't changed, so a bulk write
+ * costs one sort instead of an insertion per row.
+ *
+ * @see AttributeTableImpl#createColumnIndex(AttributeColumn)
+ */
+public class AttributeColumnIndexImpl implements AttributeColumnIndex {
+
+    private static final AttributeRow[] EMPTY = new AttributeRow[0];
+    private final AttributeColumnImpl column;
+    private final AttributeType type;
+    private final boolean sorted;
+    //Store of the column, set by the IndexedStore
+    private AttributeColumnStore store;
+    //Calls to createColumnIndex() not released yet, guarded by the table
+    int references;
+    private int rowCount;
+    //Hash index, with the position of each row in its bucket
+    private final Map<Object, Bucket> buckets;
+    private int[] positions;
+    //Sorted index, rows changed since the last sort aren't in order
+    private int[] sortedRows;
+    private int sortedCount;
+    private int valueCount;
+    private BitSet indexedRows;
+    private int[] changedRows;
+    private int changedCount;
+    private BitSet changed;
+
+    AttributeColumnIndexImpl(AttributeColumnImpl column) {
+        this.column = column;
+        this.type = column.getType();
+        this.sorted = isSortable(type);
+        this.buckets = sorted ? null : new HashMap<Object, Bucket>();
+        clear();
+    }
+
+    private static boolean isSortable(AttributeType type) {
+        switch (type) {
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+            case BIGINTEGER:
+            case BIGDECIMAL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public AttributeColumn getColumn() {
+        return column;
+    }
+
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    public synchronized int countValues() {
+        if (sorted) {
+            sort();
+            return valueCount;
+        }
+        return buckets.size();
+    }
+
+    public synchronized int countRows() {
+        return rowCount;
+    }
+
+    public synchronized int countRows(Object value) {
+        if (sorted) {
+            if (!(value instanceof Number)) {
+                return 0;
+            }
+            sort();
+            return Math.max(0, to((Number) value, true) - from((Number) value, true));
+        }
+        Bucket bucket = getBucket(value);
+        return bucket != null ? bucket.size : 0;
+    }
+
+    public synchronized Object[] getValues() {
+        if (!sorted) {
+            return buckets.keySet().toArray();
+        }
+        sort();
+        Object[] values = new Object[valueCount];
+        int count = 0;
+        for (int i = 0; i < sortedCount; i++) {
+            if (i == 0 || compareRows(sortedRows[i - 1], sortedRows[i]) != 0) {
+                values[count++] = store.get(sortedRows[i]);
+            }
+        }
+        return values;
+    }
+
+    public synchronized Object getMinValue() {
+        checkSorted();
+        sort();
+        return sortedCount == 0 ? null : store.get(sortedRows[0]);
+    }
+
+    public synchronized Object getMaxValue() {
+        checkSorted();
+        sort();
+        return sortedCount == 0 ? null : store.get(sortedRows[sortedCount - 1]);
+    }
+
+    public AttributeRow[] getRows(Object value) {
+        int[] rows;
+        synchronized (this) {
+            if (sorted) {
+                if (!(value instanceof Number)) {
+                    return EMPTY;
+                }
+                sort();
+                rows = copyRows((Number) value, true, (Number) value, true);
+            } else {
+                Bucket bucket = getBucket(value);
+                if (bucket == null) {
+                    return EMPTY;
+                }
+                rows = Arrays.copyOf(bucket.rows, bucket.size);
+            }
+        }
+        return column.table.getRows(rows);
+    }
+
+    public AttributeRow[] getRows(Number min, boolean minInclusive, Number max, boolean maxInclusive) {
+        checkSorted();
+        int[] rows;
+        synchronized (this) {
+            sort();
+            rows = copyRows(min, minInclusive, max, maxInclusive);
+        }
+        return column.table.getRows(rows);
+    }
+
+    public synchronized AttributeRowSet getRowSet(Object value) {
+        if (sorted) {
+            if (!(value instanceof Number)) {
+                return new RowSet(column.table, sortedRows, 0, 0);
+            }
+            sort();
+            return new RowSet(column.table, sortedRows, from((Number) value, true), to((Number) value, true));
+        }
+        Bucket bucket = getBucket(value);
+        if (bucket == null) {
+            return new RowSet(column.table, positions, 0, 0);
+        }
+        return new RowSet(column.table, bucket.rows, 0, bucket.size);
+    }
+
+    public synchronized AttributeRowSet getRowSet(Number min, boolean minInclusive, Number max, boolean maxInclusive) {
+        checkSorted();
+        sort();
+        return new RowSet(column.table, sortedRows, from(min, minInclusive), to(max, maxInclusive));
+    }
+
+    private Bucket getBucket(Object value) {
+        return value != null ? buckets.get(value) : null;
+    }
+
+    private void checkSorted() {
+        if (!sorted) {
+            throw new UnsupportedOperationException("The index of " + column.getId() + " isn't sorted");
+        }
+    }
+
+    /**
+     * Sets the store the values are read from. Called by the
+     * {@link IndexedStore} before any update.
+     */
+    void setStore(AttributeColumnStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Updates the index after the value of <code>row</code> has been set in
+     * the store. Only hash indexes need <code>oldValue</code>, the previous
+     * value of the row. Callers must hold the lock of this index.
+     */
+    void update(int row, Object oldValue) {
+        if (sorted) {
+            changed(row);
+            return;
+        }
+        Object newValue = store.get(row);
+        if (oldValue == newValue || (oldValue != null && oldValue.equals(newValue))) {
+            return;
+        }
+        if (oldValue != null) {
+            remove(row, oldValue);
+        }
+        if (newValue != null) {
+            add(row, newValue);
+        }
+    }
+
+    private void add(int row, Object value) {
+        Bucket bucket = buckets.get(value);
+        if (bucket == null) {
+            bucket = new Bucket();
+            buckets.put(value, bucket);
+        }
+        if (row >= positions.length) {
+            positions = Arrays.copyOf(positions, Math.max(row + 1, positions.length * 2));
+        }
+        positions[row] = bucket.add(row);
+        rowCount++;
+    }
+
+    private void remove(int row, Object value) {
+        Bucket bucket = buckets.get(value);
+        if (bucket == null) {
+            return;
+        }
+        int position = positions[row];
+        int moved = bucket.remove(position);
+        positions[moved] = position;
+        if (bucket.size == 0) {
+            buckets.remove(value);
+        }
+        rowCount--;
+    }
+
+    private void changed(int row) {
+        boolean indexed = !store.isNull(row);
+        if (indexed != indexedRows.get(row)) {
+            indexedRows.set(row, indexed);
+            rowCount += indexed ? 1 : -1;
+        } else if (!indexed) {
+            return;
+        }
+        if (!changed.get(row)) {
+            changed.set(row);
+            if (changedCount == changedRows.length) {
+                changedRows = Arrays.copyOf(changedRows, changedCount * 2);
+            }
+            changedRows[changedCount++] = row;
+        }
+    }
+
+    /**
+     * Sorts the changed rows and merges them with the sorted rows.
+     */
+    private void sort() {
+        if (changedCount == 0) {
+            return;
+        }
+        //Rows which haven't changed are still in order
+        int kept = 0;
+        for (int i = 0; i < sortedCount; i++) {
+            int row = sortedRows[i];
+            if (!changed.get(row)) {
+                sortedRows[kept++] = row;
+            }
+        }
+        int added = 0;
+        for (int i = 0; i < changedCount; i++) {
+            int row = changedRows[i];
+            if (indexedRows.get(row)) {
+                changedRows[added++] = row;
+            }
+        }
+        mergeSort(changedRows, new int[added], 0, added);
+
+        //Merge from the end, in place
+        sortedCount = kept + added;
+        if (sortedRows.length < sortedCount) {
+            sortedRows = Arrays.copyOf(sortedRows, Math.max(sortedCount, sortedRows.length + (sortedRows.length >> 1)));
+        }
+        int i = kept - 1;
+        int j = added - 1;
+        int k = sortedCount - 1;
+        while (j >= 0) {
+            if (i >= 0 && compareRows(sortedRows[i], changedRows[j]) > 0) {
+                sortedRows[k--] = sortedRows[i--];
+            } else {
+                sortedRows[k--] = changedRows[j--];
+            }
+        }
+        changed.clear();
+        changedCount = 0;
+        if (changedRows.length > 1024) {
+            changedRows = new int[16];
+        }
+
+        valueCount = 0;
+        for (int r = 0; r < sortedCount; r++) {
+            if (r == 0 || compareRows(sortedRows[r - 1], sortedRows[r]) != 0) {
+                valueCount++;
+            }
+        }
+    }
+
+    private void mergeSort(int[] rows, int[] buffer, int from, int to) {
+        if (to - from < 8) {
+            for (int i = from + 1; i < to; i++) {
+                int row = rows[i];
+                int j = i;
+                while (j > from && compareRows(rows[j - 1], row) > 0) {
+                    rows[j] = rows[j - 1];
+                    j--;
+                }
+                rows[j] = row;
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(rows, buffer, from, middle);
+        mergeSort(rows, buffer, middle, to);
+        if (compareRows(rows[middle - 1], rows[middle]) <= 0) {
+            return;
+        }
+        System.arraycopy(rows, from, buffer, from, middle - from);
+        int i = from;
+        int j = middle;
+        int k = from;
+        while (i < middle && j < to) {
+            rows[k++] = compareRows(rows[j], buffer[i]) < 0 ? rows[j++] : buffer[i++];
+        }
+        while (i < middle) {
+            rows[k++] = buffer[i++];
+        }
+    }
+
+    private int[] copyRows(Number min, boolean minInclusive, Number max, boolean maxInclusive) {
+        int from = from(min, minInclusive);
+        int to = to(max, maxInclusive);
+        return from < to ? Arrays.copyOfRange(sortedRows, from, to) : new int[0];
+    }
+
+    /**
+     * Returns the position of the first sorted row greater than
+     * <code>min</code>, or equal if <code>minInclusive</code>.
+     */
+    private int from(Number min, boolean minInclusive) {
+        return min != null ? search(min, !minInclusive) : 0;
+    }
+
+    /**
+     * Returns the position after the last sorted row lower than
+     * <code>max</code>, or equal if <code>maxInclusive</code>.
+     */
+    private int to(Number max, boolean maxInclusive) {
+        return max != null ? search(max, maxInclusive) : sortedCount;
+    }
+
+    /**
+     * Returns the position of the first sorted row greater than
+     * <code>value</code>, or greater or equal if <code>after</code> is false.
+     */
+    private int search(Number value, boolean after) {
+        int low = 0;
+        int high = sortedCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int c = compareRow(sortedRows[middle], value);
+            if (c < 0 || (after && c == 0)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int compareRows(int row1, int row2) {
+        switch (type) {
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+                return compareLongs(store.getLong(row1), store.getLong(row2));
+            case FLOAT:
+            case DOUBLE:
+                return Double.compare(store.getDouble(row1), store.getDouble(row2));
+            default:
+                return compareNumbers((Number) store.get(row1), (Number) store.get(row2));
+        }
+    }
+
+    private int compareRow(int row, Number value) {
+        switch (type) {
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+                if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+                    return compareLongs(store.getLong(row), value.longValue());
+                }
+                return Double.compare(store.getDouble(row), value.doubleValue());
+            case FLOAT:
+            case DOUBLE:
+                return Double.compare(store.getDouble(row), value.doubleValue());
+            default:
+                return compareNumbers((Number) store.get(row), value);
+        }
+    }
+
+    private static int compareLongs(long l1, long l2) {
+        return l1 < l2 ? -1 : (l1 == l2 ? 0 : 1);
+    }
+
+    /**
+     * Compares big numbers of the same class naturally, and other numbers by
+     * their double value.
+     */
+    private static int compareNumbers(Number n1, Number n2) {
+        if (n1 instanceof BigInteger && n2 instanceof BigInteger) {
+            return ((BigInteger) n1).compareTo((BigInteger) n2);
+        }
+        if (n1 instanceof BigDecimal && n2 instanceof BigDecimal) {
+            return ((BigDecimal) n1).compareTo((BigDecimal) n2);
+        }
+        return Double.compare(n1.doubleValue(), n2.doubleValue());
+    }
+
+    synchronized void clear() {
+        rowCount = 0;
+        if (sorted) {
+            sortedRows = new int[0];
+            sortedCount = 0;
+            valueCount = 0;
+            indexedRows = new BitSet();
+            changedRows = new int[16];
+            changedCount = 0;
+            changed = new BitSet();
+        } else {
+            buckets.clear();
+            positions = new int[0];
+        }
+    }
+
+    /**
+     * Unordered rows having the same value. Rows are removed by moving the last
+     * row in their place.
+     */
+    private static class Bucket {
+
+        private int[] rows = new int[4];
+        private int size;
+
+        private int add(int row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            rows[size] = row;
+            return size++;
+        }
+
+        /**
+         * Removes the row at <code>position</code> and returns the row moved
+         * in its place.
+         */
+        private int remove(int position) {
+            int last = rows[--size];
+            rows[position] = last;
+            if (size > 16 && size < rows.length / 4) {
+                rows = Arrays.copyOf(rows, rows.length / 2);
+            }
+            return last;
+        }
+    }
+
+    /**
+     * Rows of a query, as a bitset of row indexes.
+     */
+    private static class RowSet implements AttributeRowSet {
+
+        private final AttributeTableImpl table;
+        private final BitSet rows = new BitSet();
+        private final int size;
+
+        private RowSet(AttributeTableImpl table, int[] rows, int from, int to) {
+            this.table = table;
+            for (int i = from; i < to; i++) {
+                this.rows.set(rows[i]);
+            }
+            this.size = Math.max(0, to - from);
+        }
+
+        public boolean contains(Attributes attributes) {
+            if (attributes instanceof AttributeRowImpl) {
+                AttributeRowImpl row = (AttributeRowImpl) attributes;
+                return row.attributeTable == table && rows.get(row.index);
+            }
+            return false;
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Store of an indexed column, it wraps the column's store and updates
+     * the index under its lock on every write.
+     */
+    static final class IndexedStore extends AttributeColumnStore {
+
+        private final AttributeColumnStore store;
+        private final AttributeColumnIndexImpl index;
+
+        IndexedStore(AttributeColumnStore store, AttributeColumnIndexImpl index) {
+            this.store = store;
+            this.index = index;
+            ensureCapacity(store.getCapacity());
+            index.setStore(store);
+        }
+
+        AttributeColumnStore getStore() {
+            return store;
+        }
+
+        AttributeColumnIndexImpl getIndex() {
+            return index;
+        }
+
+        /**
+         * Returns the value of <code>row</code> before a write, only hash
+         * indexes need it.
+         */
+        private Object oldValue(int row) {
+            return index.sorted ? null : store.get(row);
+        }
+
+        @Override
+        public Object get(int row) {
+            return store.get(row);
+        }
+
+        @Override
+        public void set(int row, Object value) {
+            synchronized (index) {
+                Object oldValue = oldValue(row);
+                store.set(row, value);
+                index.update(row, oldValue);
+            }
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return store.isNull(row);
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return store.getDouble(row);
+        }
+
+        @Override
+        public long getLong(int row) {
+            return store.getLong(row);
+        }
+
+        @Override
+        public boolean getBoolean(int row) {
+            return store.getBoolean(row);
+        }
+
+        @Override
+        public void setDouble(int row, double value) {
+            synchronized (index) {
+                Object oldValue = oldValue(row);
+                store.setDouble(row, value);
+                index.update(row, oldValue);
+            }
+        }
+
+        @Override
+        public void setLong(int row, long value) {
+            synchronized (index) {
+                Object oldValue = oldValue(row);
+                store.setLong(row, value);
+                index.update(row, oldValue);
+            }
+        }
+
+        @Override
+        public void setBoolean(int row, boolean value) {
+            synchronized (index) {
+                Object oldValue = oldValue(row);
+                store.setBoolean(row, value);
+                index.update(row, oldValue);
+            }
+        }
+
+        @Override
+        public void release(int row) {
+            synchronized (index) {
+                Object oldValue = oldValue(row);
+                store.release(row);
+                index.update(row, oldValue);
+            }
+        }
+
+        @Override
+        protected void grow(int chunks) {
+            store.ensureCapacity(chunks << CHUNK_BITS);
+        }
+    }
+}
@@ -0,0 +1,835 @@
+/*
+Copyright 2008-2010 Gephi
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.data.attributes;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import org.gephi.data.attributes.api.AttributeOrigin;
+
+/**
+ * Values of one column for all the rows of a table, indexed by row. Numbers,
+ * booleans and characters are kept unboxed in primitive arrays, strings are
+ * dictionary-encoded as int codes and other types are stored as objects.
+ * <p>
+ * Storage is split in chunks of <code>CHUNK_SIZE</code> rows. Chunks are never
+ * reallocated, so a value written while the store grows isn't lost. Growth is
+ * driven by the table, under its lock. New rows hold <code>null</code> in all
+ * stores.
+ *
+ * @see AttributeTableImpl
+ */
+public abstract class AttributeColumnStore {
+
+    public static final int CHUNK_BITS = 10;
+    public static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    public static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private int capacity;
+
+    /**
+     * Returns a store suited to <code>column</code>'s type. Delegate columns
+     * store the delegate id, and property strings like ids and labels, unique
+     * to each row, wouldn't benefit from a dictionary.
+     */
+    public static AttributeColumnStore newStore(AttributeColumnImpl column) {
+        if (column.getOrigin() == AttributeOrigin.DELEGATE) {
+            return new ObjectStore();
+        }
+        switch (column.getType()) {
+            case BYTE:
+                return new ByteStore();
+            case SHORT:
+                return new ShortStore();
+            case INT:
+                return new IntStore();
+            case LONG:
+                return new LongStore();
+            case FLOAT:
+                return new FloatStore();
+            case DOUBLE:
+                return new DoubleStore();
+            case BOOLEAN:
+                return new BooleanStore();
+            case CHAR:
+                return new CharStore();
+            case STRING:
+                if (column.getOrigin() != AttributeOrigin.PROPERTY) {
+                    return new StringStore();
+                }
+                return new ObjectStore();
+            default:
+                return new ObjectStore();
+        }
+    }
+
+    public abstract Object get(int row);
+
+    /**
+     * Sets the value at <code>row</code>, which must be <code>null</code> or
+     * of the column type.
+     */
+    public abstract void set(int row, Object value);
+
+    public boolean isNull(int row) {
+        return get(row) == null;
+    }
+
+    /**
+     * Returns the value at <code>row</code> converted to a double, or 0 if it
+     * is <code>null</code>.
+     * @throws IllegalArgumentException if the value isn't a number
+     */
+    public double getDouble(int row) {
+        Number number = toNumber(get(row));
+        return number != null ? number.doubleValue() : 0.0;
+    }
+
+    /**
+     * Returns the value at <code>row</code> converted to a long, or 0 if it
+     * is <code>null</code>.
+     * @throws IllegalArgumentException if the value isn't a number
+     */
+    public long getLong(int row) {
+        Number number = toNumber(get(row));
+        return number != null ? number.longValue() : 0l;
+    }
+
+    /**
+     * Returns the boolean at <code>row</code>, or false if it is <code>null</code>.
+     * @throws IllegalArgumentException if the value isn't a boolean
+     */
+    public boolean getBoolean(int row) {
+        Object value = get(row);
+        if (value == null) {
+            return false;
+        } else if (value instanceof Boolean) {
+            return ((Boolean) value).booleanValue();
+        }
+        throw new IllegalArgumentException("The value isn't a boolean");
+    }
+
+    /**
+     * Sets the value at <code>row</code>, converted to the store type like a
+     * Java cast.
+     * @throws IllegalArgumentException if the store doesn't hold primitive numbers
+     */
+    public void setDouble(int row, double value) {
+        throw new IllegalArgumentException("The column doesn't store primitive numbers");
+    }
+
+    /**
+     * Sets the value at <code>row</code>, converted to the store type like a
+     * Java cast.
+     * @throws IllegalArgumentException if the store doesn't hold primitive numbers
+     */
+    public void setLong(int row, long value) {
+        throw new IllegalArgumentException("The column doesn't store primitive numbers");
+    }
+
+    /**
+     * @throws IllegalArgumentException if the store doesn't hold booleans
+     */
+    public void setBoolean(int row, boolean value) {
+        throw new IllegalArgumentException("The column doesn't store booleans");
+    }
+
+    private static Number toNumber(Object value) {
+        if (value == null || value instanceof Number) {
+            return (Number) value;
+        }
+        throw new IllegalArgumentException("The value isn't a number");
+    }
+
+    /**
+     * Called when <code>row</code> is released, so referenced objects can be
+     * collected.
+     */
+    public void release(int row) {
+        set(row, null);
+    }
+
+    public void ensureCapacity(int rows) {
+        if (rows > capacity) {
+            int chunks = (rows + CHUNK_MASK) >>> CHUNK_BITS;
+            grow(chunks);
+            capacity = chunks << CHUNK_BITS;
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    protected abstract void grow(int chunks);
+
+    /**
+     * Primitive store, with a flag per row telling if a value is set. Flags
+     * are bytes and not bits, rows can then be written concurrently.
+     */
+    private static abstract class PrimitiveStore extends AttributeColumnStore {
+
+        private volatile byte[][] present = new byte[0][];
+
+        @Override
+        public boolean isNull(int row) {
+            return present[row >>> CHUNK_BITS][row & CHUNK_MASK] == 0;
+        }
+
+        protected void setNull(int row, boolean isNull) {
+            present[row >>> CHUNK_BITS][row & CHUNK_MASK] = isNull ? (byte) 0 : (byte) 1;
+        }
+
+        @Override
+        protected void grow(int chunks) {
+            byte[][] newPresent = Arrays.copyOf(present, chunks);
+            for (int i = present.length; i < chunks; i++) {
+                newPresent[i] = new byte[CHUNK_SIZE];
+            }
+            present = newPresent;
+        }
+    }
+
+    static final class ByteStore extends PrimitiveStore {
+
+        private volatile byte[][] chunks = new byte[0][];
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : Byte.valueOf(chunks[row >>> CHUNK_BITS][row & CHUNK_MASK]);
+        }
+
+        @Override
+        public void set(int row, Object value) {
+            if (value != null) {
+                chunks[row >>> CHUNK_BITS][row & CHUNK_MASK] = ((Byte) value).byteValue();
+            }
+            setNull(row, value == null);
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return isNull(row) ? 0.0 : chunks[row >>> CHUNK_BITS][row & CHUNK_MASK];
+        }
+
+        @Override
+        public long getLong(int row) {
+            return isNull(row) ? 0l : chunks[row >>> CHUNK_BITS][row & CHUNK_MASK];
+        }
+
+        @Override
+        public void setDouble(int row, double value) {
+            chunks[row >>> CHUNK_BITS][row & CHUNK_MASK] = (byte) value;
+            setNull(row, false);
+        }
+
+        @Override
+        public void setLong(int row, long value) {
+            chunks[row >>> CHUNK_BITS][row & CHUNK_MASK] = (byte) value;
+            setNull(row, false);
+        }
+
+        @Override
+        protected void grow(int chunkCount) {
+            byte[][] newChunks = Arrays.copyOf(chunks, chunkCount);
+            for (int i = chunks.length; i < chunkCount; i++) {
+                newChunks[i] = new byte[CHUNK_SIZE];
+            }
+            chunks = newChunks;
+            super.grow(chunkCount);
+        }
+    }
+
+    static final class ShortStore extends PrimitiveStore {
+
+        private volatile short[][] chunks = new short[0][];
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : Short.valueOf(chunks[row >>> CHUNK_BITS][row & CHUNK_MASK]);
+        }
+
+        @Override
+        public void set(int row, Object value) {
+            if (value != null) {
+                chunks[row >>> CHUNK_BITS][row & CHUNK_MASK] = ((Short) value).shortValue();
+            }
+            setNull(row, value == null);
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return isNull(row) ? 0.0 : chunks[row >>> CHUNK_BITS][row & CHUNK_MASK];
+        }
+
+        @Override
+        public long getLong(int row) {
+            return isNull(row) ? 0l : chunks[row >>> CHUNK_BITS][row & CHUNK_MASK];
+        }
+
+        @Override
+        public void setDouble(int row, double value) {
+            chunks[row >>> CHUNK_BITS][row & CHUNK_MASK] = (short) value;
+            setNull(row, false);
+        }
+
+        @Override
+        public void setLong(int row, long value) {
+            chunks[row >>> CHUNK_BITS][row & CHUNK_MASK] = (short) value;
+            setNull(row, false);
+        }
+
+        @Override
+        protected void grow(int chunkCount) {
+            short[][] newChunks = Arrays.copyOf(chunks, chunkCount);
+            for (int i = chunks.length; i < chunkCount; i++) {
+                newChunks[i] = new short[CHUNK_SIZE];
+            }
+            chunks = newChunks;
+            super.grow(chunkCount);
+        }
+    }
+
+    static final class IntStore extends PrimitiveStore {
+
+        private volatile int[][] chunks = new int[0][];
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : Integer.valueOf(chunks[row >>> CHUNK_BITS][row & CHUNK_MASK]);
+        }
+
+        @Override
+        public void set(int row, Object value) {
+            if (value != null) {
+                chunks[row >>> CHUNK_BITS][row & CHUNK_MASK] = ((Integer) value).intValue();
+            }
+            setNull(row, value == null);
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return isNull(row) ? 0.0 : chunks[row >>> CHUNK_BITS][row & CHUNK_MASK];
+        }
+
+        @Override
+        public long getLong(int row) {
+            return isNull(row) ? 0l : chunks[row >>> CHUNK_BITS][row & CHUNK_MASK];
+        }
+
+        @Override
+        public void setDouble(int row, double value) {
+            chunks[row >>> CHUNK_BITS][row & CHUNK_MASK] = (int) value;
+            setNull(row, false);
+        }
+
+        @Override
+        public void setLong(int row, long value) {
+            chunks[row >>> CHUNK_BITS][row & CHUNK_MASK] = (int) value;
+            setNull(row, false);
+        }
+
+        @Override
+        protected void grow(int chunkCount) {
+            int[][] newChunks = Arrays.copyOf(chunks, chunkCount);
+            for (int i = chunks.length; i < chunkCount; i++) {
+                newChunks[i] = new int[CHUNK_SIZE];
+            }
+            chunks = newChunks;
+            super.grow(chunkCount);
+        }
+    }
+
+    static final class LongStore extends PrimitiveStore {
+
+        private volatile long[][] chunks = new long[0][];
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : Long.valueOf(chunks[row >>> CHUNK_BITS][row & CHUNK_MASK]);
+        }
+
+        @Override
+        public void set(int row, Object value) {
+            if (value != null) {
+                chunks[row >>> CHUNK_BITS][row & CHUNK_MASK] = ((Long) value).longValue();
+            }
+            setNull(row, value == null);
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return isNull(row) ? 0.0 : chunks[row >>> CHUNK_BITS][row & CHUNK_MASK];
+        }
+
+        @Override
+        public long getLong(int row) {
+            return isNull(row) ? 0l : chunks[row >>> CHUNK_BITS][row & CHUNK_MASK];
+        }
+
+        @Override
+        public void setDouble(int row, double value) {
+            chunks[row >>> CHUNK_BITS][row & CHUNK_MASK] = (long) value;
+            setNull(row, false);
+        }
+
+        @Override
+        public void setLong(int row, long value) {
+            chunks[row >>> CHUNK_BITS][row & CHUNK_MASK] = value;
+            setNull(row, false);
+        }
+
+        @Override
+        protected void grow(int chunkCount) {
+            long[][] newChunks = Arrays.copyOf(chunks, chunkCount);
+            for (int i = chunks.length; i < chunkCount; i++) {
+                newChunks[i] = new long[CHUNK_SIZE];
+            }
+            chunks = newChunks;
+            super.grow(chunkCount);
+        }
+    }
+
+    static final class FloatStore extends PrimitiveStore {
+
+        private volatile float[][] chunks = new float[0][];
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : Float.valueOf(chunks[row >>> CHUNK_BITS][row & CHUNK_MASK]);
+        }
+
+        @Override
+        public void set(int row, Object value) {
+            if (value != null) {
+                chunks[row >>> CHUNK_BITS][row & CHUNK_MASK] = ((Float) value).floatValue();
+            }
+            setNull(row, value == null);
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return isNull(row) ? 0.0 : chunks[row >>> CHUNK_BITS][row & CHUNK_MASK];
+        }
+
+        @Override
+        public long getLong(int row) {
+            return isNull(row) ? 0l : (long) chunks[row >>> CHUNK_BITS][row & CHUNK_MASK];
+        }
+
+        @Override
+        public void setDouble(int row, double value) {
+            chunks[row >>> CHUNK_BITS][row & CHUNK_MASK] = (float) value;
+            setNull(row, false);
+        }
+
+        @Override
+        public void setLong(int row, long value) {
+            chunks[row >>> CHUNK_BITS][row & CHUNK_MASK] = (float) value;
+            setNull(row, false);
+        }
+
+        @Override
+        protected void grow(int chunkCount) {
+            float[][] newChunks = Arrays.copyOf(chunks, chunkCount);
+            for (int i = chunks.length; i < chunkCount; i++) {
+                newChunks[i] = new float[CHUNK_SIZE];
+            }
+            chunks = newChunks;
+            super.grow(chunkCount);
+        }
+    }
+
+    static final class DoubleStore extends PrimitiveStore {
+
+        private volatile double[][] chunks = new double[0][];
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : Double.valueOf(chunks[row >>> CHUNK_BITS][row & CHUNK_MASK]);
+        }
+
+        @Override
+        public void set(int row, Object value) {
+            if (value != null) {
+                chunks[row >>> CHUNK_BITS][row & CHUNK_MASK] = ((Double) value).doubleValue();
+            }
+            setNull(row, value == null);
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return isNull(row) ? 0.0 : chunks[row >>> CHUNK_BITS][row & CHUNK_MASK];
+        }
+
+        @Override
+        public long getLong(int row) {
+            return isNull(row) ? 0l : (long) chunks[row >>> CHUNK_BITS][row & CHUNK_MASK];
+        }
+
+        @Override
+        public void setDouble(int row, double value) {
+            chunks[row >>> CHUNK_BITS][row & CHUNK_MASK] = value;
+            setNull(row, false);
+        }
+
+        @Override
+        public void setLong(int row, long value) {
+            chunks[row >>> CHUNK_BITS][row & CHUNK_MASK] = value;
+            setNull(row, false);
+        }
+
+        @Override
+        protected void grow(int chunkCount) {
+            double[][] newChunks = Arrays.copyOf(chunks, chunkCount);
+            for (int i = chunks.length; i < chunkCount; i++) {
+                newChunks[i] = new double[CHUNK_SIZE];
+            }
+            chunks = newChunks;
+            super.grow(chunkCount);
+        }
+    }
+
+    static final class CharStore extends PrimitiveStore {
+
+        private volatile char[][] chunks = new char[0][];
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : Character.valueOf(chunks[row >>> CHUNK_BITS][row & CHUNK_MASK]);
+        }
+
+        @Override
+        public void set(int row, Object value) {
+            if (value != null) {
+                chunks[row >>> CHUNK_BITS][row & CHUNK_MASK] = ((Character) value).charValue();
+            }
+            setNull(row, value == null);
+        }
+
+        @Override
+        protected void grow(int chunkCount) {
+            char[][] newChunks = Arrays.copyOf(chunks, chunkCount);
+            for (int i = chunks.length; i < chunkCount; i++) {
+                newChunks[i] = new char[CHUNK_SIZE];
+            }
+            chunks = newChunks;
+            super.grow(chunkCount);
+        }
+    }
+
+    /**
+     * One byte per row: 0 for <code>null</code>, 1 for false and 2 for true.
+     */
+    static final class BooleanStore extends AttributeColumnStore {
+
+        private static final byte NULL = 0;
+        private static final byte FALSE = 1;
+        private static final byte TRUE = 2;
+        private volatile byte[][] chunks = new byte[0][];
+
+        @Override
+        public Object get(int row) {
+            byte b = chunks[row >>> CHUNK_BITS][row & CHUNK_MASK];
+            return b == NULL ? null : Boolean.valueOf(b == TRUE);
+        }
+
+        @Override
+        public void set(int row, Object value) {
+            byte b = NULL;
+            if (value != null) {
+                b = ((Boolean) value).booleanValue() ? TRUE : FALSE;
+            }
+            chunks[row >>> CHUNK_BITS][row & CHUNK_MASK] = b;
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return chunks[row >>> CHUNK_BITS][row & CHUNK_MASK] == NULL;
+        }
+
+        @Override
+        public boolean getBoolean(int row) {
+            return chunks[row >>> CHUNK_BITS][row & CHUNK_MASK] == TRUE;
+        }
+
+        @Override
+        public void setBoolean(int row, boolean value) {
+            chunks[row >>> CHUNK_BITS][row & CHUNK_MASK] = value ? TRUE : FALSE;
+        }
+
+        @Override
+        protected void grow(int chunkCount) {
+            byte[][] newChunks = Arrays.copyOf(chunks, chunkCount);
+            for (int i = chunks.length; i < chunkCount; i++) {
+                newChunks[i] = new byte[CHUNK_SIZE];
+            }
+            chunks = newChunks;
+        }
+    }
+
+    /**
+     * Strings are stored as codes in a dictionary, 0 stands for <code>null</code>.
+     * Codes are reference counted and reused once no row uses them anymore.
+     * Reads are synchronized like writes, a code and its dictionary entry are
+     * otherwise not published together and a reused code could be read with
+     * the string of another row.
+     */
+    static final class StringStore extends AttributeColumnStore {
+
+        private volatile int[][] chunks = new int[0][];
+        private String[] dictionary = new String[16];
+        private int[] refCounts = new int[16];
+        private final Map<String, Integer> codes = new HashMap<String, Integer>();
+        private int[] freeCodes = new int[16];
+        private int freeCodesCount;
+        private int nextCode = 1;
+
+        @Override
+        public synchronized Object get(int row) {
+            int code = chunks[row >>> CHUNK_BITS][row & CHUNK_MASK];
+            return code == 0 ? null : dictionary[code];
+        }
+
+        @Override
+        public synchronized void set(int row, Object value) {
+            int[] chunk = chunks[row >>> CHUNK_BITS];
+            int oldCode = chunk[row & CHUNK_MASK];
+            int code = value != null ? acquire((String) value) : 0;
+            chunk[row & CHUNK_MASK] = code;
+            if (oldCode != 0) {
+                releaseCode(oldCode);
+            }
+        }
+
+        private int acquire(String value) {
+            Integer code = codes.get(value);
+            if (code != null) {
+                refCounts[code]++;
+                return code;
+            }
+            int newCode;
+            if (freeCodesCount > 0) {
+                newCode = freeCodes[--freeCodesCount];
+            } else {
+                newCode = nextCode++;
+                if (newCode == refCounts.length) {
+                    refCounts = Arrays.copyOf(refCounts, newCode * 2);
+                    dictionary = Arrays.copyOf(dictionary, newCode * 2);
+                }
+            }
+            dictionary[newCode] = value;
+            refCounts[newCode] = 1;
+            codes.put(value, newCode);
+            return newCode;
+        }
+
+        private void releaseCode(int code) {
+            if (--refCounts[code] == 0) {
+                codes.remove(dictionary[code]);
+                dictionary[code] = null;
+                if (freeCodesCount == freeCodes.length) {
+                    freeCodes = Arrays.copyOf(freeCodes, freeCodesCount * 2);
+                }
+                freeCodes[freeCodesCount++] = code;
+            }
+        }
+
+        public synchronized int getDictionarySize() {
+            return codes.size();
+        }
+
+        @Override
+        protected void grow(int chunkCount) {
+            int[][] newChunks = Arrays.copyOf(chunks, chunkCount);
+            for (int i = chunks.length; i < chunkCount; i++) {
+                newChunks[i] = new int[CHUNK_SIZE];
+            }
+            chunks = newChunks;
+        }
+    }
+
+    static final class ObjectStore extends AttributeColumnStore {
+
+        private volatile Object[][] chunks = new Object[0][];
+
+        @Override
+        public Object get(int row) {
+            return chunks[row >>> CHUNK_BITS][row & CHUNK_MASK];
+        }
+
+        @Override
+        public void set(int row, Object value) {
+            chunks[row >>> CHUNK_BITS][row & CHUNK_MASK] = value;
+        }
+
+        @Override
+        protected void grow(int chunkCount) {
+            Object[][] newChunks = Arrays.copyOf(chunks, chunkCount);
+            for (int i = chunks.length; i < chunkCount; i++) {
+                newChunks[i] = new Object[CHUNK_SIZE];
+            }
+            chunks = newChunks;
+        }
+    }
+
+    /**
+     * Fills a store with values decoded from another source, like a saved
+     * project.
+     *
+     * @see AttributeTableImpl#setColumnLoader(AttributeColumnImpl, AttributeColumnStore.Loader)
+     */
+    public interface Loader {
+
+        /**
+         * Sets the values in <code>store</code>, except in the
+         * <code>released</code> rows, which have been released by the table
+         * before the column was loaded.
+         */
+        public void load(AttributeColumnStore store, BitSet released);
+    }
+
+    /**
+     * Store running its loader the first time a row is accessed, so columns
+     * which are never read aren't decoded. Rows released before that are only
+     * recorded and skipped by the loader. If the loader fails, its exception
+     * is thrown again by all later accesses.
+     */
+    static final class LazyStore extends AttributeColumnStore {
+
+        private final AttributeColumnStore store;
+        private volatile Loader loader;
+        //Guarded by this, until loaded
+        private BitSet released = new BitSet();
+        //Guarded by this, set if the loader failed
+        private RuntimeException failure;
+
+        LazyStore(AttributeColumnStore store, Loader loader) {
+            this.store = store;
+            this.loader = loader;
+            ensureCapacity(store.getCapacity());
+        }
+
+        private AttributeColumnStore load() {
+            if (loader != null) {
+                synchronized (this) {
+                    if (failure != null) {
+                        throw new IllegalStateException("The column failed to load", failure);
+                    }
+                    if (loader != null) {
+                        try {
+                            loader.load(store, released);
+                        } catch (RuntimeException e) {
+                            failure = e;
+                            throw e;
+                        }
+                        loader = null;
+                        released = null;
+                    }
+                }
+            }
+            return store;
+        }
+
+        @Override
+        public Object get(int row) {
+            return load().get(row);
+        }
+
+        @Override
+        public void set(int row, Object value) {
+            load().set(row, value);
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return load().isNull(row);
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return load().getDouble(row);
+        }
+
+        @Override
+        public long getLong(int row) {
+            return load().getLong(row);
+        }
+
+        @Override
+        public boolean getBoolean(int row) {
+            return load().getBoolean(row);
+        }
+
+        @Override
+        public void setDouble(int row, double value) {
+            load().setDouble(row, value);
+        }
+
+        @Override
+        public void setLong(int row, long value) {
+            load().setLong(row, value);
+        }
+
+        @Override
+        public void setBoolean(int row, boolean value) {
+            load().setBoolean(row, value);
+        }
+
+        @Override
+        public void release(int row) {
+            if (loader != null) {
+                synchronized (this) {
+                    if (loader != null) {
+                        released.set(row);
+                        return;
+                    }
+                }
+            }
+            store.release(row);
+        }
+
+        @Override
+        protected void grow(int chunks) {
+            store.ensureCapacity(chunks << CHUNK_BITS);
+        }
+    }
+}
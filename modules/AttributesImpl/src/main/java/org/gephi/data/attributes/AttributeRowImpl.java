@@ -50,6 +50,9 @@ import org.gephi.data.attributes.api.AttributeValue;
 import org.gephi.data.attributes.event.ValueEvent;
 
 /**
+ * Row of an {@link AttributeTableImpl}. Values are not held by the row but in
+ * the column stores of the table, at the row's index. <code>AttributeValue</code>
+ * instances are created on demand.
  *
  * @author Mathieu Bastian
  * @author Cezary Bartosiak
@@ -58,27 +61,25 @@ public class AttributeRowImpl implements AttributeRow {
 
     protected final Object object;
     protected final AttributeTableImpl attributeTable;
-    protected AttributeValueImpl[] values;
+    protected final int index;
     protected int rowVersion = -1;
 
     public AttributeRowImpl(AttributeTableImpl attributeTable, Object object) {
         this.attributeTable = attributeTable;
         this.object = object;
-        reset();
+        this.index = attributeTable.addRow(this);
+        reset(true);
     }
 
     public void reset() {
-        rowVersion = attributeTable.getVersion();
-        int attSize = attributeTable.countColumns();
-
-        if (values == null) {
-            values = new AttributeValueImpl[attSize];
-        } else {
-            updateColumns();
-        }
+        reset(false);
+    }
 
-        for (int i = 0; i < attSize; i++) {
-            setValue(i, attributeTable.getColumn(i).defaultValue, false);
+    private void reset(boolean newRow) {
+        rowVersion = attributeTable.getVersion();
+        AttributeColumnImpl[] columns = attributeTable.getColumns();
+        for (int i = 0; i < columns.length; i++) {
+            setValue(columns[i], columns[i].defaultValue.getStoredValue(), newRow);
         }
     }
 
@@ -138,78 +139,258 @@ public class AttributeRowImpl implements AttributeRow {
             value = attributeTable.getFactory().newValue(column, value.getValue());
         }
 
-        setValue(column.getIndex(), (AttributeValueImpl) value, true);
+        setValue((AttributeColumnImpl) column, ((AttributeValueImpl) value).getStoredValue(), false);
     }
 
-    private void setValue(int index, AttributeValueImpl value, boolean doUpdateColumns) {
-        if (doUpdateColumns) {
-            updateColumns();
+    private void setValue(AttributeColumnImpl column, Object value, boolean newRow) {
+        AttributeColumnStore store = column.store;
+        Object oldValue = store.get(index);
+        store.set(index, value);
+        fireValueEvents(column, oldValue, value, newRow);
+    }
+
+    static boolean hasValueEvents(AttributeColumnImpl column) {
+        //0 is the index of node id and edge id cols, not useful to send these events
+        return column.getIndex() > 0 && !column.getOrigin().equals(AttributeOrigin.COMPUTED);
+    }
+
+    private void fireValueEvents(AttributeColumnImpl column, Object oldValue, Object value, boolean newRow) {
+        if (hasValueEvents(column)) {
+            if (attributeTable.model.isBatching(column)) {
+                if (newRow || !(oldValue == value || (oldValue != null && oldValue.equals(value)))) {
+                    attributeTable.model.fireBatchedValueEvent(attributeTable, column, index);
+                }
+                return;
+            }
+            AttributeValueImpl oldAttValue = newRow ? null : new AttributeValueImpl(column, oldValue);
+            AttributeValueImpl attValue = new AttributeValueImpl(column, value);
+            if (!(oldAttValue != null && oldAttValue.equals(attValue))) {
+                if (oldAttValue != null) {
+                    attributeTable.model.fireAttributeEvent(new ValueEvent(EventType.UNSET_VALUE, attributeTable, object, oldAttValue));
+                }
+                attributeTable.model.fireAttributeEvent(new ValueEvent(EventType.SET_VALUE, attributeTable, object, attValue));
+            }
         }
+    }
 
-        AttributeValueImpl oldValue = this.values[index];
+    public void setDouble(AttributeColumn column, double value) {
+        setDouble(getPrimitiveColumn(column), value);
+    }
 
-        this.values[index] = value;
+    public void setFloat(AttributeColumn column, float value) {
+        setDouble(getPrimitiveColumn(column), value);
+    }
 
-        if (!(oldValue != null && oldValue.equals(value))
-                && index > 0 && !value.getColumn().getOrigin().equals(AttributeOrigin.COMPUTED)) {    //0 is the index of node id and edge id cols, not useful to send these events
-            if (oldValue != null) {
-                attributeTable.model.fireAttributeEvent(new ValueEvent(EventType.UNSET_VALUE, attributeTable, object, oldValue));
-            }
-            attributeTable.model.fireAttributeEvent(new ValueEvent(EventType.SET_VALUE, attributeTable, object, value));
+    public void setInt(AttributeColumn column, int value) {
+        setLong(getPrimitiveColumn(column), value);
+    }
+
+    public void setLong(AttributeColumn column, long value) {
+        setLong(getPrimitiveColumn(column), value);
+    }
+
+    public void setBoolean(AttributeColumn column, boolean value) {
+        AttributeColumnImpl tableColumn = getPrimitiveColumn(column);
+        AttributeColumnStore store = tableColumn.store;
+        if (hasValueEvents(tableColumn)) {
+            Object oldValue = store.get(index);
+            store.setBoolean(index, value);
+            fireValueEvents(tableColumn, oldValue, store.get(index), false);
+        } else {
+            store.setBoolean(index, value);
         }
     }
 
+    void setDouble(AttributeColumnImpl column, double value) {
+        AttributeColumnStore store = column.store;
+        if (hasValueEvents(column)) {
+            Object oldValue = store.get(index);
+            store.setDouble(index, value);
+            fireValueEvents(column, oldValue, store.get(index), false);
+        } else {
+            store.setDouble(index, value);
+        }
+    }
+
+    void setLong(AttributeColumnImpl column, long value) {
+        AttributeColumnStore store = column.store;
+        if (hasValueEvents(column)) {
+            Object oldValue = store.get(index);
+            store.setLong(index, value);
+            fireValueEvents(column, oldValue, store.get(index), false);
+        } else {
+            store.setLong(index, value);
+        }
+    }
+
+    private AttributeColumnImpl getPrimitiveColumn(AttributeColumn column) {
+        if (column == null) {
+            throw new NullPointerException("Column is null");
+        }
+        AttributeColumnImpl tableColumn = attributeTable.getColumn(column.getIndex());
+        if (tableColumn != column) {
+            throw new IllegalArgumentException("The column " + column.getId() + " doesn't exist in the " + attributeTable.getName() + " table");
+        }
+        if (tableColumn.getOrigin() == AttributeOrigin.DELEGATE) {
+            throw new IllegalArgumentException("The column " + column.getId() + " is a delegate column");
+        }
+        return tableColumn;
+    }
+
     public Object getValue(AttributeColumn column) {
         if (column == null) {
             throw new NullPointerException();
         }
-        updateColumns();
-        int index = column.getIndex();
-        if (checkIndexRange(index)) {
-            AttributeValue val = values[index];
-            if (val.getColumn() == column) {
-                return val.getValue();
-            }
+        AttributeColumnImpl tableColumn = attributeTable.getColumn(column.getIndex());
+        if (tableColumn == column) {
+            return getValue(tableColumn);
         }
         return null;
     }
 
     public Object getValue(int index) {
-        updateColumns();
-        if (checkIndexRange(index)) {
-            AttributeColumn attributeColumn = attributeTable.getColumn(index);
+        AttributeColumnImpl attributeColumn = attributeTable.getColumn(index);
+        if (attributeColumn != null) {
             return getValue(attributeColumn);
         }
         return null;
     }
 
     public Object getValue(String column) {
-        updateColumns();
-        AttributeColumn attributeColumn = attributeTable.getColumn(column);
+        AttributeColumnImpl attributeColumn = attributeTable.getColumn(column);
         if (attributeColumn != null) {
             return getValue(attributeColumn);
         }
         return null;
     }
 
+    public boolean isNull(AttributeColumn column) {
+        if (column == null) {
+            throw new NullPointerException();
+        }
+        AttributeColumnImpl tableColumn = attributeTable.getColumn(column.getIndex());
+        if (tableColumn != column) {
+            return true;
+        } else if (tableColumn.getOrigin() == AttributeOrigin.DELEGATE) {
+            return getValue(tableColumn) == null;
+        }
+        return tableColumn.store.isNull(index);
+    }
+
+    public double getDouble(AttributeColumn column) {
+        if (column == null) {
+            throw new NullPointerException();
+        }
+        return getDouble(attributeTable.getColumn(column.getIndex()), column);
+    }
+
+    public float getFloat(AttributeColumn column) {
+        return (float) getDouble(column);
+    }
+
+    public int getInt(AttributeColumn column) {
+        return (int) getLong(column);
+    }
+
+    public long getLong(AttributeColumn column) {
+        if (column == null) {
+            throw new NullPointerException();
+        }
+        return getLong(attributeTable.getColumn(column.getIndex()), column);
+    }
+
+    public boolean getBoolean(AttributeColumn column) {
+        if (column == null) {
+            throw new NullPointerException();
+        }
+        AttributeColumnImpl tableColumn = attributeTable.getColumn(column.getIndex());
+        if (tableColumn != column) {
+            return false;
+        } else if (tableColumn.getOrigin() == AttributeOrigin.DELEGATE) {
+            Object value = getValue(tableColumn);
+            if (value == null || value instanceof Boolean) {
+                return value != null && ((Boolean) value).booleanValue();
+            }
+            throw new IllegalArgumentException("The value isn't a boolean");
+        }
+        return tableColumn.store.getBoolean(index);
+    }
+
+    public double getDouble(int index) {
+        AttributeColumnImpl column = attributeTable.getColumn(index);
+        return getDouble(column, column);
+    }
+
+    public float getFloat(int index) {
+        return (float) getDouble(index);
+    }
+
+    public int getInt(int index) {
+        return (int) getLong(index);
+    }
+
+    public long getLong(int index) {
+        AttributeColumnImpl column = attributeTable.getColumn(index);
+        return getLong(column, column);
+    }
+
+    private double getDouble(AttributeColumnImpl tableColumn, AttributeColumn column) {
+        if (tableColumn == null || tableColumn != column) {
+            return 0.0;
+        } else if (tableColumn.getOrigin() == AttributeOrigin.DELEGATE) {
+            Number number = toNumber(getValue(tableColumn));
+            return number != null ? number.doubleValue() : 0.0;
+        }
+        return tableColumn.store.getDouble(index);
+    }
+
+    private long getLong(AttributeColumnImpl tableColumn, AttributeColumn column) {
+        if (tableColumn == null || tableColumn != column) {
+            return 0l;
+        } else if (tableColumn.getOrigin() == AttributeOrigin.DELEGATE) {
+            Number number = toNumber(getValue(tableColumn));
+            return number != null ? number.longValue() : 0l;
+        }
+        return tableColumn.store.getLong(index);
+    }
+
+    private static Number toNumber(Object value) {
+        if (value == null || value instanceof Number) {
+            return (Number) value;
+        }
+        throw new IllegalArgumentException("The value isn't a number");
+    }
+
+    private Object getValue(AttributeColumnImpl column) {
+        Object value = column.store.get(index);
+        if (value != null && column.getOrigin() == AttributeOrigin.DELEGATE) {
+            return new AttributeValueImpl(column, value).getValue();
+        }
+        return value;
+    }
+
     public AttributeValue[] getValues() {
+        AttributeColumnImpl[] columns = attributeTable.getColumns();
+        AttributeValue[] values = new AttributeValue[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = new AttributeValueImpl(columns[i], columns[i].store.get(index));
+        }
         return values;
     }
 
     public AttributeValue getAttributeValueAt(int index) {
-        if (checkIndexRange(index)) {
-            return values[index];
+        AttributeColumnImpl column = attributeTable.getColumn(index);
+        if (column != null) {
+            return new AttributeValueImpl(column, column.store.get(this.index));
         }
         return null;
     }
 
     public int countValues() {
-        updateColumns();
-        return values.length;
+        return attributeTable.countColumns();
     }
 
     public AttributeColumn getColumnAt(int index) {
-        updateColumns();
         return attributeTable.getColumn(index);
     }
 
@@ -217,41 +398,8 @@ public class AttributeRowImpl implements AttributeRow {
         return object;
     }
 
-    private void updateColumns() {
-        int tableVersion = attributeTable.getVersion();
-        if (rowVersion < tableVersion) {
-
-            //Need to update
-            AttributeColumnImpl[] columns = attributeTable.getColumns();
-            AttributeValueImpl[] oldValues = values;
-
-            values = new AttributeValueImpl[columns.length];
-
-            for (int i = 0; i < columns.length; i++) {
-                AttributeColumnImpl tableCol = columns[i];
-                boolean found = false;
-                int j = 0;
-                while (j < oldValues.length) {
-                    AttributeValueImpl val = oldValues[j++];
-                    if (val.getColumn() == tableCol) {
-                        values[i] = val;
-                        found = true;
-                        break;
-                    }
-                }
-
-                if (!found) {
-                    setValue(i, tableCol.defaultValue, false);
-                }
-            }
-
-            //Upd version
-            rowVersion = tableVersion;
-        }
-    }
-
-    private boolean checkIndexRange(int index) {
-        return index < values.length && index >= 0;
+    public int getIndex() {
+        return index;
     }
 
     public int getRowVersion() {
@@ -263,6 +411,8 @@ public class AttributeRowImpl implements AttributeRow {
     }
 
     public void setValues(AttributeValueImpl[] values) {
-        this.values = values;
+        for (int i = 0; i < values.length; i++) {
+            setValue(values[i]);
+        }
     }
 }
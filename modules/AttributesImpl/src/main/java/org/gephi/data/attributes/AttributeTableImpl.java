@@ -41,15 +41,22 @@
  */
 package org.gephi.data.attributes;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.gephi.data.attributes.AttributeColumnIndexImpl.IndexedStore;
+import org.gephi.data.attributes.AttributeColumnStore.LazyStore;
 import org.gephi.data.attributes.api.AttributeColumn;
 import org.gephi.data.attributes.api.AttributeEvent;
 import org.gephi.data.attributes.api.AttributeOrigin;
+import org.gephi.data.attributes.api.AttributeRow;
 import org.gephi.data.attributes.api.AttributeTable;
 import org.gephi.data.attributes.api.AttributeType;
 import org.gephi.data.attributes.api.AttributeUtils;
@@ -65,6 +72,12 @@ import org.gephi.graph.api.Node;
 import org.openide.util.Lookup;
 
 /**
+ * Table of columns, which also stores the values of its rows. Each column keeps
+ * its values in an {@link AttributeColumnStore} and each row is an index in
+ * these stores. Indexes of garbage collected rows are reused.
+ * <p>
+ * Columns can have a secondary index of their values, see
+ * {@link AttributeColumnIndexImpl}.
  *
  * @author Mathieu Bastian
  * @author Martin Škurla
@@ -80,6 +93,12 @@ public class AttributeTableImpl implements AttributeTable {
     protected final Map<String, AttributeColumnImpl> columnsMap = new HashMap<String, AttributeColumnImpl>();
     //Version
     protected int version = 0;
+    //Rows
+    private final ReferenceQueue<AttributeRowImpl> rowQueue = new ReferenceQueue<AttributeRowImpl>();
+    private RowReference[] rowReferences = new RowReference[16];
+    private int rowCount;
+    private int[] freeRows = new int[16];
+    private int freeRowsCount;
 
     public AttributeTableImpl(AbstractAttributeModel model, String name) {
         this.name = name;
@@ -142,6 +161,7 @@ public class AttributeTableImpl implements AttributeTable {
             defaultValue = model.getManagedValue(defaultValue, type);
         }
         AttributeColumnImpl column = new AttributeColumnImpl(this, columns.size(), id, title, type, origin, defaultValue, attributeValueDelegateProvider);
+        initStore(column);
         columns.add(column);
         columnsMap.put(id.toLowerCase(), column);
         if (title != null && !title.equals(id)) {
@@ -223,6 +243,7 @@ public class AttributeTableImpl implements AttributeTable {
             columnsMap.remove(column.getTitle().toLowerCase());
         }
         columnsSet.remove(column);
+        ((AttributeColumnImpl) column).store = null;
 
         model.fireAttributeEvent(
                 new ColumnEvent(AttributeEvent.EventType.REMOVE_COLUMN, (AttributeColumnImpl) column));
@@ -246,8 +267,13 @@ public class AttributeTableImpl implements AttributeTable {
         }
         columnsSet.remove(source);
 
+        if (source instanceof AttributeColumnImpl) {
+            ((AttributeColumnImpl) source).store = null;
+        }
+
         //Add
         targetImpl.index = index;
+        initStore(targetImpl);
         columns.set(index, targetImpl);
         columnsMap.put(targetImpl.id.toLowerCase(), targetImpl);
         if (targetImpl.title != null && !targetImpl.title.equals(targetImpl.id)) {
@@ -278,6 +304,70 @@ public class AttributeTableImpl implements AttributeTable {
         return replaceColumn(source, targetImpl);
     }
 
+    /**
+     * Creates the store of a column being added, and fills it with the column's
+     * default value for existing rows.
+     */
+    private void initStore(AttributeColumnImpl column) {
+        AttributeColumnStore store = AttributeColumnStore.newStore(column);
+        store.ensureCapacity(rowCount);
+        Object defaultValue = column.defaultValue.getStoredValue();
+        if (defaultValue != null) {
+            for (int i = 0; i < rowCount; i++) {
+                if (rowReferences[i] != null) {
+                    store.set(i, defaultValue);
+                }
+            }
+        }
+        column.store = store;
+    }
+
+    /**
+     * Allocates an index in the column stores for <code>row</code>. The index is
+     * released once the row has been garbage collected.
+     */
+    synchronized int addRow(AttributeRowImpl row) {
+        releaseCollectedRows();
+        int index;
+        if (freeRowsCount > 0) {
+            index = freeRows[--freeRowsCount];
+        } else {
+            index = rowCount++;
+            if (index == rowReferences.length) {
+                rowReferences = Arrays.copyOf(rowReferences, index * 2);
+            }
+            for (AttributeColumnImpl column : columns) {
+                column.store.ensureCapacity(rowCount);
+            }
+        }
+        rowReferences[index] = new RowReference(row, index, rowQueue);
+        return index;
+    }
+
+    private void releaseCollectedRows() {
+        RowReference reference;
+        while ((reference = (RowReference) rowQueue.poll()) != null) {
+            int index = reference.index;
+            for (AttributeColumnImpl column : columns) {
+                column.store.release(index);
+            }
+            rowReferences[index] = null;
+            if (freeRowsCount == freeRows.length) {
+                freeRows = Arrays.copyOf(freeRows, freeRowsCount * 2);
+            }
+            freeRows[freeRowsCount++] = index;
+        }
+    }
+
+    /**
+     * Returns the number of row indexes in use, including rows not yet
+     * released.
+     */
+    public synchronized int countRows() {
+        releaseCollectedRows();
+        return rowCount - freeRowsCount;
+    }
+
     public synchronized AttributeColumnImpl getColumn(int index) {
         if (index >= 0 && index < columns.size()) {
             return columns.get(index);
@@ -346,4 +436,273 @@ public class AttributeTableImpl implements AttributeTable {
             }
         }
     }
+
+    public synchronized AttributeColumnIndexImpl createColumnIndex(AttributeColumn column) {
+        AttributeColumnImpl tableColumn = getColumn(column.getIndex());
+        if (tableColumn != column) {
+            throw new IllegalArgumentException("The column " + column.getId() + " doesn't exist in the " + name + " table");
+        }
+        if (tableColumn.getOrigin() == AttributeOrigin.DELEGATE) {
+            throw new IllegalArgumentException("The column " + column.getId() + " is a delegate column");
+        }
+        if (tableColumn.store instanceof IndexedStore) {
+            AttributeColumnIndexImpl index = ((IndexedStore) tableColumn.store).getIndex();
+            index.references++;
+            return index;
+        }
+        releaseCollectedRows();
+        AttributeColumnIndexImpl index = new AttributeColumnIndexImpl(tableColumn);
+        synchronized (index) {
+            tableColumn.store = new IndexedStore(tableColumn.store, index);
+            for (int i = 0; i < rowCount; i++) {
+                if (rowReferences[i] != null) {
+                    index.update(i, null);
+                }
+            }
+        }
+        index.references = 1;
+        return index;
+    }
+
+    public synchronized AttributeColumnIndexImpl getColumnIndex(AttributeColumn column) {
+        AttributeColumnImpl tableColumn = getColumn(column.getIndex());
+        if (tableColumn == column && tableColumn.store instanceof IndexedStore) {
+            return ((IndexedStore) tableColumn.store).getIndex();
+        }
+        return null;
+    }
+
+    public synchronized void removeColumnIndex(AttributeColumn column) {
+        AttributeColumnImpl tableColumn = getColumn(column.getIndex());
+        if (tableColumn == column && tableColumn.store instanceof IndexedStore) {
+            IndexedStore store = (IndexedStore) tableColumn.store;
+            if (--store.getIndex().references > 0) {
+                return;
+            }
+            tableColumn.store = store.getStore();
+            store.getIndex().clear();
+        }
+    }
+
+    /**
+     * Sets the values of <code>column</code> with <code>loader</code> the first
+     * time the column is accessed. Indexed columns are loaded right away.
+     *
+     * @throws IllegalArgumentException if <code>column</code> doesn't belong to this table
+     */
+    public synchronized void setColumnLoader(AttributeColumnImpl column, AttributeColumnStore.Loader loader) {
+        if (getColumn(column.getIndex()) != column) {
+            throw new IllegalArgumentException("The column " + column.getId() + " doesn't exist in the " + name + " table");
+        }
+        if (column.store instanceof IndexedStore) {
+            loader.load(column.store, new BitSet());
+        } else {
+            column.store = new LazyStore(column.store, loader);
+        }
+    }
+
+    public synchronized AttributeRowImpl getRow(int index) {
+        if (index >= 0 && index < rowCount && rowReferences[index] != null) {
+            return rowReferences[index].get();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the rows at <code>indexes</code>, skipping rows already
+     * collected.
+     */
+    synchronized AttributeRowImpl[] getRows(int[] indexes) {
+        AttributeRowImpl[] rows = new AttributeRowImpl[indexes.length];
+        int count = 0;
+        for (int i = 0; i < indexes.length; i++) {
+            RowReference reference = rowReferences[indexes[i]];
+            AttributeRowImpl row;
+            if (reference != null && (row = reference.get()) != null) {
+                rows[count++] = row;
+            }
+        }
+        return count == rows.length ? rows : Arrays.copyOf(rows, count);
+    }
+
+    public BitSet readColumn(AttributeColumn column, AttributeRow[] rows, double[] values) {
+        AttributeColumnStore store = getBulkColumn(column, rows, values.length).store;
+        BitSet nulls = new BitSet();
+        for (int i = 0; i < rows.length; i++) {
+            int index = getBulkRow(rows[i]).index;
+            if (store.isNull(index)) {
+                nulls.set(i);
+            }
+            values[i] = store.getDouble(index);
+        }
+        return nulls;
+    }
+
+    public BitSet readColumn(AttributeColumn column, AttributeRow[] rows, float[] values) {
+        AttributeColumnStore store = getBulkColumn(column, rows, values.length).store;
+        BitSet nulls = new BitSet();
+        for (int i = 0; i < rows.length; i++) {
+            int index = getBulkRow(rows[i]).index;
+            if (store.isNull(index)) {
+                nulls.set(i);
+            }
+            values[i] = (float) store.getDouble(index);
+        }
+        return nulls;
+    }
+
+    public BitSet readColumn(AttributeColumn column, AttributeRow[] rows, int[] values) {
+        AttributeColumnStore store = getBulkColumn(column, rows, values.length).store;
+        BitSet nulls = new BitSet();
+        for (int i = 0; i < rows.length; i++) {
+            int index = getBulkRow(rows[i]).index;
+            if (store.isNull(index)) {
+                nulls.set(i);
+            }
+            values[i] = (int) store.getLong(index);
+        }
+        return nulls;
+    }
+
+    public BitSet readColumn(AttributeColumn column, AttributeRow[] rows, long[] values) {
+        AttributeColumnStore store = getBulkColumn(column, rows, values.length).store;
+        BitSet nulls = new BitSet();
+        for (int i = 0; i < rows.length; i++) {
+            int index = getBulkRow(rows[i]).index;
+            if (store.isNull(index)) {
+                nulls.set(i);
+            }
+            values[i] = store.getLong(index);
+        }
+        return nulls;
+    }
+
+    public void writeColumn(AttributeColumn column, AttributeRow[] rows, double[] values) {
+        AttributeColumnImpl tableColumn = getBulkColumn(column, rows, values.length);
+        AttributeColumnStore store = tableColumn.store;
+        boolean events = AttributeRowImpl.hasValueEvents(tableColumn);
+        if (events) {
+            model.beginBatch();
+        }
+        try {
+            for (int i = 0; i < rows.length; i++) {
+                AttributeRowImpl row = getBulkRow(rows[i]);
+                if (events) {
+                    row.setDouble(tableColumn, values[i]);
+                } else {
+                    store.setDouble(row.index, values[i]);
+                }
+            }
+        } finally {
+            if (events) {
+                model.commitBatch();
+            }
+        }
+    }
+
+    public void writeColumn(AttributeColumn column, AttributeRow[] rows, float[] values) {
+        AttributeColumnImpl tableColumn = getBulkColumn(column, rows, values.length);
+        AttributeColumnStore store = tableColumn.store;
+        boolean events = AttributeRowImpl.hasValueEvents(tableColumn);
+        if (events) {
+            model.beginBatch();
+        }
+        try {
+            for (int i = 0; i < rows.length; i++) {
+                AttributeRowImpl row = getBulkRow(rows[i]);
+                if (events) {
+                    row.setDouble(tableColumn, values[i]);
+                } else {
+                    store.setDouble(row.index, values[i]);
+                }
+            }
+        } finally {
+            if (events) {
+                model.commitBatch();
+            }
+        }
+    }
+
+    public void writeColumn(AttributeColumn column, AttributeRow[] rows, int[] values) {
+        AttributeColumnImpl tableColumn = getBulkColumn(column, rows, values.length);
+        AttributeColumnStore store = tableColumn.store;
+        boolean events = AttributeRowImpl.hasValueEvents(tableColumn);
+        if (events) {
+            model.beginBatch();
+        }
+        try {
+            for (int i = 0; i < rows.length; i++) {
+                AttributeRowImpl row = getBulkRow(rows[i]);
+                if (events) {
+                    row.setLong(tableColumn, values[i]);
+                } else {
+                    store.setLong(row.index, values[i]);
+                }
+            }
+        } finally {
+            if (events) {
+                model.commitBatch();
+            }
+        }
+    }
+
+    public void writeColumn(AttributeColumn column, AttributeRow[] rows, long[] values) {
+        AttributeColumnImpl tableColumn = getBulkColumn(column, rows, values.length);
+        AttributeColumnStore store = tableColumn.store;
+        boolean events = AttributeRowImpl.hasValueEvents(tableColumn);
+        if (events) {
+            model.beginBatch();
+        }
+        try {
+            for (int i = 0; i < rows.length; i++) {
+                AttributeRowImpl row = getBulkRow(rows[i]);
+                if (events) {
+                    row.setLong(tableColumn, values[i]);
+                } else {
+                    store.setLong(row.index, values[i]);
+                }
+            }
+        } finally {
+            if (events) {
+                model.commitBatch();
+            }
+        }
+    }
+
+    private AttributeColumnImpl getBulkColumn(AttributeColumn column, AttributeRow[] rows, int valuesLength) {
+        AttributeColumnImpl tableColumn = getColumn(column.getIndex());
+        if (tableColumn != column) {
+            throw new IllegalArgumentException("The column " + column.getId() + " doesn't exist in the " + name + " table");
+        }
+        if (tableColumn.getOrigin() == AttributeOrigin.DELEGATE) {
+            throw new IllegalArgumentException("The column " + column.getId() + " is a delegate column");
+        }
+        if (valuesLength < rows.length) {
+            throw new IllegalArgumentException("The values array is shorter than the rows array");
+        }
+        return tableColumn;
+    }
+
+    private AttributeRowImpl getBulkRow(AttributeRow row) {
+        if (!(row instanceof AttributeRowImpl) || ((AttributeRowImpl) row).attributeTable != this) {
+            throw new IllegalArgumentException("The row doesn't belong to the " + name + " table");
+        }
+        return (AttributeRowImpl) row;
+    }
+
+    /**
+     * Rows have no release call, nodes and edges removed from the graph simply
+     * drop their row. The table references rows weakly to find the indexes to
+     * reuse once rows are collected, and to return rows from a column index,
+     * for about 40 bytes per row.
+     */
+    private static class RowReference extends WeakReference<AttributeRowImpl> {
+
+        private final int index;
+
+        public RowReference(AttributeRowImpl row, int index, ReferenceQueue<AttributeRowImpl> queue) {
+            super(row, queue);
+            this.index = index;
+        }
+    }
 }
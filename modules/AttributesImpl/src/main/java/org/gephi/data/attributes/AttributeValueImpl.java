@@ -64,6 +64,13 @@ public final class AttributeValueImpl implements AttributeValue {
         return column;
     }
 
+    /**
+     * Returns the value as stored, the delegate id for delegate columns.
+     */
+    Object getStoredValue() {
+        return value;
+    }
+
     public Object getValue() {
         if (column.getOrigin() != AttributeOrigin.DELEGATE) {
             return value;
@@ -41,6 +41,11 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.data.attributes.event;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import org.gephi.data.attributes.AttributeRowImpl;
+import org.gephi.data.attributes.AttributeTableImpl;
 import org.gephi.data.attributes.api.AttributeColumn;
 import org.gephi.data.attributes.api.AttributeEventData;
 import org.gephi.data.attributes.api.AttributeValue;
@@ -54,6 +59,10 @@ public class AttributeEventDataImpl implements AttributeEventData {
     private AttributeColumn[] columns;
     private AttributeValue[] values;
     private Object[] objects;
+    //Batch
+    private AttributeTableImpl table;
+    private AttributeColumn changedColumn;
+    private BitSet changedRows;
 
     public AttributeColumn[] getAddedColumns() {
         return columns;
@@ -63,14 +72,45 @@ public class AttributeEventDataImpl implements AttributeEventData {
         return columns;
     }
 
-    public AttributeValue[] getTouchedValues() {
+    public synchronized AttributeValue[] getTouchedValues() {
+        if (values == null && changedRows != null) {
+            resolveChangedRows();
+        }
         return values;
     }
 
-    public Object[] getTouchedObjects() {
+    public synchronized Object[] getTouchedObjects() {
+        if (objects == null && changedRows != null) {
+            resolveChangedRows();
+        }
         return objects;
     }
 
+    public AttributeColumn getChangedColumn() {
+        return changedColumn;
+    }
+
+    public BitSet getChangedRows() {
+        return changedRows;
+    }
+
+    private void resolveChangedRows() {
+        List<AttributeValue> valueList = new ArrayList<AttributeValue>();
+        List<Object> objectList = new ArrayList<Object>();
+        int columnIndex = changedColumn.getIndex();
+        if (table.getColumn(columnIndex) == changedColumn) {
+            for (int i = changedRows.nextSetBit(0); i >= 0; i = changedRows.nextSetBit(i + 1)) {
+                AttributeRowImpl row = table.getRow(i);
+                if (row != null) {
+                    valueList.add(row.getAttributeValueAt(columnIndex));
+                    objectList.add(row.getObject());
+                }
+            }
+        }
+        values = valueList.toArray(new AttributeValue[0]);
+        objects = objectList.toArray();
+    }
+
     public void setColumns(AttributeColumn[] columns) {
         this.columns = columns;
     }
@@ -82,4 +122,10 @@ public class AttributeEventDataImpl implements AttributeEventData {
     public void setObjects(Object[] objects) {
         this.objects = objects;
     }
+
+    public void setChangedRows(AttributeTableImpl table, AttributeColumn column, BitSet rows) {
+        this.table = table;
+        this.changedColumn = column;
+        this.changedRows = rows;
+    }
 }
@@ -42,25 +42,46 @@ Portions Copyrighted 2011 Gephi Consortium.
 package org.gephi.data.attributes.event;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.gephi.data.attributes.AbstractAttributeModel;
+import org.gephi.data.attributes.AttributeTableImpl;
 import org.gephi.data.attributes.api.AttributeColumn;
 import org.gephi.data.attributes.api.AttributeEvent;
+import org.gephi.data.attributes.api.AttributeEventMetrics;
 import org.gephi.data.attributes.api.AttributeListener;
+import org.gephi.data.attributes.api.AttributeTable;
 import org.gephi.data.attributes.api.AttributeValue;
 
 /**
+ * Queues attribute events and delivers them to listeners from the
+ * <code>attribute-event-bus</code> thread. Consecutive value or column events
+ * of the same type and table are compressed into one <code>AttributeEvent</code>.
+ * <p>
+ * Threads can batch value changes with {@link #beginBatch()} and
+ * {@link #commitBatch()}. Changes are then recorded as bits in a
+ * <code>BitSet</code> per column, and sent as one {@link ValueBatchEvent} per
+ * column on commit. Dynamic columns aren't batched, the dynamic index needs
+ * their old values.
+ * <p>
+ * The manager counts fired events and batched changes and measures how long
+ * listeners take. These metrics are published through
+ * {@link org.gephi.data.attributes.api.AttributeModel#getEventMetrics()}.
  *
  * @author Mathieu Bastian
  */
-public class AttributeEventManager implements Runnable {
+public class AttributeEventManager implements Runnable, AttributeEventMetrics {
 
     //Const
     private final static long DELAY = 100;
+    private final static long SLOW_LISTENER_NANOS = 500000000l;
     //Architecture
     private final AbstractAttributeModel model;
     private final List<AttributeListener> listeners;
@@ -71,6 +92,18 @@ public class AttributeEventManager implements Runnable {
     private double avgRate = 1.0;
     //Flag
     private boolean stop;
+    //Batch
+    private final ThreadLocal<Batch> batch = new ThreadLocal<Batch>();
+    //Metrics
+    private final AtomicLong firedEvents = new AtomicLong();
+    private final AtomicLong batchedChanges = new AtomicLong();
+    private final AtomicLong deliveredEvents = new AtomicLong();
+    private final AtomicLong listenerCalls = new AtomicLong();
+    private final AtomicLong listenerNanos = new AtomicLong();
+    private volatile long maxListenerNanos;
+    private long rateTime = System.nanoTime();
+    private long rateEvents;
+    private double eventRate;
 
     public AttributeEventManager(AbstractAttributeModel model) {
         this.model = model;
@@ -100,7 +133,7 @@ public class AttributeEventManager implements Runnable {
             AbstractEvent evt = null;
             while ((evt = eventQueue.peek()) != null) {
                 if (precEvt != null) {
-                    if ((evt instanceof ValueEvent || evt instanceof ColumnEvent) && precEvt.getEventType().equals(evt.getEventType()) && precEvt.getAttributeTable() == evt.getAttributeTable()) {     //Same type
+                    if ((evt instanceof ValueEvent || evt instanceof ColumnEvent) && evt.getClass() == precEvt.getClass() && precEvt.getEventType().equals(evt.getEventType()) && precEvt.getAttributeTable() == evt.getAttributeTable()) {     //Same type
                         if (eventCompress == null) {
                             eventCompress = new ArrayList<Object>();
                             eventCompress.add(precEvt.getData());
@@ -125,8 +158,19 @@ public class AttributeEventManager implements Runnable {
             if (precEvt != null) {
                 AttributeEvent event = createEvent(precEvt, eventCompress, eventCompressObjects);
                 for (AttributeListener l : listeners.toArray(new AttributeListener[0])) {
+                    long start = System.nanoTime();
                     l.attributesChanged(event);
+                    long time = System.nanoTime() - start;
+                    listenerCalls.incrementAndGet();
+                    listenerNanos.addAndGet(time);
+                    if (time > maxListenerNanos) {
+                        maxListenerNanos = time;
+                    }
+                    if (time > SLOW_LISTENER_NANOS) {
+                        Logger.getLogger(AttributeEventManager.class.getName()).log(Level.FINE, "Attribute listener {0} took {1} ms", new Object[]{l, time / 1000000});
+                    }
                 }
+                deliveredEvents.incrementAndGet();
             }
             rate++;
 
@@ -165,6 +209,9 @@ public class AttributeEventManager implements Runnable {
                 columns = new AttributeColumn[]{(AttributeColumn) event.getData()};
             }
             eventData.setColumns(columns);
+        } else if (event instanceof ValueBatchEvent) {
+            ValueBatchEvent batchEvent = (ValueBatchEvent) event;
+            eventData.setChangedRows((AttributeTableImpl) batchEvent.getAttributeTable(), batchEvent.getColumn(), batchEvent.getData());
         }
         return attributeEvent;
     }
@@ -185,12 +232,93 @@ public class AttributeEventManager implements Runnable {
     }
 
     public void fireEvent(AbstractEvent event) {
+        firedEvents.incrementAndGet();
         eventQueue.add(event);
         synchronized (lock) {
             lock.notifyAll();
         }
     }
 
+    /**
+     * Starts a batch on the current thread. Batches can be nested.
+     */
+    public void beginBatch() {
+        Batch b = batch.get();
+        if (b == null) {
+            b = new Batch();
+            batch.set(b);
+        }
+        b.depth++;
+    }
+
+    /**
+     * Commits the batch of the current thread, and fires an event for each
+     * modified column if it is the outermost batch.
+     */
+    public void commitBatch() {
+        Batch b = batch.get();
+        if (b == null) {
+            throw new IllegalStateException("No batch has been started on this thread");
+        }
+        if (--b.depth == 0) {
+            batch.remove();
+            for (ValueBatchEvent event : b.events) {
+                batchedChanges.addAndGet(event.getData().cardinality());
+                fireEvent(event);
+            }
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if value changes of <code>column</code> made by
+     * the current thread are batched.
+     */
+    public boolean isBatching(AttributeColumn column) {
+        return !column.getType().isDynamicType() && batch.get() != null;
+    }
+
+    /**
+     * Records a change of the value of <code>row</code> in <code>column</code>,
+     * in the batch of the current thread.
+     */
+    public void fireBatchedValueEvent(AttributeTable table, AttributeColumn column, int row) {
+        batch.get().getRows(table, column).set(row);
+    }
+
+    public long getFiredEventCount() {
+        return firedEvents.get();
+    }
+
+    public long getBatchedChangeCount() {
+        return batchedChanges.get();
+    }
+
+    public long getDeliveredEventCount() {
+        return deliveredEvents.get();
+    }
+
+    public double getEventRate() {
+        synchronized (firedEvents) {
+            long now = System.nanoTime();
+            if (now - rateTime >= 1000000000l) {
+                long events = firedEvents.get();
+                eventRate = (events - rateEvents) * 1e9 / (now - rateTime);
+                rateEvents = events;
+                rateTime = now;
+            }
+            return eventRate;
+        }
+    }
+
+    public double getAverageListenerTime() {
+        long calls = listenerCalls.get();
+        return calls > 0 ? listenerNanos.get() / 1e6 / calls : 0.0;
+    }
+
+    public double getMaxListenerTime() {
+        return maxListenerNanos / 1e6;
+    }
+
     public void start() {
         Thread t = new Thread(this);
         t.setDaemon(true);
@@ -213,4 +341,28 @@ public class AttributeEventManager implements Runnable {
     public void removeAttributeListener(AttributeListener listener) {
         listeners.remove(listener);
     }
+
+    private static class Batch {
+
+        private int depth;
+        private final List<ValueBatchEvent> events = new ArrayList<ValueBatchEvent>();
+        private ValueBatchEvent last;
+
+        private BitSet getRows(AttributeTable table, AttributeColumn column) {
+            if (last == null || last.getColumn() != column || last.getAttributeTable() != table) {
+                last = null;
+                for (ValueBatchEvent event : events) {
+                    if (event.getColumn() == column && event.getAttributeTable() == table) {
+                        last = event;
+                        break;
+                    }
+                }
+                if (last == null) {
+                    last = new ValueBatchEvent(table, column, new BitSet());
+                    events.add(last);
+                }
+            }
+            return last.getData();
+        }
+    }
 }
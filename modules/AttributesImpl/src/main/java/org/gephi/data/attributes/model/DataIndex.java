@@ -47,8 +47,10 @@ import java.math.BigInteger;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import org.gephi.data.attributes.api.AttributeRow;
 import org.gephi.data.attributes.api.AttributeType;
+import org.gephi.data.attributes.type.AbstractList;
 import org.gephi.data.attributes.type.BigDecimalList;
 import org.gephi.data.attributes.type.BigIntegerList;
 import org.gephi.data.attributes.type.BooleanList;
@@ -63,10 +65,15 @@ import org.gephi.data.attributes.type.StringList;
 import org.gephi.data.attributes.type.TimeInterval;
 
 /**
- * The index where values of the current {@link IndexedAttributeManager} are. This index stores the objects
- * as {@link WeakReference}, so the {@link AttributeRow} may share the objects reference with this index.
- * Moreover when no more objects possess a reference to a value, the {@link WeakReference} system
- * (i.e. Garbage collector) will automatically clean the old references.
+ * The intern pool of an {@link IndexedAttributeModel}. Equal values pushed in the
+ * index are replaced by a single canonical instance, which {@link AttributeRow}
+ * of the model share. This also makes dictionary lookups of string columns cheap,
+ * as canonical instances compare by identity first.
+ * <p>
+ * Each model has its own index and it is thread-safe, values can be pushed
+ * concurrently, for instance during a parallel import. There is one pool per
+ * type, each with its own lock. Instances are held as {@link WeakReference}, so
+ * the garbage collector removes them once no row holds them anymore.
  *
  * @author Mathieu Bastian
  * @author Martin Škurla
@@ -80,50 +87,103 @@ public class DataIndex {
         FloatList.class,  DoubleList.class,     BooleanList.class, CharacterList.class,
         StringList.class, BigIntegerList.class, BigDecimalList.class};
 
-    @SuppressWarnings("rawtypes")
-    private static Map<Class<?>, WeakHashMap> centralHashMap;
+    private final Map<Class<?>, WeakHashMap<Object, WeakReference<Object>>> centralHashMap;
+    //Statistics
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
 
-    @SuppressWarnings("rawtypes")
     public DataIndex() {
-        centralHashMap = new HashMap<Class<?>, WeakHashMap>();
+        centralHashMap = new HashMap<Class<?>, WeakHashMap<Object, WeakReference<Object>>>();
 
         for (Class<?> supportedType : SUPPORTED_TYPES)
-            putInCentralMap(supportedType);
-    }
-
-    private static <T> void putInCentralMap(Class<T> supportedType) {
-        centralHashMap.put(supportedType, new WeakHashMap<T, WeakReference<T>>());
+            centralHashMap.put(supportedType, new WeakHashMap<Object, WeakReference<Object>>());
     }
 
     public int countEntries() {
         int entries = 0;
 
-        for (WeakHashMap<?,?> weakHashMap : centralHashMap.values())
-            entries += weakHashMap.size();
+        for (WeakHashMap<Object, WeakReference<Object>> pool : centralHashMap.values()) {
+            synchronized (pool) {
+                entries += pool.size();
+            }
+        }
 
         return entries;
     }
 
     @SuppressWarnings("unchecked")
     <T> T pushData(T data) {
-        Class<?> classObjectKey = data.getClass();
-        WeakHashMap<T, WeakReference<T>> weakHashMap = centralHashMap.get(classObjectKey);
+        WeakHashMap<Object, WeakReference<Object>> pool = centralHashMap.get(data.getClass());
 
-        if (weakHashMap == null)
+        if (pool == null)
             return data;
 
-        WeakReference<T> value = weakHashMap.get(data);
-        if (value == null) {
-            WeakReference<T> weakRef = new WeakReference<T>(data);
-            weakHashMap.put(data, weakRef);
-            return data;
+        lookups.incrementAndGet();
+        Object value;
+        synchronized (pool) {
+            WeakReference<Object> ref = pool.get(data);
+            value = ref != null ? ref.get() : null;
+            if (value == null) {
+                pool.put(data, new WeakReference<Object>(data));
+                return data;
+            }
         }
 
-        return value.get();
+        hits.incrementAndGet();
+        if (value != data) {
+            bytesSaved.addAndGet(sizeOf(data));
+        }
+        return (T) value;
+    }
+
+    /**
+     * Returns the number of values pushed in this index, of a supported type.
+     */
+    public long getLookupCount() {
+        return lookups.get();
+    }
+
+    /**
+     * Returns the number of pushed values for which an equal instance was
+     * already in the index.
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the ratio between hits and lookups, or 0 if no value has been
+     * pushed yet.
+     */
+    public double getHitRate() {
+        long l = lookups.get();
+        return l > 0 ? hits.get() / (double) l : 0.0;
+    }
+
+    /**
+     * Returns an estimate of the memory saved by sharing instances, in bytes. It
+     * sums the size of each pushed duplicate, whether or not it is retained
+     * elsewhere.
+     */
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    private static long sizeOf(Object data) {
+        if (data instanceof String) {
+            return 40 + 2l * ((String) data).length();
+        } else if (data instanceof AbstractList) {
+            return 32 + 16l * ((AbstractList<?>) data).size();
+        }
+        return 32;
     }
 
     public void clear() {
-        for (WeakHashMap<?,?> weakHashMap : centralHashMap.values())
-            weakHashMap.clear();
+        for (WeakHashMap<Object, WeakReference<Object>> pool : centralHashMap.values()) {
+            synchronized (pool) {
+                pool.clear();
+            }
+        }
     }
 }
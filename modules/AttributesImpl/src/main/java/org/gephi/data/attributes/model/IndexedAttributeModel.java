@@ -69,6 +69,10 @@ public class IndexedAttributeModel extends AbstractAttributeModel {
         return dataIndex.pushData(obj);
     }
 
+    public DataIndex getDataIndex() {
+        return dataIndex;
+    }
+
     @Override
     public void clear() {
         super.clear();
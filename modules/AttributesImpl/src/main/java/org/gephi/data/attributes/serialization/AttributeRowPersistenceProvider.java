@@ -49,6 +49,7 @@ import org.gephi.data.attributes.api.AttributeModel;
 import org.gephi.graph.api.GraphModel;
 import org.gephi.project.api.Workspace;
 import org.gephi.project.spi.WorkspacePersistenceProvider;
+import org.openide.util.NbPreferences;
 import org.openide.util.lookup.ServiceProvider;
 
 /**
@@ -58,13 +59,17 @@ import org.openide.util.lookup.ServiceProvider;
 @ServiceProvider(service = WorkspacePersistenceProvider.class, position = 15000)
 public class AttributeRowPersistenceProvider implements WorkspacePersistenceProvider {
 
+    private static final String BINARY_PREFERENCE = "AttributeRowPersistence_Binary";
+
     public void writeXML(XMLStreamWriter writer, Workspace workspace) {
         AttributeModel model = workspace.getLookup().lookup(AttributeModel.class);
         GraphModel graphModel = workspace.getLookup().lookup(GraphModel.class);
-        AttributeRowSerializer serializer = new AttributeRowSerializer();
+        //XML by default so older versions can open the project, binary is opt-in
+        boolean binary = NbPreferences.forModule(AttributeRowPersistenceProvider.class).getBoolean(BINARY_PREFERENCE, false);
+        AttributeRowSerializer serializer = new AttributeRowSerializer(binary);
         if (model != null && graphModel != null && model instanceof AbstractAttributeModel) {
             try {
-                serializer.writeRows(writer, graphModel);
+                serializer.writeRows(writer, graphModel, (AbstractAttributeModel) model);
             } catch (XMLStreamException ex) {
                 throw new RuntimeException(ex);
             }
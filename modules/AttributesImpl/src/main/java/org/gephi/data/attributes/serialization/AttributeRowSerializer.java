@@ -41,22 +41,61 @@
  */
 package org.gephi.data.attributes.serialization;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.XMLStreamWriter;
 import org.gephi.data.attributes.AbstractAttributeModel;
+import org.gephi.data.attributes.AttributeColumnImpl;
+import org.gephi.data.attributes.AttributeColumnStore;
 import org.gephi.data.attributes.AttributeRowImpl;
 import org.gephi.data.attributes.AttributeTableImpl;
+import org.gephi.data.attributes.api.AttributeOrigin;
 import org.gephi.data.attributes.api.AttributeType;
 import org.gephi.data.attributes.api.AttributeValue;
+import org.gephi.data.attributes.type.DynamicBigDecimal;
+import org.gephi.data.attributes.type.DynamicBigInteger;
+import org.gephi.data.attributes.type.DynamicBoolean;
+import org.gephi.data.attributes.type.DynamicByte;
+import org.gephi.data.attributes.type.DynamicCharacter;
+import org.gephi.data.attributes.type.DynamicDouble;
+import org.gephi.data.attributes.type.DynamicFloat;
+import org.gephi.data.attributes.type.DynamicInteger;
+import org.gephi.data.attributes.type.DynamicLong;
+import org.gephi.data.attributes.type.DynamicShort;
+import org.gephi.data.attributes.type.DynamicString;
+import org.gephi.data.attributes.type.DynamicType;
+import org.gephi.data.attributes.type.Interval;
+import org.gephi.data.attributes.type.TimeInterval;
+import org.gephi.data.attributes.type.TypeConvertor;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.api.HierarchicalGraph;
 import org.gephi.graph.api.Node;
+import org.gephi.utils.BlockReader;
+import org.gephi.utils.BlockWriter;
 
 /**
+ * Writes and reads the values of node and edge rows.
+ * <p>
+ * The binary format is column oriented. For each table, node or edge ids are
+ * written first, then each column in its own element: a bitmap of the rows
+ * with a value followed by these values. Numbers are written unboxed, strings
+ * through a dictionary of the column and dynamic values as lists of intervals.
+ * Columns are decoded the first time they are accessed, see
+ * {@link AttributeTableImpl#setColumnLoader(AttributeColumnImpl, AttributeColumnStore.Loader)}.
+ * <p>
+ * The XML format, with an element per row and value, is written by default as
+ * older versions can read it. Both formats are read.
  *
  * @author Mathieu Bastian
  */
@@ -66,19 +105,77 @@ public class AttributeRowSerializer {
     private static final String ELEMENT_NODE_ROW = "noderow";
     private static final String ELEMENT_EDGE_ROW = "edgerow";
     private static final String ELEMENT_VALUE = "attvalue";
+    private static final String ELEMENT_NODE_TABLE = "nodetable";
+    private static final String ELEMENT_EDGE_TABLE = "edgetable";
+    private static final String ELEMENT_ROW_IDS = "rowids";
+    private static final String ELEMENT_COLUMN = "column";
+    private static final int BINARY_VERSION = 1;
+    private static final int LOW_EXCLUDED = 1;
+    private static final int HIGH_EXCLUDED = 2;
+    private final boolean binary;
 
-    public void writeRows(XMLStreamWriter writer, GraphModel graphModel) throws XMLStreamException {
+    /**
+     * Writes XML elements, readable by older versions.
+     */
+    public AttributeRowSerializer() {
+        this(false);
+    }
+
+    /**
+     * @param binary <code>true</code> to write the values in the binary columnar
+     * encoding, <code>false</code> to write them as XML elements
+     */
+    public AttributeRowSerializer(boolean binary) {
+        this.binary = binary;
+    }
+
+    public void writeRows(XMLStreamWriter writer, GraphModel graphModel, AbstractAttributeModel attributeModel) throws XMLStreamException {
         writer.writeStartElement(ELEMENT_ROWS);
 
         HierarchicalGraph hierarchicalGraph = graphModel.getHierarchicalGraph();
+        if (binary) {
+            int count = 0;
+            int[] ids = new int[hierarchicalGraph.getNodeCount()];
+            AttributeRowImpl[] rows = new AttributeRowImpl[ids.length];
+            for (Node node : hierarchicalGraph.getNodesTree()) {
+                if (node.getNodeData().getAttributes() instanceof AttributeRowImpl) {
+                    if (count == ids.length) {
+                        ids = Arrays.copyOf(ids, count * 2 + 1);
+                        rows = Arrays.copyOf(rows, ids.length);
+                    }
+                    ids[count] = node.getId();
+                    rows[count++] = (AttributeRowImpl) node.getNodeData().getAttributes();
+                }
+            }
+            writeTable(writer, ELEMENT_NODE_TABLE, attributeModel.getNodeTable(), ids, rows, count);
+
+            count = 0;
+            ids = new int[hierarchicalGraph.getEdgeCount()];
+            rows = new AttributeRowImpl[ids.length];
+            for (Edge edge : hierarchicalGraph.getEdges()) {
+                if (edge.getEdgeData().getAttributes() instanceof AttributeRowImpl) {
+                    if (count == ids.length) {
+                        ids = Arrays.copyOf(ids, count * 2 + 1);
+                        rows = Arrays.copyOf(rows, ids.length);
+                    }
+                    ids[count] = edge.getId();
+                    rows[count++] = (AttributeRowImpl) edge.getEdgeData().getAttributes();
+                }
+            }
+            writeTable(writer, ELEMENT_EDGE_TABLE, attributeModel.getEdgeTable(), ids, rows, count);
+
+            writer.writeEndElement();
+            return;
+        }
+
         for (Node node : hierarchicalGraph.getNodesTree()) {
             if (node.getNodeData().getAttributes() != null && node.getNodeData().getAttributes() instanceof AttributeRowImpl) {
                 AttributeRowImpl row = (AttributeRowImpl) node.getNodeData().getAttributes();
                 writer.writeStartElement(ELEMENT_NODE_ROW);
                 writer.writeAttribute("for", String.valueOf(node.getId()));
-                if (writeRow(writer, row)) {
-                    writer.writeEndElement();
-                }
+                //Closed even without values, or the next row would be nested
+                writeRow(writer, row);
+                writer.writeEndElement();
             }
         }
 
@@ -87,9 +184,9 @@ public class AttributeRowSerializer {
                 AttributeRowImpl row = (AttributeRowImpl) edge.getEdgeData().getAttributes();
                 writer.writeStartElement(ELEMENT_EDGE_ROW);
                 writer.writeAttribute("for", String.valueOf(edge.getId()));
-                if (writeRow(writer, row)) {
-                    writer.writeEndElement();
-                }
+                //Closed even without values, or the next row would be nested
+                writeRow(writer, row);
+                writer.writeEndElement();
             }
         }
 
@@ -120,6 +217,10 @@ public class AttributeRowSerializer {
                             AttributeRowImpl row = (AttributeRowImpl) edge.getEdgeData().getAttributes();
                             readRow(reader, attributeModel, attributeModel.getEdgeTable(), row);
                         }
+                    } else if (ELEMENT_NODE_TABLE.equalsIgnoreCase(name)) {
+                        readTable(reader, hierarchicalGraph, attributeModel, attributeModel.getNodeTable(), true);
+                    } else if (ELEMENT_EDGE_TABLE.equalsIgnoreCase(name)) {
+                        readTable(reader, hierarchicalGraph, attributeModel, attributeModel.getEdgeTable(), false);
                     }
                     break;
                 case XMLStreamReader.END_ELEMENT:
@@ -189,4 +290,460 @@ public class AttributeRowSerializer {
             }
         }
     }
+
+    private void writeTable(XMLStreamWriter writer, String element, AttributeTableImpl table, int[] ids, AttributeRowImpl[] rows, int count) throws XMLStreamException {
+        writer.writeStartElement(element);
+        writer.writeAttribute("version", String.valueOf(BINARY_VERSION));
+        writer.writeAttribute("rows", String.valueOf(count));
+
+        //Ids and row versions
+        writer.writeStartElement(ELEMENT_ROW_IDS);
+        BlockWriter out = new BlockWriter(writer);
+        int previousId = 0;
+        for (int i = 0; i < count; i++) {
+            out.writeZigZag(ids[i] - previousId);
+            out.writeVarInt(rows[i].getRowVersion());
+            previousId = ids[i];
+        }
+        out.close();
+        writer.writeEndElement();
+
+        for (AttributeColumnImpl column : table.getColumns()) {
+            writeColumn(writer, column, rows, count);
+        }
+
+        writer.writeEndElement();
+    }
+
+    private void writeColumn(XMLStreamWriter writer, AttributeColumnImpl column, AttributeRowImpl[] rows, int count) throws XMLStreamException {
+        AttributeColumnStore store = column.getStore();
+        byte[] present = new byte[(count + 7) >>> 3];
+        boolean empty = true;
+        for (int i = 0; i < count; i++) {
+            if (!store.isNull(rows[i].getIndex())) {
+                present[i >>> 3] |= 1 << (i & 7);
+                empty = false;
+            }
+        }
+        if (empty) {
+            return;
+        }
+
+        writer.writeStartElement(ELEMENT_COLUMN);
+        writer.writeAttribute("index", String.valueOf(column.getIndex()));
+        writer.writeAttribute("type", column.getType().name());
+        BlockWriter out = new BlockWriter(writer);
+        for (int i = 0; i < present.length; i++) {
+            out.write(present[i]);
+        }
+
+        AttributeType type = column.getType();
+        Map<String, Integer> dictionary = null;
+        if (isDictionaryEncoded(column)) {
+            dictionary = new LinkedHashMap<String, Integer>();
+            for (int i = 0; i < count; i++) {
+                if ((present[i >>> 3] & 1 << (i & 7)) != 0) {
+                    Object value = store.get(rows[i].getIndex());
+                    if (type == AttributeType.STRING) {
+                        addToDictionary(dictionary, (String) value);
+                    } else {
+                        for (Interval<?> interval : ((DynamicType<?>) value).getIntervals()) {
+                            addToDictionary(dictionary, (String) interval.getValue());
+                        }
+                    }
+                }
+            }
+            out.writeVarInt(dictionary.size());
+            for (String value : dictionary.keySet()) {
+                out.writeString(value);
+            }
+        }
+
+        boolean delegate = column.getOrigin() == AttributeOrigin.DELEGATE;
+        for (int i = 0; i < count; i++) {
+            if ((present[i >>> 3] & 1 << (i & 7)) == 0) {
+                continue;
+            }
+            int row = rows[i].getIndex();
+            if (delegate) {
+                out.writeString(store.get(row).toString());
+                continue;
+            }
+            switch (type) {
+                case BYTE:
+                    out.write((int) store.getLong(row));
+                    break;
+                case SHORT:
+                case INT:
+                    out.writeZigZag((int) store.getLong(row));
+                    break;
+                case LONG:
+                    out.writeZigZag(store.getLong(row));
+                    break;
+                case FLOAT:
+                    out.writeFloat((float) store.getDouble(row));
+                    break;
+                case DOUBLE:
+                    out.writeDouble(store.getDouble(row));
+                    break;
+                case BOOLEAN:
+                    out.write(store.getBoolean(row) ? 1 : 0);
+                    break;
+                default:
+                    if (type.isDynamicType()) {
+                        writeIntervals(out, type, (DynamicType<?>) store.get(row), dictionary);
+                    } else {
+                        writeValue(out, type, store.get(row), dictionary);
+                    }
+            }
+        }
+        out.close();
+        writer.writeEndElement();
+    }
+
+    private void writeIntervals(BlockWriter out, AttributeType type, DynamicType<?> value, Map<String, Integer> dictionary) throws XMLStreamException {
+        AttributeType staticType = TypeConvertor.getStaticType(type);
+        List<? extends Interval<?>> intervals = value.getIntervals();
+        out.writeVarInt(intervals.size());
+        for (Interval<?> interval : intervals) {
+            out.write((interval.isLowExcluded() ? LOW_EXCLUDED : 0) | (interval.isHighExcluded() ? HIGH_EXCLUDED : 0));
+            out.writeDouble(interval.getLow());
+            out.writeDouble(interval.getHigh());
+            if (staticType != null) {
+                writeValue(out, staticType, interval.getValue(), dictionary);
+            }
+        }
+    }
+
+    private void writeValue(BlockWriter out, AttributeType type, Object value, Map<String, Integer> dictionary) throws XMLStreamException {
+        switch (type) {
+            case BYTE:
+                out.write(((Byte) value).byteValue());
+                break;
+            case SHORT:
+                out.writeZigZag(((Short) value).intValue());
+                break;
+            case INT:
+                out.writeZigZag(((Integer) value).intValue());
+                break;
+            case LONG:
+                out.writeZigZag(((Long) value).longValue());
+                break;
+            case FLOAT:
+                out.writeFloat(((Float) value).floatValue());
+                break;
+            case DOUBLE:
+                out.writeDouble(((Double) value).doubleValue());
+                break;
+            case BOOLEAN:
+                out.write(((Boolean) value).booleanValue() ? 1 : 0);
+                break;
+            case CHAR:
+                out.writeVarInt(((Character) value).charValue());
+                break;
+            case STRING:
+                if (dictionary != null) {
+                    out.writeVarInt(dictionary.get((String) value));
+                } else {
+                    out.writeString((String) value);
+                }
+                break;
+            case BIGINTEGER:
+                out.writeBytes(((BigInteger) value).toByteArray());
+                break;
+            case BIGDECIMAL:
+                BigDecimal decimal = (BigDecimal) value;
+                out.writeZigZag(decimal.scale());
+                out.writeBytes(decimal.unscaledValue().toByteArray());
+                break;
+            default:
+                out.writeString(value.toString());
+        }
+    }
+
+    private void readTable(XMLStreamReader reader, HierarchicalGraph hierarchicalGraph, AbstractAttributeModel model, AttributeTableImpl table, boolean nodes) throws XMLStreamException {
+        String element = reader.getLocalName();
+        int version = Integer.parseInt(reader.getAttributeValue(null, "version"));
+        if (version > BINARY_VERSION) {
+            throw new XMLStreamException("Unsupported attribute rows binary version " + version);
+        }
+        int[] rows = new int[Integer.parseInt(reader.getAttributeValue(null, "rows"))];
+
+        boolean end = false;
+        while (reader.hasNext() && !end) {
+            int type = reader.next();
+
+            switch (type) {
+                case XMLStreamReader.START_ELEMENT:
+                    String name = reader.getLocalName();
+                    if (ELEMENT_ROW_IDS.equalsIgnoreCase(name)) {
+                        BlockReader in = BlockReader.readBlocks(reader);
+                        int id = 0;
+                        for (int i = 0; i < rows.length; i++) {
+                            id += in.readZigZag();
+                            int rowVersion = in.readVarInt();
+                            Object attributes;
+                            if (nodes) {
+                                Node node = hierarchicalGraph.getNode(id);
+                                attributes = node != null ? node.getNodeData().getAttributes() : null;
+                            } else {
+                                Edge edge = hierarchicalGraph.getEdge(id);
+                                attributes = edge != null ? edge.getEdgeData().getAttributes() : null;
+                            }
+                            if (attributes instanceof AttributeRowImpl) {
+                                AttributeRowImpl row = (AttributeRowImpl) attributes;
+                                row.setRowVersion(rowVersion);
+                                rows[i] = row.getIndex();
+                            } else {
+                                rows[i] = -1;
+                            }
+                        }
+                        in.close();
+                    } else if (ELEMENT_COLUMN.equalsIgnoreCase(name)) {
+                        int index = Integer.parseInt(reader.getAttributeValue(null, "index"));
+                        String typeName = reader.getAttributeValue(null, "type");
+                        AttributeColumnImpl column = table.getColumn(index);
+                        BlockReader in = BlockReader.readBlocks(reader);
+                        if (column != null && column.getType().name().equals(typeName)) {
+                            table.setColumnLoader(column, new ColumnLoader(model, column, rows, in));
+                        } else {
+                            Logger.getLogger(AttributeRowSerializer.class.getName()).log(Level.WARNING, "The column {0} of type {1} can''t be found in the {2} table", new Object[]{index, typeName, table.getName()});
+                            in.close();
+                        }
+                    }
+                    break;
+                case XMLStreamReader.END_ELEMENT:
+                    if (element.equalsIgnoreCase(reader.getLocalName())) {
+                        end = true;
+                    }
+                    break;
+            }
+        }
+    }
+
+    private static boolean isDictionaryEncoded(AttributeColumnImpl column) {
+        if (column.getOrigin() == AttributeOrigin.DELEGATE) {
+            return false;
+        } else if (column.getType() == AttributeType.STRING) {
+            return column.getOrigin() != AttributeOrigin.PROPERTY;
+        }
+        return column.getType() == AttributeType.DYNAMIC_STRING;
+    }
+
+    private static void addToDictionary(Map<String, Integer> dictionary, String value) {
+        if (!dictionary.containsKey(value)) {
+            dictionary.put(value, dictionary.size());
+        }
+    }
+
+    /**
+     * Decodes the values of a column into its store, <code>rows</code> are the
+     * row indexes in the order of the ids, -1 for missing rows.
+     */
+    private static final class ColumnLoader implements AttributeColumnStore.Loader {
+
+        private final AbstractAttributeModel model;
+        private final AttributeColumnImpl column;
+        private final int[] rows;
+        private final BlockReader in;
+
+        ColumnLoader(AbstractAttributeModel model, AttributeColumnImpl column, int[] rows, BlockReader in) {
+            this.model = model;
+            this.column = column;
+            this.rows = rows;
+            this.in = in;
+        }
+
+        public void load(AttributeColumnStore store, BitSet released) {
+            try {
+                readColumn(store, released);
+            } catch (XMLStreamException ex) {
+                throw new RuntimeException("Unable to read the values of the column " + column.getId(), ex);
+            } finally {
+                in.close();
+            }
+        }
+
+        private void readColumn(AttributeColumnStore store, BitSet released) throws XMLStreamException {
+            byte[] present = new byte[(rows.length + 7) >>> 3];
+            for (int i = 0; i < present.length; i++) {
+                present[i] = (byte) in.read();
+            }
+
+            AttributeType type = column.getType();
+            String[] dictionary = null;
+            if (isDictionaryEncoded(column)) {
+                dictionary = new String[in.readVarInt()];
+                for (int i = 0; i < dictionary.length; i++) {
+                    dictionary[i] = (String) model.getManagedValue(in.readString(), AttributeType.STRING);
+                }
+            }
+
+            boolean delegate = column.getOrigin() == AttributeOrigin.DELEGATE;
+            for (int i = 0; i < rows.length; i++) {
+                if ((present[i >>> 3] & 1 << (i & 7)) == 0) {
+                    continue;
+                }
+                int row = rows[i];
+                if (row != -1 && released.get(row)) {
+                    //Released before loading, the row may now hold another element
+                    row = -1;
+                }
+                if (delegate) {
+                    Object value = parse(type, in.readString());
+                    if (value != null) {
+                        value = model.getManagedValue(value, type);
+                    }
+                    setValue(store, row, value);
+                    continue;
+                }
+                switch (type) {
+                    case BYTE:
+                        long b = (byte) in.read();
+                        if (row != -1) {
+                            store.setLong(row, b);
+                        }
+                        break;
+                    case SHORT:
+                    case INT:
+                        long n = in.readZigZag();
+                        if (row != -1) {
+                            store.setLong(row, n);
+                        }
+                        break;
+                    case LONG:
+                        long l = in.readZigZagLong();
+                        if (row != -1) {
+                            store.setLong(row, l);
+                        }
+                        break;
+                    case FLOAT:
+                        double f = in.readFloat();
+                        if (row != -1) {
+                            store.setDouble(row, f);
+                        }
+                        break;
+                    case DOUBLE:
+                        double d = in.readDouble();
+                        if (row != -1) {
+                            store.setDouble(row, d);
+                        }
+                        break;
+                    case BOOLEAN:
+                        boolean bool = in.read() == 1;
+                        if (row != -1) {
+                            store.setBoolean(row, bool);
+                        }
+                        break;
+                    case STRING:
+                    case CHAR:
+                        setValue(store, row, readValue(type, dictionary));
+                        break;
+                    default:
+                        Object value = type.isDynamicType() ? readIntervals(type, dictionary) : readValue(type, dictionary);
+                        if (value != null) {
+                            value = model.getManagedValue(value, type);
+                        }
+                        setValue(store, row, value);
+                }
+            }
+        }
+
+        private void setValue(AttributeColumnStore store, int row, Object value) {
+            if (row != -1 && value != null) {
+                store.set(row, value);
+            }
+        }
+
+        @SuppressWarnings("rawtypes")
+        private DynamicType<?> readIntervals(AttributeType type, String[] dictionary) throws XMLStreamException {
+            switch (type) {
+                case DYNAMIC_BYTE:
+                    return new DynamicByte(readIntervals(Byte.class, AttributeType.BYTE, dictionary));
+                case DYNAMIC_SHORT:
+                    return new DynamicShort(readIntervals(Short.class, AttributeType.SHORT, dictionary));
+                case DYNAMIC_INT:
+                    return new DynamicInteger(readIntervals(Integer.class, AttributeType.INT, dictionary));
+                case DYNAMIC_LONG:
+                    return new DynamicLong(readIntervals(Long.class, AttributeType.LONG, dictionary));
+                case DYNAMIC_FLOAT:
+                    return new DynamicFloat(readIntervals(Float.class, AttributeType.FLOAT, dictionary));
+                case DYNAMIC_DOUBLE:
+                    return new DynamicDouble(readIntervals(Double.class, AttributeType.DOUBLE, dictionary));
+                case DYNAMIC_BOOLEAN:
+                    return new DynamicBoolean(readIntervals(Boolean.class, AttributeType.BOOLEAN, dictionary));
+                case DYNAMIC_CHAR:
+                    return new DynamicCharacter(readIntervals(Character.class, AttributeType.CHAR, dictionary));
+                case DYNAMIC_STRING:
+                    return new DynamicString(readIntervals(String.class, AttributeType.STRING, dictionary));
+                case DYNAMIC_BIGINTEGER:
+                    return new DynamicBigInteger(readIntervals(BigInteger.class, AttributeType.BIGINTEGER, dictionary));
+                case DYNAMIC_BIGDECIMAL:
+                    return new DynamicBigDecimal(readIntervals(BigDecimal.class, AttributeType.BIGDECIMAL, dictionary));
+                default:
+                    //TimeInterval takes raw intervals
+                    return new TimeInterval(new ArrayList<Interval>(readIntervals(Double[].class, null, dictionary)));
+            }
+        }
+
+        /**
+         * Reads a list of intervals, with values of <code>staticType</code> or
+         * without values if it is <code>null</code>.
+         */
+        private <T> List<Interval<T>> readIntervals(Class<T> valueClass, AttributeType staticType, String[] dictionary) throws XMLStreamException {
+            int count = in.readVarInt();
+            List<Interval<T>> intervals = new ArrayList<Interval<T>>(count);
+            for (int i = 0; i < count; i++) {
+                int flags = in.read();
+                double low = in.readDouble();
+                double high = in.readDouble();
+                boolean lopen = (flags & LOW_EXCLUDED) != 0;
+                boolean ropen = (flags & HIGH_EXCLUDED) != 0;
+                if (staticType != null) {
+                    intervals.add(new Interval<T>(low, high, lopen, ropen, valueClass.cast(readValue(staticType, dictionary))));
+                } else {
+                    intervals.add(new Interval<T>(low, high, lopen, ropen));
+                }
+            }
+            return intervals;
+        }
+
+        private Object readValue(AttributeType type, String[] dictionary) throws XMLStreamException {
+            switch (type) {
+                case BYTE:
+                    return Byte.valueOf((byte) in.read());
+                case SHORT:
+                    return Short.valueOf((short) in.readZigZag());
+                case INT:
+                    return Integer.valueOf(in.readZigZag());
+                case LONG:
+                    return Long.valueOf(in.readZigZagLong());
+                case FLOAT:
+                    return Float.valueOf(in.readFloat());
+                case DOUBLE:
+                    return Double.valueOf(in.readDouble());
+                case BOOLEAN:
+                    return Boolean.valueOf(in.read() == 1);
+                case CHAR:
+                    return Character.valueOf((char) in.readVarInt());
+                case STRING:
+                    return dictionary != null ? dictionary[in.readVarInt()] : in.readString();
+                case BIGINTEGER:
+                    return new BigInteger(in.readBytes());
+                case BIGDECIMAL:
+                    int scale = in.readZigZag();
+                    return new BigDecimal(new BigInteger(in.readBytes()), scale);
+                default:
+                    return parse(type, in.readString());
+            }
+        }
+
+        private Object parse(AttributeType type, String value) {
+            Object v = type.parse(value);
+            if (v == null) {
+                Logger.getLogger(AttributeRowSerializer.class.getName()).log(Level.WARNING, "Unable to parse \"{0}\" as type {1}", new Object[]{value, type.toString()});
+            }
+            return v;
+        }
+    }
 }
@@ -0,0 +1,438 @@
+/*
+Copyright 2008-2010 Gephi
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.data.attributes.serialization;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import org.gephi.data.attributes.api.AttributeColumn;
+import org.gephi.data.attributes.api.AttributeOrigin;
+import org.gephi.data.attributes.api.AttributeRow;
+import org.gephi.data.attributes.api.AttributeTable;
+import org.gephi.data.attributes.api.AttributeType;
+import org.gephi.data.attributes.api.AttributeValue;
+import org.gephi.data.attributes.model.TemporaryAttributeModel;
+import org.gephi.data.attributes.spi.AttributeValueDelegateProvider;
+import org.gephi.data.attributes.spi.GraphItemDelegateFactoryProvider;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.EdgeData;
+import org.gephi.graph.api.EdgeIterable;
+import org.gephi.graph.api.EdgeIterator;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.HierarchicalGraph;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.NodeData;
+import org.gephi.graph.api.NodeIterable;
+import org.gephi.graph.api.NodeIterator;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Writes random rows with a column of each type in both formats and reads
+ * them back, the graph is a proxy which only knows the ids and rows of its
+ * elements.
+ */
+public class AttributeRowSerializerTest {
+
+    private static final int ELEMENTS = 200;
+
+    @Test
+    public void testXmlRoundTrip() throws Exception {
+        roundTrip(false, false);
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws Exception {
+        roundTrip(true, false);
+    }
+
+    @Test
+    public void testBinaryMissingElements() throws Exception {
+        roundTrip(true, true);
+    }
+
+    /**
+     * With <code>missing</code>, every fifth element isn't in the graph the
+     * rows are read into, and its row is skipped.
+     */
+    private void roundTrip(boolean binary, boolean missing) throws Exception {
+        Random random = new Random(42);
+        Model source = new Model();
+        for (int id = 0; id < ELEMENTS; id++) {
+            source.fill(source.nodes, id, random);
+            source.fill(source.edges, id, random);
+        }
+        byte[] serialized = write(source, binary);
+
+        Model target = new Model();
+        for (int id = 0; id < ELEMENTS; id++) {
+            if (!missing || id % 5 != 0) {
+                target.row(target.nodes, id);
+                target.row(target.edges, id);
+            }
+        }
+        read(target, serialized);
+
+        for (Integer id : target.nodes.keySet()) {
+            assertRowEquals(source.nodes.get(id), target.nodes.get(id));
+            assertRowEquals(source.edges.get(id), target.edges.get(id));
+        }
+        assertEquals(missing ? ELEMENTS * 4 / 5 : ELEMENTS, target.nodes.size());
+    }
+
+    private static void assertRowEquals(AttributeRow expected, AttributeRow actual) {
+        for (AttributeValue expectedValue : expected.getValues()) {
+            int index = expectedValue.getColumn().getIndex();
+            Object value = expectedValue.getValue();
+            Object actualValue = actual.getValue(index);
+            String message = expectedValue.getColumn().getId();
+            assertEquals(message, value == null ? null : value.toString(),
+                    actualValue == null ? null : actualValue.toString());
+            if (value != null) {
+                assertEquals(message, value.getClass(), actualValue.getClass());
+            }
+        }
+    }
+
+    private static byte[] write(Model model, boolean binary) throws XMLStreamException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(output, "UTF-8");
+        writer.writeStartDocument("UTF-8", "1.0");
+        new AttributeRowSerializer(binary).writeRows(writer, model.graphModel(), model.attributeModel);
+        writer.writeEndDocument();
+        writer.close();
+        return output.toByteArray();
+    }
+
+    private static void read(Model model, byte[] serialized) throws XMLStreamException {
+        XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(new ByteArrayInputStream(serialized), "UTF-8");
+        while (reader.next() != XMLStreamReader.START_ELEMENT) {
+        }
+        //Both formats are read by the same serializer
+        new AttributeRowSerializer().readRows(reader, model.graphModel(), model.attributeModel);
+        reader.close();
+    }
+
+    /**
+     * Attribute model with a column of each type in both tables, and a
+     * property and a delegate column, and the rows of the graph elements by id.
+     */
+    private static class Model {
+
+        private final TemporaryAttributeModel attributeModel = new TemporaryAttributeModel(null);
+        private final Map<Integer, AttributeRow> nodes = new LinkedHashMap<Integer, AttributeRow>();
+        private final Map<Integer, AttributeRow> edges = new LinkedHashMap<Integer, AttributeRow>();
+
+        Model() {
+            for (AttributeTable table : new AttributeTable[]{attributeModel.getNodeTable(), attributeModel.getEdgeTable()}) {
+                for (AttributeType type : AttributeType.values()) {
+                    //Character lists can't be parsed from their string, in
+                    //any format
+                    if (type != AttributeType.LIST_CHARACTER) {
+                        table.addColumn(type.name(), type);
+                    }
+                }
+                table.addColumn("property", "Property", AttributeType.STRING, AttributeOrigin.PROPERTY, null);
+                table.addColumn("delegate", "Delegate", AttributeType.STRING, new IdentityProvider(), null);
+            }
+        }
+
+        AttributeTable table(Map<Integer, AttributeRow> rows) {
+            return rows == nodes ? attributeModel.getNodeTable() : attributeModel.getEdgeTable();
+        }
+
+        AttributeRow row(Map<Integer, AttributeRow> rows, int id) {
+            AttributeRow row = rows == nodes
+                    ? attributeModel.rowFactory().newNodeRow(null)
+                    : attributeModel.rowFactory().newEdgeRow(null);
+            rows.put(id, row);
+            return row;
+        }
+
+        /**
+         * Adds a row with random values, or no values at all for one row
+         * out of ten.
+         */
+        void fill(Map<Integer, AttributeRow> rows, int id, Random random) {
+            AttributeRow row = row(rows, id);
+            if (random.nextInt(10) == 0) {
+                return;
+            }
+            AttributeColumn[] columns = table(rows).getColumns();
+            for (int i = 0; i < columns.length; i++) {
+                if (random.nextInt(4) != 0) {
+                    row.setValue(columns[i], randomValue(columns[i].getType(), random));
+                }
+            }
+        }
+
+        GraphModel graphModel() {
+            final HierarchicalGraph graph = proxy(HierarchicalGraph.class, new Handler() {
+
+                Object invoke(String method, Object[] args) {
+                    if (method.equals("getNodeCount")) {
+                        return nodes.size();
+                    } else if (method.equals("getEdgeCount")) {
+                        return edges.size();
+                    } else if (method.equals("getNodesTree")) {
+                        return iterable(NodeIterable.class, NodeIterator.class, Node.class, nodes);
+                    } else if (method.equals("getEdges")) {
+                        return iterable(EdgeIterable.class, EdgeIterator.class, Edge.class, edges);
+                    } else if (method.equals("getNode")) {
+                        return element(Node.class, nodes, (Integer) args[0]);
+                    } else if (method.equals("getEdge")) {
+                        return element(Edge.class, edges, (Integer) args[0]);
+                    }
+                    throw new UnsupportedOperationException(method);
+                }
+            });
+            return proxy(GraphModel.class, new Handler() {
+
+                Object invoke(String method, Object[] args) {
+                    return graph;
+                }
+            });
+        }
+    }
+
+    private static Object randomValue(AttributeType type, Random random) {
+        String value;
+        switch (type) {
+            case DYNAMIC_BYTE:
+            case DYNAMIC_SHORT:
+            case DYNAMIC_INT:
+            case DYNAMIC_LONG:
+            case DYNAMIC_FLOAT:
+            case DYNAMIC_DOUBLE:
+            case DYNAMIC_BOOLEAN:
+            case DYNAMIC_CHAR:
+            case DYNAMIC_STRING:
+            case DYNAMIC_BIGINTEGER:
+            case DYNAMIC_BIGDECIMAL:
+                AttributeType staticType = AttributeType.valueOf(type.name().substring("DYNAMIC_".length()));
+                StringBuilder builder = new StringBuilder("<");
+                int count = 1 + random.nextInt(3);
+                for (int i = 0; i < count; i++) {
+                    builder.append(i == 0 ? "[" : "; (").append(i * 10).append(", ").append(i * 10 + 1 + random.nextInt(20));
+                    String element = randomString(staticType, random);
+                    builder.append(", ").append(type == AttributeType.DYNAMIC_STRING ? "\"" + element + "\"" : element).append(']');
+                }
+                value = builder.append('>').toString();
+                break;
+            case TIME_INTERVAL:
+                value = "<[" + random.nextInt(10) + ", " + (10 + random.nextInt(10)) + "); [30, 40]>";
+                break;
+            case LIST_BYTE:
+            case LIST_SHORT:
+            case LIST_INTEGER:
+            case LIST_LONG:
+            case LIST_FLOAT:
+            case LIST_DOUBLE:
+            case LIST_BOOLEAN:
+            case LIST_CHARACTER:
+            case LIST_STRING:
+            case LIST_BIGINTEGER:
+            case LIST_BIGDECIMAL:
+                String name = type.name().substring("LIST_".length());
+                AttributeType elementType = name.equals("INTEGER") ? AttributeType.INT : AttributeType.valueOf(name);
+                value = randomString(elementType, random) + "," + randomString(elementType, random);
+                break;
+            default:
+                value = randomString(type, random);
+        }
+        Object parsed = type.parse(value);
+        assertNotNull(type + " " + value, parsed);
+        return parsed;
+    }
+
+    private static String randomString(AttributeType type, Random random) {
+        switch (type) {
+            case BYTE:
+                return String.valueOf((byte) random.nextInt());
+            case SHORT:
+                return String.valueOf((short) random.nextInt());
+            case INT:
+                return String.valueOf(random.nextInt());
+            case LONG:
+                return String.valueOf(random.nextLong());
+            case FLOAT:
+                return String.valueOf(random.nextFloat() * 100);
+            case DOUBLE:
+                return String.valueOf(random.nextGaussian() * 1e6);
+            case BOOLEAN:
+                return String.valueOf(random.nextBoolean());
+            case CHAR:
+                return String.valueOf((char) ('a' + random.nextInt(26)));
+            case STRING:
+                //Few distinct strings, so that dictionaries are shared
+                return "value " + random.nextInt(5);
+            case BIGINTEGER:
+                return new BigInteger(80, random).negate().toString();
+            case BIGDECIMAL:
+                return new BigDecimal(new BigInteger(70, random), 4).toString();
+            default:
+                throw new IllegalArgumentException(type.name());
+        }
+    }
+
+    private abstract static class Handler implements InvocationHandler {
+
+        abstract Object invoke(String method, Object[] args);
+
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getName().equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            } else if (method.getName().equals("equals")) {
+                return proxy == args[0];
+            } else if (method.getName().equals("toString")) {
+                return "proxy";
+            }
+            return invoke(method.getName(), args);
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    /**
+     * Returns a node or edge iterable, which only supports
+     * <code>iterator()</code>, and whose iterators only support
+     * <code>hasNext()</code> and <code>next()</code>.
+     */
+    private static Object iterable(Class<?> type, final Class<?> iteratorType, final Class<?> elementType, final Map<Integer, AttributeRow> rows) {
+        return proxy(type, new Handler() {
+
+            Object invoke(String method, Object[] args) {
+                final Iterator<Integer> ids = rows.keySet().iterator();
+                return proxy(iteratorType, new Handler() {
+
+                    Object invoke(String method, Object[] args) {
+                        if (method.equals("hasNext")) {
+                            return ids.hasNext();
+                        } else if (method.equals("next")) {
+                            return element(elementType, rows, ids.next());
+                        }
+                        throw new UnsupportedOperationException(method);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Returns a node or edge with the given id and its row, or null if there
+     * is none.
+     */
+    private static <T> T element(Class<T> type, Map<Integer, AttributeRow> rows, final int id) {
+        final AttributeRow row = rows.get(id);
+        if (row == null) {
+            return null;
+        }
+        Handler dataHandler = new Handler() {
+
+            Object invoke(String method, Object[] args) {
+                return row;
+            }
+        };
+        final Object data = type == Node.class
+                ? proxy(NodeData.class, dataHandler)
+                : proxy(EdgeData.class, dataHandler);
+        return proxy(type, new Handler() {
+
+            Object invoke(String method, Object[] args) {
+                return method.equals("getId") ? Integer.valueOf(id) : data;
+            }
+        });
+    }
+
+    private static class IdentityProvider extends AttributeValueDelegateProvider<Object> {
+
+        @Override
+        public Object getNodeAttributeValue(Object delegateId, AttributeColumn attributeColumn) {
+            return delegateId;
+        }
+
+        @Override
+        public void setNodeAttributeValue(Object delegateId, AttributeColumn attributeColumn, Object nodeValue) {
+        }
+
+        @Override
+        public void deleteNodeAttributeValue(Object delegateId, AttributeColumn attributeColumn) {
+        }
+
+        @Override
+        public Object getEdgeAttributeValue(Object delegateId, AttributeColumn attributeColumn) {
+            return delegateId;
+        }
+
+        @Override
+        public void setEdgeAttributeValue(Object delegateId, AttributeColumn attributeColumn, Object edgeValue) {
+        }
+
+        @Override
+        public void deleteEdgeAttributeValue(Object delegateId, AttributeColumn attributeColumn) {
+        }
+
+        @Override
+        public String storageEngineName() {
+            return "identity";
+        }
+
+        @Override
+        public GraphItemDelegateFactoryProvider<Object> graphItemDelegateFactoryProvider() {
+            return null;
+        }
+    }
+}
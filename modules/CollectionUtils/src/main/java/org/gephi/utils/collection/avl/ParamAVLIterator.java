@@ -55,6 +55,9 @@ public class ParamAVLIterator<Item> implements Iterator<Item>, ResetableIterator
     private ParamAVLTree tree;
     private ParamAVLNode<Item> next;
     private Item current;
+    //Array
+    private Object[] array;
+    private int index;
 
     public ParamAVLIterator() {
     }
@@ -65,13 +68,14 @@ public class ParamAVLIterator<Item> implements Iterator<Item>, ResetableIterator
     }
 
     public ParamAVLIterator(ParamAVLTree tree) {
-        this(tree.root);
-        this.tree = tree;
+        setNode(tree);
     }
 
     public void setNode(ParamAVLTree tree) {
-        this.next = tree.root;
         this.tree = tree;
+        this.array = tree.getSortedArray();
+        this.index = 0;
+        this.next = array == null ? tree.root : null;
         goToDownLeft();
     }
 
@@ -84,6 +88,9 @@ public class ParamAVLIterator<Item> implements Iterator<Item>, ResetableIterator
     }
 
     public boolean hasNext() {
+        if (array != null) {
+            return hasNextInArray();
+        }
         if (next == null) {
             return false;
         }
@@ -107,6 +114,20 @@ public class ParamAVLIterator<Item> implements Iterator<Item>, ResetableIterator
         return true;
     }
 
+    @SuppressWarnings("unchecked")
+    private boolean hasNextInArray() {
+        array = tree.getSortedArray();
+        if (index > 0 && (index > tree.count || array[index - 1] != current)) {
+            //Current item has been removed, items have been shifted
+            index--;
+        }
+        if (index < tree.count) {
+            current = (Item) array[index++];
+            return true;
+        }
+        return false;
+    }
+
     public Item next() {
         return current;
     }
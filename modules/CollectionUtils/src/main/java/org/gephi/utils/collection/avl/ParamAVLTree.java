@@ -265,6 +265,69 @@ public class ParamAVLTree<Item> implements Iterable<Item> {
         return true;
     }
 
+    /**
+     * Adds <code>length</code> items from <code>items</code>, starting at <code>offset</code>.
+     * <p>
+     * If the tree is empty, items are sorted and the tree is built at once in a perfectly
+     * balanced shape, without the rotations {@link #add(Object)} performs at each insertion.
+     * Otherwise items are added one by one. In both cases items whose number is already in
+     * the tree are ignored.
+     * @param items the items to add
+     * @param offset the index of the first item to add
+     * @param length the number of items to add
+     * @return the number of items actually added
+     */
+    public int addAll(Item[] items, int offset, int length) {
+        if (root != null || length < 2) {
+            int added = 0;
+            for (int i = offset; i < offset + length; i++) {
+                if (add(items[i])) {
+                    added++;
+                }
+            }
+            return added;
+        }
+
+        //Sort on number, index is kept in the low bits
+        long[] keys = new long[length];
+        for (int i = 0; i < length; i++) {
+            keys[i] = ((long) accessor.getNumber(items[offset + i]) << 32) | i;
+        }
+        java.util.Arrays.sort(keys);
+
+        @SuppressWarnings("unchecked")
+        ParamAVLNode<Item>[] nodes = (ParamAVLNode<Item>[]) new ParamAVLNode<?>[length];
+        int size = 0;
+        for (int i = 0; i < length; i++) {
+            if (i > 0 && (keys[i] >> 32) == (keys[i - 1] >> 32)) {
+                continue;
+            }
+            nodes[size++] = new ParamAVLNode<Item>(items[offset + (int) keys[i]]);
+        }
+
+        this.root = build(nodes, 0, size - 1, null);
+        this.count = size;
+        return size;
+    }
+
+    private ParamAVLNode<Item> build(ParamAVLNode<Item>[] nodes, int low, int high, ParamAVLNode<Item> parent) {
+        if (low > high) {
+            return null;
+        }
+        int mid = (low + high) >>> 1;
+        ParamAVLNode<Item> node = nodes[mid];
+        node.parent = parent;
+        node.left = build(nodes, low, mid - 1, node);
+        node.right = build(nodes, mid + 1, high, node);
+        //Right subtree never holds less items than the left one
+        node.balance = height(high - mid) - height(mid - low);
+        return node;
+    }
+
+    private static int height(int size) {
+        return 32 - Integer.numberOfLeadingZeros(size);
+    }
+
     public boolean remove(Item item) {
         ParamAVLNode<Item> p = this.root;
 
@@ -654,6 +717,16 @@ public class ParamAVLTree<Item> implements Iterable<Item> {
         return count==0;
     }
 
+    /**
+     * Returns the array items are stored in, sorted by number, if a subclass stores
+     * them in an array instead of tree nodes. Only the first {@link #getCount()} items
+     * are valid. Used by {@link ParamAVLIterator}.
+     * @return the sorted items, or <code>null</code> if items are stored in nodes
+     */
+    protected Object[] getSortedArray() {
+        return null;
+    }
+
     public AVLItemAccessor<Item> getAccessor() {
         return accessor;
     }
@@ -0,0 +1,171 @@
+/*
+Copyright 2008-2010 Gephi
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.graph.dhns.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import org.gephi.graph.api.DirectedGraph;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.GraphFactory;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.dhns.DhnsGraphController;
+import org.gephi.graph.dhns.core.Dhns;
+import org.gephi.graph.dhns.utils.DHNSSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building a synthetic graph, see <code>SyntheticGraph</code>, from scratch in
+ * an empty <code>Dhns</code>: element by element, in bulk and from its XML and
+ * binary serializations. Each iteration starts from a new <code>Dhns</code>
+ * with the edge storage and edge index settings of the trial. The 10M edges
+ * graph needs a few GB of heap, forks run with 8 GB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class GraphBuildBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    private int edges;
+    @Param({SyntheticGraph.ERDOS_RENYI, SyntheticGraph.POWER_LAW})
+    private String type;
+    @Param({SyntheticGraph.TREE, SyntheticGraph.ARRAY})
+    private String edgeStorage;
+    @Param({"false", "true"})
+    private boolean edgeIndex;
+    private SyntheticGraph synthetic;
+    private byte[] serializedXml;
+    private byte[] serializedBinary;
+    private Dhns dhns;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws XMLStreamException {
+        synthetic = new SyntheticGraph(type, edges);
+
+        //Serialize once, for readXml and readBinary
+        Dhns source = new Dhns(new DhnsGraphController(), null);
+        synthetic.load(source.getDirectedGraph(), source.factory());
+        serializedXml = write(source, false);
+        serializedBinary = write(source, true);
+        source.getEventManager().stop(true);
+    }
+
+    private static byte[] write(Dhns source, boolean binary) throws XMLStreamException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(output, "UTF-8");
+        writer.writeStartDocument("UTF-8", "1.0");
+        new DHNSSerializer(binary).writeDhns(writer, source);
+        writer.writeEndDocument();
+        writer.close();
+        return output.toByteArray();
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        dhns = SyntheticGraph.newDhns(edgeStorage, edgeIndex);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration() {
+        dhns.getEventManager().stop(true);
+        dhns = null;
+    }
+
+    @Benchmark
+    public int addNodesAndEdges() {
+        DirectedGraph graph = dhns.getDirectedGraph();
+        GraphFactory factory = dhns.factory();
+        Node[] nodes = synthetic.createNodes(factory);
+        for (int i = 0; i < nodes.length; i++) {
+            graph.addNode(nodes[i]);
+        }
+        for (int i = 0; i < synthetic.getEdgeCount(); i++) {
+            Edge edge = factory.newEdge(nodes[synthetic.getSource(i)], nodes[synthetic.getTarget(i)]);
+            graph.addEdge(edge);
+        }
+        return graph.getEdgeCount();
+    }
+
+    @Benchmark
+    public int addAll() {
+        DirectedGraph graph = dhns.getDirectedGraph();
+        synthetic.load(graph, dhns.factory());
+        return graph.getEdgeCount();
+    }
+
+    @Benchmark
+    public int readXml() throws XMLStreamException {
+        return read(serializedXml, false);
+    }
+
+    @Benchmark
+    public int readBinary() throws XMLStreamException {
+        return read(serializedBinary, true);
+    }
+
+    private int read(byte[] serialized, boolean binary) throws XMLStreamException {
+        XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(new ByteArrayInputStream(serialized), "UTF-8");
+        new DHNSSerializer(binary).readDhns(reader, dhns);
+        reader.close();
+        return dhns.getDirectedGraph().getEdgeCount();
+    }
+}
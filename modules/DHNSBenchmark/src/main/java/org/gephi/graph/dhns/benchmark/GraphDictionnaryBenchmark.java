@@ -0,0 +1,147 @@
+/*
+Copyright 2008-2010 Gephi
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.graph.dhns.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.dhns.DhnsGraphController;
+import org.gephi.graph.dhns.core.Dhns;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Concurrent <code>getNode(String)</code> readers against a writer thread which
+ * keeps renaming nodes.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GraphDictionnaryBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int nodes;
+    private Dhns dhns;
+    private Graph graph;
+    private Node[] nodeArray;
+    private String[] ids;
+    private String[] renamedIds;
+    private boolean[] renamed;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        dhns = new Dhns(new DhnsGraphController(), null);
+        graph = dhns.getGraph();
+        nodeArray = new Node[nodes];
+        ids = new String[nodes];
+        renamedIds = new String[nodes];
+        renamed = new boolean[nodes];
+        for (int i = 0; i < nodes; i++) {
+            ids[i] = "n" + i;
+            renamedIds[i] = "r" + i;
+            nodeArray[i] = dhns.factory().newNode(ids[i]);
+        }
+        graph.addAll(nodeArray, new Edge[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dhns.getEventManager().stop(true);
+    }
+
+    @Benchmark
+    @Group("lookup")
+    @GroupThreads(3)
+    public Node reader(Cursor cursor) {
+        int i = cursor.next(nodes);
+        return graph.getNode(ids[i]);
+    }
+
+    @Benchmark
+    @Group("lookup")
+    @GroupThreads(1)
+    public void writer(Cursor cursor) {
+        int i = cursor.next(nodes);
+        renamed[i] = !renamed[i];
+        graph.setId(nodeArray[i], renamed[i] ? renamedIds[i] : ids[i]);
+    }
+
+    @Benchmark
+    @Group("readOnly")
+    @GroupThreads(4)
+    public Node readOnly(Cursor cursor) {
+        int i = cursor.next(nodes);
+        return graph.getNode(ids[i]);
+    }
+
+    /**
+     * Per-thread pseudo-random walk over node indices.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int seed = (int) System.nanoTime() | 1;
+
+        public int next(int bound) {
+            seed ^= seed << 13;
+            seed ^= seed >>> 17;
+            seed ^= seed << 5;
+            return (seed & Integer.MAX_VALUE) % bound;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+Copyright 2008-2010 Gephi
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.graph.dhns.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import org.gephi.graph.api.DirectedGraph;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.dhns.core.Dhns;
+import org.gephi.graph.dhns.utils.DHNSSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Read operations on a flat synthetic graph, see <code>SyntheticGraph</code>,
+ * for each edge storage and with or without the edge index. The graph is built
+ * once per trial and never modified, views created by <code>copyView</code>
+ * are destroyed right away. The 10M edges graph needs a few GB of heap, forks
+ * run with 8 GB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class GraphStoreBenchmark {
+
+    private static final int LOOKUPS = 1024;
+    @Param({"10000", "1000000", "10000000"})
+    private int edges;
+    @Param({SyntheticGraph.ERDOS_RENYI, SyntheticGraph.POWER_LAW})
+    private String type;
+    @Param({SyntheticGraph.TREE, SyntheticGraph.ARRAY})
+    private String edgeStorage;
+    @Param({"false", "true"})
+    private boolean edgeIndex;
+    private Dhns dhns;
+    private DirectedGraph graph;
+    private Node[] nodes;
+    private Node[] lookupSources;
+    private Node[] lookupTargets;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SyntheticGraph synthetic = new SyntheticGraph(type, edges);
+        dhns = SyntheticGraph.newDhns(edgeStorage, edgeIndex);
+        graph = dhns.getDirectedGraph();
+        nodes = synthetic.load(graph, dhns.factory());
+
+        //Half of the lookups hit an existing edge, the other half are random pairs
+        Random random = new Random(42);
+        lookupSources = new Node[LOOKUPS];
+        lookupTargets = new Node[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            if (i % 2 == 0) {
+                int edge = random.nextInt(synthetic.getEdgeCount());
+                lookupSources[i] = nodes[synthetic.getSource(edge)];
+                lookupTargets[i] = nodes[synthetic.getTarget(edge)];
+            } else {
+                lookupSources[i] = nodes[random.nextInt(nodes.length)];
+                lookupTargets[i] = nodes[random.nextInt(nodes.length)];
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dhns.getEventManager().stop(true);
+    }
+
+    @Benchmark
+    public int neighborIteration() {
+        int sum = 0;
+        for (int i = 0; i < nodes.length; i++) {
+            for (Node neighbor : graph.getNeighbors(nodes[i])) {
+                sum += neighbor.getId();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(LOOKUPS)
+    public int getEdge() {
+        int found = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            Edge edge = graph.getEdge(lookupSources[i], lookupTargets[i]);
+            if (edge != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public GraphView copyView() {
+        GraphView view = dhns.copyView(graph.getView());
+        dhns.destroyView(view);
+        return view;
+    }
+
+    @Benchmark
+    public long writeXml() throws XMLStreamException {
+        return write(new DHNSSerializer(false));
+    }
+
+    @Benchmark
+    public long writeBinary() throws XMLStreamException {
+        return write(new DHNSSerializer(true));
+    }
+
+    private long write(DHNSSerializer serializer) throws XMLStreamException {
+        CountingOutputStream output = new CountingOutputStream();
+        XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(output, "UTF-8");
+        writer.writeStartDocument("UTF-8", "1.0");
+        serializer.writeDhns(writer, dhns);
+        writer.writeEndDocument();
+        writer.close();
+        return output.count;
+    }
+
+    /**
+     * Discards what is written, only the serialization cost is measured.
+     */
+    private static class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) throws IOException {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+Copyright 2008-2010 Gephi
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.graph.dhns.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.HierarchicalDirectedGraph;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.dhns.core.Dhns;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Modifications of a loaded synthetic graph, see <code>SyntheticGraph</code>.
+ * Benchmarks alter the graph, so it is loaded again before each iteration. The
+ * samples are <code>SAMPLE_RATIO</code> of the edges or nodes, drawn at random
+ * once per trial. Deep hierarchies are covered by <code>HierarchyBenchmark</code>.
+ * The 10M edges graph needs a few GB of heap, forks run with 8 GB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class GraphUpdateBenchmark {
+
+    private static final double SAMPLE_RATIO = 0.01;
+    @Param({"10000", "1000000", "10000000"})
+    private int edges;
+    @Param({SyntheticGraph.ERDOS_RENYI, SyntheticGraph.POWER_LAW})
+    private String type;
+    @Param({SyntheticGraph.TREE, SyntheticGraph.ARRAY})
+    private String edgeStorage;
+    @Param({"false", "true"})
+    private boolean edgeIndex;
+    private SyntheticGraph synthetic;
+    private int[] edgeSample;
+    private int[] nodeSample;
+    private Dhns dhns;
+    private HierarchicalDirectedGraph graph;
+    private Edge[] sampleEdges;
+    private Node[] sampleNodes;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        synthetic = new SyntheticGraph(type, edges);
+        Random random = new Random(42);
+        edgeSample = sample(random, synthetic.getEdgeCount());
+        nodeSample = sample(random, synthetic.getNodeCount());
+    }
+
+    private static int[] sample(Random random, int count) {
+        //Partial Fisher-Yates, gives distinct indexes
+        int[] indexes = new int[count];
+        for (int i = 0; i < count; i++) {
+            indexes[i] = i;
+        }
+        int[] sample = new int[Math.max(2, (int) (count * SAMPLE_RATIO))];
+        for (int i = 0; i < sample.length; i++) {
+            int j = i + random.nextInt(count - i);
+            int tmp = indexes[i];
+            indexes[i] = indexes[j];
+            indexes[j] = tmp;
+            sample[i] = indexes[i];
+        }
+        return sample;
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        dhns = SyntheticGraph.newDhns(edgeStorage, edgeIndex);
+        graph = dhns.getHierarchicalDirectedGraph();
+        Node[] nodes = synthetic.load(graph, dhns.factory());
+        sampleEdges = new Edge[edgeSample.length];
+        for (int i = 0; i < edgeSample.length; i++) {
+            int edge = edgeSample[i];
+            sampleEdges[i] = graph.getEdge(nodes[synthetic.getSource(edge)], nodes[synthetic.getTarget(edge)]);
+        }
+        sampleNodes = new Node[nodeSample.length];
+        for (int i = 0; i < nodeSample.length; i++) {
+            sampleNodes[i] = nodes[nodeSample[i]];
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration() {
+        dhns.getEventManager().stop(true);
+        dhns = null;
+        graph = null;
+        sampleEdges = null;
+        sampleNodes = null;
+    }
+
+    @Benchmark
+    public int removeEdges() {
+        for (int i = 0; i < sampleEdges.length; i++) {
+            graph.removeEdge(sampleEdges[i]);
+        }
+        return graph.getEdgeCount();
+    }
+
+    @Benchmark
+    public int removeNodes() {
+        for (int i = 0; i < sampleNodes.length; i++) {
+            graph.removeNode(sampleNodes[i]);
+        }
+        return graph.getEdgeCount();
+    }
+
+    @Benchmark
+    public int groupExpandRetract() {
+        Node group = graph.groupNodes(sampleNodes);
+        graph.expand(group);
+        graph.retract(group);
+        int metaEdges = graph.getMetaEdges(group).toArray().length;
+        graph.ungroupNodes(group);
+        return metaEdges;
+    }
+}
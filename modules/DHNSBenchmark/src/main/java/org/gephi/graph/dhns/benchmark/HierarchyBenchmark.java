@@ -0,0 +1,143 @@
+/*
+Copyright 2008-2010 Gephi
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.graph.dhns.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.gephi.graph.api.HierarchicalDirectedGraph;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.dhns.DhnsGraphController;
+import org.gephi.graph.dhns.core.Dhns;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Meta edges maintenance on a deep synthetic hierarchy: <code>TOP_NODES</code>
+ * complete binary trees of height <code>depth</code>, with random edges between
+ * leaves. A height of 15 gives about 130k groups. Each benchmark restores the view
+ * it starts from, which shows top nodes only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class HierarchyBenchmark {
+
+    private static final int TOP_NODES = 4;
+    private static final int EDGES_PER_LEAF = 4;
+    @Param({"10", "15"})
+    private int depth;
+    private Dhns dhns;
+    private HierarchicalDirectedGraph graph;
+    private Node[] topNodes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        dhns = new Dhns(new DhnsGraphController(), null);
+        graph = dhns.getHierarchicalDirectedGraph();
+        topNodes = new Node[TOP_NODES];
+        Node[] leaves = new Node[TOP_NODES << depth];
+        int leafCount = 0;
+        for (int i = 0; i < TOP_NODES; i++) {
+            Node[] level = new Node[]{dhns.factory().newNode()};
+            graph.addNode(level[0]);
+            topNodes[i] = level[0];
+            for (int d = 0; d < depth; d++) {
+                Node[] nextLevel = new Node[level.length * 2];
+                for (int j = 0; j < nextLevel.length; j++) {
+                    nextLevel[j] = dhns.factory().newNode();
+                    graph.addNode(nextLevel[j], level[j / 2]);
+                }
+                level = nextLevel;
+            }
+            System.arraycopy(level, 0, leaves, leafCount, level.length);
+            leafCount += level.length;
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < leaves.length * EDGES_PER_LEAF; i++) {
+            Node source = leaves[random.nextInt(leaves.length)];
+            Node target = leaves[random.nextInt(leaves.length)];
+            if (source != target) {
+                graph.addEdge(source, target);
+            }
+        }
+        graph.resetViewToTopNodes();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dhns.getEventManager().stop(true);
+    }
+
+    @Benchmark
+    public int expandRetract() {
+        graph.expand(topNodes[0]);
+        int count = graph.getMetaEdges().toArray().length;
+        graph.retract(topNodes[0]);
+        return count;
+    }
+
+    @Benchmark
+    public Node groupUngroup() {
+        Node group = graph.groupNodes(topNodes);
+        graph.ungroupNodes(group);
+        return group;
+    }
+
+    @Benchmark
+    public void resetViewToLevel() {
+        graph.resetViewToLevel(depth / 2);
+        graph.resetViewToTopNodes();
+    }
+}
@@ -0,0 +1,214 @@
+/*
+Copyright 2008-2010 Gephi
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.graph.dhns.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphFactory;
+import org.gephi.graph.api.GraphSettings;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.dhns.DhnsGraphController;
+import org.gephi.graph.dhns.core.Dhns;
+
+/**
+ * Reproducible random graph topology, held as two int arrays of node indexes.
+ * <code>ERDOS_RENYI</code> draws distinct uniform pairs, <code>POWER_LAW</code>
+ * uses Barabasi-Albert preferential attachment. Both have no self-loops, no
+ * parallel edges and ten times more edges than nodes.
+ */
+class SyntheticGraph {
+
+    public static final String ERDOS_RENYI = "erdos-renyi";
+    public static final String POWER_LAW = "power-law";
+    //Values of GraphSettings.EDGE_STORAGE
+    public static final String TREE = "tree";
+    public static final String ARRAY = "array";
+    public static final int AVERAGE_OUT_DEGREE = 10;
+    private static final long SEED = 42L;
+    private final int nodeCount;
+    private final int[] sources;
+    private final int[] targets;
+
+    /**
+     * Returns an empty <code>Dhns</code> with the given <code>EDGE_STORAGE</code> and
+     * <code>EDGE_INDEX</code> settings.
+     */
+    public static Dhns newDhns(String edgeStorage, boolean edgeIndex) {
+        Dhns dhns = new Dhns(new DhnsGraphController(), null);
+        dhns.settings().putClientProperty(GraphSettings.EDGE_STORAGE, edgeStorage);
+        dhns.settings().putClientProperty(GraphSettings.EDGE_INDEX, edgeIndex);
+        return dhns;
+    }
+
+    public SyntheticGraph(String type, int edgeCount) {
+        this.nodeCount = Math.max(AVERAGE_OUT_DEGREE + 1, edgeCount / AVERAGE_OUT_DEGREE);
+        this.sources = new int[edgeCount];
+        this.targets = new int[edgeCount];
+        Random random = new Random(SEED);
+        if (ERDOS_RENYI.equals(type)) {
+            generateErdosRenyi(random);
+        } else if (POWER_LAW.equals(type)) {
+            generatePowerLaw(random);
+        } else {
+            throw new IllegalArgumentException("Unknown graph type: " + type);
+        }
+    }
+
+    private void generateErdosRenyi(Random random) {
+        long[] pairs = new long[sources.length];
+        int count = 0;
+        while (count < pairs.length) {
+            for (int i = count; i < pairs.length; i++) {
+                int source = random.nextInt(nodeCount);
+                int target = random.nextInt(nodeCount - 1);
+                if (target >= source) {
+                    target++;
+                }
+                pairs[i] = ((long) source << 32) | target;
+            }
+            //Sort and drop duplicates, then draw again the missing ones
+            Arrays.sort(pairs);
+            count = 1;
+            for (int i = 1; i < pairs.length; i++) {
+                if (pairs[i] != pairs[count - 1]) {
+                    pairs[count++] = pairs[i];
+                }
+            }
+        }
+        //Shuffle so insertion order doesn't follow sources
+        for (int i = pairs.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long tmp = pairs[i];
+            pairs[i] = pairs[j];
+            pairs[j] = tmp;
+        }
+        for (int i = 0; i < pairs.length; i++) {
+            sources[i] = (int) (pairs[i] >>> 32);
+            targets[i] = (int) pairs[i];
+        }
+    }
+
+    private void generatePowerLaw(Random random) {
+        //Each endpoint is stored once per incident edge, so picking an uniform
+        //entry picks a node proportionally to its degree
+        int[] endpoints = new int[sources.length * 2];
+        int endpointCount = 0;
+        int edge = 0;
+        int[] picked = new int[AVERAGE_OUT_DEGREE];
+        for (int node = 1; node < nodeCount && edge < sources.length; node++) {
+            int links = Math.min(Math.min(node, AVERAGE_OUT_DEGREE), sources.length - edge);
+            if (node == nodeCount - 1) {
+                links = Math.min(node, sources.length - edge);
+                if (picked.length < links) {
+                    picked = new int[links];
+                }
+            }
+            int pickedCount = 0;
+            while (pickedCount < links) {
+                int target = endpointCount == 0 ? random.nextInt(node) : endpoints[random.nextInt(endpointCount)];
+                if (!contains(picked, pickedCount, target)) {
+                    picked[pickedCount++] = target;
+                }
+            }
+            for (int i = 0; i < links; i++) {
+                sources[edge] = node;
+                targets[edge] = picked[i];
+                edge++;
+                endpoints[endpointCount++] = node;
+                endpoints[endpointCount++] = picked[i];
+            }
+        }
+    }
+
+    private static boolean contains(int[] array, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (array[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Node[] createNodes(GraphFactory factory) {
+        Node[] nodes = new Node[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i] = factory.newNode();
+        }
+        return nodes;
+    }
+
+    public Edge[] createEdges(GraphFactory factory, Node[] nodes) {
+        Edge[] edges = new Edge[sources.length];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = factory.newEdge(nodes[sources[i]], nodes[targets[i]]);
+        }
+        return edges;
+    }
+
+    /**
+     * Creates the nodes and edges with <code>factory</code> and adds them in
+     * bulk to <code>graph</code>.
+     * @return the nodes, in index order
+     */
+    public Node[] load(Graph graph, GraphFactory factory) {
+        Node[] nodes = createNodes(factory);
+        graph.addAll(nodes, createEdges(factory, nodes));
+        return nodes;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getEdgeCount() {
+        return sources.length;
+    }
+
+    public int getSource(int edge) {
+        return sources[edge];
+    }
+
+    public int getTarget(int edge) {
+        return targets[edge];
+    }
+}
@@ -49,9 +49,9 @@ import java.util.concurrent.TimeUnit;
 import org.gephi.graph.api.GraphController;
 import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.dhns.core.Dhns;
-import org.gephi.graph.dhns.core.IDGen;
 import org.gephi.project.api.ProjectController;
 import org.gephi.project.api.Workspace;
+import org.gephi.project.api.WorkspaceListener;
 import org.gephi.project.spi.WorkspaceDuplicateProvider;
 import org.openide.util.Lookup;
 import org.openide.util.lookup.ServiceProvider;
@@ -65,10 +65,31 @@ import org.openide.util.lookup.ServiceProviders;
 @ServiceProvider(service = GraphController.class)
 public class DhnsGraphController implements GraphController {
 
-    protected IDGen iDGen;
-
     public DhnsGraphController() {
-        iDGen = new IDGen();
+        ProjectController projectController = Lookup.getDefault().lookup(ProjectController.class);
+        if (projectController != null) {
+            projectController.addWorkspaceListener(new WorkspaceListener() {
+
+                public void initialize(Workspace workspace) {
+                }
+
+                public void select(Workspace workspace) {
+                }
+
+                public void unselect(Workspace workspace) {
+                }
+
+                public void close(Workspace workspace) {
+                    Dhns dhns = workspace.getLookup().lookup(Dhns.class);
+                    if (dhns != null) {
+                        dhns.close();
+                    }
+                }
+
+                public void disable() {
+                }
+            });
+        }
     }
 
     public Dhns newDhns(Workspace workspace) {
@@ -77,10 +98,6 @@ public class DhnsGraphController implements GraphController {
         return dhns;
     }
 
-    public IDGen getIDGen() {
-        return iDGen;
-    }
-
     private synchronized Dhns getCurrentDhns() {
         Workspace currentWorkspace = Lookup.getDefault().lookup(ProjectController.class).getCurrentWorkspace();
         if (currentWorkspace == null) {
@@ -49,6 +49,7 @@ import org.gephi.graph.dhns.utils.DHNSSerializer;
 import org.gephi.project.api.Workspace;
 import org.gephi.project.spi.WorkspacePersistenceProvider;
 import org.openide.util.Lookup;
+import org.openide.util.NbPreferences;
 import org.openide.util.lookup.ServiceProvider;
 
 /**
@@ -58,10 +59,14 @@ import org.openide.util.lookup.ServiceProvider;
 @ServiceProvider(service = WorkspacePersistenceProvider.class, position = 10000)
 public class DhnsPersistenceProvider implements WorkspacePersistenceProvider {
 
+    private static final String BINARY_PREFERENCE = "DhnsPersistence_Binary";
+
     public void writeXML(XMLStreamWriter writer, Workspace workspace) {
         DhnsGraphController graphController = Lookup.getDefault().lookup(DhnsGraphController.class);
         Dhns dhns = (Dhns) graphController.getModel(workspace);
-        DHNSSerializer serializer = new DHNSSerializer();
+        //XML by default so older versions can open the project, binary is opt-in
+        boolean binary = NbPreferences.forModule(DhnsPersistenceProvider.class).getBoolean(BINARY_PREFERENCE, false);
+        DHNSSerializer serializer = new DHNSSerializer(binary);
         try {
             serializer.writeDhns(writer, dhns);
         } catch (XMLStreamException ex) {
@@ -0,0 +1,234 @@
+/*
+Copyright 2008-2010 Gephi
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.graph.dhns.core;
+
+import org.gephi.graph.api.DegreeIndex;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.dhns.edge.AbstractEdge;
+import org.gephi.graph.dhns.edge.MetaEdgeImpl;
+import org.gephi.graph.dhns.node.AbstractNode;
+import org.gephi.graph.dhns.node.iterators.TreeIterator;
+import org.gephi.graph.dhns.node.iterators.TreeListIterator;
+import org.gephi.graph.dhns.predicate.Predicate;
+import org.gephi.graph.dhns.predicate.Tautology;
+import org.gephi.utils.collection.avl.ParamAVLIterator;
+
+/**
+ * Implementation of {@link DegreeIndex}. Counts are copied from the enabled
+ * degrees maintained by nodes, weighted degrees are summed over the out edges
+ * and meta-edges of enabled nodes. Arrays are sized after the greatest node id
+ * of the view, so edges added between existing nodes can be indexed in place
+ * with {@link #addEdge(AbstractEdge)} and {@link #removeEdge(AbstractEdge)}.
+ * The index is out of date as soon as the node, edge or weight version of the
+ * graph changes.
+ * <p>
+ * Must be built and updated while holding the read lock.
+ */
+public class DegreeIndexImpl implements DegreeIndex {
+
+    private final GraphViewImpl view;
+    private final int viewId;
+    private volatile int nodeVersion;
+    private volatile int edgeVersion;
+    private volatile int weightVersion;
+    //Degrees
+    private final int[] inDegrees;
+    private final int[] outDegrees;
+    private final int[] mutualDegrees;
+    private final double[] weightedInDegrees;
+    private final double[] weightedOutDegrees;
+
+    public DegreeIndexImpl(GraphViewImpl view, GraphVersion graphVersion) {
+        this.view = view;
+        this.viewId = view.getViewId();
+        setVersion(graphVersion);
+
+        int maxId = 0;
+        for (TreeListIterator itr = new TreeListIterator(view.getStructure().getTree(), 1); itr.hasNext();) {
+            maxId = Math.max(maxId, itr.next().getId());
+        }
+        inDegrees = new int[maxId + 1];
+        outDegrees = new int[maxId + 1];
+        mutualDegrees = new int[maxId + 1];
+        weightedInDegrees = new double[maxId + 1];
+        weightedOutDegrees = new double[maxId + 1];
+
+        ParamAVLIterator<AbstractEdge> edgeIterator = new ParamAVLIterator<AbstractEdge>();
+        ParamAVLIterator<MetaEdgeImpl> metaEdgeIterator = new ParamAVLIterator<MetaEdgeImpl>();
+        @SuppressWarnings("unchecked")
+        Predicate<AbstractNode> enabled = Tautology.instance;
+        for (TreeIterator itr = new TreeIterator(view.getStructure(), true, enabled); itr.hasNext();) {
+            AbstractNode node = itr.next();
+            int id = node.getId();
+            inDegrees[id] = node.getEnabledInDegree() + node.getMetaEdgesInTree().getCount();
+            outDegrees[id] = node.getEnabledOutDegree() + node.getMetaEdgesOutTree().getCount();
+            mutualDegrees[id] = node.getEnabledMutualDegree() + node.getMutualMetaEdgeDegree();
+            if (!node.getEdgesOutTree().isEmpty()) {
+                for (edgeIterator.setNode(node.getEdgesOutTree()); edgeIterator.hasNext();) {
+                    AbstractEdge edge = edgeIterator.next();
+                    AbstractNode target = edge.getTarget(viewId);
+                    if (target.isEnabled()) {
+                        float weight = edge.getWeight();
+                        weightedOutDegrees[id] += weight;
+                        weightedInDegrees[target.getId()] += weight;
+                    }
+                }
+            }
+            if (!node.getMetaEdgesOutTree().isEmpty()) {
+                for (metaEdgeIterator.setNode(node.getMetaEdgesOutTree()); metaEdgeIterator.hasNext();) {
+                    MetaEdgeImpl metaEdge = metaEdgeIterator.next();
+                    float weight = metaEdge.getWeight();
+                    weightedOutDegrees[id] += weight;
+                    weightedInDegrees[metaEdge.getTarget(viewId).getId()] += weight;
+                }
+            }
+        }
+    }
+
+    /**
+     * Indexes <code>edge</code>, which has just been added to the view. Returns
+     * <code>false</code> if the index can't be updated in place because one of
+     * the extremities isn't enabled, meta-edges may have changed.
+     */
+    public boolean addEdge(AbstractEdge edge) {
+        AbstractNode source = edge.getSource(viewId);
+        AbstractNode target = edge.getTarget(viewId);
+        if (!source.isEnabled() || !target.isEnabled()) {
+            return false;
+        }
+        float weight = edge.getWeight();
+        outDegrees[source.getId()]++;
+        inDegrees[target.getId()]++;
+        weightedOutDegrees[source.getId()] += weight;
+        weightedInDegrees[target.getId()] += weight;
+        if (!edge.isSelfLoop() && source.getEdgesInTree().hasNeighbour(target)) {
+            mutualDegrees[source.getId()]++;
+            mutualDegrees[target.getId()]++;
+        }
+        return true;
+    }
+
+    /**
+     * Removes <code>edge</code> from the index, must be called before the edge
+     * is removed from the view. Returns <code>false</code> if the index can't
+     * be updated in place because one of the extremities isn't enabled.
+     */
+    public boolean removeEdge(AbstractEdge edge) {
+        AbstractNode source = edge.getSource(viewId);
+        AbstractNode target = edge.getTarget(viewId);
+        if (!source.isEnabled() || !target.isEnabled()) {
+            return false;
+        }
+        float weight = edge.getWeight();
+        outDegrees[source.getId()]--;
+        inDegrees[target.getId()]--;
+        weightedOutDegrees[source.getId()] -= weight;
+        weightedInDegrees[target.getId()] -= weight;
+        if (!edge.isSelfLoop() && source.getEdgesInTree().hasNeighbour(target)) {
+            mutualDegrees[source.getId()]--;
+            mutualDegrees[target.getId()]--;
+        }
+        return true;
+    }
+
+    public boolean isUpToDate(GraphVersion graphVersion) {
+        return nodeVersion == graphVersion.getNodeVersion() && edgeVersion == graphVersion.getEdgeVersion()
+                && weightVersion == graphVersion.getWeightVersion();
+    }
+
+    public void setVersion(GraphVersion graphVersion) {
+        this.nodeVersion = graphVersion.getNodeVersion();
+        this.edgeVersion = graphVersion.getEdgeVersion();
+        this.weightVersion = graphVersion.getWeightVersion();
+    }
+
+    public GraphView getView() {
+        return view;
+    }
+
+    public int getInDegree(Node node) {
+        int id = node.getId();
+        return id < inDegrees.length ? inDegrees[id] : 0;
+    }
+
+    public int getOutDegree(Node node) {
+        int id = node.getId();
+        return id < outDegrees.length ? outDegrees[id] : 0;
+    }
+
+    public int getMutualDegree(Node node) {
+        int id = node.getId();
+        return id < mutualDegrees.length ? mutualDegrees[id] : 0;
+    }
+
+    public int getDegree(Node node) {
+        int id = node.getId();
+        return id < inDegrees.length ? inDegrees[id] + outDegrees[id] : 0;
+    }
+
+    public double getWeightedInDegree(Node node) {
+        int id = node.getId();
+        return id < weightedInDegrees.length ? weightedInDegrees[id] : 0.0;
+    }
+
+    public double getWeightedOutDegree(Node node) {
+        int id = node.getId();
+        return id < weightedOutDegrees.length ? weightedOutDegrees[id] : 0.0;
+    }
+
+    public double getWeightedDegree(Node node) {
+        int id = node.getId();
+        return id < weightedInDegrees.length ? weightedInDegrees[id] + weightedOutDegrees[id] : 0.0;
+    }
+
+    public int getNodeVersion() {
+        return nodeVersion;
+    }
+
+    public int getEdgeVersion() {
+        return edgeVersion;
+    }
+
+    public int getWeightVersion() {
+        return weightVersion;
+    }
+}
@@ -41,16 +41,29 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.graph.dhns.core;
 
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.gephi.data.attributes.api.AttributeColumn;
 import org.gephi.data.attributes.api.AttributeController;
+import org.gephi.data.attributes.api.AttributeEvent;
+import org.gephi.data.attributes.api.AttributeEvent.EventType;
+import org.gephi.data.attributes.api.AttributeListener;
 import org.gephi.data.attributes.api.AttributeModel;
 import org.gephi.data.attributes.api.AttributeRowFactory;
+import org.gephi.data.attributes.api.AttributeTable;
+import org.gephi.data.attributes.api.AttributeValue;
+import org.gephi.data.properties.PropertiesColumn;
+import org.gephi.graph.api.DegreeIndex;
 import org.gephi.graph.api.DirectedGraph;
 import org.gephi.graph.api.EdgeIterable;
 import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphEventMetrics;
 import org.gephi.graph.api.GraphListener;
+import org.gephi.graph.api.GraphMemory;
 import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.api.GraphSettings;
+import org.gephi.graph.api.GraphSnapshot;
 import org.gephi.graph.api.HierarchicalDirectedGraph;
 import org.gephi.graph.api.HierarchicalGraph;
 import org.gephi.graph.api.HierarchicalMixedGraph;
@@ -91,18 +104,23 @@ public class Dhns implements GraphModel {
     private final EventManager eventManager;
     private final SettingsManager settingsManager;
     private final GraphFactoryImpl factory;
+    private final IDGen idGen;
     private final DuplicateManager duplicateManager;
+    private AttributeModel attributeModel;
+    private WeightListener weightListener;
     //Type
     private boolean directed = false;
     private boolean undirected = false;
     private boolean mixed = false;
     //Locking
     private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+    private final AtomicLong writeStamp = new AtomicLong(2);
 
     public Dhns(DhnsGraphController controller, Workspace workspace) {
         this.controller = controller;
         this.workspace = workspace;
         graphVersion = new GraphVersion();
+        idGen = new IDGen();
         eventManager = new EventManager(this);
         settingsManager = new SettingsManager(this);
         duplicateManager = new DuplicateManager(this);
@@ -112,12 +130,14 @@ public class Dhns implements GraphModel {
         //AttributeFactory
         AttributeRowFactory attributeRowFactory = null;
         if (workspace != null) {
-            AttributeModel attributeModel = Lookup.getDefault().lookup(AttributeController.class).getModel(workspace);
+            attributeModel = Lookup.getDefault().lookup(AttributeController.class).getModel(workspace);
             if (attributeModel != null) {
                 attributeRowFactory = attributeModel.rowFactory();
+                weightListener = new WeightListener(attributeModel.getEdgeTable());
+                attributeModel.addAttributeListener(weightListener);
             }
         }
-        factory = new GraphFactoryImpl(controller.getIDGen(), attributeRowFactory);
+        factory = new GraphFactoryImpl(idGen, graphVersion, attributeRowFactory);
 
         graphStructure = new GraphStructure(this);
 
@@ -127,6 +147,17 @@ public class Dhns implements GraphModel {
     public void init() {
     }
 
+    /**
+     * Detaches this model from the attribute model of its workspace, called
+     * when the workspace is closed.
+     */
+    public void close() {
+        if (attributeModel != null && weightListener != null) {
+            attributeModel.removeAttributeListener(weightListener);
+            weightListener = null;
+        }
+    }
+
     public DhnsGraphController getController() {
         return controller;
     }
@@ -144,7 +175,7 @@ public class Dhns implements GraphModel {
     }
 
     public IDGen getIdGen() {
-        return controller.getIDGen();
+        return idGen;
     }
 
     public SettingsManager getSettingsManager() {
@@ -206,6 +237,7 @@ public class Dhns implements GraphModel {
         }
         if (!readWriteLock.isWriteLockedByCurrentThread()) {
             readWriteLock.writeLock().lock();
+            writeStamp.incrementAndGet();
             return true;
         }
         return false;
@@ -213,6 +245,7 @@ public class Dhns implements GraphModel {
 
     public void conditionalWriteUnlock(boolean locked) {
         if (locked) {
+            writeStamp.incrementAndGet();
             readWriteLock.writeLock().unlock();
         }
     }
@@ -233,13 +266,45 @@ public class Dhns implements GraphModel {
         }*/
         //Logger.getLogger("").log(Level.WARNING, "{0} write lock", Thread.currentThread());
         readWriteLock.writeLock().lock();
+        if (readWriteLock.getWriteHoldCount() == 1) {
+            writeStamp.incrementAndGet();
+        }
     }
 
     public void writeUnlock() {
         //Logger.getLogger("").log(Level.WARNING, "{0} write unlock", Thread.currentThread());
+        if (readWriteLock.getWriteHoldCount() == 1) {
+            writeStamp.incrementAndGet();
+        }
         readWriteLock.writeLock().unlock();
     }
 
+    /**
+     * Returns a stamp for an optimistic read, or <code>0</code> if the write
+     * lock is currently held. The stamp is odd while a writer holds the lock,
+     * and even otherwise. Short lookups can read the structure without locking
+     * and call {@link #validate(long)} afterwards, falling back to the read
+     * lock if the stamp is no longer valid.
+     * @return a stamp, or <code>0</code> if a writer is active
+     */
+    public long tryOptimisticRead() {
+        long stamp = writeStamp.get();
+        return (stamp & 1L) == 0 ? stamp : 0L;
+    }
+
+    /**
+     * Returns <code>true</code> if no write lock has been acquired since
+     * <code>stamp</code> was obtained from {@link #tryOptimisticRead()}.
+     * <p>
+     * The stamp is checked with a compare-and-set, which acts as a full
+     * fence: the reads done before cannot be reordered after the check.
+     * @param stamp the stamp to validate
+     * @return <code>true</code> if the optimistic read is valid
+     */
+    public boolean validate(long stamp) {
+        return stamp != 0L && writeStamp.compareAndSet(stamp, stamp);
+    }
+
     public ReentrantReadWriteLock getReadWriteLock() {
         return readWriteLock;
     }
@@ -452,6 +517,53 @@ public class Dhns implements GraphModel {
         return getHierarchicalUndirectedGraph(graphStructure.getVisibleView());
     }
 
+    public GraphSnapshot getSnapshot(GraphView view) {
+        GraphViewImpl viewImpl = view != null ? (GraphViewImpl) view : graphStructure.getMainView();
+        readLock();
+        try {
+            GraphSnapshotImpl snapshot = viewImpl.getSnapshot();
+            if (snapshot == null || !snapshot.isUpToDate(graphVersion)) {
+                snapshot = new GraphSnapshotImpl(viewImpl, graphVersion);
+                viewImpl.setSnapshot(snapshot);
+            }
+            return snapshot;
+        } finally {
+            readUnlock();
+        }
+    }
+
+    public GraphMemory getMemory() {
+        readLock();
+        try {
+            return new GraphMemoryImpl(this);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    public GraphEventMetrics getEventMetrics() {
+        return eventManager;
+    }
+
+    public void compactIds() {
+        graphStructure.compactIds();
+    }
+
+    public DegreeIndex getDegreeIndex(GraphView view) {
+        GraphViewImpl viewImpl = view != null ? (GraphViewImpl) view : graphStructure.getMainView();
+        DegreeIndexImpl degreeIndex = viewImpl.getDegreeIndex();
+        if (degreeIndex == null || !degreeIndex.isUpToDate(graphVersion)) {
+            readLock();
+            try {
+                degreeIndex = new DegreeIndexImpl(viewImpl, graphVersion);
+            } finally {
+                readUnlock();
+            }
+            viewImpl.setDegreeIndex(degreeIndex);
+        }
+        return degreeIndex;
+    }
+
     public GraphSettings settings() {
         return settingsManager;
     }
@@ -503,6 +615,10 @@ public class Dhns implements GraphModel {
         return graphStructure.getNewView();
     }
 
+    public GraphView newView(BitSet removedNodes, BitSet removedEdges) {
+        return graphStructure.copyView(graphStructure.getMainView(), removedNodes, removedEdges);
+    }
+
     public GraphView copyView(GraphView view) {
         return graphStructure.copyView((GraphViewImpl) view);
     }
@@ -522,4 +638,39 @@ public class Dhns implements GraphModel {
     public Workspace getWorkspace() {
         return workspace;
     }
+    /**
+     * Increments the weight version when edge weights are set directly in
+     * the edge attribute rows, so cached snapshots are rebuilt.
+     */
+    private class WeightListener implements AttributeListener {
+
+        private final AttributeTable edgeTable;
+
+        public WeightListener(AttributeTable edgeTable) {
+            this.edgeTable = edgeTable;
+        }
+
+        public void attributesChanged(AttributeEvent event) {
+            if (event.getSource() != edgeTable || !event.is(EventType.SET_VALUE, EventType.UNSET_VALUE)) {
+                return;
+            }
+            int weightIndex = PropertiesColumn.EDGE_WEIGHT.getIndex();
+            AttributeColumn column = event.getData().getChangedColumn();
+            if (column != null) {
+                if (column.getIndex() == weightIndex) {
+                    graphVersion.incWeightVersion();
+                }
+                return;
+            }
+            AttributeValue[] values = event.getData().getTouchedValues();
+            if (values != null) {
+                for (AttributeValue value : values) {
+                    if (value.getColumn().getIndex() == weightIndex) {
+                        graphVersion.incWeightVersion();
+                        return;
+                    }
+                }
+            }
+        }
+    }
 }
@@ -41,10 +41,15 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.graph.dhns.core;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.gephi.utils.collection.avl.ParamAVLIterator;
 import org.gephi.graph.api.Attributes;
+import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.Node;
 import org.gephi.graph.dhns.edge.AbstractEdge;
@@ -54,6 +59,10 @@ import org.gephi.graph.dhns.node.NodeDataImpl;
 import org.gephi.graph.dhns.node.iterators.TreeListIterator;
 
 /**
+ * Copies the graph of a workspace to another one. Nothing is shared between
+ * the two workspaces: each node, edge and attribute value is copied in the
+ * destination, so the copy costs as much memory as the source. Trees are
+ * built in bulk to keep the copy fast.
  *
  * @author Mathieu Bastian
  */
@@ -77,6 +86,9 @@ public class DuplicateManager {
         GraphStructure newGraphStructure = destination.getGraphStructure();
         TreeStructure newStructure = newGraphStructure.getMainView().getStructure();
         //Nodes
+        boolean flat = treeStructure.getTreeHeight() <= 1;
+        AbstractNode[] nodeCopies = new AbstractNode[treeStructure.getTreeSize() - 1];
+        int n = 0;
         for (TreeListIterator itr = new TreeListIterator(treeStructure.getTree(), 1); itr.hasNext();) {
             AbstractNode node = itr.next();
             AbstractNode nodeCopy = factory.newNode();
@@ -85,21 +97,31 @@ public class DuplicateManager {
             nodeCopy.setEnabledInDegree(node.getEnabledInDegree());
             nodeCopy.setEnabledOutDegree(node.getEnabledOutDegree());
             nodeCopy.setEnabledMutualDegree(node.getEnabledMutualDegree());
-            AbstractNode parentCopy = node.parent != null ? newStructure.getNodeAt(node.parent.getPre()) : null;
-            newStructure.insertAsChild(nodeCopy, parentCopy);
+            if (!flat) {
+                AbstractNode parentCopy = node.parent != null ? newStructure.getNodeAt(node.parent.getPre()) : null;
+                newStructure.insertAsChild(nodeCopy, parentCopy);
+            }
             newGraphStructure.addToDictionnary(nodeCopy);
+            nodeCopies[n++] = nodeCopy;
+        }
+        if (flat) {
+            //Balanced tree built at once
+            newStructure.insertAsChildren(nodeCopies, newStructure.getRoot());
         }
 
-        //Edges
+        //Edges, out trees are built at once per node
+        AbstractEdge[] edgeCopies = new AbstractEdge[view.getEdgesCountTotal()];
+        int e = 0;
         ParamAVLIterator<AbstractEdge> edgeIterator = new ParamAVLIterator<AbstractEdge>();
         for (TreeListIterator itr = new TreeListIterator(treeStructure.getTree(), 1); itr.hasNext();) {
             AbstractNode node = itr.next();
             if (!node.getEdgesOutTree().isEmpty()) {
+                AbstractNode sourceCopy = nodeCopies[node.getPre() - 1];
+                int first = e;
                 for (edgeIterator.setNode(node.getEdgesOutTree()); edgeIterator.hasNext();) {
                     AbstractEdge edge = edgeIterator.next();
                     AbstractEdge edgeCopy;
-                    AbstractNode sourceCopy = newStructure.getNodeAt(edge.getSource(view.getViewId()).getPre());
-                    AbstractNode targetCopy = newStructure.getNodeAt(edge.getTarget(view.getViewId()).getPre());
+                    AbstractNode targetCopy = nodeCopies[edge.getTarget(view.getViewId()).getPre() - 1];
                     if (edge.isMixed()) {
                         edgeCopy = factory.newEdge(edge.getEdgeData().getId(), sourceCopy, targetCopy, edge.getWeight(), edge.isDirected());
                         if (edge.isDirected()) {
@@ -113,17 +135,38 @@ public class DuplicateManager {
                         destination.touchDirected();
                     }
                     duplicateEdgeData(edge.getEdgeData(), edgeCopy.getEdgeData());
-                    sourceCopy.getEdgesOutTree().add(edgeCopy);
-                    targetCopy.getEdgesInTree().add(edgeCopy);
                     newGraphStructure.addToDictionnary(edgeCopy);
+                    if (e == edgeCopies.length) {
+                        edgeCopies = Arrays.copyOf(edgeCopies, e + 1 + (e >> 1));
+                    }
+                    edgeCopies[e++] = edgeCopy;
                 }
+                sourceCopy.getEdgesOutTree().addAll(edgeCopies, first, e - first);
+            }
+        }
+
+        //In trees, edges grouped by target
+        AbstractEdge[] sorted = Arrays.copyOf(edgeCopies, e);
+        Arrays.sort(sorted, new Comparator<AbstractEdge>() {
+
+            public int compare(AbstractEdge e1, AbstractEdge e2) {
+                int n1 = e1.getTarget().getNumber();
+                int n2 = e2.getTarget().getNumber();
+                return n1 < n2 ? -1 : (n1 == n2 ? 0 : 1);
+            }
+        });
+        for (int i = 0, j; i < sorted.length; i = j) {
+            AbstractNode target = sorted[i].getTarget();
+            for (j = i + 1; j < sorted.length && sorted[j].getTarget() == target; j++) {
             }
+            target.getEdgesInTree().addAll(sorted, i, j - i);
         }
         newGraphStructure.getMainView().setNodesEnabled(view.getNodesEnabled());
         newGraphStructure.getMainView().setEdgesCountTotal(view.getEdgesCountTotal());
         newGraphStructure.getMainView().setEdgesCountEnabled(view.getEdgesCountEnabled());
         newGraphStructure.getMainView().setMutualEdgesTotal(view.getMutualEdgesTotal());
         newGraphStructure.getMainView().setMutualEdgesEnabled(view.getMutualEdgesEnabled());
+        newGraphStructure.getMainView().setEdgeIndexEnabled(destination.getSettingsManager().isEdgeIndex());
 
         //Metaedges
         newGraphStructure.getMainView().getStructureModifier().getEdgeProcessor().computeMetaEdges();
@@ -147,15 +190,17 @@ public class DuplicateManager {
         destination.writeLock();
 
         //Nodes
-        for (Node sourceNode : nodes) {
-            AbstractNode absSourceNode = (AbstractNode) sourceNode;
-            AbstractNode nodeCopy = factory.newNode(sourceNode.getNodeData().getId());
-            destGraph.addNode(nodeCopy);
-            duplicateNodeData((NodeDataImpl) sourceNode.getNodeData(), (NodeDataImpl) nodeCopy.getNodeData());
+        AbstractNode[] nodeCopies = new AbstractNode[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            AbstractNode absSourceNode = (AbstractNode) nodes[i];
+            AbstractNode nodeCopy = factory.newNode(absSourceNode.getNodeData().getId());
+            duplicateNodeData(absSourceNode.getNodeData(), nodeCopy.getNodeData());
             nodeMap.put(absSourceNode, nodeCopy);
+            nodeCopies[i] = nodeCopy;
         }
 
         //Edges
+        List<Edge> edgeCopies = new ArrayList<Edge>();
         ParamAVLIterator<AbstractEdge> edgeIterator = new ParamAVLIterator<AbstractEdge>();
         for (Node sourceNode : nodes) {
             AbstractNode absSourceNode = (AbstractNode) sourceNode;
@@ -168,8 +213,8 @@ public class DuplicateManager {
                     AbstractNode copyTargetNode = nodeMap.get(originalTargetNode);
                     if (copyTargetNode != null) {
                         AbstractEdge edgeCopy = factory.newEdge(edge.getEdgeData().getId(), nodeCopy, copyTargetNode, edge.getWeight(), edge.isDirected());
-                        destGraph.addEdge(edgeCopy);
                         duplicateEdgeData(edge.getEdgeData(), edgeCopy.getEdgeData());
+                        edgeCopies.add(edgeCopy);
                     }
                 }
             }
@@ -180,13 +225,16 @@ public class DuplicateManager {
                     AbstractNode copyTargetNode = nodeMap.get(originalTargetNode);
                     if (copyTargetNode != null) {
                         AbstractEdge edgeCopy = factory.newEdge(edge.getEdgeData().getId(), nodeCopy, copyTargetNode, edge.getWeight(), edge.isDirected());
-                        destGraph.addEdge(edgeCopy);
                         duplicateEdgeData(edge.getEdgeData(), edgeCopy.getEdgeData());
+                        edgeCopies.add(edgeCopy);
                     }
                 }
             }
         }
 
+        //Added in one batch, duplicates of existing edges are ignored
+        destGraph.addAll(nodeCopies, edgeCopies.toArray(new Edge[0]));
+
         destination.writeUnlock();
         dhns.readUnlock();
     }
@@ -239,6 +239,74 @@ public class DurableTreeList extends AbstractList<AbstractNode> implements Itera
         return true;
     }
 
+    /**
+     * Appends all elements at the end of the list.
+     * <p>
+     * When there is at least as many elements to append than elements in the list, the
+     * tree is rebuilt at once in linear time instead of being rebalanced at each insertion.
+     * Existing <code>DurableAVLNode</code> are kept, only their links are reset.
+     *
+     * @param objs  the elements to append, in order
+     */
+    public void addAll(AbstractNode[] objs) {
+        if (objs.length < size) {
+            for (int i = 0; i < objs.length; i++) {
+                add(size, objs[i]);
+            }
+            return;
+        }
+        modCount++;
+        incPreConsistent();
+        DurableAVLNode[] nodes = new DurableAVLNode[size + objs.length];
+        if (root != null) {
+            AbstractNode[] values = toArray();
+            for (int i = 0; i < values.length; i++) {
+                nodes[i] = values[i].avlNode;
+            }
+        }
+        for (int i = 0; i < objs.length; i++) {
+            AbstractNode obj = objs[i];
+            nodes[size + i] = new DurableAVLNode(this, 0, obj, null, null, null);
+            if (obj.level >= levelsSize.length) {
+                levelsSize = Arrays.copyOf(levelsSize, obj.level + 1);
+            }
+            levelsSize[obj.level]++;
+        }
+        size = nodes.length;
+        if (size > 0) {
+            root = build(nodes, 0, size - 1, 0, null);
+        }
+    }
+
+    /**
+     * Links <code>nodes</code> from <code>low</code> to <code>high</code> as a balanced subtree and
+     * returns its top node. Leaves are threaded to their predecessor and successor in the array.
+     */
+    private DurableAVLNode build(DurableAVLNode[] nodes, int low, int high, int parentPosition, DurableAVLNode parent) {
+        int mid = (low + high) >>> 1;
+        DurableAVLNode node = nodes[mid];
+        node.relativePosition = mid - parentPosition;
+        node.parent = parent;
+        if (low < mid) {
+            node.left = build(nodes, low, mid - 1, mid, node);
+            node.leftIsPrevious = false;
+        } else {
+            node.left = mid > 0 ? nodes[mid - 1] : null;
+            node.leftIsPrevious = true;
+        }
+        if (mid < high) {
+            node.right = build(nodes, mid + 1, high, mid, node);
+            node.rightIsNext = false;
+        } else {
+            node.right = mid + 1 < nodes.length ? nodes[mid + 1] : null;
+            node.rightIsNext = true;
+        }
+        node.height = Math.max(
+                node.leftIsPrevious ? -1 : node.left.height,
+                node.rightIsNext ? -1 : node.right.height) + 1;
+        return node;
+    }
+
     /**
      * Sets the element at the specified index.
      * 
@@ -0,0 +1,201 @@
+/*
+Copyright 2008-2010 Gephi
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.graph.dhns.core;
+
+import java.util.Arrays;
+import org.gephi.graph.dhns.edge.AbstractEdge;
+
+/**
+ * Open addressing hash index of the edges of a view, keyed by
+ * <code>(source &lt;&lt; 32 | target)</code> with the nodes' numbers. Gives constant time
+ * <code>getEdge(source, target)</code> and adjacency tests, whatever the degree of the nodes.
+ * <p>
+ * Collisions are resolved by linear probing and removals shift the following entries back,
+ * so the table never contains tombstones. Modified only under the write lock.
+ */
+public class EdgeIndex {
+
+    private static final long FREE = -1L;
+    private static final int MIN_CAPACITY = 16;
+    private long[] keys;
+    private AbstractEdge[] edges;
+    private int size;
+    private int threshold;
+
+    public EdgeIndex() {
+        this(0);
+    }
+
+    public EdgeIndex(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    public static long key(int source, int target) {
+        return ((long) source << 32) | (target & 0xFFFFFFFFL);
+    }
+
+    public AbstractEdge get(int source, int target) {
+        final long[] k = keys;
+        final AbstractEdge[] e = edges;
+        final int mask = k.length - 1;
+        final long key = key(source, target);
+        int slot = slot(key, mask);
+        for (int i = 0; i <= mask; i++) {
+            long current = k[slot];
+            if (current == key) {
+                return e[slot];
+            } else if (current == FREE) {
+                return null;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public boolean contains(int source, int target) {
+        return get(source, target) != null;
+    }
+
+    public void put(AbstractEdge edge) {
+        if (size >= threshold) {
+            rehash(keys.length << 1);
+        }
+        final int mask = keys.length - 1;
+        final long key = key(edge.getSource().getNumber(), edge.getTarget().getNumber());
+        int slot = slot(key, mask);
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                edges[slot] = edge;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        edges[slot] = edge;
+        keys[slot] = key;
+        size++;
+    }
+
+    /**
+     * Removes <code>edge</code> from the index, if it is the edge indexed for its source and target.
+     * @return <code>true</code> if the edge has been removed
+     */
+    public boolean remove(AbstractEdge edge) {
+        final int mask = keys.length - 1;
+        final long key = key(edge.getSource().getNumber(), edge.getTarget().getNumber());
+        int slot = slot(key, mask);
+        while (keys[slot] != key) {
+            if (keys[slot] == FREE) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (edges[slot] != edge) {
+            return false;
+        }
+        //Shift back following entries of the cluster
+        int free = slot;
+        int next = (slot + 1) & mask;
+        while (keys[next] != FREE) {
+            int ideal = slot(keys[next], mask);
+            if (((next - ideal) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                edges[free] = edges[next];
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[free] = FREE;
+        edges[free] = null;
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        allocate(MIN_CAPACITY);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        AbstractEdge[] oldEdges = edges;
+        allocate(capacity);
+        final int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = slot(oldKeys[i], mask);
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                edges[slot] = oldEdges[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        long[] k = new long[capacity];
+        Arrays.fill(k, FREE);
+        edges = new AbstractEdge[capacity];
+        keys = k;
+        threshold = (int) (capacity * 0.6f);
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 0.6f <= expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -41,6 +41,8 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.graph.dhns.core;
 
+import gnu.trove.TIntObjectHashMap;
+import java.util.Arrays;
 import org.gephi.utils.collection.avl.ParamAVLIterator;
 import org.gephi.graph.dhns.edge.AbstractEdge;
 import org.gephi.graph.dhns.edge.MetaEdgeImpl;
@@ -103,6 +105,9 @@ public class EdgeProcessor {
                 }
 
                 source.getEdgesOutTree().remove(edge);
+                if (view.getEdgeIndex() != null) {
+                    view.getEdgeIndex().remove(edge);
+                }
                 clearedEdges[i] = edge;
                 i++;
             }
@@ -126,6 +131,9 @@ public class EdgeProcessor {
                 }
 
                 edge.getTarget(viewId).getEdgesInTree().remove(edge);
+                if (view.getEdgeIndex() != null) {
+                    view.getEdgeIndex().remove(edge);
+                }
                 clearedEdges[i] = edge;
                 i++;
             }
@@ -237,6 +245,9 @@ public class EdgeProcessor {
             node.setEnabledMutualDegree(0);
             node.clearMetaEdges();
         }
+        if (view.getEdgeIndex() != null) {
+            view.getEdgeIndex().clear();
+        }
         view.setEdgesCountTotal(0);
         view.setEdgesCountEnabled(0);
         view.setMutualEdgesEnabled(0);
@@ -255,66 +266,174 @@ public class EdgeProcessor {
     }
 
     public void computeMetaEdges(AbstractNode node, AbstractNode enabledAncestor) {
+        computeMetaEdges(node, enabledAncestor, true, new TIntObjectHashMap<AbstractNode>());
+    }
+
+    /**
+     * Computes meta edges of <code>node</code>'s descendants and appends them to
+     * <code>enabledAncestor</code>, which must be <code>node</code> or one of its ancestors.
+     * Edges inside <code>node</code>'s subtree are skipped by range, as both
+     * extremities belong to <code>enabledAncestor</code>. In edges are skipped if
+     * <code>inEdges</code> is false, when their source is computed in the same pass.
+     * Enabled ancestors of other extremities are kept in <code>ancestorCache</code>,
+     * valid as long as the enabled nodes don't change.
+     */
+    private void computeMetaEdges(AbstractNode node, AbstractNode enabledAncestor, boolean inEdges, TIntObjectHashMap<AbstractNode> ancestorCache) {
         if (!dhns.getSettingsManager().isAutoMetaEdgeCreation()) {
             return;
         }
         if (enabledAncestor == null) {
             enabledAncestor = node;
         }
-        int clusterEnd = node.getPre() + node.size;
-        for (int i = node.pre; i <= clusterEnd; i++) {
+        int clusterStart = node.getPre();
+        int clusterEnd = clusterStart + node.size;
+        for (int i = clusterStart; i <= clusterEnd; i++) {
             AbstractNode desc = treeStructure.getNodeAt(i);
             if (desc.getEdgesOutTree().getCount() > 0) {
                 edgeIterator.setNode(desc.getEdgesOutTree());
                 while (edgeIterator.hasNext()) {
                     AbstractEdge edge = edgeIterator.next();
-                    AbstractNode[] enabledAncestors = treeStructure.getEnabledAncestorsOrSelf(edge.getTarget(viewId));
-                    if (enabledAncestors != null) {
-                        for (int j = 0; j < enabledAncestors.length; j++) {
-                            AbstractNode targetNode = enabledAncestors[j];
-                            if (!(targetNode == edge.getTarget(viewId) && enabledAncestor == edge.getSource(viewId))) {
-                                createMetaEdge(enabledAncestor, targetNode, edge);
-                            }
+                    AbstractNode target = edge.getTarget(viewId);
+                    int targetPre = target.getPre();
+                    if (targetPre < clusterStart || targetPre > clusterEnd) {
+                        AbstractNode targetNode = getEnabledAncestorOrSelf(target, ancestorCache);
+                        if (targetNode != null) {
+                            createMetaEdge(enabledAncestor, targetNode, edge);
                         }
                     }
-
-//                    AbstractNode targetNode = treeStructure.getEnabledAncestorOrSelf(edge.getTarget(viewId));
-//                    if (targetNode != null && !(targetNode == edge.getTarget(viewId) && enabledAncestor == edge.getSource(viewId))) {
-//                    //Create Meta Edge if not exist
-//                    createMetaEdge(enabledAncestor, targetNode, edge);
-//                    }
                 }
             }
-            if (desc.getEdgesInTree().getCount() > 0) {
+            if (inEdges && desc.getEdgesInTree().getCount() > 0) {
                 edgeIterator.setNode(desc.getEdgesInTree());
                 while (edgeIterator.hasNext()) {
                     AbstractEdge edge = edgeIterator.next();
-                    AbstractNode[] enabledAncestors = treeStructure.getEnabledAncestorsOrSelf(edge.getSource(viewId));
-                    if (enabledAncestors != null) {
-                        for (int j = 0; j < enabledAncestors.length; j++) {
-                            AbstractNode sourceNode = enabledAncestors[j];
-                            if (!(sourceNode == edge.getSource(viewId) && enabledAncestor == edge.getTarget(viewId))) {
-                                createMetaEdge(sourceNode, enabledAncestor, edge);
-                            }
+                    AbstractNode source = edge.getSource(viewId);
+                    int sourcePre = source.getPre();
+                    if (sourcePre < clusterStart || sourcePre > clusterEnd) {
+                        AbstractNode sourceNode = getEnabledAncestorOrSelf(source, ancestorCache);
+                        if (sourceNode != null) {
+                            createMetaEdge(sourceNode, enabledAncestor, edge);
                         }
                     }
-//                    AbstractNode sourceNode = treeStructure.getEnabledAncestorOrSelf(edge.getSource(viewId));
-//                    if (sourceNode != null && !(sourceNode == edge.getSource(viewId) && enabledAncestor == edge.getTarget(viewId))) {
-//                        //Create Meta Edge if not exist
-//                        createMetaEdge(sourceNode, enabledAncestor, edge);
-//                    }
                 }
             }
         }
     }
 
+    /**
+     * Computes meta edges of all enabled nodes in a single pass. Enabled ancestors are
+     * cached for the whole pass, so extremities of the same cluster are resolved once.
+     */
     public void computeMetaEdges() {
+        TIntObjectHashMap<AbstractNode> ancestorCache = new TIntObjectHashMap<AbstractNode>();
         for (TreeIterator itr = new TreeIterator(treeStructure, true, Tautology.instance); itr.hasNext();) {
             AbstractNode node = itr.next();
-            computeMetaEdges(node, node);
+            computeMetaEdges(node, node, false, ancestorCache);
         }
     }
 
+    /**
+     * Computes meta edges of <code>parent</code>'s children, just enabled after <code>parent</code>
+     * has been expanded, in a single pass on <code>parent</code>'s subtree. Edges between two
+     * children are created from their source only, and edges inside a child are skipped.
+     */
+    public void computeChildrenMetaEdges(AbstractNode parent) {
+        if (!dhns.getSettingsManager().isAutoMetaEdgeCreation() || parent.size == 0) {
+            return;
+        }
+        int parentPre = parent.getPre();
+        int parentEnd = parentPre + parent.size;
+
+        //Children are contiguous ranges of the subtree
+        int childrenCount = 0;
+        for (int pre = parentPre + 1; pre <= parentEnd; pre += treeStructure.getNodeAt(pre).size + 1) {
+            childrenCount++;
+        }
+        AbstractNode[] children = new AbstractNode[childrenCount];
+        int[] childrenPre = new int[childrenCount];
+        for (int i = 0, pre = parentPre + 1; i < childrenCount; i++) {
+            children[i] = treeStructure.getNodeAt(pre);
+            childrenPre[i] = pre;
+            pre += children[i].size + 1;
+        }
+
+        TIntObjectHashMap<AbstractNode> ancestorCache = new TIntObjectHashMap<AbstractNode>();
+        for (int c = 0; c < childrenCount; c++) {
+            AbstractNode child = children[c];
+            int childStart = childrenPre[c];
+            int childEnd = childStart + child.size;
+            for (int i = childStart; i <= childEnd; i++) {
+                AbstractNode desc = treeStructure.getNodeAt(i);
+                if (desc.getEdgesOutTree().getCount() > 0) {
+                    edgeIterator.setNode(desc.getEdgesOutTree());
+                    while (edgeIterator.hasNext()) {
+                        AbstractEdge edge = edgeIterator.next();
+                        AbstractNode target = edge.getTarget(viewId);
+                        int targetPre = target.getPre();
+                        if (targetPre >= childStart && targetPre <= childEnd) {
+                            continue;
+                        }
+                        AbstractNode targetNode;
+                        if (targetPre > parentPre && targetPre <= parentEnd) {
+                            int index = Arrays.binarySearch(childrenPre, targetPre);
+                            targetNode = children[index >= 0 ? index : -index - 2];
+                        } else {
+                            targetNode = getEnabledAncestorOrSelf(target, ancestorCache);
+                        }
+                        if (targetNode != null) {
+                            createMetaEdge(child, targetNode, edge);
+                        }
+                    }
+                }
+                if (desc.getEdgesInTree().getCount() > 0) {
+                    edgeIterator.setNode(desc.getEdgesInTree());
+                    while (edgeIterator.hasNext()) {
+                        AbstractEdge edge = edgeIterator.next();
+                        AbstractNode source = edge.getSource(viewId);
+                        int sourcePre = source.getPre();
+                        if (sourcePre > parentPre && sourcePre <= parentEnd) {
+                            //Inside the child or already met from the source
+                            continue;
+                        }
+                        AbstractNode sourceNode = getEnabledAncestorOrSelf(source, ancestorCache);
+                        if (sourceNode != null) {
+                            createMetaEdge(sourceNode, child, edge);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Same as {@link TreeStructure#getEnabledAncestorOrSelf(AbstractNode)} but remembers the
+     * result for all nodes on the path, so siblings and descendants are found in constant time.
+     */
+    private AbstractNode getEnabledAncestorOrSelf(AbstractNode node, TIntObjectHashMap<AbstractNode> ancestorCache) {
+        if (node.isEnabled()) {
+            return node;
+        }
+        AbstractNode root = treeStructure.getRoot();
+        AbstractNode enabled = root;
+        AbstractNode stop = node;
+        while (stop != null && stop != root) {
+            if (stop.isEnabled()) {
+                enabled = stop;
+                break;
+            }
+            AbstractNode cached = ancestorCache.get(stop.getNumber());
+            if (cached != null) {
+                enabled = cached;
+                break;
+            }
+            stop = stop.parent;
+        }
+        for (AbstractNode n = node; n != stop; n = n.parent) {
+            ancestorCache.put(n.getNumber(), enabled);
+        }
+        return enabled != root ? enabled : null;
+    }
+
     private void createMetaEdge(AbstractNode source, AbstractNode target, AbstractEdge edge) {
         AbstractNode edgeSource = edge.getSource(viewId);
         AbstractNode edgeTarget = edge.getTarget(viewId);
@@ -460,6 +579,9 @@ public class EdgeProcessor {
 
                     source.getEdgesOutTree().add(realEdge);
                     node.getEdgesInTree().add(realEdge);
+                    if (view.getEdgeIndex() != null) {
+                        view.getEdgeIndex().put(realEdge);
+                    }
 
                     source.incEnabledOutDegree();
                     node.incEnabledInDegree();
@@ -493,6 +615,9 @@ public class EdgeProcessor {
 
                     node.getEdgesOutTree().add(realEdge);
                     target.getEdgesInTree().add(realEdge);
+                    if (view.getEdgeIndex() != null) {
+                        view.getEdgeIndex().put(realEdge);
+                    }
 
                     node.incEnabledOutDegree();
                     target.incEnabledInDegree();
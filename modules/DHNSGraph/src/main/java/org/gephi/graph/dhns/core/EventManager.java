@@ -41,18 +41,20 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.graph.dhns.core;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicReference;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.GraphEvent;
+import org.gephi.graph.api.GraphEventMetrics;
 import org.gephi.graph.api.GraphListener;
 import org.gephi.graph.api.GraphView;
 import org.gephi.graph.api.Node;
 import org.gephi.graph.dhns.event.AbstractEvent;
+import org.gephi.graph.dhns.event.BatchEvent;
 import org.gephi.graph.dhns.event.EdgeEvent;
 import org.gephi.graph.dhns.event.GeneralEvent;
 import org.gephi.graph.dhns.event.GraphEventDataImpl;
@@ -61,157 +63,107 @@ import org.gephi.graph.dhns.event.NodeEvent;
 import org.gephi.graph.dhns.event.ViewEvent;
 
 /**
+ * Delivers graph events to listeners on a dedicated thread.
+ * <p>
+ * Successive <code>NodeEvent</code> and <code>EdgeEvent</code> of the same type and view are
+ * coalesced when queued: only their element is appended to the last queued batch, which is
+ * delivered as a single <code>GraphEvent</code>. A batch is delivered at the latest
+ * <code>DELAY</code> ms after its first element, or when new events of another kind follow it.
  *
  * @author Mathieu Bastian
  */
-public class EventManager implements Runnable {
+public class EventManager implements Runnable, GraphEventMetrics {
 
     //Const
     private final static long DELAY = 100;
     //Architecture
     private final List<GraphListener> listeners;
     private final AtomicReference<Thread> thread = new AtomicReference<Thread>();
-    private final LinkedBlockingQueue<AbstractEvent> eventQueue;
+    private final ArrayDeque<AbstractEvent<?>> eventQueue;
     private final Object lock = new Object();
-    private final LinkedList<Integer> rateList = new LinkedList<Integer>();
-    private double avgRate = 1.0;
+    //Metrics
+    private int pendingElements;
+    private volatile long lastDrainLatency;
+    private volatile long maxDrainLatency;
+    private volatile long deliveredEvents;
     //Flag
-    private boolean stop;
+    private volatile boolean stop;
 
     public EventManager(Dhns dhns) {
-        this.eventQueue = new LinkedBlockingQueue<AbstractEvent>();
+        this.eventQueue = new ArrayDeque<AbstractEvent<?>>();
         this.listeners = Collections.synchronizedList(new ArrayList<GraphListener>());
-        rateList.add(1);
     }
 
     @Override
     public void run() {
-        int rate = 0;
         while (!stop) {
-            if (rate == (int) avgRate) {
-                try {
-                    Thread.sleep(DELAY);
-                } catch (InterruptedException ex) {
-                    ex.printStackTrace();
+            AbstractEvent<?> event;
+            synchronized (lock) {
+                if (eventQueue.isEmpty()) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                    }
+                    continue;
                 }
-                int w = (int) (eventQueue.size() * 0.1f);
-                w = Math.max(1, w);
-                updateRate(w);
-                rate++;
-            }
-            List<Object> eventCompress = null;
-
-            AbstractEvent precEvt = null;
-            AbstractEvent evt = null;
-            while ((evt = eventQueue.peek()) != null) {
-                if (precEvt != null) {
-                    if ((evt instanceof NodeEvent || evt instanceof EdgeEvent) && precEvt.getEventType().equals(evt.getEventType()) && precEvt.getView() == evt.getView()) {     //Same type
-                        if (eventCompress == null) {
-                            eventCompress = new ArrayList<Object>();
-                            eventCompress.add(precEvt.getData());
+                event = eventQueue.peekFirst();
+                if (event instanceof CoalescedEvent && event == eventQueue.peekLast()) {
+                    //Let the batch grow until the delay expires
+                    long wait = DELAY - (System.nanoTime() - event.getQueuedTime()) / 1000000L;
+                    if (wait > 0) {
+                        try {
+                            lock.wait(wait);
+                        } catch (InterruptedException e) {
                         }
-                        eventCompress.add(evt.getData());
-                    } else {
-                        break;
+                        continue;
                     }
                 }
-                eventQueue.poll();
-                precEvt = evt;
+                eventQueue.pollFirst();
+                pendingElements -= size(event);
             }
 
-            if (precEvt != null) {
-                GraphEvent event = createEvent(precEvt, eventCompress);
-                for (GraphListener l : listeners.toArray(new GraphListener[0])) {
-                    l.graphChanged(event);
-                }
+            GraphEvent graphEvent = createEvent(event);
+            for (GraphListener l : listeners.toArray(new GraphListener[0])) {
+                l.graphChanged(graphEvent);
             }
-            rate++;
 
-            while (eventQueue.isEmpty()) {
-                rate = (int) avgRate;
-                try {
-                    synchronized (lock) {
-                        lock.wait();
-                    }
-                } catch (InterruptedException e) {
-                }
+            long latency = (System.nanoTime() - event.getQueuedTime()) / 1000000L;
+            lastDrainLatency = latency;
+            if (latency > maxDrainLatency) {
+                maxDrainLatency = latency;
             }
+            deliveredEvents++;
         }
     }
 
-    private GraphEvent createEvent(AbstractEvent event, List<Object> compress) {
+    private GraphEvent createEvent(AbstractEvent<?> event) {
+        if (event instanceof BatchEvent) {
+            return new GraphEventImpl(event.getView(), event.getEventType(), (GraphEventDataImpl) event.getData());
+        }
         final GraphEventDataImpl eventData = (event instanceof GeneralEvent) ? null : new GraphEventDataImpl();
         final GraphEventImpl graphEventImpl = new GraphEventImpl(event.getView(), event.getEventType(), eventData);
-        if (event instanceof NodeEvent || event instanceof EdgeEvent) {
-            List<Node> nodes = null;
-            List<Edge> edges = null;
-            if (compress != null) {
-                for (Object o : compress) {
-                    if (o instanceof Node) {
-                        if (nodes == null) {
-                            nodes = new ArrayList<Node>();
-                        }
-                        nodes.add((Node) o);
-                    } else {
-                        if (edges == null) {
-                            edges = new ArrayList<Edge>();
-                        }
-                        edges.add((Edge) o);
-                    }
-                }
-                switch (event.getEventType()) {
-                    case ADD_NODES_AND_EDGES:
-                        if (nodes != null) {
-                            eventData.setAddedNodes(nodes.toArray(new Node[0]));
-                        }
-                        if (edges != null) {
-                            eventData.setAddedEdges(edges.toArray(new Edge[0]));
-                        }
-                        break;
-                    case REMOVE_NODES_AND_EDGES:
-                        if (nodes != null) {
-                            eventData.setRemovedNodes(nodes.toArray(new Node[0]));
-                        }
-                        if (edges != null) {
-                            eventData.setRemovedEdges(edges.toArray(new Edge[0]));
-                        }
-                        break;
-                    case EXPAND:
-                        eventData.setExpandedNodes(nodes.toArray(new Node[0]));
-                        break;
-                    case RETRACT:
-                        eventData.setRetractedNodes(nodes.toArray(new Node[0]));
-                        break;
-                    case MOVE_NODES:
-                        eventData.setMovedNodes(nodes.toArray(new Node[0]));
-                        break;
-                }
-            } else {
-                switch (event.getEventType()) {
-                    case ADD_NODES_AND_EDGES:
-                        if (event instanceof NodeEvent) {
-                            eventData.setAddedNodes(new Node[]{(Node) event.getData()});
-                        } else {
-                            eventData.setAddedEdges(new Edge[]{(Edge) event.getData()});
-                        }
-                        break;
-                    case REMOVE_NODES_AND_EDGES:
-                        if (event instanceof NodeEvent) {
-                            eventData.setRemovedNodes(new Node[]{(Node) event.getData()});
-                        } else {
-                            eventData.setRemovedEdges(new Edge[]{(Edge) event.getData()});
-                        }
-                        break;
-                    case EXPAND:
-                        eventData.setExpandedNodes(new Node[]{(Node) event.getData()});
-                        break;
-                    case RETRACT:
-                        eventData.setRetractedNodes(new Node[]{(Node) event.getData()});
-                        break;
-                    case MOVE_NODES:
-                        eventData.setMovedNodes(new Node[]{(Node) event.getData()});
-                        break;
-                }
+        if (event instanceof CoalescedEvent) {
+            CoalescedEvent batch = (CoalescedEvent) event;
+            Node[] nodes = batch.getNodes();
+            Edge[] edges = batch.getEdges();
+            switch (event.getEventType()) {
+                case ADD_NODES_AND_EDGES:
+                    eventData.setAddedNodes(nodes);
+                    eventData.setAddedEdges(edges);
+                    break;
+                case REMOVE_NODES_AND_EDGES:
+                    eventData.setRemovedNodes(nodes);
+                    eventData.setRemovedEdges(edges);
+                    break;
+                case EXPAND:
+                    eventData.setExpandedNodes(nodes);
+                    break;
+                case RETRACT:
+                    eventData.setRetractedNodes(nodes);
+                    break;
+                case MOVE_NODES:
+                    eventData.setMovedNodes(nodes);
+                    break;
             }
         } else if (event instanceof ViewEvent) {
             eventData.setView((GraphView) event.getData());
@@ -219,28 +171,37 @@ public class EventManager implements Runnable {
         return graphEventImpl;
     }
 
-    private double updateRate(int n) {
-        int windowLength = 10;
-        if (rateList.size() == windowLength) {
-            Integer oldest = rateList.poll();
-            avgRate = ((avgRate * windowLength) - oldest) / (windowLength - 1);
-        }
-        avgRate = ((avgRate * rateList.size()) + n) / (rateList.size() + 1);
-        rateList.add(n);
-        return avgRate;
-    }
-
     public void stop(boolean stop) {
         this.stop = stop;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
     }
 
-    public void fireEvent(AbstractEvent event) {
-        eventQueue.add(event);
+    public void fireEvent(AbstractEvent<?> event) {
         synchronized (lock) {
-            lock.notifyAll();
+            AbstractEvent<?> last = eventQueue.peekLast();
+            if (event instanceof NodeEvent || event instanceof EdgeEvent) {
+                if (last instanceof CoalescedEvent && last.getEventType().equals(event.getEventType()) && last.getView() == event.getView()) {
+                    ((CoalescedEvent) last).add(event.getData());
+                    pendingElements++;
+                    return;
+                }
+                event = new CoalescedEvent(event);
+            }
+            event.setQueuedTime(System.nanoTime());
+            eventQueue.addLast(event);
+            pendingElements += size(event);
+            if (last == null) {
+                lock.notifyAll();
+            }
         }
     }
 
+    private int size(AbstractEvent<?> event) {
+        return event instanceof CoalescedEvent ? ((CoalescedEvent) event).size() : 1;
+    }
+
     public void start() {
         Thread t = new Thread(this);
         t.setDaemon(true);
@@ -263,4 +224,74 @@ public class EventManager implements Runnable {
     public void removeGraphListener(GraphListener listener) {
         listeners.remove(listener);
     }
+
+    public int getQueueDepth() {
+        synchronized (lock) {
+            return eventQueue.size();
+        }
+    }
+
+    public int getPendingElements() {
+        synchronized (lock) {
+            return pendingElements;
+        }
+    }
+
+    public long getLastDrainLatency() {
+        return lastDrainLatency;
+    }
+
+    public long getMaxDrainLatency() {
+        return maxDrainLatency;
+    }
+
+    public long getDeliveredEvents() {
+        return deliveredEvents;
+    }
+
+    /**
+     * Nodes and edges of successive events of the same type, stored in growable arrays.
+     */
+    private static final class CoalescedEvent extends AbstractEvent<Object> {
+
+        private Node[] nodes;
+        private int nodesCount;
+        private Edge[] edges;
+        private int edgesCount;
+
+        public CoalescedEvent(AbstractEvent<?> event) {
+            super(event.getEventType(), event.getView(), null);
+            add(event.getData());
+        }
+
+        public void add(Object element) {
+            if (element instanceof Node) {
+                if (nodes == null) {
+                    nodes = new Node[4];
+                } else if (nodesCount == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, nodesCount + (nodesCount >> 1));
+                }
+                nodes[nodesCount++] = (Node) element;
+            } else {
+                if (edges == null) {
+                    edges = new Edge[4];
+                } else if (edgesCount == edges.length) {
+                    edges = Arrays.copyOf(edges, edgesCount + (edgesCount >> 1));
+                }
+                edges[edgesCount++] = (Edge) element;
+            }
+        }
+
+        public int size() {
+            return nodesCount + edgesCount;
+        }
+
+        public Node[] getNodes() {
+            return nodes != null ? Arrays.copyOf(nodes, nodesCount) : null;
+        }
+
+        public Edge[] getEdges() {
+            return edges != null ? Arrays.copyOf(edges, edgesCount) : null;
+        }
+    }
 }
@@ -52,6 +52,7 @@ import org.gephi.graph.api.NodeData;
 import org.gephi.graph.api.TextData;
 import org.gephi.graph.spi.TextDataFactory;
 import org.gephi.graph.dhns.edge.AbstractEdge;
+import org.gephi.graph.dhns.edge.EdgeDataImpl;
 import org.gephi.graph.dhns.edge.MetaEdgeImpl;
 import org.gephi.graph.dhns.edge.ProperEdgeImpl;
 import org.gephi.graph.dhns.edge.SelfLoopImpl;
@@ -69,11 +70,13 @@ import org.openide.util.Lookup;
 public class GraphFactoryImpl implements GraphFactory {
 
     private IDGen idGen;
+    private GraphVersion graphVersion;
     private AttributeRowFactory attributesFactory;
     private TextDataFactory textDataFactory;
 
-    public GraphFactoryImpl(IDGen idGen, AttributeRowFactory attributesFactory) {
+    public GraphFactoryImpl(IDGen idGen, GraphVersion graphVersion, AttributeRowFactory attributesFactory) {
         this.idGen = idGen;
+        this.graphVersion = graphVersion;
         this.attributesFactory = attributesFactory;
         this.textDataFactory = Lookup.getDefault().lookup(TextDataFactory.class);
     }
@@ -89,6 +92,9 @@ public class GraphFactoryImpl implements GraphFactory {
         if (attributesFactory == null) {
             return null;
         }
+        if (edgeData instanceof EdgeDataImpl) {
+            ((EdgeDataImpl) edgeData).setGraphVersion(graphVersion);
+        }
         return attributesFactory.newEdgeRow(edgeData);
     }
     
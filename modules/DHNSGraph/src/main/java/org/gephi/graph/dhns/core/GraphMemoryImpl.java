@@ -0,0 +1,265 @@
+/*
+Copyright 2008-2010 Gephi
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.graph.dhns.core;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import org.gephi.graph.api.Attributes;
+import org.gephi.graph.api.GraphMemory;
+import org.gephi.graph.dhns.edge.AbstractEdge;
+import org.gephi.graph.dhns.edge.EdgeDataImpl;
+import org.gephi.graph.dhns.edge.MetaEdgeImpl;
+import org.gephi.graph.dhns.node.AbstractNode;
+import org.gephi.graph.dhns.node.NodeDataImpl;
+import org.gephi.graph.dhns.node.iterators.TreeListIterator;
+import org.gephi.graph.dhns.utils.avl.EdgeOppositeArray;
+import org.gephi.graph.dhns.utils.avl.EdgeOppositeTree;
+import org.gephi.utils.collection.avl.ParamAVLIterator;
+
+/**
+ * Implementation of {@link GraphMemory}. Walks nodes and edges of the main view
+ * and their attribute rows once, and multiplies the number of objects of each
+ * kind by a fixed shallow size.
+ * <p>
+ * Sizes are not measured at runtime. They are estimates for a 64-bit HotSpot VM
+ * with compressed oops, computed from the fields of each class with a 12 bytes
+ * header, 4 bytes references and an 8 bytes alignment. With compressed oops
+ * disabled or on other VMs objects are larger.
+ * <p>
+ * Must be built while holding the read lock.
+ */
+public class GraphMemoryImpl implements GraphMemory {
+
+    //Shallow sizes, 64-bit with compressed oops
+    //Nodes
+    static final int NODE_BYTES = 80;               //AbstractNode
+    static final int NODE_DATA_BYTES = 80;          //NodeDataImpl
+    static final int VIEW_NODE_TREE_BYTES = 72;     //ViewNodeTree with its main view entry
+    static final int VIEW_NODE_ENTRY_BYTES = 32;    //Entry of another view in a ViewNodeTree
+    //Edges
+    static final int EDGE_BYTES = 32;               //AbstractEdge, MixedEdgeImpl
+    static final int META_EDGE_BYTES = 40;          //MetaEdgeImpl
+    static final int EDGE_DATA_BYTES = 56;          //EdgeDataImpl
+    //Trees
+    static final int DURABLE_NODE_BYTES = 48;       //DurableAVLNode
+    static final int EDGE_TREE_BYTES = 48;          //ParamAVLTree with its accessor
+    static final int EDGE_ARRAY_BYTES = 56;         //EdgeOppositeArray with its accessor
+    static final int EDGE_TREE_ENTRY_BYTES = 32;    //ParamAVLNode
+    //Dictionnary, an entry in a ConcurrentHashMap and its boxed key
+    static final int DICTIONNARY_ENTRY_BYTES = 52;
+    static final int EDGE_COUNTER_BYTES = 32;       //EdgeCounter and its AtomicInteger
+    //Attributes
+    static final int ROW_BYTES = 64;                //AttributeRowImpl and its reference in the table
+    static final int VALUE_BYTES = 8;               //Cell in a column store
+    static final int OBJECT_BYTES = 32;             //Value of unknown type
+    static final int STRING_BYTES = 32;             //String without its char array
+    static final int ARRAY_HEADER_BYTES = 16;
+    //Result
+    private final int nodeVersion;
+    private final int edgeVersion;
+    private long nodesMemory;
+    private long edgesMemory;
+    private long treesMemory;
+    private long viewsMemory;
+    private long attributeValuesMemory;
+    private long stringsMemory;
+    private int stringsCount;
+    //Strings already counted
+    private final Set<Object> strings = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+
+    public GraphMemoryImpl(Dhns dhns) {
+        GraphVersion graphVersion = dhns.getGraphVersion();
+        this.nodeVersion = graphVersion.getNodeVersion();
+        this.edgeVersion = graphVersion.getEdgeVersion();
+        GraphStructure graphStructure = dhns.getGraphStructure();
+        GraphViewImpl mainView = graphStructure.getMainView();
+
+        ParamAVLIterator<AbstractEdge> edgeIterator = new ParamAVLIterator<AbstractEdge>();
+        ParamAVLIterator<MetaEdgeImpl> metaEdgeIterator = new ParamAVLIterator<MetaEdgeImpl>();
+        for (TreeListIterator itr = new TreeListIterator(mainView.getStructure().getTree(), 1); itr.hasNext();) {
+            AbstractNode node = itr.next();
+            NodeDataImpl nodeData = node.getNodeData();
+            nodesMemory += NODE_BYTES + NODE_DATA_BYTES + VIEW_NODE_TREE_BYTES + DICTIONNARY_ENTRY_BYTES;
+            if (nodeData.getAttributes() != null) {
+                countAttributes(nodeData.getAttributes());
+                if (nodeData.getId() != null) {
+                    nodesMemory += DICTIONNARY_ENTRY_BYTES;
+                }
+            } else {
+                nodesMemory += sizeOfString(nodeData.getLabel());
+            }
+
+            //Trees, the meta edge trees are always AVL trees
+            treesMemory += DURABLE_NODE_BYTES + 2 * EDGE_TREE_BYTES;
+            treesMemory += sizeOfEdgeTree(node.getEdgesOutTree()) + sizeOfEdgeTree(node.getEdgesInTree());
+            treesMemory += (long) (node.getMetaEdgesOutTree().getCount() + node.getMetaEdgesInTree().getCount()) * EDGE_TREE_ENTRY_BYTES;
+
+            //Edges are counted from their source
+            if (!node.getEdgesOutTree().isEmpty()) {
+                for (edgeIterator.setNode(node.getEdgesOutTree()); edgeIterator.hasNext();) {
+                    AbstractEdge edge = edgeIterator.next();
+                    edgesMemory += EDGE_BYTES + DICTIONNARY_ENTRY_BYTES + EDGE_COUNTER_BYTES;
+                    countEdgeData(edge.getEdgeData());
+                }
+            }
+            if (!node.getMetaEdgesOutTree().isEmpty()) {
+                for (metaEdgeIterator.setNode(node.getMetaEdgesOutTree()); metaEdgeIterator.hasNext();) {
+                    MetaEdgeImpl metaEdge = metaEdgeIterator.next();
+                    edgesMemory += META_EDGE_BYTES;
+                    countEdgeData(metaEdge.getEdgeData());
+                }
+            }
+        }
+
+        //Edge index
+        EdgeIndex edgeIndex = mainView.getEdgeIndex();
+        if (edgeIndex != null) {
+            treesMemory += sizeOfArray(edgeIndex.capacity(), 8) + sizeOfArray(edgeIndex.capacity(), 4);
+        }
+
+        viewsMemory = graphStructure.getViewsMemory();
+    }
+
+    private void countEdgeData(EdgeDataImpl edgeData) {
+        if (edgeData == null) {
+            return;
+        }
+        edgesMemory += EDGE_DATA_BYTES;
+        if (edgeData.getAttributes() != null) {
+            countAttributes(edgeData.getAttributes());
+            if (edgeData.getId() != null) {
+                edgesMemory += DICTIONNARY_ENTRY_BYTES;
+            }
+        } else {
+            edgesMemory += sizeOfString(edgeData.getLabel());
+        }
+    }
+
+    private void countAttributes(Attributes attributes) {
+        int count = attributes.countValues();
+        attributeValuesMemory += ROW_BYTES + (long) count * VALUE_BYTES;
+        for (int i = 0; i < count; i++) {
+            Object value = attributes.getValue(i);
+            if (value instanceof String) {
+                if (strings.add(value)) {
+                    stringsMemory += sizeOfString((String) value);
+                    stringsCount++;
+                }
+            } else {
+                attributeValuesMemory += sizeOfValue(value);
+            }
+        }
+    }
+
+    private long sizeOfEdgeTree(EdgeOppositeTree tree) {
+        if (tree instanceof EdgeOppositeArray) {
+            int capacity = ((EdgeOppositeArray) tree).getCapacity();
+            return EDGE_ARRAY_BYTES + sizeOfArray(capacity, 4) + sizeOfArray(capacity, 4);
+        }
+        return EDGE_TREE_BYTES + (long) tree.getCount() * EDGE_TREE_ENTRY_BYTES;
+    }
+
+    private static long sizeOfValue(Object value) {
+        if (value == null || value instanceof Boolean || value instanceof Integer || value instanceof Float
+                || value instanceof Short || value instanceof Byte || value instanceof Character
+                || value instanceof Long || value instanceof Double) {
+            //Primitives are stored unboxed in their column
+            return 0;
+        }
+        return OBJECT_BYTES;
+    }
+
+    private static long sizeOfString(String string) {
+        if (string == null) {
+            return 0;
+        }
+        return STRING_BYTES + sizeOfArray(string.length(), 2);
+    }
+
+    private static long sizeOfArray(int length, int elementSize) {
+        return align(ARRAY_HEADER_BYTES + (long) length * elementSize);
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    public long getNodesMemory() {
+        return nodesMemory;
+    }
+
+    public long getEdgesMemory() {
+        return edgesMemory;
+    }
+
+    public long getTreesMemory() {
+        return treesMemory;
+    }
+
+    public long getViewsMemory() {
+        return viewsMemory;
+    }
+
+    public long getAttributeValuesMemory() {
+        return attributeValuesMemory;
+    }
+
+    public long getInternedStringsMemory() {
+        return stringsMemory;
+    }
+
+    public int getInternedStringsCount() {
+        return stringsCount;
+    }
+
+    public long getTotalMemory() {
+        return nodesMemory + edgesMemory + treesMemory + viewsMemory + attributeValuesMemory + stringsMemory;
+    }
+
+    public int getNodeVersion() {
+        return nodeVersion;
+    }
+
+    public int getEdgeVersion() {
+        return edgeVersion;
+    }
+}
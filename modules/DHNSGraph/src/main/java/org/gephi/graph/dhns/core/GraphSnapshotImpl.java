@@ -0,0 +1,249 @@
+/*
+Copyright 2008-2010 Gephi
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.graph.dhns.core;
+
+import java.util.Arrays;
+import org.gephi.graph.api.GraphSnapshot;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.dhns.edge.AbstractEdge;
+import org.gephi.graph.dhns.edge.MetaEdgeImpl;
+import org.gephi.graph.dhns.node.AbstractNode;
+import org.gephi.graph.dhns.node.iterators.TreeIterator;
+import org.gephi.graph.dhns.predicate.Predicate;
+import org.gephi.graph.dhns.predicate.Tautology;
+import org.gephi.utils.collection.avl.ParamAVLIterator;
+
+/**
+ * Implementation of {@link GraphSnapshot}. The snapshot is built in two passes
+ * over the enabled nodes of the view: the first counts degrees to compute the
+ * offsets and the second fills targets and weights.
+ * <p>
+ * Must be built while holding the read lock.
+ */
+public class GraphSnapshotImpl implements GraphSnapshot {
+
+    private final GraphViewImpl view;
+    private final int nodeVersion;
+    private final int edgeVersion;
+    private final int weightVersion;
+    //Nodes
+    private final AbstractNode[] nodes;
+    private final int[] indices;
+    //Out
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final float[] outWeights;
+    //In
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final float[] inWeights;
+
+    public GraphSnapshotImpl(GraphViewImpl view, GraphVersion graphVersion) {
+        this.view = view;
+        this.nodeVersion = graphVersion.getNodeVersion();
+        this.edgeVersion = graphVersion.getEdgeVersion();
+        this.weightVersion = graphVersion.getWeightVersion();
+        int viewId = view.getViewId();
+
+        //Nodes
+        AbstractNode[] enabledNodes = new AbstractNode[view.getNodesEnabled()];
+        int nodeCount = 0;
+        int maxId = 0;
+        @SuppressWarnings("unchecked")
+        Predicate<AbstractNode> enabled = Tautology.instance;
+        for (TreeIterator itr = new TreeIterator(view.getStructure(), true, enabled); itr.hasNext();) {
+            AbstractNode node = itr.next();
+            if (nodeCount == enabledNodes.length) {
+                enabledNodes = Arrays.copyOf(enabledNodes, nodeCount * 2 + 1);
+            }
+            enabledNodes[nodeCount++] = node;
+            maxId = Math.max(maxId, node.getId());
+        }
+        nodes = nodeCount == enabledNodes.length ? enabledNodes : Arrays.copyOf(enabledNodes, nodeCount);
+        indices = new int[maxId + 1];
+        Arrays.fill(indices, -1);
+        for (int i = 0; i < nodeCount; i++) {
+            indices[nodes[i].getId()] = i;
+        }
+
+        //Count degrees
+        ParamAVLIterator<AbstractEdge> edgeIterator = new ParamAVLIterator<AbstractEdge>();
+        ParamAVLIterator<MetaEdgeImpl> metaEdgeIterator = new ParamAVLIterator<MetaEdgeImpl>();
+        outOffsets = new int[nodeCount + 1];
+        inOffsets = new int[nodeCount + 1];
+        for (int i = 0; i < nodeCount; i++) {
+            AbstractNode node = nodes[i];
+            if (!node.getEdgesOutTree().isEmpty()) {
+                for (edgeIterator.setNode(node.getEdgesOutTree()); edgeIterator.hasNext();) {
+                    int target = getIndex(edgeIterator.next().getTarget(viewId));
+                    if (target != -1) {
+                        outOffsets[i + 1]++;
+                        inOffsets[target + 1]++;
+                    }
+                }
+            }
+            if (!node.getMetaEdgesOutTree().isEmpty()) {
+                for (metaEdgeIterator.setNode(node.getMetaEdgesOutTree()); metaEdgeIterator.hasNext();) {
+                    int target = getIndex(metaEdgeIterator.next().getTarget(viewId));
+                    if (target != -1) {
+                        outOffsets[i + 1]++;
+                        inOffsets[target + 1]++;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            outOffsets[i + 1] += outOffsets[i];
+            inOffsets[i + 1] += inOffsets[i];
+        }
+
+        //Fill
+        int edgeCount = outOffsets[nodeCount];
+        outTargets = new int[edgeCount];
+        outWeights = new float[edgeCount];
+        inSources = new int[edgeCount];
+        inWeights = new float[edgeCount];
+        int[] inCursors = Arrays.copyOf(inOffsets, nodeCount);
+        int outCursor = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            AbstractNode node = nodes[i];
+            if (!node.getEdgesOutTree().isEmpty()) {
+                for (edgeIterator.setNode(node.getEdgesOutTree()); edgeIterator.hasNext();) {
+                    AbstractEdge edge = edgeIterator.next();
+                    int target = getIndex(edge.getTarget(viewId));
+                    if (target != -1) {
+                        float weight = edge.getWeight();
+                        outTargets[outCursor] = target;
+                        outWeights[outCursor++] = weight;
+                        inSources[inCursors[target]] = i;
+                        inWeights[inCursors[target]++] = weight;
+                    }
+                }
+            }
+            if (!node.getMetaEdgesOutTree().isEmpty()) {
+                for (metaEdgeIterator.setNode(node.getMetaEdgesOutTree()); metaEdgeIterator.hasNext();) {
+                    MetaEdgeImpl edge = metaEdgeIterator.next();
+                    int target = getIndex(edge.getTarget(viewId));
+                    if (target != -1) {
+                        float weight = edge.getWeight();
+                        outTargets[outCursor] = target;
+                        outWeights[outCursor++] = weight;
+                        inSources[inCursors[target]] = i;
+                        inWeights[inCursors[target]++] = weight;
+                    }
+                }
+            }
+        }
+    }
+
+    public boolean isUpToDate(GraphVersion graphVersion) {
+        return nodeVersion == graphVersion.getNodeVersion() && edgeVersion == graphVersion.getEdgeVersion()
+                && weightVersion == graphVersion.getWeightVersion();
+    }
+
+    public GraphView getView() {
+        return view;
+    }
+
+    public int getNodeCount() {
+        return nodes.length;
+    }
+
+    public int getEdgeCount() {
+        return outTargets.length;
+    }
+
+    public Node getNode(int index) {
+        return nodes[index];
+    }
+
+    public int getIndex(Node node) {
+        if (node == null) {
+            return -1;
+        }
+        int id = node.getId();
+        if (id < 0 || id >= indices.length) {
+            return -1;
+        }
+        return indices[id];
+    }
+
+    public int getOutDegree(int index) {
+        return outOffsets[index + 1] - outOffsets[index];
+    }
+
+    public int getInDegree(int index) {
+        return inOffsets[index + 1] - inOffsets[index];
+    }
+
+    public int[] getOutOffsets() {
+        return outOffsets;
+    }
+
+    public int[] getOutTargets() {
+        return outTargets;
+    }
+
+    public float[] getOutWeights() {
+        return outWeights;
+    }
+
+    public int[] getInOffsets() {
+        return inOffsets;
+    }
+
+    public int[] getInSources() {
+        return inSources;
+    }
+
+    public float[] getInWeights() {
+        return inWeights;
+    }
+
+    public int getNodeVersion() {
+        return nodeVersion;
+    }
+
+    public int getEdgeVersion() {
+        return edgeVersion;
+    }
+}
@@ -41,16 +41,27 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.graph.dhns.core;
 
-import gnu.trove.TIntObjectHashMap;
-import gnu.trove.TObjectIntHashMap;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.gephi.utils.collection.avl.ParamAVLIterator;
 import org.gephi.graph.api.GraphEvent.EventType;
 import org.gephi.graph.dhns.edge.AbstractEdge;
+import org.gephi.graph.dhns.edge.MetaEdgeImpl;
+import org.gephi.graph.dhns.event.GeneralEvent;
 import org.gephi.graph.dhns.event.ViewEvent;
+import org.gephi.graph.dhns.graph.AbstractGraphImpl;
 import org.gephi.graph.dhns.node.AbstractNode;
 import org.gephi.graph.dhns.node.NodeDataImpl;
 import org.gephi.graph.dhns.node.iterators.TreeListIterator;
@@ -68,23 +79,32 @@ public class GraphStructure {
     private final GraphDictionnary dictionnary;
     private GraphViewImpl visibleView;
     //Destroy
-    private final Object lock = new Object();
-    private final ConcurrentLinkedQueue<GraphViewImpl> destroyQueue;
+    private static final ReferenceQueue<AbstractGraphImpl> REFERENCE_QUEUE = new ReferenceQueue<AbstractGraphImpl>();
+    private static final ViewReaperThread VIEW_REAPER = new ViewReaperThread();
+    //Estimates derived from the shallow sizes of GraphMemoryImpl
+    private static final int VIEW_NODE_BYTES = GraphMemoryImpl.NODE_BYTES + GraphMemoryImpl.DURABLE_NODE_BYTES
+            + 2 * GraphMemoryImpl.EDGE_TREE_BYTES + GraphMemoryImpl.VIEW_NODE_ENTRY_BYTES;
+    private static final int VIEW_EDGE_BYTES = 2 * GraphMemoryImpl.EDGE_TREE_ENTRY_BYTES;
+    private final Set<GraphReference> graphReferences;
+    private final AtomicLong destroyedViews = new AtomicLong();
+
+    static {
+        VIEW_REAPER.start();
+    }
 
     public GraphStructure(Dhns dhns) {
         this.dhns = dhns;
         views = new ConcurrentLinkedQueue<GraphViewImpl>();
-        dictionnary = new GraphDictionnary();
+        dictionnary = new GraphDictionnary(dhns.getIdGen());
 
         //Main view
         mainView = new GraphViewImpl(dhns, 0);
+        mainView.setEdgeIndexEnabled(dhns.getSettingsManager().isEdgeIndex());
         views.add(mainView);
         visibleView = mainView;
 
         //Destructor
-        destroyQueue = new ConcurrentLinkedQueue<GraphViewImpl>();
-        ViewDestructorThread viewDestructorThread = new ViewDestructorThread(this);
-        viewDestructorThread.start();
+        graphReferences = Collections.newSetFromMap(new ConcurrentHashMap<GraphReference, Boolean>());
     }
 
     public GraphViewImpl[] getViews() {
@@ -105,41 +125,84 @@ public class GraphStructure {
     }
 
     public GraphViewImpl copyView(GraphViewImpl view) {
+        return copyView(view, null, null);
+    }
+
+    /**
+     * Copies <code>view</code> without the nodes and edges which ids are set in
+     * <code>removedNodes</code> and <code>removedEdges</code>. Descendants of removed nodes
+     * and edges connected to removed nodes are not copied either. Only members of the new view
+     * are allocated, which is cheaper than copying the whole view and deleting elements afterwards.
+     * @param view the view to copy
+     * @param removedNodes ids of the nodes to leave out, or <code>null</code>
+     * @param removedEdges ids of the edges to leave out, or <code>null</code>
+     * @return the new view
+     */
+    public GraphViewImpl copyView(GraphViewImpl view, BitSet removedNodes, BitSet removedEdges) {
         GraphViewImpl viewCopy = new GraphViewImpl(dhns, viewId.getAndIncrement());
         TreeStructure newStructure = viewCopy.getStructure();
+        int newViewId = viewCopy.getViewId();
         dhns.writeLock();
 
+        int nodesEnabled = 0;
         for (TreeListIterator itr = new TreeListIterator(view.getStructure().getTree(), 1); itr.hasNext();) {
             AbstractNode node = itr.next();
-            AbstractNode nodeCopy = new AbstractNode(node.getNodeData(), viewCopy.getViewId());
+            AbstractNode parentCopy = node.parent.getPre() == 0 ? newStructure.getRoot() : node.parent.getInView(newViewId);
+            if (parentCopy == null || (removedNodes != null && removedNodes.get(node.getId()))) {
+                continue;
+            }
+            AbstractNode nodeCopy = new AbstractNode(node.getNodeData(), newViewId);
             nodeCopy.setEnabled(node.isEnabled());
-            nodeCopy.setEnabledInDegree(node.getEnabledInDegree());
-            nodeCopy.setEnabledOutDegree(node.getEnabledOutDegree());
-            nodeCopy.setEnabledMutualDegree(node.getEnabledMutualDegree());
-            AbstractNode parentCopy = node.parent != null ? newStructure.getNodeAt(node.parent.getPre()) : null;
             newStructure.insertAsChild(nodeCopy, parentCopy);
+            if (nodeCopy.isEnabled()) {
+                nodesEnabled++;
+            }
         }
 
         //Edges
+        int edgesCountTotal = 0;
+        int edgesCountEnabled = 0;
+        int mutualEdgesTotal = 0;
+        int mutualEdgesEnabled = 0;
         ParamAVLIterator<AbstractEdge> edgeIterator = new ParamAVLIterator<AbstractEdge>();
         for (TreeListIterator itr = new TreeListIterator(view.getStructure().getTree(), 1); itr.hasNext();) {
             AbstractNode node = itr.next();
-            if (!node.getEdgesOutTree().isEmpty()) {
-                for (edgeIterator.setNode(node.getEdgesOutTree()); edgeIterator.hasNext();) {
-                    AbstractEdge edge = edgeIterator.next();
-                    AbstractNode sourceCopy = newStructure.getNodeAt(node.getPre());
-                    AbstractNode targetCopy = newStructure.getNodeAt(((AbstractNode) edge.getTarget().getNodeData().getNode(view.getViewId())).getPre());
-                    sourceCopy.getEdgesOutTree().add(edge);
-                    targetCopy.getEdgesInTree().add(edge);
-                    addToDictionnary(edge);
+            AbstractNode sourceCopy = node.getInView(newViewId);
+            if (sourceCopy == null || node.getEdgesOutTree().isEmpty()) {
+                continue;
+            }
+            for (edgeIterator.setNode(node.getEdgesOutTree()); edgeIterator.hasNext();) {
+                AbstractEdge edge = edgeIterator.next();
+                AbstractNode targetCopy = edge.getTarget(newViewId);
+                if (targetCopy == null || (removedEdges != null && removedEdges.get(edge.getId()))) {
+                    continue;
                 }
+                boolean enabled = sourceCopy.isEnabled() && targetCopy.isEnabled();
+                sourceCopy.getEdgesOutTree().add(edge);
+                targetCopy.getEdgesInTree().add(edge);
+                if (!edge.isSelfLoop() && sourceCopy.getEdgesInTree().hasNeighbour(targetCopy)) {
+                    mutualEdgesTotal++;
+                    if (enabled) {
+                        sourceCopy.incEnabledMutualDegree();
+                        targetCopy.incEnabledMutualDegree();
+                        mutualEdgesEnabled++;
+                    }
+                }
+                edgesCountTotal++;
+                if (enabled) {
+                    sourceCopy.incEnabledOutDegree();
+                    targetCopy.incEnabledInDegree();
+                    edgesCountEnabled++;
+                }
+                addToDictionnary(edge);
             }
         }
-        viewCopy.setNodesEnabled(view.getNodesEnabled());
-        viewCopy.setEdgesCountTotal(view.getEdgesCountTotal());
-        viewCopy.setEdgesCountEnabled(view.getEdgesCountEnabled());
-        viewCopy.setMutualEdgesTotal(view.getMutualEdgesTotal());
-        viewCopy.setMutualEdgesEnabled(view.getMutualEdgesEnabled());
+        viewCopy.setNodesEnabled(nodesEnabled);
+        viewCopy.setEdgesCountTotal(edgesCountTotal);
+        viewCopy.setEdgesCountEnabled(edgesCountEnabled);
+        viewCopy.setMutualEdgesTotal(mutualEdgesTotal);
+        viewCopy.setMutualEdgesEnabled(mutualEdgesEnabled);
+        viewCopy.setEdgeIndexEnabled(dhns.getSettingsManager().isEdgeIndex());
 
         //Metaedges
         viewCopy.getStructureModifier().getEdgeProcessor().computeMetaEdges();
@@ -150,13 +213,82 @@ public class GraphStructure {
         return viewCopy;
     }
 
-    public void destroyView(final GraphViewImpl view) {
-        if (views.contains(view)) {
-            destroyQueue.add(view);
-            synchronized (this.lock) {
-                lock.notify();
+    public void setEdgeIndex(boolean enabled) {
+        dhns.writeLock();
+        for (GraphViewImpl view : views) {
+            view.setEdgeIndexEnabled(enabled);
+        }
+        dhns.writeUnlock();
+    }
+
+    public void setArrayEdgeStorage(boolean array) {
+        dhns.writeLock();
+        for (GraphViewImpl view : views) {
+            view.getStructure().setArrayEdgeStorage(array);
+        }
+        dhns.writeUnlock();
+    }
+
+    /**
+     * Renumbers nodes and edges of all views with dense ids starting at 1, and restarts the id
+     * generator after them. Ids are given in the same order as before, adjacency trees and arrays,
+     * which are sorted by neighbour's id, therefore stay valid. Meta-edges are numbered after
+     * edges.
+     */
+    public void compactIds() {
+        dhns.writeLock();
+        try {
+            renumber();
+        } finally {
+            dhns.writeUnlock();
+        }
+        dhns.getEventManager().fireEvent(new GeneralEvent(EventType.IDS_UPDATE, mainView));
+    }
+
+    private void renumber() {
+        int[] counts = dictionnary.renumber();
+
+        //Meta-edges
+        List<MetaEdgeImpl> metaEdges = new ArrayList<MetaEdgeImpl>();
+        ParamAVLIterator<MetaEdgeImpl> metaEdgeIterator = new ParamAVLIterator<MetaEdgeImpl>();
+        for (GraphViewImpl view : views) {
+            for (TreeListIterator itr = new TreeListIterator(view.getStructure().getTree(), 1); itr.hasNext();) {
+                AbstractNode node = itr.next();
+                if (!node.getMetaEdgesOutTree().isEmpty()) {
+                    for (metaEdgeIterator.setNode(node.getMetaEdgesOutTree()); metaEdgeIterator.hasNext();) {
+                        metaEdges.add(metaEdgeIterator.next());
+                    }
+                }
             }
         }
+        Collections.sort(metaEdges, new Comparator<MetaEdgeImpl>() {
+
+            public int compare(MetaEdgeImpl o1, MetaEdgeImpl o2) {
+                return o1.getId() < o2.getId() ? -1 : (o1.getId() == o2.getId() ? 0 : 1);
+            }
+        });
+        int edgeId = counts[1] + 1;
+        for (MetaEdgeImpl metaEdge : metaEdges) {
+            metaEdge.setId(edgeId++);
+        }
+
+        //Arrays cache neighbours' ids
+        for (GraphViewImpl view : views) {
+            view.getStructure().refreshEdgeArrays();
+            if (view.getEdgeIndex() != null) {
+                view.setEdgeIndexEnabled(true);
+            }
+        }
+
+        dhns.getIdGen().reset(counts[0] + 1, edgeId);
+        dhns.getGraphVersion().incNodeAndEdgeVersion();
+    }
+
+    public void destroyView(final GraphViewImpl view) {
+        if (!view.isMainView() && views.contains(view) && view.requestDestroy() && !view.hasGraphReference()) {
+            //Destroyed by the reaper thread, the caller may hold the read lock
+            new GraphReference(null, view, this).enqueue();
+        }
     }
 
     public void addToDictionnary(AbstractNode node) {
@@ -217,137 +349,212 @@ public class GraphStructure {
         dhns.getEventManager().fireEvent(new ViewEvent(EventType.VISIBLE_VIEW, this.visibleView));
     }
 
-    private static class ViewDestructorThread extends Thread {
+    public void addGraphReference(AbstractGraphImpl graph, GraphViewImpl view) {
+        graphReferences.add(new GraphReference(graph, view, this));
+    }
+
+    private void releaseGraphReference(GraphReference reference) {
+        if (graphReferences.remove(reference)) {
+            GraphViewImpl view = reference.view;
+            if (view.releaseGraphReference() == 0 && view.isDestroyRequested()) {
+                destroy(view);
+            }
+        }
+    }
+
+    private void destroy(GraphViewImpl view) {
+        if (!view.markDestroyed()) {
+            return;
+        }
+        dhns.writeLock();
+        ParamAVLIterator<AbstractEdge> edgeIterator = new ParamAVLIterator<AbstractEdge>();
+        for (TreeListIterator itr = new TreeListIterator(view.getStructure().getTree(), 1); itr.hasNext();) {
+            AbstractNode nodeInView = itr.next();
+            nodeInView.getNodeData().getNodes().remove(view.getViewId());
+            if (!nodeInView.getEdgesOutTree().isEmpty()) {
+                for (edgeIterator.setNode(nodeInView.getEdgesOutTree()); edgeIterator.hasNext();) {
+                    AbstractEdge edge = edgeIterator.next();
+                    removeFromDictionnary(edge);
+                }
+            }
+        }
+        views.remove(view);
+        destroyedViews.incrementAndGet();
+        dhns.writeUnlock();
+        dhns.getEventManager().fireEvent(new ViewEvent(EventType.DESTROY_VIEW, view));
+        if (visibleView == view) {
+            visibleView = mainView;
+            dhns.getEventManager().fireEvent(new ViewEvent(EventType.VISIBLE_VIEW, mainView));
+        }
+    }
+
+    /**
+     * Returns the number of views currently alive, including the main view and views waiting
+     * to be destroyed.
+     */
+    public int getLiveViewCount() {
+        return views.size();
+    }
+
+    /**
+     * Returns the number of views which destruction has been requested but which are still
+     * referenced by graphs.
+     */
+    public int getPendingViewCount() {
+        int count = 0;
+        for (GraphViewImpl view : views) {
+            if (view.isDestroyRequested()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public long getDestroyedViewCount() {
+        return destroyedViews.get();
+    }
+
+    /**
+     * Estimates the memory held by views other than the main view, in bytes. Nodes of
+     * views are counted with their tree entry, their edge trees and their entry in the
+     * view tree of their node data, edges with their entries in the in and out trees of
+     * their extremities. Edges themselves are shared with the main view. See
+     * {@link GraphMemoryImpl} for the assumptions behind the sizes.
+     */
+    public long getViewsMemory() {
+        long memory = 0;
+        for (GraphViewImpl view : views) {
+            if (!view.isMainView()) {
+                memory += (long) (view.getStructure().getTreeSize() - 1) * VIEW_NODE_BYTES;
+                memory += (long) view.getEdgesCountTotal() * VIEW_EDGE_BYTES;
+            }
+        }
+        return memory;
+    }
+
+    /**
+     * Weak reference to a graph, enqueued when the graph is garbage collected, or explicitly
+     * when a view without graph is destroyed.
+     */
+    private static class GraphReference extends WeakReference<AbstractGraphImpl> {
+
+        private final GraphViewImpl view;
+        private final GraphStructure structure;
+
+        public GraphReference(AbstractGraphImpl graph, GraphViewImpl view, GraphStructure structure) {
+            super(graph, REFERENCE_QUEUE);
+            this.view = view;
+            this.structure = structure;
+        }
+    }
 
-        private final WeakReference<GraphStructure> structureReference;
-        private final int STD_TIMER = 300;
-        private final int UNDESTRO_TIMER = 2000;
-        private boolean running = true;
+    /**
+     * Destroys views as soon as their last graph reference is collected. Shared by all graph
+     * structures, it blocks on the reference queue and never polls.
+     */
+    private static class ViewReaperThread extends Thread {
 
-        public ViewDestructorThread(GraphStructure graphStructure) {
+        public ViewReaperThread() {
             super("DHNS View Destructor");
             setDaemon(true);
-            structureReference = new WeakReference<GraphStructure>(graphStructure);
         }
 
         @Override
         public void run() {
-            GraphStructure structure = null;
-            while (running && (structure = structureReference.get()) != null) {
-                while (structure.destroyQueue.isEmpty()) {
-                    try {
-                        synchronized (structure.lock) {
-                            structure.lock.wait();
-                        }
-                    } catch (InterruptedException ex) {
-                        ex.printStackTrace();
-                    }
-                }
-                boolean undestroyableViews = false;
-                for (GraphViewImpl v : structure.destroyQueue.toArray(new GraphViewImpl[0])) {
-                    if (!v.hasGraphReference()) {
-                        destroyView(structure, v);
-                        structure.destroyQueue.remove(v);
-                    } else {
-                        undestroyableViews = true;
-                    }
-                }
+            while (true) {
                 try {
-                    synchronized (structure.lock) {
-                        structure.lock.wait(undestroyableViews ? UNDESTRO_TIMER : STD_TIMER);
+                    GraphReference reference = (GraphReference) REFERENCE_QUEUE.remove();
+                    if (reference.get() == null && reference.structure.graphReferences.contains(reference)) {
+                        reference.structure.releaseGraphReference(reference);
+                    } else {
+                        //Destroy request for a view without graph
+                        reference.structure.destroy(reference.view);
                     }
                 } catch (InterruptedException ex) {
                     ex.printStackTrace();
+                } catch (Exception ex) {
+                    ex.printStackTrace();
                 }
             }
         }
-
-        private void destroyView(GraphStructure structure, GraphViewImpl view) {
-            //Logger.getLogger("").log(Level.WARNING, "Destroy view {0}", view.getViewId());
-            structure.dhns.writeLock();
-            ParamAVLIterator<AbstractEdge> edgeIterator = new ParamAVLIterator<AbstractEdge>();
-            for (TreeListIterator itr = new TreeListIterator(structure.mainView.getStructure().getTree(), 1); itr.hasNext();) {
-                AbstractNode node = itr.next();
-                AbstractNode nodeInView = node.getNodeData().getNodes().get(view.getViewId());
-                if (nodeInView != null) {
-                    node.getNodeData().getNodes().remove(view.getViewId());
-                    if (!nodeInView.getEdgesOutTree().isEmpty()) {
-                        for (edgeIterator.setNode(nodeInView.getEdgesOutTree()); edgeIterator.hasNext();) {
-                            AbstractEdge edge = edgeIterator.next();
-                            structure.removeFromDictionnary(edge);
-                        }
-                    }
-                }
-            }
-            structure.views.remove(view);
-            //System.out.println("Destroy view finished");           
-            structure.dhns.writeUnlock();
-            structure.dhns.getEventManager().fireEvent(new ViewEvent(EventType.DESTROY_VIEW, view));
-            if (structure.visibleView == view) {
-                structure.visibleView = structure.mainView;
-                structure.dhns.getEventManager().fireEvent(new ViewEvent(EventType.VISIBLE_VIEW, structure.mainView));
-            }
-        }
     }
 
+    /**
+     * Maps node and edge ids to their objects. Reads never lock and writes are spread over the
+     * segments of concurrent maps, so lookups from importers, the data laboratory or filters don't
+     * serialize with each other or with writers. Edge reference counts are updated with CAS.
+     */
     private static class GraphDictionnary {
 
-        private final TObjectIntHashMap<String> nodesMap;
-        private final TIntObjectHashMap<NodeDataImpl> nodesIntMap;
-        private final TIntObjectHashMap<EdgeCounter> edgesRefCount;
-        private final TObjectIntHashMap<String> edgesMap;
-
-        public GraphDictionnary() {
-            nodesMap = new TObjectIntHashMap<String>();
-            nodesIntMap = new TIntObjectHashMap<NodeDataImpl>();
-            edgesRefCount = new TIntObjectHashMap<EdgeCounter>();
-            edgesMap = new TObjectIntHashMap<String>();
+        private volatile ConcurrentHashMap<String, Integer> nodesMap;
+        private volatile ConcurrentHashMap<Integer, NodeDataImpl> nodesIntMap;
+        private volatile ConcurrentHashMap<Integer, EdgeCounter> edgesRefCount;
+        private volatile ConcurrentHashMap<String, Integer> edgesMap;
+        private final IDGen idGen;
+
+        public GraphDictionnary(IDGen idGen) {
+            this.idGen = idGen;
+            nodesMap = new ConcurrentHashMap<String, Integer>();
+            nodesIntMap = new ConcurrentHashMap<Integer, NodeDataImpl>();
+            edgesRefCount = new ConcurrentHashMap<Integer, EdgeCounter>();
+            edgesMap = new ConcurrentHashMap<String, Integer>();
         }
 
-        public synchronized void addNode(AbstractNode node) {
+        public void addNode(AbstractNode node) {
             if (node.getNodeData().getId() != null) {
                 nodesMap.put(node.getNodeData().getId(), node.getId());
             }
             nodesIntMap.put(node.getId(), node.getNodeData());
         }
 
-        public synchronized void removeNode(AbstractNode node) {
+        public void removeNode(AbstractNode node) {
             if (node.getNodeData().getNodes().getCount() == 1) {
                 if (node.getNodeData().getId() != null) {
                     nodesMap.remove(node.getNodeData().getId());
                 }
-                nodesIntMap.remove(node.getId());
+                if (nodesIntMap.remove(node.getId()) != null) {
+                    idGen.releaseNodeId(node.getId());
+                }
             }
         }
 
-        public synchronized void addEdge(AbstractEdge edge) {
-
-            EdgeCounter edgeCounter = edgesRefCount.get(edge.getId());
-            if (edgeCounter != null) {
-                edgeCounter.inc();
-            } else {
-                edgeCounter = new EdgeCounter(edge);
-                edgesRefCount.put(edge.getId(), edgeCounter);
-                String id = edge.getEdgeData().getId();
-                if (id != null) {
-                    edgesMap.put(id, edge.getId());
+        public void addEdge(AbstractEdge edge) {
+            Integer key = edge.getId();
+            while (true) {
+                EdgeCounter edgeCounter = edgesRefCount.get(key);
+                if (edgeCounter == null) {
+                    edgeCounter = new EdgeCounter(edge);
+                    if (edgesRefCount.putIfAbsent(key, edgeCounter) == null) {
+                        String id = edge.getEdgeData().getId();
+                        if (id != null) {
+                            edgesMap.put(id, key);
+                        }
+                        return;
+                    }
+                } else if (edgeCounter.incIfAlive()) {
+                    return;
+                } else {
+                    //Counter being removed
+                    edgesRefCount.remove(key, edgeCounter);
                 }
             }
         }
 
-        public synchronized void removeEdge(AbstractEdge edge) {
-            EdgeCounter edgeCounter = edgesRefCount.get(edge.getId());
-            int count = edgeCounter.decAndGet();
-            if (count == 0) {
-                edgesRefCount.remove(edge.getId());
-                String id = edge.getEdgeData().getId();
-                if (id != null) {
-                    edgesMap.remove(id);
+        public void removeEdge(AbstractEdge edge) {
+            Integer key = edge.getId();
+            EdgeCounter edgeCounter = edgesRefCount.get(key);
+            if (edgeCounter != null && edgeCounter.decAndGet() == 0) {
+                if (edgesRefCount.remove(key, edgeCounter)) {
+                    String id = edge.getEdgeData().getId();
+                    if (id != null) {
+                        edgesMap.remove(id, key);
+                    }
+                    idGen.releaseEdgeId(edge.getId());
                 }
             }
         }
 
-        public synchronized AbstractNode getNode(int id, int viewId) {
+        public AbstractNode getNode(int id, int viewId) {
             NodeDataImpl nodeDataImpl = nodesIntMap.get(id);
             if (nodeDataImpl != null) {
                 return (AbstractNode) nodeDataImpl.getNode(viewId);
@@ -355,15 +562,15 @@ public class GraphStructure {
             return null;
         }
 
-        public synchronized AbstractNode getNode(String id, int viewId) {
-            int natId = nodesMap.get(id);
-            if (natId != 0) {
+        public AbstractNode getNode(String id, int viewId) {
+            Integer natId = nodesMap.get(id);
+            if (natId != null) {
                 return getNode(natId, viewId);
             }
             return null;
         }
 
-        public synchronized AbstractEdge getEdge(int id) {
+        public AbstractEdge getEdge(int id) {
             EdgeCounter edgeCounter = edgesRefCount.get(id);
             if (edgeCounter != null) {
                 return edgeCounter.edge;
@@ -371,63 +578,105 @@ public class GraphStructure {
             return null;
         }
 
-        public synchronized AbstractEdge getEdge(String id) {
-            int natId = edgesMap.get(id);
-            if (natId != 0) {
+        public AbstractEdge getEdge(String id) {
+            Integer natId = edgesMap.get(id);
+            if (natId != null) {
                 return getEdge(natId);
             }
             return null;
         }
 
-        public synchronized void setNodeId(String oldId, String newId, NodeDataImpl node) {
+        public void setNodeId(String oldId, String newId, NodeDataImpl node) {
             if (oldId != null) {
-                int val = nodesMap.remove(oldId);
-                nodesMap.put(newId, val);
-            } else {
+                nodesMap.remove(oldId);
+            }
+            if (newId != null) {
                 nodesMap.put(newId, node.getID());
             }
         }
 
-        public synchronized void setEdgeId(String oldId, String newId, AbstractEdge edge) {
+        public void setEdgeId(String oldId, String newId, AbstractEdge edge) {
             if (oldId != null) {
-                int val = edgesMap.remove(oldId);
-                edgesMap.put(newId, val);
-            } else {
+                edgesMap.remove(oldId);
+            }
+            if (newId != null) {
                 edgesMap.put(newId, edge.getId());
             }
         }
 
+        /**
+         * Gives nodes and edges new ids from 1, in the order of their current ids, and swaps in
+         * rebuilt maps. Returns the number of nodes and edges. Must be called under the graph
+         * write lock, lookups running meanwhile may find nothing.
+         */
+        public int[] renumber() {
+            NodeDataImpl[] nodes = nodesIntMap.values().toArray(new NodeDataImpl[0]);
+            Arrays.sort(nodes, new Comparator<NodeDataImpl>() {
+
+                public int compare(NodeDataImpl o1, NodeDataImpl o2) {
+                    return o1.getID() < o2.getID() ? -1 : (o1.getID() == o2.getID() ? 0 : 1);
+                }
+            });
+            ConcurrentHashMap<Integer, NodeDataImpl> newNodesIntMap = new ConcurrentHashMap<Integer, NodeDataImpl>(nodes.length);
+            ConcurrentHashMap<String, Integer> newNodesMap = new ConcurrentHashMap<String, Integer>(nodes.length);
+            for (int i = 0; i < nodes.length; i++) {
+                NodeDataImpl node = nodes[i];
+                node.setID(i + 1);
+                newNodesIntMap.put(node.getID(), node);
+                if (node.getId() != null) {
+                    newNodesMap.put(node.getId(), node.getID());
+                }
+            }
+            nodesIntMap = newNodesIntMap;
+            nodesMap = newNodesMap;
+
+            EdgeCounter[] edges = edgesRefCount.values().toArray(new EdgeCounter[0]);
+            Arrays.sort(edges, new Comparator<EdgeCounter>() {
+
+                public int compare(EdgeCounter o1, EdgeCounter o2) {
+                    int id1 = o1.edge.getId();
+                    int id2 = o2.edge.getId();
+                    return id1 < id2 ? -1 : (id1 == id2 ? 0 : 1);
+                }
+            });
+            ConcurrentHashMap<Integer, EdgeCounter> newEdgesRefCount = new ConcurrentHashMap<Integer, EdgeCounter>(edges.length);
+            ConcurrentHashMap<String, Integer> newEdgesMap = new ConcurrentHashMap<String, Integer>(edges.length);
+            for (int i = 0; i < edges.length; i++) {
+                AbstractEdge edge = edges[i].edge;
+                edge.setId(i + 1);
+                newEdgesRefCount.put(edge.getId(), edges[i]);
+                if (edge.getEdgeData().getId() != null) {
+                    newEdgesMap.put(edge.getEdgeData().getId(), edge.getId());
+                }
+            }
+            edgesRefCount = newEdgesRefCount;
+            edgesMap = newEdgesMap;
+            return new int[]{nodes.length, edges.length};
+        }
+
         private static class EdgeCounter {
 
             protected final AbstractEdge edge;
-            private int counter = 1;
+            private final AtomicInteger counter = new AtomicInteger(1);
 
             public EdgeCounter(AbstractEdge edge) {
                 this.edge = edge;
             }
 
-            private void inc() {
-                counter++;
-            }
-
-            private int decAndGet() {
-                return --counter;
-            }
-
-            @Override
-            public boolean equals(Object obj) {
-                if (obj != null && obj instanceof EdgeCounter) {
-                    EdgeCounter e = (EdgeCounter) obj;
-                    return e.edge.equals(edge);
-                } else if (obj != null && obj instanceof AbstractEdge) {
-                    return obj.equals(edge);
+            private boolean incIfAlive() {
+                while (true) {
+                    int count = counter.get();
+                    if (count == 0) {
+                        return false;
+                    }
+                    if (counter.compareAndSet(count, count + 1)) {
+                        return true;
+                    }
                 }
-                return false;
             }
 
-            @Override
-            public int hashCode() {
-                return edge.hashCode();
+            private int decAndGet() {
+                return counter.decrementAndGet();
             }
         }
     }
@@ -55,6 +55,7 @@ public class GraphVersion {
 //    private int edgeVersion;
     private AtomicInteger nodeVersion = new AtomicInteger();
     private AtomicInteger edgeVersion = new AtomicInteger();
+    private AtomicInteger weightVersion = new AtomicInteger();
 
     public GraphVersion() {
 //        nodeVersion = 0;
@@ -71,6 +72,20 @@ public class GraphVersion {
         return edgeVersion.get();
     }
 
+    /**
+     * Returns a version changed each time an edge weight is set, either with
+     * <code>Edge.setWeight()</code> or directly in the edge attribute row.
+     *
+     * @return the weight version
+     */
+    public int getWeightVersion() {
+        return weightVersion.get();
+    }
+
+    public void incWeightVersion() {
+        weightVersion.incrementAndGet();
+    }
+
     public void incNodeVersion() {
 //        nodeVersion++;
         nodeVersion.incrementAndGet();
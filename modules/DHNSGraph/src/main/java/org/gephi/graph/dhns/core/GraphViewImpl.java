@@ -41,10 +41,15 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.graph.dhns.core;
 
-import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.gephi.data.attributes.api.AttributeRow;
 import org.gephi.graph.api.GraphView;
+import org.gephi.graph.dhns.edge.AbstractEdge;
 import org.gephi.graph.dhns.graph.AbstractGraphImpl;
+import org.gephi.graph.dhns.node.AbstractNode;
+import org.gephi.graph.dhns.node.iterators.TreeListIterator;
+import org.gephi.utils.collection.avl.ParamAVLIterator;
 
 /**
  *
@@ -64,8 +69,16 @@ public class GraphViewImpl implements GraphView {
     private int mutualEdgesEnabled;
     private int metaEdgesCountTotal;
     private int mutualMetaEdgesTotal;
+    //Snapshot
+    private volatile GraphSnapshotImpl snapshot;
+    //Degree index
+    private volatile DegreeIndexImpl degreeIndex;
+    //Edge index
+    private volatile EdgeIndex edgeIndex;
     //RefCounting
-    private final WeakHashMap<AbstractGraphImpl, Boolean> graphsMap = new WeakHashMap<AbstractGraphImpl, Boolean>();
+    private final AtomicInteger graphReferences = new AtomicInteger();
+    private final AtomicBoolean destroyRequested = new AtomicBoolean();
+    private final AtomicBoolean destroyed = new AtomicBoolean();
 
     public GraphViewImpl(Dhns dhns, int viewId) {
         this.dhns = dhns;
@@ -76,7 +89,8 @@ public class GraphViewImpl implements GraphView {
     }
 
     public void addGraphReference(AbstractGraphImpl graph) {
-        graphsMap.put(graph, Boolean.TRUE);
+        graphReferences.incrementAndGet();
+        dhns.getGraphStructure().addGraphReference(graph, this);
 
         //Track graph references
         /*StackTraceElement[] elm = Thread.currentThread().getStackTrace();
@@ -89,8 +103,41 @@ public class GraphViewImpl implements GraphView {
         System.out.println("View " + viewId + " : " + elm[i].toString());*/
     }
 
+    /**
+     * Decrements the number of graphs referencing this view, called once a graph has been
+     * garbage collected.
+     * @return the number of graphs still referencing this view
+     */
+    public int releaseGraphReference() {
+        return graphReferences.decrementAndGet();
+    }
+
     public boolean hasGraphReference() {
-        return !graphsMap.isEmpty();
+        return graphReferences.get() > 0;
+    }
+
+    public int getGraphReferences() {
+        return graphReferences.get();
+    }
+
+    /**
+     * Marks the view to be destroyed once no graph references it anymore.
+     * @return <code>true</code> the first time it is called
+     */
+    public boolean requestDestroy() {
+        return destroyRequested.compareAndSet(false, true);
+    }
+
+    public boolean isDestroyRequested() {
+        return destroyRequested.get();
+    }
+
+    /**
+     * Marks the view as destroyed.
+     * @return <code>true</code> the first time it is called
+     */
+    public boolean markDestroyed() {
+        return destroyed.compareAndSet(false, true);
     }
 
     public int getViewId() {
@@ -228,4 +275,50 @@ public class GraphViewImpl implements GraphView {
     public AttributeRow getAttributes() {
         return attributeRow;
     }
+
+    /**
+     * Returns the (source, target) index of the edges of this view, or <code>null</code> if
+     * the index is disabled.
+     */
+    public EdgeIndex getEdgeIndex() {
+        return edgeIndex;
+    }
+
+    /**
+     * Builds the edge index from the nodes' out trees, or drops it. Must be called under the
+     * write lock.
+     */
+    public void setEdgeIndexEnabled(boolean enabled) {
+        if (!enabled) {
+            edgeIndex = null;
+            return;
+        }
+        EdgeIndex index = new EdgeIndex(edgesCountTotal);
+        ParamAVLIterator<AbstractEdge> edgeIterator = new ParamAVLIterator<AbstractEdge>();
+        for (TreeListIterator itr = new TreeListIterator(structure.getTree(), 1); itr.hasNext();) {
+            AbstractNode node = itr.next();
+            if (!node.getEdgesOutTree().isEmpty()) {
+                for (edgeIterator.setNode(node.getEdgesOutTree()); edgeIterator.hasNext();) {
+                    index.put(edgeIterator.next());
+                }
+            }
+        }
+        edgeIndex = index;
+    }
+
+    public GraphSnapshotImpl getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(GraphSnapshotImpl snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public DegreeIndexImpl getDegreeIndex() {
+        return degreeIndex;
+    }
+
+    public void setDegreeIndex(DegreeIndexImpl degreeIndex) {
+        this.degreeIndex = degreeIndex;
+    }
 }
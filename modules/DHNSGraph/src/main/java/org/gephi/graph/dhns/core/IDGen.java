@@ -41,10 +41,15 @@ Portions Copyrighted 2011 Gephi Consortium.
 */
 package org.gephi.graph.dhns.core;
 
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Generates incremental IDs for node and edges;
+ * <p>
+ * When recycling is enabled, ids of nodes and edges removed from the graph are
+ * kept in free lists and given again before new ids are generated, so ids stay
+ * dense despite deletions.
  *
  * @author Mathieu Bastian
  */
@@ -52,15 +57,73 @@ public class IDGen {
 
     private AtomicInteger nodeGen = new AtomicInteger(1);
     private AtomicInteger edgeGen = new AtomicInteger(1);
+    private volatile boolean recycling;
+    private final FreeList freeNodes = new FreeList();
+    private final FreeList freeEdges = new FreeList();
 
     public int newNodeId() {
+        if (recycling) {
+            int id = freeNodes.pop();
+            if (id != -1) {
+                return id;
+            }
+        }
         return nodeGen.getAndIncrement();
     }
 
     public int newEdgeId() {
+        if (recycling) {
+            int id = freeEdges.pop();
+            if (id != -1) {
+                return id;
+            }
+        }
         return edgeGen.getAndIncrement();
     }
 
+    public void releaseNodeId(int id) {
+        if (recycling) {
+            freeNodes.push(id);
+        }
+    }
+
+    public void releaseEdgeId(int id) {
+        if (recycling) {
+            freeEdges.push(id);
+        }
+    }
+
+    public boolean isRecycling() {
+        return recycling;
+    }
+
+    public void setRecycling(boolean recycling) {
+        this.recycling = recycling;
+        if (!recycling) {
+            freeNodes.clear();
+            freeEdges.clear();
+        }
+    }
+
+    /**
+     * Restarts generation after the graph has been renumbered, free ids are
+     * forgotten.
+     */
+    public void reset(int nodeGen, int edgeGen) {
+        this.nodeGen.set(nodeGen);
+        this.edgeGen.set(edgeGen);
+        freeNodes.clear();
+        freeEdges.clear();
+    }
+
+    public int getFreeNodeIdsCount() {
+        return freeNodes.size();
+    }
+
+    public int getFreeEdgeIdsCount() {
+        return freeEdges.size();
+    }
+
     public void setNodeGen(int nodeGen) {
         this.nodeGen.set(nodeGen);
     }
@@ -76,4 +139,33 @@ public class IDGen {
     public int getEdgeGen() {
         return edgeGen.get();
     }
+
+    private static class FreeList {
+
+        private int[] ids = new int[16];
+        private int size;
+
+        public synchronized void push(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        public synchronized int pop() {
+            if (size == 0) {
+                return -1;
+            }
+            return ids[--size];
+        }
+
+        public synchronized void clear() {
+            ids = new int[16];
+            size = 0;
+        }
+
+        public synchronized int size() {
+            return size;
+        }
+    }
 }
@@ -64,6 +64,8 @@ public class SettingsManager implements GraphSettings {
     private MetaEdgeBuilder metaEdgeBuilder;
     private Float metaEdgeBuilderNonDeepDivisor;
     private Estimator defaultWeightEstimator;
+    private Boolean arrayEdgeStorage;
+    private Boolean edgeIndex;
 
     public SettingsManager(Dhns dhns) {
         this.dhns = dhns;
@@ -75,6 +77,8 @@ public class SettingsManager implements GraphSettings {
         metaEdgeBuilderNonDeepDivisor = Float.valueOf(10f);
         metaEdgeBuilder = new SumMetaEdgeBuilder(metaEdgeBuilderNonDeepDivisor);
         defaultWeightEstimator = Estimator.AVERAGE;
+        arrayEdgeStorage = Boolean.FALSE;
+        edgeIndex = Boolean.FALSE;
     }
 
     public boolean isAutoMetaEdgeCreation() {
@@ -89,6 +93,14 @@ public class SettingsManager implements GraphSettings {
         return defaultWeightEstimator;
     }
 
+    public boolean isArrayEdgeStorage() {
+        return arrayEdgeStorage;
+    }
+
+    public boolean isEdgeIndex() {
+        return edgeIndex;
+    }
+
     public void setMetaEdgeBuilder(MetaEdgeBuilder metaEdgeBuilder) {
         putClientProperty(GraphSettings.METAEDGE_BUILDER, metaEdgeBuilder);
     }
@@ -118,6 +130,21 @@ public class SettingsManager implements GraphSettings {
         } else if(key.equals(GraphSettings.DEFAULT_WEIGHT_ESTIMATOR)) {
             defaultWeightEstimator = (Estimator)value;
             fireUpdate();
+        } else if (key.equals(GraphSettings.EDGE_STORAGE)) {
+            Boolean array = Boolean.valueOf(value.equals("array"));
+            if (!array.equals(arrayEdgeStorage)) {
+                arrayEdgeStorage = array;
+                //Convert nodes already in the graph
+                dhns.getGraphStructure().setArrayEdgeStorage(array);
+            }
+        } else if (key.equals(GraphSettings.EDGE_INDEX)) {
+            Boolean index = (Boolean) value;
+            if (!index.equals(edgeIndex)) {
+                edgeIndex = index;
+                dhns.getGraphStructure().setEdgeIndex(index);
+            }
+        } else if (key.equals(GraphSettings.ID_RECYCLING)) {
+            dhns.getIdGen().setRecycling((Boolean) value);
         }
     }
 
@@ -136,6 +163,12 @@ public class SettingsManager implements GraphSettings {
             return metaEdgeBuilderNonDeepDivisor;
         } else if (key.equals(GraphSettings.DEFAULT_WEIGHT_ESTIMATOR)) {
             return defaultWeightEstimator;
+        } else if (key.equals(GraphSettings.EDGE_STORAGE)) {
+            return arrayEdgeStorage ? "array" : "tree";
+        } else if (key.equals(GraphSettings.EDGE_INDEX)) {
+            return edgeIndex;
+        } else if (key.equals(GraphSettings.ID_RECYCLING)) {
+            return dhns.getIdGen().isRecycling();
         }
         return null;
     }
@@ -153,6 +186,9 @@ public class SettingsManager implements GraphSettings {
         map.put(GraphSettings.METAEDGE_BUILDER, getClientProperty(GraphSettings.METAEDGE_BUILDER));
         map.put(GraphSettings.METAEDGE_BUILDER_NONDEEP_DIVISOR, getClientProperty(GraphSettings.METAEDGE_BUILDER_NONDEEP_DIVISOR));
         map.put(GraphSettings.DEFAULT_WEIGHT_ESTIMATOR, getClientProperty(GraphSettings.DEFAULT_WEIGHT_ESTIMATOR));
+        map.put(GraphSettings.EDGE_STORAGE, getClientProperty(GraphSettings.EDGE_STORAGE));
+        map.put(GraphSettings.EDGE_INDEX, getClientProperty(GraphSettings.EDGE_INDEX));
+        map.put(GraphSettings.ID_RECYCLING, getClientProperty(GraphSettings.ID_RECYCLING));
         return map;
     }
 }
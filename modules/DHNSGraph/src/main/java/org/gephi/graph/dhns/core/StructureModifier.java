@@ -42,13 +42,17 @@ Portions Copyrighted 2011 Gephi Consortium.
 package org.gephi.graph.dhns.core;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import org.gephi.graph.api.GraphEvent.EventType;
 import org.gephi.graph.api.Node;
 import org.gephi.graph.dhns.edge.AbstractEdge;
 import org.gephi.graph.dhns.edge.MetaEdgeImpl;
+import org.gephi.graph.dhns.event.BatchEvent;
 import org.gephi.graph.dhns.event.EdgeEvent;
 import org.gephi.graph.dhns.event.GeneralEvent;
+import org.gephi.graph.dhns.event.GraphEventDataImpl;
 import org.gephi.graph.dhns.event.NodeEvent;
 import org.gephi.graph.dhns.node.AbstractNode;
 import org.gephi.graph.dhns.node.iterators.AbstractNodeIterator;
@@ -153,16 +157,48 @@ public class StructureModifier {
 
     public void addEdge(AbstractEdge edge) {
         boolean locked = dhns.conditionalWriteLock();
+        DegreeIndexImpl degreeIndex = getUpToDateDegreeIndex();
         business.addEdge(edge);
         graphVersion.incEdgeVersion();
+        if (degreeIndex != null && degreeIndex.addEdge(edge)) {
+            degreeIndex.setVersion(graphVersion);
+        }
         dhns.conditionalWriteUnlock(locked);
         dhns.getEventManager().fireEvent(new EdgeEvent(EventType.ADD_NODES_AND_EDGES, edge, view));
     }
 
+    public void addAll(AbstractNode[] nodes, AbstractEdge[] edges) {
+        boolean locked = dhns.conditionalWriteLock();
+        if (nodes.length > 0) {
+            business.addAllNodes(nodes);
+            for (int i = 0; i < nodes.length; i++) {
+                dhns.getGraphStructure().addToDictionnary(nodes[i]);
+            }
+        }
+        if (edges.length > 0) {
+            business.addAllEdges(edges);
+        }
+        graphVersion.incNodeAndEdgeVersion();
+        dhns.conditionalWriteUnlock(locked);
+        GraphEventDataImpl eventData = new GraphEventDataImpl();
+        if (nodes.length > 0) {
+            eventData.setAddedNodes(nodes);
+        }
+        if (edges.length > 0) {
+            eventData.setAddedEdges(edges);
+        }
+        dhns.getEventManager().fireEvent(new BatchEvent(EventType.ADD_NODES_AND_EDGES, eventData, view));
+    }
+
     public boolean deleteEdge(AbstractEdge edge) {
         boolean locked = dhns.conditionalWriteLock();
+        DegreeIndexImpl degreeIndex = getUpToDateDegreeIndex();
+        boolean indexed = degreeIndex != null && degreeIndex.removeEdge(edge);
         boolean res = business.delEdge(edge);
         graphVersion.incEdgeVersion();
+        if (indexed) {
+            degreeIndex.setVersion(graphVersion);
+        }
         dhns.conditionalWriteUnlock(locked);
         if (res) {
             dhns.getEventManager().fireEvent(new EdgeEvent(EventType.REMOVE_NODES_AND_EDGES, edge, view));
@@ -178,6 +214,14 @@ public class StructureModifier {
         return res;
     }
 
+    private DegreeIndexImpl getUpToDateDegreeIndex() {
+        DegreeIndexImpl degreeIndex = view.getDegreeIndex();
+        if (degreeIndex != null && degreeIndex.isUpToDate(graphVersion)) {
+            return degreeIndex;
+        }
+        return null;
+    }
+
     public void clear() {
         boolean locked = dhns.conditionalWriteLock();
         AbstractEdge[] clearedEdges = business.clearAllEdges();
@@ -253,9 +297,9 @@ public class StructureModifier {
         view.setMutualEdgesEnabled(0);
         for (TreeIterator itr = new TreeIterator(treeStructure, true, Tautology.instance); itr.hasNext();) {
             AbstractNode node = itr.next();
-            edgeProcessor.computeMetaEdges(node, node);
             edgeProcessor.computeEdgesCounting(node);
         }
+        edgeProcessor.computeMetaEdges();
         graphVersion.incNodeAndEdgeVersion();
         dhns.conditionalWriteUnlock(locked);
         dhns.getEventManager().fireEvent(new GeneralEvent(EventType.META_EDGES_UPDATE, view));
@@ -277,9 +321,9 @@ public class StructureModifier {
         view.setMutualEdgesEnabled(0);
         for (TreeIterator itr = new TreeIterator(treeStructure, true, Tautology.instance); itr.hasNext();) {
             AbstractNode node = itr.next();
-            edgeProcessor.computeMetaEdges(node, node);
             edgeProcessor.computeEdgesCounting(node);
         }
+        edgeProcessor.computeMetaEdges();
         graphVersion.incNodeAndEdgeVersion();
         dhns.conditionalWriteUnlock(locked);
         dhns.getEventManager().fireEvent(new GeneralEvent(EventType.META_EDGES_UPDATE, view));
@@ -301,9 +345,9 @@ public class StructureModifier {
         view.setMutualEdgesEnabled(0);
         for (TreeIterator itr = new TreeIterator(treeStructure, true, Tautology.instance); itr.hasNext();) {
             AbstractNode node = itr.next();
-            edgeProcessor.computeMetaEdges(node, node);
             edgeProcessor.computeEdgesCounting(node);
         }
+        edgeProcessor.computeMetaEdges();
         graphVersion.incNodeAndEdgeVersion();
         dhns.conditionalWriteUnlock(locked);
         dhns.getEventManager().fireEvent(new GeneralEvent(EventType.META_EDGES_UPDATE, view));
@@ -422,8 +466,8 @@ public class StructureModifier {
                 AbstractNode child = itr.next();
                 child.setEnabled(true);
                 view.incNodesEnabled(1);
-                edgeProcessor.computeMetaEdges(child, child);
             }
+            edgeProcessor.computeChildrenMetaEdges(absNode);
 
             //Update counting
             for (ChildrenIterator itr = new ChildrenIterator(treeStructure, absNode, Tautology.instance); itr.hasNext();) {
@@ -476,6 +520,9 @@ public class StructureModifier {
             //Add Edges
             sourceNode.getEdgesOutTree().add(edge);
             targetNode.getEdgesInTree().add(edge);
+            if (view.getEdgeIndex() != null) {
+                view.getEdgeIndex().put(edge);
+            }
 
             if (!edge.isSelfLoop() && sourceNode.getEdgesInTree().hasNeighbour(targetNode)) {
                 //Mututal edge
@@ -502,6 +549,103 @@ public class StructureModifier {
             }
         }
 
+        private void addAllNodes(AbstractNode[] nodes) {
+            AbstractNode root = treeStructure.getRoot();
+            for (int i = 0; i < nodes.length; i++) {
+                AbstractNode node = nodes[i];
+                node.parent = root;
+                node.setEnabled(treeStructure.getEnabledAncestor(node) == null);
+                if (node.isEnabled()) {
+                    view.incNodesEnabled(1);
+                }
+            }
+            treeStructure.insertAsChildren(nodes, root);
+        }
+
+        private void addAllEdges(AbstractEdge[] edges) {
+            int viewId = view.getViewId();
+
+            //Mutual edges already in the graph
+            boolean[] mutual = new boolean[edges.length];
+            for (int i = 0; i < edges.length; i++) {
+                AbstractEdge edge = edges[i];
+                mutual[i] = !edge.isSelfLoop() && edge.getSource(viewId).getEdgesInTree().hasNeighbour(edge.getTarget(viewId));
+            }
+
+            //Add Edges, trees are filled at once per node
+            AbstractEdge[] sorted = Arrays.copyOf(edges, edges.length);
+            Arrays.sort(sorted, new Comparator<AbstractEdge>() {
+
+                public int compare(AbstractEdge e1, AbstractEdge e2) {
+                    return compareNumbers(e1.getSource().getNumber(), e2.getSource().getNumber());
+                }
+            });
+            for (int i = 0, j; i < sorted.length; i = j) {
+                int number = sorted[i].getSource().getNumber();
+                for (j = i + 1; j < sorted.length && sorted[j].getSource().getNumber() == number; j++) {
+                }
+                sorted[i].getSource(viewId).getEdgesOutTree().addAll(sorted, i, j - i);
+            }
+            Arrays.sort(sorted, new Comparator<AbstractEdge>() {
+
+                public int compare(AbstractEdge e1, AbstractEdge e2) {
+                    return compareNumbers(e1.getTarget().getNumber(), e2.getTarget().getNumber());
+                }
+            });
+            for (int i = 0, j; i < sorted.length; i = j) {
+                int number = sorted[i].getTarget().getNumber();
+                for (j = i + 1; j < sorted.length && sorted[j].getTarget().getNumber() == number; j++) {
+                }
+                sorted[i].getTarget(viewId).getEdgesInTree().addAll(sorted, i, j - i);
+            }
+            EdgeIndex edgeIndex = view.getEdgeIndex();
+            if (edgeIndex != null) {
+                for (int i = 0; i < edges.length; i++) {
+                    edgeIndex.put(edges[i]);
+                }
+            }
+
+            for (int i = 0; i < edges.length; i++) {
+                AbstractEdge edge = edges[i];
+                AbstractNode sourceNode = edge.getSource(viewId);
+                AbstractNode targetNode = edge.getTarget(viewId);
+
+                boolean enabled = sourceNode.isEnabled() && targetNode.isEnabled();
+
+                if (!mutual[i] && !edge.isSelfLoop()) {
+                    //Both edges are new, count the pair only once
+                    AbstractEdge symmetric = sourceNode.getEdgesInTree().getItem(targetNode.getNumber());
+                    mutual[i] = symmetric != null && symmetric.getId() < edge.getId();
+                }
+                if (mutual[i]) {
+                    view.incMutualEdgesTotal(1);
+                    if (enabled) {
+                        sourceNode.incEnabledMutualDegree();
+                        targetNode.incEnabledMutualDegree();
+                        view.incMutualEdgesEnabled(1);
+                    }
+                }
+
+                view.incEdgesCountTotal(1);
+                if (enabled) {
+                    view.incEdgesCountEnabled(1);
+                    sourceNode.incEnabledOutDegree();
+                    targetNode.incEnabledInDegree();
+                }
+
+                dhns.getGraphStructure().addToDictionnary(edge);
+
+                //Add Meta Edge
+                if (!edge.isSelfLoop()) {
+                    edgeProcessor.createMetaEdge(edge);
+                }
+            }
+        }
+
+        private int compareNumbers(int n1, int n2) {
+            return n1 < n2 ? -1 : (n1 == n2 ? 0 : 1);
+        }
+
         private AbstractNode[] deleteNode(AbstractNode node, GraphViewImpl graphView) {
             AbstractNode[] descendants = new AbstractNode[node.size + 1];
             int i = 0;
@@ -556,6 +700,9 @@ public class StructureModifier {
             //Remove edge
             boolean res = source.getEdgesOutTree().remove(edge);
             res = res && target.getEdgesInTree().remove(edge);
+            if (view.getEdgeIndex() != null) {
+                view.getEdgeIndex().remove(edge);
+            }
 
             dhns.getGraphStructure().removeFromDictionnary(edge);
 
@@ -598,6 +745,9 @@ public class StructureModifier {
                 deletedNodes[n++] = node;
             }
             treeStructure.clear();
+            if (view.getEdgeIndex() != null) {
+                view.getEdgeIndex().clear();
+            }
             view.setNodesEnabled(0);
             return deletedNodes;
         }
@@ -619,7 +769,13 @@ public class StructureModifier {
             for (int i = 0; i < nodes.length; i++) {
                 AbstractNode nodeToGroup = nodes[i];
                 nodeToGroup = nodeToGroup.getInView(view.getViewId());
-                business.moveToGroup(nodeToGroup, group);
+                business.moveToGroup(nodeToGroup, group, false);
+            }
+
+            //Meta edges of all grouped nodes are computed at once
+            AbstractNode destinationAncestor = treeStructure.getEnabledAncestorOrSelf(group);
+            if (destinationAncestor != null) {
+                edgeProcessor.computeMetaEdges(group, destinationAncestor);
             }
         }
 
@@ -647,6 +803,10 @@ public class StructureModifier {
         }
 
         private void moveToGroup(AbstractNode node, AbstractNode nodeGroup) {
+            moveToGroup(node, nodeGroup, true);
+        }
+
+        private void moveToGroup(AbstractNode node, AbstractNode nodeGroup, boolean computeMetaEdges) {
 
             AbstractNode toMoveAncestor = treeStructure.getEnabledAncestor(node);
             AbstractNode destinationAncestor = treeStructure.getEnabledAncestorOrSelf(nodeGroup);
@@ -709,10 +869,9 @@ public class StructureModifier {
 
             treeStructure.move(node, nodeGroup);
 
-            if (destinationAncestor != null) {
-                destinationAncestor.getPre();
+            if (computeMetaEdges && destinationAncestor != null && toMoveAncestor != destinationAncestor) {
                 //Compute all meta edges for the descendants of node and append them to the enabled
-                //destinationAncestor
+                //destinationAncestor. Nothing changes if node stays in the same enabled ancestor
                 edgeProcessor.computeMetaEdges(node, destinationAncestor);
             }
         }
@@ -41,8 +41,11 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.graph.dhns.core;
 
+import org.gephi.graph.dhns.edge.AbstractEdge;
 import org.gephi.graph.dhns.node.AbstractNode;
 import org.gephi.graph.dhns.node.iterators.TreeListIterator;
+import org.gephi.graph.dhns.utils.avl.EdgeOppositeArray;
+import org.gephi.graph.dhns.utils.avl.EdgeOppositeTree;
 
 /**
  * Holds nodes tree and manage basic operations.
@@ -128,11 +131,13 @@ public class TreeStructure {
     }
 
     public void insertAtEnd(AbstractNode node) {
+        prepareEdgeStorage(node);
         node.pre = tree.size();
         tree.add(node);
     }
 
     public void insertAsChild(AbstractNode node, AbstractNode parent) {
+        prepareEdgeStorage(node);
         node.parent = parent;
         node.pre = parent.getPre() + parent.size + 1;
         node.level = parent.level + 1;
@@ -140,6 +145,68 @@ public class TreeStructure {
         incrementAncestorsSize(node);
     }
 
+    public void insertAsChildren(AbstractNode[] nodes, AbstractNode parent) {
+        if (parent != root) {
+            for (int i = 0; i < nodes.length; i++) {
+                insertAsChild(nodes[i], parent);
+            }
+            return;
+        }
+        //Children of the root are appended at the end of the tree
+        int pre = tree.size();
+        for (int i = 0; i < nodes.length; i++) {
+            AbstractNode node = nodes[i];
+            prepareEdgeStorage(node);
+            node.parent = root;
+            node.pre = pre + i;
+            node.level = 1;
+        }
+        tree.addAll(nodes);
+        incrementAncestorsAndSelfSize(root, nodes.length);
+    }
+
+    public void setArrayEdgeStorage(boolean array) {
+        for (TreeListIterator itr = new TreeListIterator(tree, 1); itr.hasNext();) {
+            AbstractNode node = itr.next();
+            node.setEdgesOutTree(convertEdgeTree(node.getEdgesOutTree(), array));
+            node.setEdgesInTree(convertEdgeTree(node.getEdgesInTree(), array));
+        }
+    }
+
+    public void refreshEdgeArrays() {
+        for (TreeListIterator itr = new TreeListIterator(tree, 1); itr.hasNext();) {
+            AbstractNode node = itr.next();
+            if (node.getEdgesOutTree() instanceof EdgeOppositeArray) {
+                ((EdgeOppositeArray) node.getEdgesOutTree()).refreshNumbers();
+            }
+            if (node.getEdgesInTree() instanceof EdgeOppositeArray) {
+                ((EdgeOppositeArray) node.getEdgesInTree()).refreshNumbers();
+            }
+        }
+    }
+
+    private void prepareEdgeStorage(AbstractNode node) {
+        if (view != null && view.getGraphModel().getSettingsManager().isArrayEdgeStorage()) {
+            node.setEdgesOutTree(convertEdgeTree(node.getEdgesOutTree(), true));
+            node.setEdgesInTree(convertEdgeTree(node.getEdgesInTree(), true));
+        }
+    }
+
+    private EdgeOppositeTree convertEdgeTree(EdgeOppositeTree edgeTree, boolean array) {
+        if (array == (edgeTree instanceof EdgeOppositeArray)) {
+            return edgeTree;
+        }
+        if (array) {
+            EdgeOppositeArray edgeArray = new EdgeOppositeArray(edgeTree);
+            edgeArray.trimToSize();
+            return edgeArray;
+        }
+        EdgeOppositeTree newTree = new EdgeOppositeTree(edgeTree.getOwner());
+        AbstractEdge[] edges = edgeTree.toArray(new AbstractEdge[0]);
+        newTree.addAll(edges, 0, edges.length);
+        return newTree;
+    }
+
     public void resetLevelSize(int firstLevel) {
         tree.levelsSize = new int[1 + (firstLevel > 0 ? 1 : 0)];
         if (firstLevel > 0) {
@@ -53,7 +53,7 @@ import org.gephi.graph.dhns.node.AbstractNode;
  */
 public abstract class AbstractEdge implements Edge, AVLItem {
 
-    protected final int ID;
+    protected volatile int ID;
     protected final AbstractNode source;
     protected final AbstractNode target;
     protected EdgeDataImpl edgeData;
@@ -161,6 +161,10 @@ public abstract class AbstractEdge implements Edge, AVLItem {
         return ID;
     }
 
+    public void setId(int ID) {
+        this.ID = ID;
+    }
+
     @Override
     public String toString() {
         return source.getId() + "-" + target.getId();
@@ -52,6 +52,7 @@ import org.gephi.graph.spi.LayoutData;
 import org.gephi.graph.api.NodeData;
 import org.gephi.graph.api.Model;
 import org.gephi.graph.api.TextData;
+import org.gephi.graph.dhns.core.GraphVersion;
 
 /**
  * Implementation of the edge data interface.
@@ -70,6 +71,8 @@ public class EdgeDataImpl implements EdgeData {
     private Model model;
     protected Attributes attributes;
     protected TextData textData;
+    //Version of the graph the attributes belong to, set with the attributes
+    private GraphVersion graphVersion;
 
     public EdgeDataImpl(AbstractEdge edge) {
         this.edge = edge;
@@ -284,10 +287,17 @@ public class EdgeDataImpl implements EdgeData {
         if (attributes != null) {
             if (!((AttributeRow) attributes).getColumnAt(PropertiesColumn.EDGE_WEIGHT.getIndex()).getType().equals(AttributeType.DYNAMIC_FLOAT)) {
                 attributes.setValue(PropertiesColumn.EDGE_WEIGHT.getIndex(), weight);
+                if (graphVersion != null) {
+                    graphVersion.incWeightVersion();
+                }
             }
         }
     }
 
+    public void setGraphVersion(GraphVersion graphVersion) {
+        this.graphVersion = graphVersion;
+    }
+
     public void moveFrom(EdgeData edgeData) {
         this.r = edgeData.r();
         this.g = edgeData.g();
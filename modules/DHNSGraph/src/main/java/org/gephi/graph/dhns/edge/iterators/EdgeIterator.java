@@ -108,4 +108,21 @@ public class EdgeIterator extends AbstractEdgeIterator implements Iterator<Edge>
     public void remove() {
         throw new UnsupportedOperationException();
     }
+
+    @Override
+    public EdgeIterator[] split(int parts) {
+        if (currentNode != null) {
+            //Iteration already started
+            return null;
+        }
+        AbstractNodeIterator[] nodeIterators = nodeIterator.split(parts);
+        if (nodeIterators == null) {
+            return null;
+        }
+        EdgeIterator[] iterators = new EdgeIterator[nodeIterators.length];
+        for (int i = 0; i < nodeIterators.length; i++) {
+            iterators[i] = new EdgeIterator(null, nodeIterators[i], undirected, nodePredicate, edgePredicate);
+        }
+        return iterators;
+    }
 }
@@ -54,6 +54,7 @@ public abstract class AbstractEvent<T> {
     private final GraphEvent.EventType eventType;
     private final T data;
     private final GraphView view;
+    private long queuedTime;
 
     public AbstractEvent(EventType eventType, GraphView view, T data) {
         this.eventType = eventType;
@@ -72,5 +73,13 @@ public abstract class AbstractEvent<T> {
     public GraphView getView() {
         return view;
     }
+
+    public long getQueuedTime() {
+        return queuedTime;
+    }
+
+    public void setQueuedTime(long queuedTime) {
+        this.queuedTime = queuedTime;
+    }
 }
 
@@ -47,6 +47,7 @@ import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.api.GraphView;
 import org.gephi.graph.api.Node;
 import org.gephi.graph.dhns.core.Dhns;
+import org.gephi.graph.dhns.core.EdgeIndex;
 import org.gephi.graph.dhns.core.GraphViewImpl;
 import org.gephi.graph.dhns.core.TreeStructure;
 import org.gephi.graph.dhns.edge.AbstractEdge;
@@ -169,11 +170,23 @@ public abstract class AbstractGraphImpl {
         if (target == null) {
             throw new IllegalArgumentException("Target node must be in the graph");
         }
-        return source.getEdgesOutTree().hasNeighbour(target);
+        return getOutEdge(source, target) != null;
     }
 
     protected AbstractEdge getSymmetricEdge(AbstractEdge edge) {
-        return edge.getTarget(view.getViewId()).getEdgesOutTree().getItem(edge.getSource().getNumber());
+        return getOutEdge(edge.getTarget(view.getViewId()), edge.getSource());
+    }
+
+    /**
+     * Returns the edge from <code>source</code> to <code>target</code>, with the view's
+     * edge index when it is enabled, or from the source's out tree.
+     */
+    protected AbstractEdge getOutEdge(AbstractNode source, AbstractNode target) {
+        EdgeIndex edgeIndex = view.getEdgeIndex();
+        if (edgeIndex != null) {
+            return edgeIndex.get(source.getNumber(), target.getNumber());
+        }
+        return source.getEdgesOutTree().getItem(target.getNumber());
     }
 
     protected AbstractEdge getSymmetricMetaEdge(AbstractEdge edge) {
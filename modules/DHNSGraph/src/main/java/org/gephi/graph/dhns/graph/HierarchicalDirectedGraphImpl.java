@@ -42,6 +42,7 @@ Portions Copyrighted 2011 Gephi Consortium.
 package org.gephi.graph.dhns.graph;
 
 import org.gephi.utils.collection.avl.ParamAVLIterator;
+import gnu.trove.TLongHashSet;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.EdgeIterable;
 import org.gephi.graph.api.HierarchicalDirectedGraph;
@@ -92,6 +93,23 @@ public class HierarchicalDirectedGraphImpl extends HierarchicalGraphImpl impleme
         return true;
     }
 
+    @Override
+    protected boolean checkNewEdge(AbstractEdge edge, AbstractNode source, AbstractNode target, TLongHashSet edgeKeys) {
+        if (!edge.isDirected()) {
+            throw new IllegalArgumentException("Can't add an undirected egde");
+        }
+        if (source != null && target != null && checkEdgeExist(source, target)) {
+            //Edge already exist
+            return false;
+        }
+        return edgeKeys.add(edgeKey(edge.getSource(), edge.getTarget()));
+    }
+
+    @Override
+    protected void touchEdge(AbstractEdge edge) {
+        dhns.touchDirected();
+    }
+
     //Directed
     public boolean addEdge(Node source, Node target) {
         AbstractNode absSource = checkNode(source);
@@ -139,22 +157,76 @@ public class HierarchicalDirectedGraphImpl extends HierarchicalGraphImpl impleme
 
     //Directed
     public int getInDegree(Node node) {
-        AbstractNode absNode = checkNode(node);
-        int count = absNode.getEnabledInDegree();
-        return count;
+        long stamp = dhns.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                AbstractNode absNode = checkNode(node);
+                int count = absNode.getEnabledInDegree();
+                if (dhns.validate(stamp)) {
+                    return count;
+                }
+            } catch (NullPointerException ex) {
+                //Torn read during a concurrent write, retry with the read lock
+            } catch (IndexOutOfBoundsException ex) {
+                //Torn read during a concurrent write, retry with the read lock
+            }
+        }
+        readLock();
+        try {
+            AbstractNode absNode = checkNode(node);
+            return absNode.getEnabledInDegree();
+        } finally {
+            readUnlock();
+        }
     }
 
     //Directed
     public int getOutDegree(Node node) {
-        AbstractNode absNode = checkNode(node);
-        int count = absNode.getEnabledOutDegree();
-        return count;
+        long stamp = dhns.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                AbstractNode absNode = checkNode(node);
+                int count = absNode.getEnabledOutDegree();
+                if (dhns.validate(stamp)) {
+                    return count;
+                }
+            } catch (NullPointerException ex) {
+                //Torn read during a concurrent write, retry with the read lock
+            } catch (IndexOutOfBoundsException ex) {
+                //Torn read during a concurrent write, retry with the read lock
+            }
+        }
+        readLock();
+        try {
+            AbstractNode absNode = checkNode(node);
+            return absNode.getEnabledOutDegree();
+        } finally {
+            readUnlock();
+        }
     }
 
     public int getMutualDegree(Node node) {
-        AbstractNode absNode = checkNode(node);
-        int count = absNode.getEnabledMutualDegree();
-        return count;
+        long stamp = dhns.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                AbstractNode absNode = checkNode(node);
+                int count = absNode.getEnabledMutualDegree();
+                if (dhns.validate(stamp)) {
+                    return count;
+                }
+            } catch (NullPointerException ex) {
+                //Torn read during a concurrent write, retry with the read lock
+            } catch (IndexOutOfBoundsException ex) {
+                //Torn read during a concurrent write, retry with the read lock
+            }
+        }
+        readLock();
+        try {
+            AbstractNode absNode = checkNode(node);
+            return absNode.getEnabledMutualDegree();
+        } finally {
+            readUnlock();
+        }
     }
 
     //Graph
@@ -211,10 +283,29 @@ public class HierarchicalDirectedGraphImpl extends HierarchicalGraphImpl impleme
         if (source == null || target == null) {
             return null;
         }
-        AbstractNode sourceNode = checkNode(source);
-        AbstractNode targetNode = checkNode(target);
-        AbstractEdge res = sourceNode.getEdgesOutTree().getItem(targetNode.getNumber());
-        return res;
+        long stamp = dhns.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                AbstractEdge res = findEdge(checkNode(source), checkNode(target));
+                if (dhns.validate(stamp)) {
+                    return res;
+                }
+            } catch (NullPointerException ex) {
+                //Torn read during a concurrent write, retry with the read lock
+            } catch (IndexOutOfBoundsException ex) {
+                //Torn read during a concurrent write, retry with the read lock
+            }
+        }
+        readLock();
+        try {
+            return findEdge(checkNode(source), checkNode(target));
+        } finally {
+            readUnlock();
+        }
+    }
+
+    private AbstractEdge findEdge(AbstractNode sourceNode, AbstractNode targetNode) {
+        return getOutEdge(sourceNode, targetNode);
     }
 
     //Graph
@@ -229,9 +320,27 @@ public class HierarchicalDirectedGraphImpl extends HierarchicalGraphImpl impleme
 
     //Graph
     public int getDegree(Node node) {
-        AbstractNode absNode = checkNode(node);
-        int count = absNode.getEdgesInTree().getCount() + absNode.getEdgesOutTree().getCount();
-        return count;
+        long stamp = dhns.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                AbstractNode absNode = checkNode(node);
+                int count = absNode.getEdgesInTree().getCount() + absNode.getEdgesOutTree().getCount();
+                if (dhns.validate(stamp)) {
+                    return count;
+                }
+            } catch (NullPointerException ex) {
+                //Torn read during a concurrent write, retry with the read lock
+            } catch (IndexOutOfBoundsException ex) {
+                //Torn read during a concurrent write, retry with the read lock
+            }
+        }
+        readLock();
+        try {
+            AbstractNode absNode = checkNode(node);
+            return absNode.getEdgesInTree().getCount() + absNode.getEdgesOutTree().getCount();
+        } finally {
+            readUnlock();
+        }
     }
 
     //Graph
@@ -41,6 +41,10 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.graph.dhns.graph;
 
+import gnu.trove.TLongHashSet;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 import org.gephi.data.attributes.api.AttributeRow;
 import org.gephi.graph.api.Attributes;
 import org.gephi.graph.api.Edge;
@@ -109,6 +113,86 @@ public abstract class HierarchicalGraphImpl extends AbstractGraphImpl implements
         return addNode(node, null);
     }
 
+    public boolean addAll(Node[] nodes, Edge[] edges) {
+        int viewId = view.getViewId();
+        BitSet newNodes = new BitSet();
+        List<AbstractNode> nodeList = new ArrayList<AbstractNode>(nodes.length);
+        for (Node node : nodes) {
+            if (node == null) {
+                throw new IllegalArgumentException("Node can't be null");
+            }
+            AbstractNode absNode = (AbstractNode) node;
+            if (absNode.getInView(viewId) != null || newNodes.get(absNode.getNumber())) {
+                continue;
+            }
+            newNodes.set(absNode.getNumber());
+            nodeList.add(absNode);
+        }
+
+        TLongHashSet edgeKeys = new TLongHashSet();
+        List<AbstractEdge> edgeList = new ArrayList<AbstractEdge>(edges.length);
+        for (Edge edge : edges) {
+            if (edge == null) {
+                throw new IllegalArgumentException("edge can't be null");
+            }
+            AbstractEdge absEdge = (AbstractEdge) edge;
+            if (absEdge.isMetaEdge()) {
+                throw new IllegalArgumentException("Edge can't be a meta edge");
+            }
+            AbstractNode source = absEdge.getSource(viewId);
+            AbstractNode target = absEdge.getTarget(viewId);
+            if ((source == null && !newNodes.get(absEdge.getSource().getNumber()))
+                    || (target == null && !newNodes.get(absEdge.getTarget().getNumber()))) {
+                throw new IllegalArgumentException("Nodes must be in the graph");
+            }
+            if (checkNewEdge(absEdge, source, target, edgeKeys)) {
+                edgeList.add(absEdge);
+            }
+        }
+        if (nodeList.isEmpty() && edgeList.isEmpty()) {
+            return false;
+        }
+
+        //Nodes and edges are valid, the graph can be modified
+        AbstractNode[] absNodes = nodeList.toArray(new AbstractNode[0]);
+        for (int i = 0; i < absNodes.length; i++) {
+            AbstractNode absNode = absNodes[i];
+            if (absNode.avlNode != null) { //exist in another view
+                absNodes[i] = absNode = new AbstractNode(absNode.getNodeData(), viewId);
+            }
+            if (!absNode.getNodeData().hasAttributes()) {
+                absNode.getNodeData().setAttributes(dhns.factory().newNodeAttributes(absNode.getNodeData()));
+            }
+        }
+        AbstractEdge[] absEdges = edgeList.toArray(new AbstractEdge[0]);
+        for (AbstractEdge absEdge : absEdges) {
+            if (!absEdge.hasAttributes()) {
+                absEdge.setAttributes(dhns.factory().newEdgeAttributes(absEdge.getEdgeData()));
+            }
+        }
+        view.getStructureModifier().addAll(absNodes, absEdges);
+        for (AbstractEdge absEdge : absEdges) {
+            touchEdge(absEdge);
+        }
+        return true;
+    }
+
+    /**
+     * Checks if <code>edge</code> can be added to the graph by {@link #addAll(Node[], Edge[])}.
+     * The <code>source</code> and <code>target</code> nodes are <code>null</code> if they are added
+     * in the same call. Keys of edges previously accepted in the call are in <code>edgeKeys</code>,
+     * see {@link #edgeKey(AbstractNode, AbstractNode)}.
+     * @return true if the edge can be added, false if it already exists
+     * @throws IllegalArgumentException if the edge type is not legal for this graph
+     */
+    protected abstract boolean checkNewEdge(AbstractEdge edge, AbstractNode source, AbstractNode target, TLongHashSet edgeKeys);
+
+    protected abstract void touchEdge(AbstractEdge edge);
+
+    protected static long edgeKey(AbstractNode source, AbstractNode target) {
+        return ((long) source.getNumber() << 32) | (target.getNumber() & 0xFFFFFFFFL);
+    }
+
     public boolean contains(Node node) {
         if (node == null) {
             throw new NullPointerException();
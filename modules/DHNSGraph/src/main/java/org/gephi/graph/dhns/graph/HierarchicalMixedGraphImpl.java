@@ -41,6 +41,7 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.graph.dhns.graph;
 
+import gnu.trove.TLongHashSet;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.EdgeIterable;
 import org.gephi.graph.api.HierarchicalMixedGraph;
@@ -108,6 +109,41 @@ public class HierarchicalMixedGraphImpl extends HierarchicalGraphImpl implements
         return true;
     }
 
+    @Override
+    protected boolean checkNewEdge(AbstractEdge edge, AbstractNode source, AbstractNode target, TLongHashSet edgeKeys) {
+        if (source != null && target != null) {
+            if (checkEdgeExist(source, target)) {
+                //Edge already exist
+                return false;
+            }
+            AbstractEdge symmetricEdge = getSymmetricEdge(edge);
+            if (symmetricEdge != null && (!symmetricEdge.isDirected() || !edge.isDirected())) {
+                //The symmetric edge exist and is undirected
+                return false;
+            }
+        }
+        //Undirected edges take both directions
+        long key = edgeKey(edge.getSource(), edge.getTarget());
+        long symmetricKey = edgeKey(edge.getTarget(), edge.getSource());
+        if (edgeKeys.contains(key) || (!edge.isDirected() && edgeKeys.contains(symmetricKey))) {
+            return false;
+        }
+        edgeKeys.add(key);
+        if (!edge.isDirected()) {
+            edgeKeys.add(symmetricKey);
+        }
+        return true;
+    }
+
+    @Override
+    protected void touchEdge(AbstractEdge edge) {
+        if (edge.isDirected()) {
+            dhns.touchDirected();
+        } else {
+            dhns.touchUndirected();
+        }
+    }
+
     public boolean addEdge(Node source, Node target, boolean directed) {
         AbstractNode absSource = checkNode(source);
         AbstractNode absTarget = checkNode(target);
@@ -164,14 +200,32 @@ public class HierarchicalMixedGraphImpl extends HierarchicalGraphImpl implements
         if (node1 == null || node2 == null) {
             return null;
         }
+        long stamp = dhns.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                AbstractEdge res = findEdge(checkNode(node1), checkNode(node2));
+                if (dhns.validate(stamp)) {
+                    return res;
+                }
+            } catch (NullPointerException ex) {
+                //Torn read during a concurrent write, retry with the read lock
+            } catch (IndexOutOfBoundsException ex) {
+                //Torn read during a concurrent write, retry with the read lock
+            }
+        }
         readLock();
-        AbstractNode sourceNode = checkNode(node1);
-        AbstractNode targetNode = checkNode(node2);
-        AbstractEdge res = sourceNode.getEdgesOutTree().getItem(targetNode.getNumber());
+        try {
+            return findEdge(checkNode(node1), checkNode(node2));
+        } finally {
+            readUnlock();
+        }
+    }
+
+    private AbstractEdge findEdge(AbstractNode sourceNode, AbstractNode targetNode) {
+        AbstractEdge res = getOutEdge(sourceNode, targetNode);
         if (res == null) {
-            res = sourceNode.getEdgesInTree().getItem(targetNode.getNumber());
+            res = getOutEdge(targetNode, sourceNode);
         }
-        readUnlock();
         return res;
     }
 
@@ -206,23 +260,77 @@ public class HierarchicalMixedGraphImpl extends HierarchicalGraphImpl implements
     }
 
     public int getDegree(Node node) {
-        AbstractNode absNode = checkNode(node);
-        int count = absNode.getEdgesInTree().getCount() + absNode.getEdgesOutTree().getCount();
-        return count;
+        long stamp = dhns.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                AbstractNode absNode = checkNode(node);
+                int count = absNode.getEdgesInTree().getCount() + absNode.getEdgesOutTree().getCount();
+                if (dhns.validate(stamp)) {
+                    return count;
+                }
+            } catch (NullPointerException ex) {
+                //Torn read during a concurrent write, retry with the read lock
+            } catch (IndexOutOfBoundsException ex) {
+                //Torn read during a concurrent write, retry with the read lock
+            }
+        }
+        readLock();
+        try {
+            AbstractNode absNode = checkNode(node);
+            return absNode.getEdgesInTree().getCount() + absNode.getEdgesOutTree().getCount();
+        } finally {
+            readUnlock();
+        }
     }
 
     //Directed
     public int getInDegree(Node node) {
-        AbstractNode absNode = checkNode(node);
-        int count = absNode.getEdgesInTree().getCount();
-        return count;
+        long stamp = dhns.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                AbstractNode absNode = checkNode(node);
+                int count = absNode.getEdgesInTree().getCount();
+                if (dhns.validate(stamp)) {
+                    return count;
+                }
+            } catch (NullPointerException ex) {
+                //Torn read during a concurrent write, retry with the read lock
+            } catch (IndexOutOfBoundsException ex) {
+                //Torn read during a concurrent write, retry with the read lock
+            }
+        }
+        readLock();
+        try {
+            AbstractNode absNode = checkNode(node);
+            return absNode.getEdgesInTree().getCount();
+        } finally {
+            readUnlock();
+        }
     }
 
     //Directed
     public int getOutDegree(Node node) {
-        AbstractNode absNode = checkNode(node);
-        int count = absNode.getEdgesOutTree().getCount();
-        return count;
+        long stamp = dhns.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                AbstractNode absNode = checkNode(node);
+                int count = absNode.getEdgesOutTree().getCount();
+                if (dhns.validate(stamp)) {
+                    return count;
+                }
+            } catch (NullPointerException ex) {
+                //Torn read during a concurrent write, retry with the read lock
+            } catch (IndexOutOfBoundsException ex) {
+                //Torn read during a concurrent write, retry with the read lock
+            }
+        }
+        readLock();
+        try {
+            AbstractNode absNode = checkNode(node);
+            return absNode.getEdgesOutTree().getCount();
+        } finally {
+            readUnlock();
+        }
     }
 
     public boolean isAdjacent(Node node1, Node node2) {
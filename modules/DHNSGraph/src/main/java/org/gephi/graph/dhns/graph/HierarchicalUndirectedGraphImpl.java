@@ -41,6 +41,7 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.graph.dhns.graph;
 
+import gnu.trove.TLongHashSet;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.EdgeIterable;
 import org.gephi.graph.api.HierarchicalUndirectedGraph;
@@ -92,6 +93,28 @@ public class HierarchicalUndirectedGraphImpl extends HierarchicalGraphImpl imple
         return true;
     }
 
+    @Override
+    protected boolean checkNewEdge(AbstractEdge edge, AbstractNode source, AbstractNode target, TLongHashSet edgeKeys) {
+        if (edge instanceof MixedEdgeImpl && edge.isDirected() && !edge.isSelfLoop()) {
+            throw new IllegalArgumentException("Can't add a directed egde");
+        }
+        if (source != null && target != null && (checkEdgeExist(source, target) || checkEdgeExist(target, source))) {
+            //Edge already exist
+            return false;
+        }
+        //Both directions are taken
+        if (!edgeKeys.add(edgeKey(edge.getSource(), edge.getTarget()))) {
+            return false;
+        }
+        edgeKeys.add(edgeKey(edge.getTarget(), edge.getSource()));
+        return true;
+    }
+
+    @Override
+    protected void touchEdge(AbstractEdge edge) {
+        dhns.touchUndirected();
+    }
+
     public boolean addEdge(Node node1, Node node2) {
         AbstractNode absNode1 = checkNode(node1);
         AbstractNode absNode2 = checkNode(node2);
@@ -158,9 +181,27 @@ public class HierarchicalUndirectedGraphImpl extends HierarchicalGraphImpl imple
     }
 
     public int getDegree(Node node) {
-        AbstractNode absNode = checkNode(node);
-        int count = absNode.getEnabledInDegree() + absNode.getEnabledOutDegree() - absNode.getEnabledMutualDegree();
-        return count;
+        long stamp = dhns.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                AbstractNode absNode = checkNode(node);
+                int count = absNode.getEnabledInDegree() + absNode.getEnabledOutDegree() - absNode.getEnabledMutualDegree();
+                if (dhns.validate(stamp)) {
+                    return count;
+                }
+            } catch (NullPointerException ex) {
+                //Torn read during a concurrent write, retry with the read lock
+            } catch (IndexOutOfBoundsException ex) {
+                //Torn read during a concurrent write, retry with the read lock
+            }
+        }
+        readLock();
+        try {
+            AbstractNode absNode = checkNode(node);
+            return absNode.getEnabledInDegree() + absNode.getEnabledOutDegree() - absNode.getEnabledMutualDegree();
+        } finally {
+            readUnlock();
+        }
     }
 
     public boolean isAdjacent(Node node1, Node node2) {
@@ -180,12 +221,31 @@ public class HierarchicalUndirectedGraphImpl extends HierarchicalGraphImpl imple
         if (node1 == null || node2 == null) {
             return null;
         }
+        long stamp = dhns.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                AbstractEdge res = findEdge(checkNode(node1), checkNode(node2));
+                if (dhns.validate(stamp)) {
+                    return res;
+                }
+            } catch (NullPointerException ex) {
+                //Torn read during a concurrent write, retry with the read lock
+            } catch (IndexOutOfBoundsException ex) {
+                //Torn read during a concurrent write, retry with the read lock
+            }
+        }
         readLock();
-        AbstractNode sourceNode = checkNode(node1);
-        AbstractNode targetNode = checkNode(node2);
+        try {
+            return findEdge(checkNode(node1), checkNode(node2));
+        } finally {
+            readUnlock();
+        }
+    }
+
+    private AbstractEdge findEdge(AbstractNode sourceNode, AbstractNode targetNode) {
         AbstractEdge res = null;
-        AbstractEdge edge1 = sourceNode.getEdgesOutTree().getItem(targetNode.getNumber());
-        AbstractEdge edge2 = sourceNode.getEdgesInTree().getItem(targetNode.getNumber());
+        AbstractEdge edge1 = getOutEdge(sourceNode, targetNode);
+        AbstractEdge edge2 = getOutEdge(targetNode, sourceNode);
         if (edge1 != null && edge2 != null) {
             if (edge1.getId() < edge2.getId()) {
                 res = edge1;
@@ -197,7 +257,6 @@ public class HierarchicalUndirectedGraphImpl extends HierarchicalGraphImpl imple
         } else if (edge2 != null) {
             res = edge2;
         }
-        readUnlock();
         return res;
     }
 
@@ -92,6 +92,10 @@ public class EdgeIterableImpl implements EdgeIterable {
         return list.toArray(new Edge[0]);
     }
 
+    public EdgeIterator[] split(int parts) {
+        return iterator.split(parts);
+    }
+
     public EdgeIteratorImpl getIterator() {
         return iterator;
     }
@@ -84,4 +84,24 @@ public class EdgeIteratorImpl implements EdgeIterator {
     public Lock getLock() {
         return lock;
     }
+
+    /**
+     * Splits the remaining iteration in at most <code>parts</code> iterators without lock.
+     * If the underlying iterator can't be split, it's returned alone.
+     */
+    public EdgeIteratorImpl[] split(int parts) {
+        AbstractEdgeIterator[] iterators = iterator.split(parts);
+        if (iterators == null) {
+            iterators = new AbstractEdgeIterator[]{iterator};
+        }
+        EdgeIteratorImpl[] result = new EdgeIteratorImpl[iterators.length];
+        for (int i = 0; i < iterators.length; i++) {
+            result[i] = newIterator(iterators[i]);
+        }
+        return result;
+    }
+
+    protected EdgeIteratorImpl newIterator(AbstractEdgeIterator iterator) {
+        return new EdgeIteratorImpl(iterator, null);
+    }
 }
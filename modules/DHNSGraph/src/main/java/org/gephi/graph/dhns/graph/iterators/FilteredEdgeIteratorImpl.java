@@ -79,4 +79,9 @@ public class FilteredEdgeIteratorImpl extends EdgeIteratorImpl {
     public Edge next() {
         return pointer;
     }
+
+    @Override
+    protected EdgeIteratorImpl newIterator(AbstractEdgeIterator iterator) {
+        return new FilteredEdgeIteratorImpl(iterator, null, predicate);
+    }
 }
@@ -78,4 +78,9 @@ public class FilteredNodeIteratorImpl extends NodeIteratorImpl {
     public Node next() {
         return pointer;
     }
+
+    @Override
+    protected NodeIteratorImpl newIterator(AbstractNodeIterator iterator) {
+        return new FilteredNodeIteratorImpl(iterator, null, predicate);
+    }
 }
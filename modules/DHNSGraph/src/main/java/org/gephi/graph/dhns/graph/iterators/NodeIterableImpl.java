@@ -91,6 +91,10 @@ public class NodeIterableImpl implements NodeIterable {
         return list.toArray(new Node[0]);
     }
 
+    public NodeIterator[] split(int parts) {
+        return iterator.split(parts);
+    }
+
     public NodeIteratorImpl getIterator() {
         return iterator;
     }
@@ -85,4 +85,24 @@ public class NodeIteratorImpl implements NodeIterator {
     public Lock getLock() {
         return lock;
     }
+
+    /**
+     * Splits the remaining iteration in at most <code>parts</code> iterators without lock.
+     * If the underlying iterator can't be split, it's returned alone.
+     */
+    public NodeIteratorImpl[] split(int parts) {
+        AbstractNodeIterator[] iterators = iterator.split(parts);
+        if (iterators == null) {
+            iterators = new AbstractNodeIterator[]{iterator};
+        }
+        NodeIteratorImpl[] result = new NodeIteratorImpl[iterators.length];
+        for (int i = 0; i < iterators.length; i++) {
+            result[i] = newIterator(iterators[i]);
+        }
+        return result;
+    }
+
+    protected NodeIteratorImpl newIterator(AbstractNodeIterator iterator) {
+        return new NodeIteratorImpl(iterator, null);
+    }
 }
@@ -59,7 +59,7 @@ import org.gephi.graph.dhns.utils.avl.ViewNodeTree;
 public class NodeDataImpl implements NodeData, GroupData {
 
     //Dhns
-    protected final int ID;
+    protected volatile int ID;
     protected final ViewNodeTree nodes;
     //NodeData
     protected LayoutData layoutData;
@@ -92,6 +92,10 @@ public class NodeDataImpl implements NodeData, GroupData {
         return ID;
     }
 
+    public void setID(int ID) {
+        this.ID = ID;
+    }
+
     public ViewNodeTree getNodes() {
         return nodes;
     }
@@ -55,4 +55,14 @@ public abstract class AbstractNodeIterator {
     public abstract AbstractNode next();
 
     public abstract void remove();
+
+    /**
+     * Splits the remaining iteration in at most <code>parts</code> iterators, which can be
+     * consumed concurrently. This iterator is exhausted afterwards.
+     * @param parts the maximum number of iterators
+     * @return the iterators, or <code>null</code> if this iterator can't be split
+     */
+    public AbstractNodeIterator[] split(int parts) {
+        return null;
+    }
 }
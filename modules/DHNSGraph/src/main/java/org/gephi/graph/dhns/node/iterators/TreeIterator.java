@@ -60,6 +60,7 @@ public class TreeIterator extends AbstractNodeIterator implements Iterator<Node>
 
     protected int treeSize;
     protected DurableTreeList treeList;
+    protected int fromIndex;
     protected int nextIndex;
     protected int diffIndex;
     protected DurableAVLNode currentNode;
@@ -69,16 +70,24 @@ public class TreeIterator extends AbstractNodeIterator implements Iterator<Node>
     protected Predicate<AbstractNode> predicate;
 
     public TreeIterator(TreeStructure treeStructure, boolean skipping, Predicate<AbstractNode> predicate) {
-        this.treeList = treeStructure.getTree();
-        nextIndex = 1;
+        this(treeStructure.getTree(), skipping, predicate, 1, treeStructure.getTree().size());
+    }
+
+    /**
+     * Iterator over nodes whose pre is in the <code>[fromIndex, toIndex)</code> range.
+     */
+    protected TreeIterator(DurableTreeList treeList, boolean skipping, Predicate<AbstractNode> predicate, int fromIndex, int toIndex) {
+        this.treeList = treeList;
+        this.fromIndex = fromIndex;
+        nextIndex = fromIndex;
         diffIndex = 2;
-        treeSize = treeList.size();
+        treeSize = toIndex;
         this.skipping = skipping;
         this.predicate = predicate;
     }
 
     public void reset() {
-        nextIndex = 1;
+        nextIndex = fromIndex;
         diffIndex = 2;
     }
 
@@ -118,8 +127,10 @@ public class TreeIterator extends AbstractNodeIterator implements Iterator<Node>
 
     public AbstractNode next() {
         if (skipping) {
-            nextIndex = currentNode.getValue().getPre() + 1 + currentNode.getValue().size;
-            diffIndex = nextIndex - currentNode.getValue().pre;
+            //The current node is at nextIndex, no need to compute its pre
+            int pre = nextIndex;
+            nextIndex = pre + 1 + currentNode.getValue().size;
+            diffIndex = nextIndex - pre;
         } else {
             nextIndex++;
             diffIndex = 1;
@@ -130,4 +141,23 @@ public class TreeIterator extends AbstractNodeIterator implements Iterator<Node>
     public void remove() {
         throw new UnsupportedOperationException();
     }
+
+    /**
+     * Splits the remaining pre range in <code>parts</code> ranges of equal size. With skipping, a
+     * range can start inside the subtree of an enabled node, it's fine as these descendants are
+     * never enabled.
+     */
+    @Override
+    public TreeIterator[] split(int parts) {
+        int length = treeSize - nextIndex;
+        parts = Math.max(1, Math.min(parts, length));
+        TreeIterator[] iterators = new TreeIterator[parts];
+        for (int i = 0; i < parts; i++) {
+            int from = nextIndex + (int) ((long) length * i / parts);
+            int to = nextIndex + (int) ((long) length * (i + 1) / parts);
+            iterators[i] = new TreeIterator(treeList, skipping, predicate, from, to);
+        }
+        nextIndex = treeSize;
+        return iterators;
+    }
 }
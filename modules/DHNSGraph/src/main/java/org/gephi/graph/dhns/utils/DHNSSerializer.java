@@ -45,6 +45,7 @@ import java.beans.XMLDecoder;
 import java.beans.XMLEncoder;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
 import java.util.Map.Entry;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
@@ -64,9 +65,20 @@ import org.gephi.graph.dhns.edge.ProperEdgeImpl;
 import org.gephi.graph.dhns.edge.SelfLoopImpl;
 import org.gephi.graph.dhns.node.AbstractNode;
 import org.gephi.graph.dhns.node.iterators.TreeListIterator;
+import org.gephi.utils.BlockReader;
+import org.gephi.utils.BlockWriter;
 import org.gephi.utils.collection.avl.ParamAVLIterator;
 
 /**
+ * Reads and writes the graph structure of a {@link Dhns}. The tree structure and edges
+ * are written either as XML elements, or in a compact binary encoding split in
+ * compressed blocks, see {@link BlockWriter}. XML is written by default as older
+ * versions can read it. Both formats can be read.
+ * <p>
+ * The binary encoding starts with a <code>DHNS</code> magic number and a version. Nodes
+ * are written in pre-order, with their id as a delta from the previous node and their
+ * parent as a delta from their pre. Edges are grouped by source, with their target pre
+ * and id as deltas from the previous edge.
  *
  * @author Mathieu Bastian
  */
@@ -88,6 +100,30 @@ public class DHNSSerializer {
     private static final String ELEMENT_SETTINGS = "Settings";
     private static final String ELEMENT_SETTINGS_PROPERTY = "Property";
     private static final String ELEMENT_IDGEN = "IDGen";
+    private static final String ELEMENT_BINARY = "Binary";
+    private static final int BINARY_MAGIC = 0x44484E53;
+    private static final int BINARY_VERSION = 1;
+    private static final int EDGE_PROPER = 0;
+    private static final int EDGE_SELFLOOP = 1;
+    private static final int EDGE_MIXED_DIRECTED = 2;
+    private static final int EDGE_MIXED_UNDIRECTED = 3;
+    private static final int EDGE_DEFAULT_WEIGHT = 4;
+    private final boolean binary;
+
+    /**
+     * Writes XML elements, readable by older versions.
+     */
+    public DHNSSerializer() {
+        this(false);
+    }
+
+    /**
+     * @param binary <code>true</code> to write the tree structure and edges in the binary
+     * encoding, <code>false</code> to write them as XML elements
+     */
+    public DHNSSerializer(boolean binary) {
+        this.binary = binary;
+    }
 
     public void writeDhns(XMLStreamWriter writer, Dhns dhns) throws XMLStreamException {
         writer.writeStartElement(ELEMENT_DHNS);
@@ -102,8 +138,12 @@ public class DHNSSerializer {
         writeIDGen(writer, dhns.getIdGen());
         writeSettings(writer, dhns.getSettingsManager());
         writeGraphVersion(writer, dhns.getGraphVersion());
-        writeTreeStructure(writer, dhns.getGraphStructure().getMainView());
-        writeEdges(writer, dhns.getGraphStructure().getMainView().getStructure());
+        if (binary) {
+            writeBinary(writer, dhns.getGraphStructure().getMainView());
+        } else {
+            writeTreeStructure(writer, dhns.getGraphStructure().getMainView());
+            writeEdges(writer, dhns.getGraphStructure().getMainView().getStructure());
+        }
 
         for (GraphViewImpl view : dhns.getGraphStructure().getViews()) {
             if (view != dhns.getGraphStructure().getMainView()) {
@@ -141,6 +181,8 @@ public class DHNSSerializer {
                     readTreeStructure(reader, dhns.getGraphStructure(), dhns.factory());
                 } else if (ELEMENT_EDGES.equalsIgnoreCase(name)) {
                     readEdges(reader, dhns.getGraphStructure(), dhns.factory());
+                } else if (ELEMENT_BINARY.equalsIgnoreCase(name)) {
+                    readBinary(reader, dhns.getGraphStructure(), dhns.factory());
                 } else if (ELEMENT_VIEW.equalsIgnoreCase(name)) {
 //                    readGraphView(reader, dhns.getGraphStructure());
                 }
@@ -150,6 +192,9 @@ public class DHNSSerializer {
                 }
             }
         }
+
+        //Edges are read after settings
+        dhns.getGraphStructure().getMainView().setEdgeIndexEnabled(dhns.getSettingsManager().isEdgeIndex());
     }
 
     public void writeEdges(XMLStreamWriter writer, TreeStructure treeStructure) throws XMLStreamException {
@@ -309,6 +354,192 @@ public class DHNSSerializer {
         }
     }
 
+    public void writeBinary(XMLStreamWriter writer, GraphViewImpl view) throws XMLStreamException {
+        writer.writeStartElement(ELEMENT_BINARY);
+        BlockWriter out = new BlockWriter(writer);
+        out.write(BINARY_MAGIC >>> 24);
+        out.write(BINARY_MAGIC >>> 16);
+        out.write(BINARY_MAGIC >>> 8);
+        out.write(BINARY_MAGIC);
+        out.writeVarInt(BINARY_VERSION);
+
+        //Tree structure
+        TreeStructure treeStructure = view.getStructure();
+        out.writeVarInt(view.getEdgesCountEnabled());
+        out.writeVarInt(view.getEdgesCountTotal());
+        out.writeVarInt(view.getMutualEdgesEnabled());
+        out.writeVarInt(view.getMutualEdgesTotal());
+        out.writeVarInt(view.getNodesEnabled());
+        out.writeVarInt(treeStructure.getTreeSize() - 1);
+        int previousId = 0;
+        int pre = 1;
+        for (TreeListIterator itr = new TreeListIterator(treeStructure.getTree(), 1); itr.hasNext(); pre++) {
+            AbstractNode node = itr.next();
+            out.writeZigZag(node.getId() - previousId);
+            out.writeVarInt(pre - node.parent.pre);
+            out.write(node.isEnabled() ? 1 : 0);
+            out.writeVarInt(node.getEnabledInDegree());
+            out.writeVarInt(node.getEnabledOutDegree());
+            out.writeVarInt(node.getEnabledMutualDegree());
+            previousId = node.getId();
+        }
+
+        //Edges, pre are consistent after the tree iteration
+        ParamAVLIterator<AbstractEdge> edgeIterator = new ParamAVLIterator<AbstractEdge>();
+        out.writeVarInt(view.getEdgesCountTotal());
+        int previousEdgeId = 0;
+        for (TreeListIterator itr = new TreeListIterator(treeStructure.getTree(), 1); itr.hasNext();) {
+            AbstractNode node = itr.next();
+            out.writeVarInt(node.getEdgesOutTree().getCount());
+            int previousTarget = node.pre;
+            for (edgeIterator.setNode(node.getEdgesOutTree()); edgeIterator.hasNext();) {
+                AbstractEdge edge = edgeIterator.next();
+                int kind;
+                if (edge.isSelfLoop()) {
+                    kind = EDGE_SELFLOOP;
+                } else if (edge.isMixed()) {
+                    kind = edge.isDirected() ? EDGE_MIXED_DIRECTED : EDGE_MIXED_UNDIRECTED;
+                } else {
+                    kind = EDGE_PROPER;
+                }
+                if (edge.getWeight() == 1f) {
+                    kind |= EDGE_DEFAULT_WEIGHT;
+                }
+                out.write(kind);
+                int target = edge.getTarget().getPre();
+                out.writeZigZag(target - previousTarget);
+                out.writeZigZag(edge.getId() - previousEdgeId);
+                if ((kind & EDGE_DEFAULT_WEIGHT) == 0) {
+                    out.writeFloat(edge.getWeight());
+                }
+                previousTarget = target;
+                previousEdgeId = edge.getId();
+            }
+        }
+        out.close();
+        writer.writeEndElement();
+    }
+
+    public void readBinary(XMLStreamReader reader, GraphStructure graphStructure, GraphFactoryImpl factory) throws XMLStreamException {
+        BlockReader in = new BlockReader(reader);
+        int magic = in.read() << 24 | in.read() << 16 | in.read() << 8 | in.read();
+        if (magic != BINARY_MAGIC) {
+            throw new XMLStreamException("Not a DHNS binary stream");
+        }
+        int version = in.readVarInt();
+        if (version > BINARY_VERSION) {
+            throw new XMLStreamException("Unsupported DHNS binary version " + version);
+        }
+
+        //Tree structure
+        GraphViewImpl view = graphStructure.getMainView();
+        TreeStructure treeStructure = view.getStructure();
+        view.setEdgesCountEnabled(in.readVarInt());
+        view.setEdgesCountTotal(in.readVarInt());
+        view.setMutualEdgesEnabled(in.readVarInt());
+        view.setMutualEdgesTotal(in.readVarInt());
+        view.setNodesEnabled(in.readVarInt());
+        AbstractNode root = treeStructure.getRoot();
+        AbstractNode[] nodes = new AbstractNode[in.readVarInt()];
+        int[] parents = new int[nodes.length];
+        boolean flat = true;
+        int id = 0;
+        for (int i = 0; i < nodes.length; i++) {
+            id += in.readZigZag();
+            int parentPre = i + 1 - in.readVarInt();
+            AbstractNode parentNode = parentPre == 0 ? root : nodes[parentPre - 1];
+            AbstractNode absNode = new AbstractNode(id, 0, 0, 0, 0, parentNode);
+            absNode.setEnabled(in.read() == 1);
+            absNode.setEnabledInDegree(in.readVarInt());
+            absNode.setEnabledOutDegree(in.readVarInt());
+            absNode.setEnabledMutualDegree(in.readVarInt());
+            absNode.getNodeData().setAttributes(factory.newNodeAttributes(absNode.getNodeData()));
+            absNode.getNodeData().setId(String.valueOf(absNode.getId()));
+            absNode.getNodeData().setTextData(factory.newTextData());
+            nodes[i] = absNode;
+            parents[i] = parentPre;
+            flat &= parentPre == 0;
+        }
+        if (flat) {
+            treeStructure.insertAsChildren(nodes, root);
+        } else {
+            for (int i = 0; i < nodes.length; i++) {
+                treeStructure.insertAsChild(nodes[i], parents[i] == 0 ? root : nodes[parents[i] - 1]);
+            }
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            graphStructure.addToDictionnary(nodes[i]);
+        }
+
+        //Edges, out trees are built at once per source and in trees at the end
+        AbstractEdge[] edges = new AbstractEdge[in.readVarInt()];
+        int[] targets = new int[edges.length];
+        int e = 0;
+        int edgeId = 0;
+        for (int i = 0; i < nodes.length; i++) {
+            AbstractNode srcNode = nodes[i];
+            int count = in.readVarInt();
+            if (e + count > edges.length) {
+                edges = Arrays.copyOf(edges, e + count);
+                targets = Arrays.copyOf(targets, e + count);
+            }
+            int target = i + 1;
+            for (int j = 0; j < count; j++) {
+                int kind = in.read();
+                target += in.readZigZag();
+                edgeId += in.readZigZag();
+                float weight = (kind & EDGE_DEFAULT_WEIGHT) != 0 ? 1f : in.readFloat();
+                AbstractNode destNode = nodes[target - 1];
+                AbstractEdge edge;
+                switch (kind & ~EDGE_DEFAULT_WEIGHT) {
+                    case EDGE_SELFLOOP:
+                        edge = new SelfLoopImpl(edgeId, srcNode);
+                        break;
+                    case EDGE_MIXED_DIRECTED:
+                        edge = new MixedEdgeImpl(edgeId, srcNode, destNode, true);
+                        break;
+                    case EDGE_MIXED_UNDIRECTED:
+                        edge = new MixedEdgeImpl(edgeId, srcNode, destNode, false);
+                        break;
+                    default:
+                        edge = new ProperEdgeImpl(edgeId, srcNode, destNode);
+                }
+                edge.getEdgeData().setAttributes(factory.newEdgeAttributes(edge.getEdgeData()));
+                edge.getEdgeData().setId(String.valueOf(edge.getId()));
+                edge.getEdgeData().setTextData(factory.newTextData());
+                edge.setWeight(weight);
+                graphStructure.addToDictionnary(edge);
+                targets[e] = target - 1;
+                edges[e++] = edge;
+            }
+            if (count > 0) {
+                srcNode.getEdgesOutTree().addAll(edges, e - count, count);
+            }
+        }
+        in.close();
+
+        //In trees, edges are bucketed by target
+        int[] offsets = new int[nodes.length + 1];
+        for (int i = 0; i < e; i++) {
+            offsets[targets[i] + 1]++;
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] positions = Arrays.copyOf(offsets, nodes.length);
+        AbstractEdge[] inEdges = new AbstractEdge[e];
+        for (int i = 0; i < e; i++) {
+            inEdges[positions[targets[i]]++] = edges[i];
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            int count = offsets[i + 1] - offsets[i];
+            if (count > 0) {
+                nodes[i].getEdgesInTree().addAll(inEdges, offsets[i], count);
+            }
+        }
+        graphStructure.getMainView().getStructureModifier().getEdgeProcessor().computeMetaEdges();
+    }
+
     public void writeGraphView(XMLStreamWriter writer, GraphViewImpl graphView) throws XMLStreamException {
         writer.writeStartElement(ELEMENT_VIEW);
         writer.writeAttribute("id", String.valueOf(graphView.getViewId()));
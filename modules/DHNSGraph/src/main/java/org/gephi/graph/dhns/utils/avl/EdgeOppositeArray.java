@@ -0,0 +1,194 @@
+/*
+Copyright 2008-2010 Gephi
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+*/
+package org.gephi.graph.dhns.utils.avl;
+
+import java.util.Arrays;
+import org.gephi.graph.dhns.edge.AbstractEdge;
+import org.gephi.graph.dhns.node.AbstractNode;
+
+/**
+ * Array-based version of {@link EdgeOppositeTree}. Edges are stored in an array sorted by neighbour's
+ * number, with neighbours' numbers in a parallel <code>int</code> array. Lookups are binary searches
+ * on the numbers and iteration is sequential, without the per-edge node objects of the AVL tree.
+ * <p>
+ * Insertion and removal are linear in the node's degree, it's designed for graphs which are mostly
+ * loaded once and then read. Arrays grow by half their size when full.
+ */
+public class EdgeOppositeArray extends EdgeOppositeTree {
+
+    private static final AbstractEdge[] EMPTY_EDGES = new AbstractEdge[0];
+    private static final int[] EMPTY_NUMBERS = new int[0];
+    private AbstractEdge[] edges = EMPTY_EDGES;
+    private int[] numbers = EMPTY_NUMBERS;
+
+    public EdgeOppositeArray(AbstractNode owner) {
+        super(owner);
+    }
+
+    public EdgeOppositeArray(EdgeOppositeTree tree) {
+        super(tree.getOwner());
+        AbstractEdge[] items = tree.toArray(EMPTY_EDGES);
+        addAll(items, 0, items.length);
+    }
+
+    @Override
+    public boolean add(AbstractEdge item) {
+        int number = getAccessor().getNumber(item);
+        int index = Arrays.binarySearch(numbers, 0, count, number);
+        if (index >= 0) {
+            return false;
+        }
+        index = -index - 1;
+        ensureCapacity(count + 1);
+        System.arraycopy(edges, index, edges, index + 1, count - index);
+        System.arraycopy(numbers, index, numbers, index + 1, count - index);
+        edges[index] = item;
+        numbers[index] = number;
+        count++;
+        return true;
+    }
+
+    @Override
+    public int addAll(AbstractEdge[] items, int offset, int length) {
+        if (count > 0 || length < 2) {
+            int added = 0;
+            ensureCapacity(count + length);
+            for (int i = offset; i < offset + length; i++) {
+                if (add(items[i])) {
+                    added++;
+                }
+            }
+            return added;
+        }
+
+        //Sort on number, index is kept in the low bits
+        long[] keys = new long[length];
+        for (int i = 0; i < length; i++) {
+            keys[i] = ((long) getAccessor().getNumber(items[offset + i]) << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        edges = new AbstractEdge[length];
+        numbers = new int[length];
+        for (int i = 0; i < length; i++) {
+            int number = (int) (keys[i] >> 32);
+            if (count > 0 && numbers[count - 1] == number) {
+                continue;
+            }
+            edges[count] = items[offset + (int) keys[i]];
+            numbers[count] = number;
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public boolean remove(AbstractEdge item) {
+        int index = Arrays.binarySearch(numbers, 0, count, getAccessor().getNumber(item));
+        if (index < 0) {
+            return false;
+        }
+        count--;
+        System.arraycopy(edges, index + 1, edges, index, count - index);
+        System.arraycopy(numbers, index + 1, numbers, index, count - index);
+        edges[count] = null;
+        return true;
+    }
+
+    @Override
+    public boolean contains(AbstractEdge item) {
+        return Arrays.binarySearch(numbers, 0, count, getAccessor().getNumber(item)) >= 0;
+    }
+
+    @Override
+    public AbstractEdge getItem(int number) {
+        int index = Arrays.binarySearch(numbers, 0, count, number);
+        return index >= 0 ? edges[index] : null;
+    }
+
+    @Override
+    public void clear() {
+        edges = EMPTY_EDGES;
+        numbers = EMPTY_NUMBERS;
+        count = 0;
+    }
+
+    @Override
+    public AbstractEdge[] toArray(AbstractEdge[] array) {
+        AbstractEdge[] result = (AbstractEdge[]) java.lang.reflect.Array.newInstance(array.getClass().getComponentType(), count);
+        System.arraycopy(edges, 0, result, 0, count);
+        return result;
+    }
+
+    @Override
+    protected Object[] getSortedArray() {
+        return edges;
+    }
+
+    public void trimToSize() {
+        if (edges.length > count) {
+            edges = count == 0 ? EMPTY_EDGES : Arrays.copyOf(edges, count);
+            numbers = count == 0 ? EMPTY_NUMBERS : Arrays.copyOf(numbers, count);
+        }
+    }
+
+    /**
+     * Reloads neighbours' numbers from the edges. Nodes must have been renumbered in the same
+     * order, so the array is still sorted.
+     */
+    public void refreshNumbers() {
+        for (int i = 0; i < count; i++) {
+            numbers[i] = getAccessor().getNumber(edges[i]);
+        }
+    }
+
+    public int getCapacity() {
+        return edges.length;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > edges.length) {
+            int newCapacity = Math.max(capacity, edges.length + (edges.length >> 1) + 1);
+            edges = Arrays.copyOf(edges, newCapacity);
+            numbers = Arrays.copyOf(numbers, newCapacity);
+        }
+    }
+}
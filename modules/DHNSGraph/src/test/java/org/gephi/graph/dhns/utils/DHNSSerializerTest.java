@@ -0,0 +1,209 @@
+/*
+Copyright 2008-2010 Gephi
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.graph.dhns.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import org.gephi.graph.api.GraphFactory;
+import org.gephi.graph.api.HierarchicalMixedGraph;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.dhns.DhnsGraphController;
+import org.gephi.graph.dhns.core.Dhns;
+import org.gephi.graph.dhns.core.GraphViewImpl;
+import org.gephi.graph.dhns.edge.AbstractEdge;
+import org.gephi.graph.dhns.node.AbstractNode;
+import org.gephi.graph.dhns.node.iterators.TreeListIterator;
+import org.gephi.utils.collection.avl.ParamAVLIterator;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Writes a random mixed and hierarchical graph in both formats and reads it
+ * back in a new <code>Dhns</code>, the two structures are compared through a
+ * description of their tree, edges, degrees and counters.
+ */
+public class DHNSSerializerTest {
+
+    @Test
+    public void testXmlRoundTrip() throws Exception {
+        roundTrip(false);
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws Exception {
+        roundTrip(true);
+    }
+
+    @Test
+    public void testEmptyGraph() throws Exception {
+        for (boolean binary : new boolean[]{false, true}) {
+            Dhns source = new Dhns(new DhnsGraphController(), null);
+            Dhns target = new Dhns(new DhnsGraphController(), null);
+            read(target, write(source, binary));
+            assertEquals(describe(source, true), describe(target, true));
+            assertEquals(0, target.getGraphStructure().getMainView().getStructure().getTreeSize() - 1);
+            source.getEventManager().stop(true);
+            target.getEventManager().stop(true);
+        }
+    }
+
+    private void roundTrip(boolean binary) throws XMLStreamException {
+        Dhns source = new Dhns(new DhnsGraphController(), null);
+        createGraph(source, new Random(42));
+        Dhns target = new Dhns(new DhnsGraphController(), null);
+        read(target, write(source, binary));
+
+        assertEquals(describe(source, true), describe(target, true));
+        assertEquals(source.getIdGen().getNodeGen(), target.getIdGen().getNodeGen());
+        //Meta edges take new ids when they are computed again
+        assertTrue(source.getIdGen().getEdgeGen() <= target.getIdGen().getEdgeGen());
+        assertEquals(source.isMixed(), target.isMixed());
+
+        //The read graph is modified like the source one
+        modify(source);
+        modify(target);
+        assertEquals(describe(source, false), describe(target, false));
+
+        source.getEventManager().stop(true);
+        target.getEventManager().stop(true);
+    }
+
+    /**
+     * Random directed and undirected edges, self-loops and mutual edges,
+     * with and without the default weight, and two groups so that there are
+     * disabled nodes and meta edges.
+     */
+    private static void createGraph(Dhns dhns, Random random) {
+        HierarchicalMixedGraph graph = dhns.getHierarchicalMixedGraph();
+        GraphFactory factory = dhns.factory();
+        List<Node> nodes = new ArrayList<Node>();
+        for (int i = 0; i < 60; i++) {
+            Node node = factory.newNode();
+            graph.addNode(node);
+            nodes.add(node);
+        }
+        for (int i = 0; i < 300; i++) {
+            Node source = nodes.get(random.nextInt(nodes.size()));
+            Node target = random.nextInt(20) == 0 ? source : nodes.get(random.nextInt(nodes.size()));
+            float weight = random.nextBoolean() ? 1f : random.nextFloat() * 10;
+            boolean directed = random.nextInt(4) != 0;
+            graph.addEdge(factory.newEdge(source, target, weight, directed));
+            if (directed && source != target && random.nextInt(10) == 0) {
+                graph.addEdge(factory.newEdge(target, source, weight, true));
+            }
+        }
+        graph.groupNodes(nodes.subList(0, 10).toArray(new Node[0]));
+        Node group = graph.groupNodes(nodes.subList(10, 15).toArray(new Node[0]));
+        graph.groupNodes(new Node[]{group, nodes.get(20)});
+        graph.expand(group);
+        assertTrue(graph.getTotalEdgeCount() > 0);
+    }
+
+    private static void modify(Dhns dhns) {
+        HierarchicalMixedGraph graph = dhns.getHierarchicalMixedGraph();
+        Node[] topNodes = graph.getTopNodes().toArray();
+        Node node = dhns.factory().newNode();
+        graph.addNode(node);
+        graph.addEdge(dhns.factory().newEdge(node, topNodes[0], 2f, true));
+        graph.addEdge(dhns.factory().newEdge(topNodes[1], node, 1f, false));
+        graph.removeNode(topNodes[2]);
+    }
+
+    private static byte[] write(Dhns dhns, boolean binary) throws XMLStreamException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(output, "UTF-8");
+        writer.writeStartDocument("UTF-8", "1.0");
+        new DHNSSerializer(binary).writeDhns(writer, dhns);
+        writer.writeEndDocument();
+        writer.close();
+        return output.toByteArray();
+    }
+
+    private static void read(Dhns dhns, byte[] serialized) throws XMLStreamException {
+        XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(new ByteArrayInputStream(serialized), "UTF-8");
+        //Both formats are read by the same serializer
+        new DHNSSerializer().readDhns(reader, dhns);
+        reader.close();
+    }
+
+    private static String describe(Dhns dhns, boolean edgeIds) {
+        GraphViewImpl view = dhns.getGraphStructure().getMainView();
+        StringBuilder builder = new StringBuilder();
+        builder.append("edges=").append(view.getEdgesCountEnabled()).append('/').append(view.getEdgesCountTotal());
+        builder.append(" mutual=").append(view.getMutualEdgesEnabled()).append('/').append(view.getMutualEdgesTotal());
+        builder.append(" nodes=").append(view.getNodesEnabled());
+        builder.append(" meta=").append(view.getMetaEdgesCountTotal()).append('/').append(view.getMutualMetaEdgesTotal());
+        builder.append('\n');
+
+        List<String> edges = new ArrayList<String>();
+        ParamAVLIterator<AbstractEdge> edgeIterator = new ParamAVLIterator<AbstractEdge>();
+        for (TreeListIterator itr = new TreeListIterator(view.getStructure().getTree(), 1); itr.hasNext();) {
+            AbstractNode node = itr.next();
+            builder.append(node.getId()).append(" parent=").append(node.parent.getId());
+            builder.append(" level=").append(node.level).append(" enabled=").append(node.isEnabled());
+            builder.append(" degrees=").append(node.getEnabledInDegree()).append('/').append(node.getEnabledOutDegree());
+            builder.append('/').append(node.getEnabledMutualDegree());
+            builder.append(" trees=").append(node.getEdgesInTree().getCount()).append('/').append(node.getEdgesOutTree().getCount());
+            builder.append('/').append(node.getMetaEdgesInTree().getCount()).append('/').append(node.getMetaEdgesOutTree().getCount());
+            builder.append('\n');
+            for (edgeIterator.setNode(node.getEdgesOutTree()); edgeIterator.hasNext();) {
+                AbstractEdge edge = edgeIterator.next();
+                edges.add((edgeIds ? edge.getId() + " " : "") + edge.getSource().getId() + "->" + edge.getTarget().getId()
+                        + " " + edge.getClass().getSimpleName() + " directed=" + edge.isDirected()
+                        + " weight=" + edge.getWeight());
+            }
+        }
+        Collections.sort(edges);
+        for (String edge : edges) {
+            builder.append(edge).append('\n');
+        }
+        return builder.toString();
+    }
+}
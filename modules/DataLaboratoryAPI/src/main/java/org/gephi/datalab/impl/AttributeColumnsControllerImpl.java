@@ -57,6 +57,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.gephi.data.attributes.api.AttributeColumn;
 import org.gephi.data.attributes.api.AttributeController;
+import org.gephi.data.attributes.api.AttributeModel;
 import org.gephi.data.attributes.api.AttributeOrigin;
 import org.gephi.data.attributes.api.AttributeRow;
 import org.gephi.data.attributes.api.AttributeTable;
@@ -199,23 +200,33 @@ public class AttributeColumnsControllerImpl implements AttributeColumnsControlle
         final int sourceColumnIndex = sourceColumn.getIndex();
         final int targetColumnIndex = targetColumn.getIndex();
         AttributeType targetType = targetColumn.getType();
-        if (targetType != sourceColumn.getType()) {
-            Object value;
-            for (Attributes row : getTableAttributeRows(table)) {
-                value = row.getValue(sourceColumnIndex);
-                setAttributeValue(value, row, targetColumn);
-            }
-        } else {
-            for (Attributes row : getTableAttributeRows(table)) {
-                row.setValue(targetColumnIndex, row.getValue(sourceColumnIndex));
+        AttributeModel attributeModel = beginBatch();
+        try {
+            if (targetType != sourceColumn.getType()) {
+                Object value;
+                for (Attributes row : getTableAttributeRows(table)) {
+                    value = row.getValue(sourceColumnIndex);
+                    setAttributeValue(value, row, targetColumn);
+                }
+            } else {
+                for (Attributes row : getTableAttributeRows(table)) {
+                    row.setValue(targetColumnIndex, row.getValue(sourceColumnIndex));
+                }
             }
+        } finally {
+            attributeModel.commitBatch();
         }
     }
 
     public void fillColumnWithValue(AttributeTable table, AttributeColumn column, String value) {
         if (canChangeColumnData(column)) {
-            for (Attributes row : getTableAttributeRows(table)) {
-                setAttributeValue(value, row, column);
+            AttributeModel attributeModel = beginBatch();
+            try {
+                for (Attributes row : getTableAttributeRows(table)) {
+                    setAttributeValue(value, row, column);
+                }
+            } finally {
+                attributeModel.commitBatch();
             }
         }
     }
@@ -239,8 +250,13 @@ public class AttributeColumnsControllerImpl implements AttributeColumnsControlle
     public void clearColumnData(AttributeTable table, AttributeColumn column) {
         if (canClearColumnData(column)) {
             final int columnIndex = column.getIndex();
-            for (Attributes attributes : getTableAttributeRows(table)) {
-                attributes.setValue(columnIndex, null);
+            AttributeModel attributeModel = beginBatch();
+            try {
+                for (Attributes attributes : getTableAttributeRows(table)) {
+                    attributes.setValue(columnIndex, null);
+                }
+            } finally {
+                attributeModel.commitBatch();
             }
         }
     }
@@ -286,9 +302,19 @@ public class AttributeColumnsControllerImpl implements AttributeColumnsControlle
     public void negateBooleanColumn(AttributeTable table, AttributeColumn column) {
         AttributeUtils attributeUtils = AttributeUtils.getDefault();
         if (attributeUtils.isColumnOfType(column, AttributeType.BOOLEAN)) {
-            negateColumnBooleanType(table, column);
+            AttributeModel attributeModel = beginBatch();
+            try {
+                negateColumnBooleanType(table, column);
+            } finally {
+                attributeModel.commitBatch();
+            }
         } else if (attributeUtils.isColumnOfType(column, AttributeType.LIST_BOOLEAN)) {
-            negateColumnListBooleanType(table, column);
+            AttributeModel attributeModel = beginBatch();
+            try {
+                negateColumnListBooleanType(table, column);
+            } finally {
+                attributeModel.commitBatch();
+            }
         } else {
             throw new IllegalArgumentException();
         }
@@ -878,6 +904,17 @@ public class AttributeColumnsControllerImpl implements AttributeColumnsControlle
         return column.getOrigin() != AttributeOrigin.COMPUTED && column.getOrigin() != AttributeOrigin.DELEGATE;
     }
 
+    /**
+     * Starts a batch of value changes on the current attribute model, so
+     * operations on a whole column send a single event.
+     * @return the model, to commit the batch
+     */
+    private AttributeModel beginBatch() {
+        AttributeModel attributeModel = Lookup.getDefault().lookup(AttributeController.class).getModel();
+        attributeModel.beginBatch();
+        return attributeModel;
+    }
+
     /**
      * Used to negate the values of a single boolean column.
      */
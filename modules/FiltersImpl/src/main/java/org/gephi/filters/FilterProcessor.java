@@ -42,6 +42,7 @@
 package org.gephi.filters;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.List;
 import org.gephi.filters.api.Range;
@@ -66,6 +67,12 @@ public class FilterProcessor {
                 for (int j = 0; j < input.length; j++) {
                     input[j] = q.getChildAt(j).getResult();
                 }
+            } else if (q instanceof FilterQueryImpl && isMembershipFilter(q.getFilter())) {
+                //Leaves evaluated on the main view, only remaining elements are copied
+                GraphView newView = processMembershipFilter(q.getFilter(), graphModel);
+                views.add(newView);
+                q.setResult(graphModel.getGraph(newView));
+                continue;
             } else {
                 //Leaves
                 GraphView newView = graphModel.newView();
@@ -127,6 +134,76 @@ public class FilterProcessor {
         return finalResult;
     }
 
+    private boolean isMembershipFilter(Filter filter) {
+        if (filter instanceof NodeFilter || filter instanceof EdgeFilter) {
+            return !(filter instanceof NodeFilter && filter instanceof EdgeFilter);
+        }
+        return filter instanceof AttributableFilter;
+    }
+
+    private GraphView processMembershipFilter(Filter filter, GraphModel graphModel) {
+        HierarchicalGraph graph = graphModel.getHierarchicalGraph();
+        boolean nodes = filter instanceof NodeFilter
+                || (filter instanceof AttributableFilter && ((AttributableFilter) filter).getType().equals(AttributableFilter.Type.NODE));
+        if (!init(filter, graph)) {
+            return graphModel.newView();
+        }
+        BitSet removed = new BitSet();
+        if (nodes) {
+            for (Node n : graph.getNodes()) {
+                if (!evaluate(filter, graph, n)) {
+                    removed.set(n.getId());
+                }
+            }
+            finish(filter);
+            return graphModel.newView(removed, null);
+        }
+        for (Edge e : graph.getEdges()) {
+            if (!evaluate(filter, graph, e)) {
+                removed.set(e.getId());
+            }
+        }
+        GraphView view = graphModel.newView(null, removed);
+
+        //Meta edges are specific to each view
+        HierarchicalGraph hgraph = graphModel.getHierarchicalGraph(view);
+        List<Edge> edgesToRemove = new ArrayList<Edge>();
+        for (Edge e : hgraph.getMetaEdges()) {
+            if (!evaluate(filter, hgraph, e)) {
+                edgesToRemove.add(e);
+            }
+        }
+        for (Edge e : edgesToRemove) {
+            hgraph.removeMetaEdge(e);
+        }
+        finish(filter);
+        return view;
+    }
+
+    private boolean evaluate(Filter filter, Graph graph, Node node) {
+        if (filter instanceof NodeFilter) {
+            return ((NodeFilter) filter).evaluate(graph, node);
+        }
+        return ((AttributableFilter) filter).evaluate(graph, node);
+    }
+
+    private boolean evaluate(Filter filter, Graph graph, Edge edge) {
+        if (filter instanceof EdgeFilter) {
+            return ((EdgeFilter) filter).evaluate(graph, edge);
+        }
+        return ((AttributableFilter) filter).evaluate(graph, edge);
+    }
+
+    private void finish(Filter filter) {
+        if (filter instanceof NodeFilter) {
+            ((NodeFilter) filter).finish();
+        } else if (filter instanceof EdgeFilter) {
+            ((EdgeFilter) filter).finish();
+        } else {
+            ((AttributableFilter) filter).finish();
+        }
+    }
+
     private void processAttributableFilter(AttributableFilter attributableFilter, Graph graph) {
         if (((AttributableFilter) attributableFilter).getType().equals(AttributableFilter.Type.NODE)) {
             if (init(attributableFilter, graph)) {
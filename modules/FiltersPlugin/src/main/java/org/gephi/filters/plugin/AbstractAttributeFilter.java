@@ -42,8 +42,14 @@
 package org.gephi.filters.plugin;
 
 import org.gephi.data.attributes.api.AttributeColumn;
+import org.gephi.data.attributes.api.AttributeColumnIndex;
+import org.gephi.data.attributes.api.AttributeController;
+import org.gephi.data.attributes.api.AttributeModel;
+import org.gephi.data.attributes.api.AttributeOrigin;
+import org.gephi.data.attributes.api.AttributeTable;
 import org.gephi.data.attributes.api.AttributeUtils;
 import org.gephi.filters.spi.AttributableFilter;
+import org.openide.util.Lookup;
 
 /**
  *
@@ -53,6 +59,10 @@ public abstract class AbstractAttributeFilter extends AbstractFilter implements
 
     protected AttributeColumn column;
     protected AbstractAttributeFilter.Type type;
+    //Index acquired by getColumnIndex()
+    private AttributeTable indexTable;
+    private AttributeColumn indexColumn;
+    private AttributeColumnIndex columnIndex;
 
     public AbstractAttributeFilter(String name, AttributeColumn column) {
         super(name + " (" + column.getTitle() + ")");
@@ -72,7 +82,52 @@ public abstract class AbstractAttributeFilter extends AbstractFilter implements
     }
 
     public void setColumn(AttributeColumn column) {
+        releaseColumnIndex();
         this.column = column;
         this.type = AttributeUtils.getDefault().isNodeColumn(column) ? Type.NODE : Type.EDGE;
     }
+
+    /**
+     * Returns the index of the column, which is created the first time, or
+     * <code>null</code> if the column can't be indexed. Dynamic columns aren't
+     * indexed, their value depends on the current time interval. The index is
+     * kept by the filter until {@link #releaseColumnIndex()}.
+     *
+     * @return the index of the column, or <code>null</code>
+     */
+    protected AttributeColumnIndex getColumnIndex() {
+        if (column.getType().isDynamicType() || column.getOrigin().equals(AttributeOrigin.DELEGATE)) {
+            return null;
+        }
+        AttributeController attributeController = Lookup.getDefault().lookup(AttributeController.class);
+        AttributeModel model = attributeController != null ? attributeController.getModel() : null;
+        if (model == null) {
+            return null;
+        }
+        AttributeTable table = type == Type.NODE ? model.getNodeTable() : model.getEdgeTable();
+        if (table.getColumn(column.getIndex()) != column) {
+            return null;
+        }
+        if (columnIndex == null || indexTable != table || indexColumn != column) {
+            releaseColumnIndex();
+            columnIndex = table.createColumnIndex(column);
+            indexTable = table;
+            indexColumn = column;
+        }
+        return columnIndex;
+    }
+
+    /**
+     * Releases the index acquired by {@link #getColumnIndex()}. The table
+     * removes it once no other filter uses it. Called when the filter is
+     * destroyed.
+     */
+    public void releaseColumnIndex() {
+        if (columnIndex != null) {
+            indexTable.removeColumnIndex(indexColumn);
+            columnIndex = null;
+            indexTable = null;
+            indexColumn = null;
+        }
+    }
 }
@@ -45,6 +45,7 @@ import javax.swing.Icon;
 import org.gephi.data.attributes.api.AttributeColumn;
 import org.gephi.data.attributes.api.AttributeUtils;
 import org.gephi.filters.spi.Category;
+import org.gephi.filters.spi.Filter;
 import org.openide.util.NbBundle;
 
 /**
@@ -65,4 +66,11 @@ public abstract class AbstractAttributeFilterBuilder extends AbstractFilterBuild
                 description, icon);
         this.column = column;
     }
+
+    @Override
+    public void destroy(Filter filter) {
+        if (filter instanceof AbstractAttributeFilter) {
+            ((AbstractAttributeFilter) filter).releaseColumnIndex();
+        }
+    }
 }
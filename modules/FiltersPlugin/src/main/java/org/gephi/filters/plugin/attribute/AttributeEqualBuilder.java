@@ -123,6 +123,8 @@ public class AttributeEqualBuilder implements CategoryBuilder {
         private boolean useRegex;
         private Pattern regex;
         private DynamicAttributesHelper dynamicHelper = new DynamicAttributesHelper(this, null);
+        //Matching rows, when the column is indexed
+        private AttributeRowSet matchingRows;
 
         public EqualStringFilter(AttributeColumn column) {
             super(NbBundle.getMessage(AttributeEqualBuilder.class, "AttributeEqualBuilder.name"),
@@ -136,6 +138,13 @@ public class AttributeEqualBuilder implements CategoryBuilder {
         public boolean init(Graph graph) {
             HierarchicalGraph hg = (HierarchicalGraph) graph;
             dynamicHelper = new DynamicAttributesHelper(this, hg);
+            matchingRows = null;
+            if (pattern != null && !useRegex && column.getType().equals(AttributeType.STRING)) {
+                AttributeColumnIndex index = getColumnIndex();
+                if (index != null) {
+                    matchingRows = index.getRowSet(pattern);
+                }
+            }
             return true;
         }
 
@@ -143,6 +152,9 @@ public class AttributeEqualBuilder implements CategoryBuilder {
             if (pattern == null) {
                 return true;
             }
+            if (matchingRows != null) {
+                return matchingRows.contains(attributable.getAttributes());
+            }
             Object val = attributable.getAttributes().getValue(column.getIndex());
             val = dynamicHelper.getDynamicValue(val);
             if (val != null && useRegex) {
@@ -154,6 +166,7 @@ public class AttributeEqualBuilder implements CategoryBuilder {
         }
 
         public void finish() {
+            matchingRows = null;
         }
 
         public String getPattern() {
@@ -202,6 +215,8 @@ public class AttributeEqualBuilder implements CategoryBuilder {
         private Number match;
         private Range range;
         private DynamicAttributesHelper dynamicHelper = new DynamicAttributesHelper(this, null);
+        //Matching rows, when the column is indexed
+        private AttributeRowSet matchingRows;
 
         public EqualNumberFilter(AttributeColumn column) {
             super(NbBundle.getMessage(AttributeEqualBuilder.class, "AttributeEqualBuilder.name"), column);
@@ -223,10 +238,20 @@ public class AttributeEqualBuilder implements CategoryBuilder {
                 }
             }
             dynamicHelper = new DynamicAttributesHelper(this, hg);
+            matchingRows = null;
+            if (match != null && match.getClass().equals(column.getType().getType())) {
+                AttributeColumnIndex index = getColumnIndex();
+                if (index != null) {
+                    matchingRows = index.getRowSet(match);
+                }
+            }
             return true;
         }
 
         public boolean evaluate(Graph graph, Attributable attributable) {
+            if (matchingRows != null) {
+                return matchingRows.contains(attributable.getAttributes());
+            }
             Object val = attributable.getAttributes().getValue(column.getIndex());
             val = dynamicHelper.getDynamicValue(val);
             if (val != null) {
@@ -236,6 +261,7 @@ public class AttributeEqualBuilder implements CategoryBuilder {
         }
 
         public void finish() {
+            matchingRows = null;
         }
 
         public Number[] getValues(Graph graph) {
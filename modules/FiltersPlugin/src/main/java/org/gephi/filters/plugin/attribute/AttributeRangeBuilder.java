@@ -46,8 +46,10 @@ import java.util.Arrays;
 import java.util.List;
 import javax.swing.JPanel;
 import org.gephi.data.attributes.api.AttributeColumn;
+import org.gephi.data.attributes.api.AttributeColumnIndex;
 import org.gephi.data.attributes.api.AttributeController;
 import org.gephi.data.attributes.api.AttributeModel;
+import org.gephi.data.attributes.api.AttributeRowSet;
 import org.gephi.data.attributes.api.AttributeUtils;
 import org.gephi.filters.api.FilterLibrary;
 import org.gephi.filters.api.Range;
@@ -118,6 +120,8 @@ public class AttributeRangeBuilder implements CategoryBuilder {
 
         private Range range;
         private DynamicAttributesHelper dynamicHelper = new DynamicAttributesHelper(this, null);
+        //Rows in range, when the column is indexed
+        private AttributeRowSet rowsInRange;
 
         public AttributeRangeFilter(AttributeColumn column) {
             super(NbBundle.getMessage(AttributeRangeBuilder.class, "AttributeRangeBuilder.name"),
@@ -139,10 +143,21 @@ public class AttributeRangeBuilder implements CategoryBuilder {
                 }
             }
             dynamicHelper = new DynamicAttributesHelper(this, hg);
+            rowsInRange = null;
+            if (range != null) {
+                AttributeColumnIndex index = getColumnIndex();
+                if (index != null && index.isSorted()) {
+                    rowsInRange = index.getRowSet(range.getLowerBound(), range.isLeftInclusive(),
+                            range.getUpperBound(), range.isRightInclusive());
+                }
+            }
             return true;
         }
 
         public boolean evaluate(Graph graph, Attributable attributable) {
+            if (rowsInRange != null) {
+                return rowsInRange.contains(attributable.getAttributes());
+            }
             Object val = attributable.getAttributes().getValue(column.getIndex());
             val = dynamicHelper.getDynamicValue(val);
             if (val != null) {
@@ -153,6 +168,7 @@ public class AttributeRangeBuilder implements CategoryBuilder {
         }
 
         public void finish() {
+            rowsInRange = null;
         }
 
         public Number[] getValues(Graph graph) {
@@ -49,9 +49,10 @@ import org.gephi.filters.api.FilterLibrary;
 import org.gephi.filters.api.Range;
 import org.gephi.filters.plugin.AbstractFilter;
 import org.gephi.filters.spi.*;
+import org.gephi.graph.api.DegreeIndex;
 import org.gephi.graph.api.Graph;
-import org.gephi.graph.api.HierarchicalGraph;
 import org.gephi.graph.api.Node;
+import org.gephi.graph.api.UndirectedGraph;
 import org.openide.util.Lookup;
 import org.openide.util.NbBundle;
 import org.openide.util.lookup.ServiceProvider;
@@ -97,6 +98,7 @@ public class DegreeRangeBuilder implements FilterBuilder {
     public static class DegreeRangeFilter extends AbstractFilter implements RangeFilter, NodeFilter {
 
         private Range range;
+        private DegreeIndex degreeIndex;
 
         public DegreeRangeFilter() {
             super(NbBundle.getMessage(DegreeRangeBuilder.class, "DegreeRangeBuilder.name"));
@@ -108,27 +110,37 @@ public class DegreeRangeBuilder implements FilterBuilder {
             if (graph.getNodeCount() == 0) {
                 return false;
             }
+            degreeIndex = graph.getGraphModel().getDegreeIndex(graph.getView());
             return true;
         }
 
         public boolean evaluate(Graph graph, Node node) {
-            int degree = ((HierarchicalGraph) graph).getTotalDegree(node);
+            int degree = getDegree(degreeIndex, graph, node);
             return range.isInRange(degree);
         }
 
         public void finish() {
+            degreeIndex = null;
         }
 
         public Number[] getValues(Graph graph) {
-            HierarchicalGraph hgraph = (HierarchicalGraph) graph;
-            List<Integer> values = new ArrayList<Integer>(((HierarchicalGraph) graph).getNodeCount());
-            for (Node n : hgraph.getNodes()) {
-                int degree = hgraph.getTotalDegree(n);
+            DegreeIndex index = graph.getGraphModel().getDegreeIndex(graph.getView());
+            List<Integer> values = new ArrayList<Integer>(graph.getNodeCount());
+            for (Node n : graph.getNodes()) {
+                int degree = getDegree(index, graph, n);
                 values.add(degree);
             }
             return values.toArray(new Number[0]);
         }
 
+        private static int getDegree(DegreeIndex index, Graph graph, Node node) {
+            int degree = index.getDegree(node);
+            if (graph instanceof UndirectedGraph) {
+                degree -= index.getMutualDegree(node);
+            }
+            return degree;
+        }
+
         public FilterProperty getRangeProperty() {
             return getProperties()[0];
         }
@@ -0,0 +1,145 @@
+/*
+Copyright 2008-2010 Gephi
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+*/
+package org.gephi.graph.api;
+
+/**
+ * Degrees of all nodes of a view, stored in primitive arrays indexed by node
+ * id. Reading a degree is a constant time array access, without the node
+ * lookup of <code>Graph.getDegree()</code> methods, which makes it suited to
+ * filters, rankings and statistics that need the degree of every node.
+ * <p>
+ * Degrees count the edges and meta-edges between enabled nodes of the view,
+ * i.e. the graph as returned by <code>getTotalInDegree()</code> and
+ * <code>getTotalOutDegree()</code> of hierarchical graphs. Self-loops count
+ * in both in and out degrees.
+ * <p>
+ * The index is built once per graph version and cached. Adding or removing an
+ * edge between enabled nodes updates the cached index in place, other
+ * modifications make it obsolete and it's built again on the next call to
+ * {@link GraphModel#getDegreeIndex(org.gephi.graph.api.GraphView)}. Weights
+ * are read when edges are indexed, changing the weight of an edge doesn't
+ * update weighted degrees.
+ * <h3>Degree of every node</h3>
+ * <pre>
+ * DegreeIndex index = model.getDegreeIndex(graph.getView());
+ * for (Node n : graph.getNodes()) {
+ *     int degree = index.getDegree(n);
+ * }
+ * </pre>
+ *
+ * @see GraphModel#getDegreeIndex(org.gephi.graph.api.GraphView)
+ */
+public interface DegreeIndex {
+
+    /**
+     * Returns the view this index has been built from.
+     * @return      the index's view
+     */
+    public GraphView getView();
+
+    /**
+     * Returns the number of incoming edges and meta-edges of <code>node</code>.
+     * @param node  the node to query, must be in the index's view
+     * @return      the in-degree of <code>node</code>
+     */
+    public int getInDegree(Node node);
+
+    /**
+     * Returns the number of outgoing edges and meta-edges of <code>node</code>.
+     * @param node  the node to query, must be in the index's view
+     * @return      the out-degree of <code>node</code>
+     */
+    public int getOutDegree(Node node);
+
+    /**
+     * Returns the number of neighbours of <code>node</code> linked in both
+     * directions.
+     * @param node  the node to query, must be in the index's view
+     * @return      the mutual degree of <code>node</code>
+     */
+    public int getMutualDegree(Node node);
+
+    /**
+     * Returns the sum of in and out degrees of <code>node</code>. Subtract
+     * {@link #getMutualDegree(org.gephi.graph.api.Node)} to count mutual edges
+     * once, as undirected graphs do.
+     * @param node  the node to query, must be in the index's view
+     * @return      the degree of <code>node</code>
+     */
+    public int getDegree(Node node);
+
+    /**
+     * Returns the sum of the weights of incoming edges and meta-edges of
+     * <code>node</code>.
+     * @param node  the node to query, must be in the index's view
+     * @return      the weighted in-degree of <code>node</code>
+     */
+    public double getWeightedInDegree(Node node);
+
+    /**
+     * Returns the sum of the weights of outgoing edges and meta-edges of
+     * <code>node</code>.
+     * @param node  the node to query, must be in the index's view
+     * @return      the weighted out-degree of <code>node</code>
+     */
+    public double getWeightedOutDegree(Node node);
+
+    /**
+     * Returns the sum of weighted in and out degrees of <code>node</code>.
+     * @param node  the node to query, must be in the index's view
+     * @return      the weighted degree of <code>node</code>
+     */
+    public double getWeightedDegree(Node node);
+
+    /**
+     * Returns the graph node version this index is up-to-date with.
+     * @return      the node version of the index
+     * @see Graph#getNodeVersion()
+     */
+    public int getNodeVersion();
+
+    /**
+     * Returns the graph edge version this index is up-to-date with.
+     * @return      the edge version of the index
+     * @see Graph#getEdgeVersion()
+     */
+    public int getEdgeVersion();
+}
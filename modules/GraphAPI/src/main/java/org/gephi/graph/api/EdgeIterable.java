@@ -78,4 +78,20 @@ public interface EdgeIterable extends Iterable<Edge> {
      * @return the iterator content as an array
      */
     public Edge[] toArray();
+
+    /**
+     * Splits the iteration in at most <code>parts</code> iterators over disjoint
+     * sets of edges, which can be consumed concurrently by different threads.
+     * This avoids copying all edges with <code>toArray()</code> before dispatching
+     * work to threads.
+     * <p>
+     * The returned iterators don't <b>unlock</b> the graph: the read lock is held
+     * by the calling thread during the whole parallel traversal. Once all
+     * iterators are consumed, the calling thread <b>must</b> call
+     * <code>doBreak()</code>. The iterator of this iterable is exhausted by this
+     * call and shouldn't be used anymore.
+     * @param parts the maximum number of iterators, typically the number of threads
+     * @return the iterators, at least one
+     */
+    public EdgeIterator[] split(int parts);
 }
@@ -98,6 +98,27 @@ public interface Graph extends Attributable {
      */
     public boolean addNode(Node node);
 
+    /**
+     * Add all <code>nodes</code> and <code>edges</code> to the graph in a single
+     * operation. Nodes are added first, so <code>edges</code> can link nodes
+     * given in <code>nodes</code>.
+     * <p>
+     * Prefer this method to successive calls to <code>addNode()</code> and
+     * <code>addEdge()</code> when loading large graphs: the structure is built
+     * at once and only one event is fired. Nodes already in the graph and
+     * edges that already exist are ignored. The graph is not modified if an
+     * exception is thrown.
+     * @param nodes the nodes to add, can be empty
+     * @param edges the edges to add, can be empty
+     * @return true if at least one node or edge has been added, false otherwise
+     * @throws IllegalArgumentException if a node or an edge is <code>null</code>,
+     * or if nodes are not legal nodes for an edge,
+     * or if an edge is directed when the graph is undirected,
+     * or if an edge is undirected when the graph is directed
+     * @throws IllegalMonitorStateException if the current thread is holding a read lock
+     */
+    public boolean addAll(Node[] nodes, Edge[] edges);
+
     /**
      * Remove <code>edge</code> from the graph.
      * Fails if the edge doesn't exist.
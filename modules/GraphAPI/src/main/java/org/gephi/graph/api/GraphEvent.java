@@ -55,7 +55,8 @@ package org.gephi.graph.api;
      * <tr><td><b>- DESTROY_VIEW:</b></td><td>A view is destroyed</td></tr>
      * <tr><td><b>- EXPAND:</b></td><td>Expand nodes in the hierarchy</td></tr>
      * <tr><td><b>- RETRACT:</b></td><td>Retract nodes in the hierarchy</td></tr>
-     * <tr><td><b>- META_EDGES_UPDATE</b></td><td>Meta-Edges are updated</td></tr></table>
+     * <tr><td><b>- META_EDGES_UPDATE</b></td><td>Meta-Edges are updated</td></tr>
+     * <tr><td><b>- IDS_UPDATE</b></td><td>Nodes and edges ids are renumbered</td></tr></table>
      *
      * @author Mathieu Bastian
      * @see GraphView
@@ -72,7 +73,8 @@ public interface GraphEvent {
      * <tr><td><b>- DESTROY_VIEW:</b></td><td>A view is destroyed</td></tr>
      * <tr><td><b>- EXPAND:</b></td><td>Expand nodes in the hierarchy</td></tr>
      * <tr><td><b>- RETRACT:</b></td><td>Retract nodes in the hierarchy</td></tr>
-     * <tr><td><b>- META_EDGES_UPDATE</b></td><td>Meta-Edges are updated</td></tr></table>
+     * <tr><td><b>- META_EDGES_UPDATE</b></td><td>Meta-Edges are updated</td></tr>
+     * <tr><td><b>- IDS_UPDATE</b></td><td>Nodes and edges ids are renumbered</td></tr></table>
      */
     public enum EventType {
 
@@ -84,7 +86,8 @@ public interface GraphEvent {
         DESTROY_VIEW,
         EXPAND,
         RETRACT,
-        META_EDGES_UPDATE
+        META_EDGES_UPDATE,
+        IDS_UPDATE
     };
 
     /**
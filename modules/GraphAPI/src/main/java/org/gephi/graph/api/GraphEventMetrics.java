@@ -0,0 +1,94 @@
+/*
+Copyright 2008-2010 Gephi
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+*/
+package org.gephi.graph.api;
+
+/**
+ * Live metrics of the delivery of graph events to {@link GraphListener}.
+ * Events are queued by writers and delivered on a dedicated thread, successive
+ * additions or removals being coalesced into a single event. These metrics
+ * tell how far listeners lag behind the graph.
+ * <p>
+ * Values are read when the methods are called, they change as events are
+ * queued and delivered.
+ * <h3>Wait for listeners to catch up</h3>
+ * <pre>
+ * GraphEventMetrics metrics = model.getEventMetrics();
+ * while (metrics.getQueueDepth() &gt; 0) {
+ *     Thread.sleep(10);
+ * }
+ * </pre>
+ *
+ * @see GraphModel#getEventMetrics()
+ */
+public interface GraphEventMetrics {
+
+    /**
+     * Returns the number of events waiting to be delivered. A coalesced batch
+     * counts for one.
+     * @return      the number of queued events
+     */
+    public int getQueueDepth();
+
+    /**
+     * Returns the number of nodes and edges in events waiting to be delivered.
+     * @return      the number of queued elements
+     */
+    public int getPendingElements();
+
+    /**
+     * Returns the time between the queuing of the last delivered event and the
+     * end of its delivery to listeners.
+     * @return      the last drain latency, in milliseconds
+     */
+    public long getLastDrainLatency();
+
+    /**
+     * Returns the maximum drain latency since the model was created.
+     * @return      the maximum drain latency, in milliseconds
+     */
+    public long getMaxDrainLatency();
+
+    /**
+     * Returns the number of events delivered since the model was created.
+     * @return      the number of delivered events
+     */
+    public long getDeliveredEvents();
+}
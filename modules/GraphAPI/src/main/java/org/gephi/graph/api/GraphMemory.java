@@ -0,0 +1,134 @@
+/*
+Copyright 2008-2010 Gephi
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+*/
+package org.gephi.graph.api;
+
+/**
+ * Estimation of the memory held by a graph model, broken down by subsystem.
+ * Values are in bytes and computed from the number of objects of each kind,
+ * assuming a 64-bit JVM with compressed references. They are not exact, but
+ * accurate enough to follow the footprint of a workspace over time, trigger
+ * alerts or decide when compacting is worth it.
+ * <p>
+ * The report is computed once, when returned by {@link GraphModel#getMemory()},
+ * and doesn't change afterwards.
+ * <h3>Warn when the graph grows too big</h3>
+ * <pre>
+ * GraphMemory memory = model.getMemory();
+ * if (memory.getTotalMemory() &gt; Runtime.getRuntime().maxMemory() / 2) {
+ *     //Alert
+ * }
+ * </pre>
+ *
+ * @see GraphModel#getMemory()
+ */
+public interface GraphMemory {
+
+    /**
+     * Returns the memory held by nodes in the main view, including their node
+     * data and their entry in the nodes dictionary.
+     * @return      the nodes memory, in bytes
+     */
+    public long getNodesMemory();
+
+    /**
+     * Returns the memory held by edges and meta-edges, including their edge
+     * data and their entry in the edges dictionary.
+     * @return      the edges memory, in bytes
+     */
+    public long getEdgesMemory();
+
+    /**
+     * Returns the overhead of the structures that index nodes and edges in the
+     * main view: the nodes tree and the adjacency trees or arrays of each node.
+     * @return      the trees memory, in bytes
+     */
+    public long getTreesMemory();
+
+    /**
+     * Returns the memory held by views other than the main view. Nodes and
+     * edges are shared between views, only the structure of each view is
+     * counted.
+     * @return      the views memory, in bytes
+     */
+    public long getViewsMemory();
+
+    /**
+     * Returns the memory held by node and edge attribute rows and their values,
+     * except strings, which are counted by {@link #getInternedStringsMemory()}.
+     * @return      the attribute values memory, in bytes
+     */
+    public long getAttributeValuesMemory();
+
+    /**
+     * Returns the memory held by the distinct string instances referenced by
+     * attribute values. Equal strings are shared by rows, each instance is
+     * counted once.
+     * @return      the strings memory, in bytes
+     */
+    public long getInternedStringsMemory();
+
+    /**
+     * Returns the number of distinct string instances referenced by attribute
+     * values.
+     * @return      the number of strings
+     */
+    public int getInternedStringsCount();
+
+    /**
+     * Returns the sum of all other values.
+     * @return      the total memory, in bytes
+     */
+    public long getTotalMemory();
+
+    /**
+     * Returns the graph node version at the time this report was computed.
+     * @return      the node version of the report
+     * @see Graph#getNodeVersion()
+     */
+    public int getNodeVersion();
+
+    /**
+     * Returns the graph edge version at the time this report was computed.
+     * @return      the edge version of the report
+     * @see Graph#getEdgeVersion()
+     */
+    public int getEdgeVersion();
+}
@@ -41,6 +41,7 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.graph.api;
 
+import java.util.BitSet;
 import org.gephi.project.api.Workspace;
 
 /**
@@ -104,6 +105,19 @@ public interface GraphModel {
      */
     public GraphView newView();
 
+    /**
+     * Create a new view by duplicating <b>main</b> view, without the nodes and
+     * edges which identifiers are set in <code>removedNodes</code> and
+     * <code>removedEdges</code>. The result is the same as calling
+     * <code>removeNode()</code> and <code>removeEdge()</code> on a new view, hence
+     * descendants of removed nodes are removed as well, but removed elements are
+     * never copied.
+     * @param removedNodes  node identifiers to remove, can be <code>null</code>
+     * @param removedEdges  edge identifiers to remove, can be <code>null</code>
+     * @return      a new graph view, obtained from duplicating main view
+     */
+    public GraphView newView(BitSet removedNodes, BitSet removedEdges);
+
     /**
      * Copy <code>view</code> to a new graph view. The new view contains all
      * nodes and edges present in <code>view</code>.
@@ -305,6 +319,66 @@ public interface GraphModel {
      */
     public HierarchicalMixedGraph getHierarchicalMixedGraph(GraphView view);
 
+    /**
+     * Returns an immutable snapshot of <code>view</code>, with nodes and edges
+     * stored in primitive arrays. The snapshot is built once per graph version
+     * and cached, so calling this method again while the graph and the edge
+     * weights are unchanged returns the same instance.
+     * <p>
+     * Building the snapshot requires the read lock, but reading it doesn't.
+     * @param view  the view to build the snapshot from
+     * @return      a snapshot of <code>view</code>
+     * @see GraphSnapshot
+     */
+    public GraphSnapshot getSnapshot(GraphView view);
+
+    /**
+     * Returns an estimation of the memory held by this model, broken down by
+     * subsystem. The report walks all nodes, edges and attribute rows of the
+     * model under the read lock, its cost is therefore linear in the size of
+     * the graph.
+     * @return      a memory report of this model
+     * @see GraphMemory
+     */
+    public GraphMemory getMemory();
+
+    /**
+     * Returns the metrics of the delivery of graph events to listeners, such
+     * as the number of queued events and the drain latency. The returned
+     * object is live, its values change as events are delivered.
+     * @return      the event metrics of this model
+     * @see GraphEventMetrics
+     */
+    public GraphEventMetrics getEventMetrics();
+
+    /**
+     * Returns the degrees of the nodes of <code>view</code>, stored in arrays
+     * indexed by node id. The index is cached per view and kept up-to-date
+     * when edges are added or removed, it's built again when the graph has
+     * been otherwise modified.
+     * <p>
+     * Building the index requires the read lock.
+     * @param view  the view to index, or <code>null</code> for the main view
+     * @return      the degree index of <code>view</code>
+     * @see DegreeIndex
+     */
+    public DegreeIndex getDegreeIndex(GraphView view);
+
+    /**
+     * Renumbers nodes and edges with consecutive ids starting at <code>1</code>,
+     * in the same order as their current ids. After many removals ids become
+     * sparse, compacting keeps arrays indexed by id small. New nodes and edges
+     * get ids following the compacted ones.
+     * <p>
+     * Ids previously obtained from <code>getId()</code> are invalid after this
+     * call, node and edge objects stay the same. Node and edge versions are
+     * incremented and a graph event of type <code>IDS_UPDATE</code> is fired.
+     * <p>
+     * Runs under the write lock, readers are blocked until all ids are updated.
+     * @see GraphSettings#ID_RECYCLING
+     */
+    public void compactIds();
+
     /**
      * Copy the graph structure from <code>graph</code> to this model. The
      * given <code>graph</code>must come from a different <code>GraphModel</code>,
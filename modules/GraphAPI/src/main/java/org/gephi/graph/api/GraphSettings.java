@@ -54,6 +54,24 @@ public interface GraphSettings {
      public static final String METAEDGE_BUILDER = "metaEdgeBuilder";
      public static final String METAEDGE_BUILDER_NONDEEP_DIVISOR = "metaEdgeBuilderNonDeepDivisor";
      public static final String DEFAULT_WEIGHT_ESTIMATOR = "defaultWeightEstimator";
+     /**
+      * Storage of nodes' adjacency, either <code>"tree"</code> (default) for AVL trees
+      * or <code>"array"</code> for sorted arrays, more compact but slower to modify.
+      */
+     public static final String EDGE_STORAGE = "edgeStorage";
+     /**
+      * <code>Boolean</code>, maintains a hash index of edges by (source, target) in every view,
+      * for constant time <code>getEdge(source, target)</code> and adjacency tests. Disabled by
+      * default. Each slot costs 12 bytes and the table is at most 60% full, so the index costs
+      * about 20 bytes per edge, and up to twice that right after it grows.
+      */
+     public static final String EDGE_INDEX = "edgeIndex";
+     /**
+      * <code>Boolean</code>, gives ids of removed nodes and edges to new nodes and edges, so ids
+      * stay dense when the graph is often modified. Disabled by default. Removed nodes and edges
+      * must not be added back to the graph when enabled.
+      */
+     public static final String ID_RECYCLING = "idRecycling";
 
      public void putClientProperty(String key, Object value);
 
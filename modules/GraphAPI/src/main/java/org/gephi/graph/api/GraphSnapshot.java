@@ -0,0 +1,184 @@
+/*
+Copyright 2008-2010 Gephi
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+*/
+package org.gephi.graph.api;
+
+/**
+ * Frozen, compact copy of a graph view's topology, laid out in <b>compressed
+ * sparse row</b> (CSR) arrays. Nodes are identified by a dense index between
+ * <code>0</code> and <code>getNodeCount() - 1</code>, and adjacency is stored
+ * twice: once as outgoing edges and once as incoming edges.
+ * <p>
+ * For a node at index <code>i</code>, its outgoing neighbours are the
+ * <code>getOutTargets()</code> values between <code>getOutOffsets()[i]</code>
+ * (inclusive) and <code>getOutOffsets()[i + 1]</code> (exclusive). The
+ * corresponding edge weights are found at the same positions in
+ * <code>getOutWeights()</code>. Incoming edges follow the same layout with
+ * <code>getInOffsets()</code>, <code>getInSources()</code> and
+ * <code>getInWeights()</code>.
+ * <p>
+ * The snapshot contains the nodes currently in the view, i.e. the enabled
+ * nodes of the hierarchy, and the edges and meta-edges between them. It is
+ * immutable and doesn't hold any lock, algorithms can therefore iterate it
+ * from any thread while the graph is being modified. Use
+ * {@link #getNodeVersion()} and {@link #getEdgeVersion()} to know if the
+ * snapshot is still up-to-date with the graph structure. Weights are those at
+ * the time the snapshot was built, <code>GraphModel.getSnapshot()</code>
+ * returns a new snapshot once an edge weight has been set.
+ * <p>
+ * <b>Note:</b> The arrays returned by this interface are not copied, they must
+ * not be modified.
+ * <h3>Iterate over neighbours</h3>
+ * <pre>
+ * GraphSnapshot snapshot = model.getSnapshot(model.getVisibleView());
+ * int[] offsets = snapshot.getOutOffsets();
+ * int[] targets = snapshot.getOutTargets();
+ * for (int i = 0; i &lt; snapshot.getNodeCount(); i++) {
+ *     for (int j = offsets[i]; j &lt; offsets[i + 1]; j++) {
+ *         int neighbour = targets[j];
+ *     }
+ * }
+ * </pre>
+ *
+ * @see GraphModel#getSnapshot(org.gephi.graph.api.GraphView)
+ */
+public interface GraphSnapshot {
+
+    /**
+     * Returns the view this snapshot has been built from.
+     * @return      the snapshot's view
+     */
+    public GraphView getView();
+
+    /**
+     * Returns the number of nodes in the snapshot.
+     * @return      the number of nodes
+     */
+    public int getNodeCount();
+
+    /**
+     * Returns the number of edges in the snapshot, including meta-edges.
+     * @return      the number of edges
+     */
+    public int getEdgeCount();
+
+    /**
+     * Returns the node at <code>index</code>.
+     * @param index the node index, between <code>0</code> and <code>getNodeCount() - 1</code>
+     * @return      the node at <code>index</code>
+     */
+    public Node getNode(int index);
+
+    /**
+     * Returns the index of <code>node</code> in this snapshot, or <code>-1</code>
+     * if the node is not in the snapshot.
+     * @param node  the node to look for
+     * @return      the node index or <code>-1</code>
+     */
+    public int getIndex(Node node);
+
+    /**
+     * Returns the out-degree of the node at <code>index</code>.
+     * @param index the node index
+     * @return      the number of outgoing edges
+     */
+    public int getOutDegree(int index);
+
+    /**
+     * Returns the in-degree of the node at <code>index</code>.
+     * @param index the node index
+     * @return      the number of incoming edges
+     */
+    public int getInDegree(int index);
+
+    /**
+     * Returns the outgoing edges offsets. The array length is
+     * <code>getNodeCount() + 1</code>.
+     * @return      the out offsets array
+     */
+    public int[] getOutOffsets();
+
+    /**
+     * Returns the outgoing edges targets indices. The array length is
+     * <code>getEdgeCount()</code>.
+     * @return      the out targets array
+     */
+    public int[] getOutTargets();
+
+    /**
+     * Returns the outgoing edges weights, aligned with <code>getOutTargets()</code>.
+     * @return      the out weights array
+     */
+    public float[] getOutWeights();
+
+    /**
+     * Returns the incoming edges offsets. The array length is
+     * <code>getNodeCount() + 1</code>.
+     * @return      the in offsets array
+     */
+    public int[] getInOffsets();
+
+    /**
+     * Returns the incoming edges sources indices. The array length is
+     * <code>getEdgeCount()</code>.
+     * @return      the in sources array
+     */
+    public int[] getInSources();
+
+    /**
+     * Returns the incoming edges weights, aligned with <code>getInSources()</code>.
+     * @return      the in weights array
+     */
+    public float[] getInWeights();
+
+    /**
+     * Returns the graph node version at the time this snapshot was built.
+     * @return      the node version of the snapshot
+     * @see Graph#getNodeVersion()
+     */
+    public int getNodeVersion();
+
+    /**
+     * Returns the graph edge version at the time this snapshot was built.
+     * @return      the edge version of the snapshot
+     * @see Graph#getEdgeVersion()
+     */
+    public int getEdgeVersion();
+}
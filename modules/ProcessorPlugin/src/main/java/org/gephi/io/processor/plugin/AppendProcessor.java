@@ -123,6 +123,16 @@ public class AppendProcessor extends AbstractProcessor implements Processor {
             dynamicController.setTimeFormat(container.getTimeFormat());
         }
 
+        //Value events of the imported rows are sent once per column
+        attributeModel.beginBatch();
+        try {
+            importGraph(graph, factory);
+        } finally {
+            attributeModel.commitBatch();
+        }
+    }
+
+    private void importGraph(HierarchicalGraph graph, GraphFactory factory) {
         //Index existing graph
         Map<String, Node> map = new HashMap<String, Node>();
         for (Node n : graph.getNodes()) {
@@ -41,6 +41,8 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.io.processor.plugin;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.gephi.data.attributes.api.AttributeController;
 import org.gephi.dynamic.api.DynamicController;
 import org.gephi.graph.api.Edge;
@@ -114,6 +116,16 @@ public class DefaultProcessor extends AbstractProcessor implements Processor {
             }
         }
 
+        //Value events of the imported rows are sent once per column
+        attributeModel.beginBatch();
+        try {
+            importGraph(graph, factory);
+        } finally {
+            attributeModel.commitBatch();
+        }
+    }
+
+    private void importGraph(HierarchicalGraph graph, GraphFactory factory) {
         int nodeCount = 0;
         //Create all nodes
         for (NodeDraftGetter draftNode : container.getNodes()) {
@@ -123,22 +135,29 @@ public class DefaultProcessor extends AbstractProcessor implements Processor {
             nodeCount++;
         }
 
-        //Push nodes in data structure
+        //Push nodes in data structure, top nodes at once
+        List<Node> topNodes = new ArrayList<Node>(nodeCount);
+        List<NodeDraftGetter> childNodes = new ArrayList<NodeDraftGetter>();
         for (NodeDraftGetter draftNode : container.getNodes()) {
+            if (draftNode.getParents() != null) {
+                childNodes.add(draftNode);
+            } else {
+                topNodes.add(draftNode.getNode());
+            }
+        }
+        graph.addAll(topNodes.toArray(new Node[0]), new Edge[0]);
+        for (NodeDraftGetter draftNode : childNodes) {
             Node n = draftNode.getNode();
             NodeDraftGetter[] parents = draftNode.getParents();
-            if (parents != null) {
-                for (int i = 0; i < parents.length; i++) {
-                    Node parent = parents[i].getNode();
-                    graph.addNode(n, parent);
-                }
-            } else {
-                graph.addNode(n);
+            for (int i = 0; i < parents.length; i++) {
+                Node parent = parents[i].getNode();
+                graph.addNode(n, parent);
             }
         }
 
         //Create all edges and push to data structure
         int edgeCount = 0;
+        List<Edge> edges = new ArrayList<Edge>();
         for (EdgeDraftGetter edge : container.getEdges()) {
             Node source = edge.getSource().getNode();
             Node target = edge.getTarget().getNode();
@@ -157,8 +176,9 @@ public class DefaultProcessor extends AbstractProcessor implements Processor {
 
             flushToEdge(edge, e);
             edgeCount++;
-            graph.addEdge(e);
+            edges.add(e);
         }
+        graph.addAll(new Node[0], edges.toArray(new Edge[0]));
 
         System.out.println("# Nodes loaded: " + nodeCount + "\n# Edges loaded: " + edgeCount);
         workspace = null;
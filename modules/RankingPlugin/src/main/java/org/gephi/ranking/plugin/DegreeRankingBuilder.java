@@ -41,10 +41,12 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.ranking.plugin;
 
+import org.gephi.graph.api.DegreeIndex;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphController;
 import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.api.Node;
+import org.gephi.graph.api.UndirectedGraph;
 import org.gephi.project.api.Workspace;
 import org.gephi.ranking.api.Ranking;
 import org.gephi.ranking.api.RankingModel;
@@ -93,6 +95,8 @@ public class DegreeRankingBuilder implements RankingBuilder {
     private static class DegreeRanking extends AbstractRanking<Node> {
 
         private final Graph graph;
+        private DegreeIndex degreeIndex;
+        private boolean degreeIndexFetched;
 
         public DegreeRanking(String elementType, GraphModel graphModel, RankingModel rankingModel) {
             super(elementType, Ranking.DEGREE_RANKING, rankingModel);
@@ -101,7 +105,29 @@ public class DegreeRankingBuilder implements RankingBuilder {
 
         @Override
         public Integer getValue(Node element) {
-            return graph.getDegree(element);
+            DegreeIndex index = getDegreeIndex();
+            if (index == null) {
+                return graph.getDegree(element);
+            }
+            int degree = index.getDegree(element);
+            if (graph instanceof UndirectedGraph) {
+                degree -= index.getMutualDegree(element);
+            }
+            return degree;
+        }
+
+        /**
+         * Returns the degree index of the ranked view, fetched once per ranking. The index also
+         * counts meta-edges, so it's only used when the graph has no hierarchy and degrees are the
+         * same as <code>Graph.getDegree()</code>. Returns <code>null</code> otherwise.
+         */
+        private DegreeIndex getDegreeIndex() {
+            if (!degreeIndexFetched) {
+                GraphModel graphModel = graph.getGraphModel();
+                degreeIndex = graphModel.isHierarchical() ? null : graphModel.getDegreeIndex(graph.getView());
+                degreeIndexFetched = true;
+            }
+            return degreeIndex;
         }
 
         @Override
@@ -51,11 +51,12 @@ import org.gephi.data.attributes.api.AttributeModel;
 import org.gephi.data.attributes.api.AttributeOrigin;
 import org.gephi.data.attributes.api.AttributeRow;
 import org.gephi.data.attributes.api.AttributeType;
+import org.gephi.graph.api.DegreeIndex;
 import org.gephi.graph.api.DirectedGraph;
 import org.gephi.graph.api.GraphModel;
-import org.gephi.graph.api.HierarchicalDirectedGraph;
 import org.gephi.graph.api.HierarchicalGraph;
 import org.gephi.graph.api.Node;
+import org.gephi.graph.api.UndirectedGraph;
 import org.gephi.statistics.spi.Statistics;
 import org.gephi.utils.longtask.spi.LongTask;
 import org.gephi.utils.progress.Progress;
@@ -136,16 +137,14 @@ public class Degree implements Statistics, LongTask {
 
         Progress.start(progress, graph.getNodeCount());
         
-        HierarchicalDirectedGraph directedGraph = null;
-        if(isDirected) {
-            directedGraph = graph.getGraphModel().getHierarchicalDirectedGraphVisible();
-        }
+        DegreeIndex degreeIndex = graph.getGraphModel().getDegreeIndex(graph.getView());
+        boolean isUndirected = graph instanceof UndirectedGraph;
 
         for (Node n : graph.getNodes()) {
             AttributeRow row = (AttributeRow) n.getNodeData().getAttributes();
             if (isDirected) {
-                int inDegree = directedGraph.getTotalInDegree(n);
-                int outDegree = directedGraph.getTotalOutDegree(n);
+                int inDegree = degreeIndex.getInDegree(n);
+                int outDegree = degreeIndex.getOutDegree(n);
                 row.setValue(inCol, inDegree);
                 row.setValue(outCol, outDegree);
                 if (!inDegreeDist.containsKey(inDegree)) {
@@ -157,7 +156,10 @@ public class Degree implements Statistics, LongTask {
                 }
                 outDegreeDist.put(outDegree, outDegreeDist.get(outDegree) + 1);
             }
-            int degree = graph.getTotalDegree(n);
+            int degree = degreeIndex.getDegree(n);
+            if (isUndirected) {
+                degree -= degreeIndex.getMutualDegree(n);
+            }
             row.setValue(degCol, degree);
             avgDegree += degree;
             if (!degreeDist.containsKey(degree)) {
@@ -232,10 +232,17 @@ public class PageRank implements Statistics, LongTask {
             pangeRanksCol = nodeTable.addColumn(PAGERANK, "PageRank", AttributeType.DOUBLE, AttributeOrigin.COMPUTED, new Double(0));
         }
 
+        AttributeRow[] rows = new AttributeRow[N];
         for (Node s : hgraph.getNodes()) {
             int s_index = indicies.get(s);
-            AttributeRow row = (AttributeRow) s.getNodeData().getAttributes();
-            row.setValue(pangeRanksCol, pageranks[s_index]);
+            rows[s_index] = (AttributeRow) s.getNodeData().getAttributes();
+        }
+        if (pangeRanksCol.getType() == AttributeType.DOUBLE) {
+            nodeTable.writeColumn(pangeRanksCol, rows, pageranks);
+        } else {
+            for (int i = 0; i < N; i++) {
+                rows[i].setValue(pangeRanksCol, pageranks[i]);
+            }
         }
 
         hgraph.readUnlockAll();
@@ -0,0 +1,237 @@
+/*
+Copyright 2008-2010 Gephi
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.commons.codec.binary.Base64;
+
+/**
+ * Reads binary data written by {@link BlockWriter}. A block is decompressed
+ * when the previous one has been consumed.
+ * <p>
+ * A reader created with {@link #BlockReader(javax.xml.stream.XMLStreamReader)}
+ * reads the blocks from the XML stream as they are needed. A reader returned by
+ * {@link #readBlocks(javax.xml.stream.XMLStreamReader)} reads them at once,
+ * still compressed, so the data can be decoded after the XML stream is closed.
+ */
+public final class BlockReader {
+
+    private final XMLStreamReader reader;
+    private final List<byte[]> blocks;
+    private final List<Integer> lengths;
+    private int nextBlock;
+    private Inflater inflater;
+    private byte[] buffer;
+    private int position;
+    private int limit;
+
+    /**
+     * Creates a reader of the blocks following the current position of
+     * <code>reader</code>, in the current element.
+     */
+    public BlockReader(XMLStreamReader reader) {
+        this(reader, null, null);
+    }
+
+    private BlockReader(XMLStreamReader reader, List<byte[]> blocks, List<Integer> lengths) {
+        this.reader = reader;
+        this.blocks = blocks;
+        this.lengths = lengths;
+        this.buffer = new byte[0];
+    }
+
+    /**
+     * Reads the blocks until the end of the current element, other elements
+     * are skipped.
+     */
+    public static BlockReader readBlocks(XMLStreamReader reader) throws XMLStreamException {
+        List<byte[]> blocks = new ArrayList<byte[]>();
+        List<Integer> lengths = new ArrayList<Integer>();
+        int depth = 0;
+        while (reader.hasNext()) {
+            int type = reader.next();
+            if (type == XMLStreamReader.START_ELEMENT) {
+                if (BlockWriter.ELEMENT_BLOCK.equalsIgnoreCase(reader.getLocalName())) {
+                    lengths.add(Integer.valueOf(reader.getAttributeValue(null, "length")));
+                    blocks.add(Base64.decodeBase64(reader.getElementText()));
+                } else {
+                    depth++;
+                }
+            } else if (type == XMLStreamReader.END_ELEMENT) {
+                if (depth-- == 0) {
+                    break;
+                }
+            }
+        }
+        return new BlockReader(null, blocks, lengths);
+    }
+
+    /**
+     * Reads an unsigned byte.
+     */
+    public int read() throws XMLStreamException {
+        if (position == limit) {
+            readBlock();
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    public int readVarInt() throws XMLStreamException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = read();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new XMLStreamException("Malformed varint");
+    }
+
+    public long readVarLong() throws XMLStreamException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = read();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new XMLStreamException("Malformed varint");
+    }
+
+    public int readZigZag() throws XMLStreamException {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public long readZigZagLong() throws XMLStreamException {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public float readFloat() throws XMLStreamException {
+        return Float.intBitsToFloat(read() << 24 | read() << 16 | read() << 8 | read());
+    }
+
+    public double readDouble() throws XMLStreamException {
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+            bits = bits << 8 | read();
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    public byte[] readBytes() throws XMLStreamException {
+        byte[] bytes = new byte[readVarInt()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) read();
+        }
+        return bytes;
+    }
+
+    public String readString() throws XMLStreamException {
+        return new String(readBytes(), BlockWriter.UTF8);
+    }
+
+    /**
+     * Releases the decompressor and the blocks not read yet.
+     */
+    public void close() {
+        if (inflater != null) {
+            inflater.end();
+            inflater = null;
+        }
+        if (blocks != null) {
+            blocks.clear();
+        }
+    }
+
+    private void readBlock() throws XMLStreamException {
+        int length;
+        byte[] data;
+        if (reader != null) {
+            length = -1;
+            data = null;
+            while (reader.hasNext()) {
+                int type = reader.next();
+                if (type == XMLStreamReader.START_ELEMENT && BlockWriter.ELEMENT_BLOCK.equalsIgnoreCase(reader.getLocalName())) {
+                    length = Integer.parseInt(reader.getAttributeValue(null, "length"));
+                    data = Base64.decodeBase64(reader.getElementText());
+                    break;
+                } else if (type == XMLStreamReader.END_ELEMENT) {
+                    break;
+                }
+            }
+        } else if (nextBlock < blocks.size()) {
+            length = lengths.get(nextBlock);
+            data = blocks.set(nextBlock++, null);
+        } else {
+            length = -1;
+            data = null;
+        }
+        if (data == null) {
+            throw new XMLStreamException("Unexpected end of binary data");
+        }
+        if (inflater == null) {
+            inflater = new Inflater();
+        }
+        if (buffer.length < length) {
+            buffer = new byte[length];
+        }
+        inflater.reset();
+        inflater.setInput(data);
+        try {
+            limit = inflater.inflate(buffer, 0, length);
+        } catch (DataFormatException ex) {
+            throw new XMLStreamException(ex);
+        }
+        if (limit != length) {
+            throw new XMLStreamException("Truncated block, " + limit + " bytes instead of " + length);
+        }
+        position = 0;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+Copyright 2008-2010 Gephi
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.utils;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import org.apache.commons.codec.binary.Base64;
+
+/**
+ * Writes binary data in an XML stream, as a sequence of <code>block</code>
+ * elements. Each block holds at most <code>BLOCK_SIZE</code> bytes, compressed
+ * independently and encoded in base64, so {@link BlockReader} only decompresses
+ * one block at a time. Integers are written as varints and strings in UTF-8.
+ * <p>
+ * The writer must be closed to write the last block.
+ *
+ * @see BlockReader
+ */
+public final class BlockWriter {
+
+    public static final String ELEMENT_BLOCK = "block";
+    public static final int BLOCK_SIZE = 1 << 20;
+    static final Charset UTF8 = Charset.forName("UTF-8");
+    private final XMLStreamWriter writer;
+    private final Deflater deflater;
+    private final byte[] buffer;
+    private byte[] compressed;
+    private int count;
+
+    public BlockWriter(XMLStreamWriter writer) {
+        this.writer = writer;
+        this.deflater = new Deflater(Deflater.BEST_SPEED);
+        this.buffer = new byte[BLOCK_SIZE];
+        this.compressed = new byte[BLOCK_SIZE / 2];
+    }
+
+    /**
+     * Writes the lowest 8 bits of <code>b</code>.
+     */
+    public void write(int b) throws XMLStreamException {
+        if (count == BLOCK_SIZE) {
+            writeBlock();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    /**
+     * Writes an unsigned value, values lower than 128 take a single byte.
+     */
+    public void writeVarInt(int value) throws XMLStreamException {
+        while ((value & ~0x7F) != 0) {
+            write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        write(value);
+    }
+
+    public void writeVarLong(long value) throws XMLStreamException {
+        while ((value & ~0x7FL) != 0) {
+            write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        write((int) value);
+    }
+
+    /**
+     * Writes a signed value, small absolute values take a single byte.
+     */
+    public void writeZigZag(int value) throws XMLStreamException {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    public void writeZigZag(long value) throws XMLStreamException {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public void writeFloat(float value) throws XMLStreamException {
+        int bits = Float.floatToIntBits(value);
+        write(bits >>> 24);
+        write(bits >>> 16);
+        write(bits >>> 8);
+        write(bits);
+    }
+
+    public void writeDouble(double value) throws XMLStreamException {
+        long bits = Double.doubleToLongBits(value);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            write((int) (bits >>> shift));
+        }
+    }
+
+    public void writeBytes(byte[] bytes) throws XMLStreamException {
+        writeVarInt(bytes.length);
+        for (int i = 0; i < bytes.length; i++) {
+            write(bytes[i]);
+        }
+    }
+
+    public void writeString(String value) throws XMLStreamException {
+        writeBytes(value.getBytes(UTF8));
+    }
+
+    /**
+     * Writes the last block and releases the compressor.
+     */
+    public void close() throws XMLStreamException {
+        if (count > 0) {
+            writeBlock();
+        }
+        deflater.end();
+    }
+
+    private void writeBlock() throws XMLStreamException {
+        deflater.reset();
+        deflater.setInput(buffer, 0, count);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+        writer.writeStartElement(ELEMENT_BLOCK);
+        writer.writeAttribute("length", String.valueOf(count));
+        writer.writeCharacters(Base64.encodeBase64String(Arrays.copyOf(compressed, length)));
+        writer.writeEndElement();
+        count = 0;
+    }
+}